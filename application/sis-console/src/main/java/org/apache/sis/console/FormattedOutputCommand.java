@@ -63,7 +63,7 @@ abstract class FormattedOutputCommand extends CommandRunner {
     /**
      * The output format.
      */
-    private final OutputFormat outputFormat;
+    final OutputFormat outputFormat;
 
     /**
      * The WKT convention, or {@code null} if it does not apply.
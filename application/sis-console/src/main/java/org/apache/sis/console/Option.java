@@ -24,7 +24,7 @@ import org.apache.sis.util.resources.Errors;
  * A command-line option.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 1.0
  * @since   0.3
  * @module
  */
@@ -44,6 +44,11 @@ enum Option {
      */
     FORMAT(true),
 
+    /**
+     * The input format. Examples: {@code "text"}, {@code "binary"}.
+     */
+    INPUT_FORMAT(true),
+
     /**
      * The locale for the output produced by the command.
      */
@@ -132,6 +137,7 @@ enum Option {
     static {
         SOURCE_CRS.label = "sourceCRS";
         TARGET_CRS.label = "targetCRS";
+        INPUT_FORMAT.label = "inputFormat";
     }
 
     /**
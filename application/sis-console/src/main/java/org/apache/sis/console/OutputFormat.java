@@ -24,7 +24,7 @@ import org.apache.sis.storage.DataStoreProvider;
  * The output format specified by the user as an option.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.0
  *
  * @see FormattedOutputCommand
  *
@@ -50,7 +50,13 @@ enum OutputFormat {
     /**
      * XML format used for GPS data exchange.
      */
-    GPX(org.apache.sis.internal.storage.gpx.StoreProvider.class);
+    GPX(org.apache.sis.internal.storage.gpx.StoreProvider.class),
+
+    /**
+     * Sequence of IEEE 754 double-precision values in little-endian byte order, without header.
+     * Used for coordinate values.
+     */
+    BINARY(null);
 
     /**
      * The provider class for this format.
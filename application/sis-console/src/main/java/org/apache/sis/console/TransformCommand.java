@@ -16,15 +16,26 @@
  */
 package org.apache.sis.console;
 
-import java.util.List;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.ArrayDeque;
 import java.util.EnumSet;
 import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.io.IOException;
+import java.io.EOFException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.LineNumberReader;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.text.NumberFormat;
 import javax.measure.Unit;
 import javax.measure.IncommensurableException;
@@ -77,13 +88,24 @@ import org.apache.sis.util.CharSequences;
 /**
  * The "transform" subcommand.
  * The output is a comma separated values (CSV) file, with {@code '#'} as the first character of comment lines.
+ * Alternatively, input and output can be raw sequences of IEEE 754 double-precision values in little-endian
+ * byte order, as specified by the {@code --inputFormat binary} and {@code --format binary} options.
+ *
+ * <p>Coordinates are streamed: they are read in blocks of {@value #BLOCK_SIZE} points, each block is transformed
+ * by a single call to the bulk {@link MathTransform#transform(double[], int, double[], int, int)} method and
+ * blocks are processed in parallel, but written in the same order than they were read.</p>
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.0
  * @since   0.7
  * @module
  */
 final class TransformCommand extends FormattedOutputCommand {
+    /**
+     * Maximal number of points to read, transform and write in a single block.
+     */
+    static final int BLOCK_SIZE = 4096;
+
     /**
      * The coordinate operation from the given source CRS to target CRS.
      */
@@ -94,6 +116,36 @@ final class TransformCommand extends FormattedOutputCommand {
      */
     private MathTransform toDomainOfValidity;
 
+    /**
+     * The domain of validity of {@link #operation} in the target CRS of {@link #toDomainOfValidity},
+     * or {@code null} if points shall not be checked for inclusion in the domain of validity.
+     */
+    private ImmutableEnvelope domainOfValidity;
+
+    /**
+     * The message to append after coordinates outside {@link #domainOfValidity}.
+     */
+    private String outsideDomainText;
+
+    /**
+     * Whether the input is a sequence of little-endian {@code double} values instead than text.
+     */
+    private final boolean binaryInput;
+
+    /**
+     * Whether the output is a sequence of little-endian {@code double} values instead than text.
+     * In such case, no header and no warning about the domain of validity are written.
+     */
+    private final boolean binaryOutput;
+
+    /**
+     * Where to write the coordinates if {@link #binaryOutput} is {@code true}. This is the standard output stream,
+     * except during JUnit tests where the bytes are collected in a {@link ByteArrayOutputStream}.
+     *
+     * @see #outputBuffer
+     */
+    final OutputStream binaryStream;
+
     /**
      * Resources for {@link #printHeader(short)}.
      */
@@ -132,22 +184,34 @@ final class TransformCommand extends FormattedOutputCommand {
     /**
      * The cause of {@link #errorMessage}, or {@code null} if none.
      */
-    private NumberFormatException errorCause;
+    private Exception errorCause;
 
     /**
      * Returns valid options for the {@code "transform"} commands.
      */
     private static EnumSet<Option> options() {
-        return EnumSet.of(Option.SOURCE_CRS, Option.TARGET_CRS, Option.VERBOSE,
+        return EnumSet.of(Option.SOURCE_CRS, Option.TARGET_CRS, Option.FORMAT, Option.INPUT_FORMAT, Option.VERBOSE,
                 Option.LOCALE, Option.TIMEZONE, Option.ENCODING, Option.COLORS, Option.HELP, Option.DEBUG);
     }
 
     /**
      * Creates the {@code "transform"} sub-command.
      */
+    @SuppressWarnings("UseOfSystemOutOrSystemErr")
     TransformCommand(final int commandIndex, final String... args) throws InvalidOptionException {
-        super(commandIndex, args, options(), OutputFormat.WKT, OutputFormat.TEXT);
+        super(commandIndex, args, options(), OutputFormat.WKT, OutputFormat.TEXT, OutputFormat.BINARY);
         resources = Vocabulary.getResources(locale);
+        binaryOutput = (outputFormat == OutputFormat.BINARY);
+        binaryStream = (outputBuffer != null) ? new ByteArrayOutputStream() : System.out;
+        final String format = options.get(Option.INPUT_FORMAT);
+        if (format == null || format.equalsIgnoreCase("text")) {
+            binaryInput = false;
+        } else if (format.equalsIgnoreCase("binary")) {
+            binaryInput = true;
+        } else {
+            final String name = Option.INPUT_FORMAT.label();
+            throw new InvalidOptionException(Errors.format(Errors.Keys.IllegalOptionValue_2, name, format), name);
+        }
     }
 
     /**
@@ -195,64 +259,69 @@ final class TransformCommand extends FormattedOutputCommand {
         final CoordinateReferenceSystem sourceCRS = fetchCRS(Option.SOURCE_CRS);
         final CoordinateReferenceSystem targetCRS = fetchCRS(Option.TARGET_CRS);
         /*
-         * Read all coordinates, so we can compute the area of interest.
-         * This will be used when searching for a coordinate operation.
+         * Read only the first block of coordinates, so we can compute the area of interest from a sample of
+         * the points. This will be used when searching for a coordinate operation. The remaining blocks will
+         * be read later, so we never need to hold the whole input in memory.
          */
         GeographicBoundingBox areaOfInterest = null;
-        List<double[]> points = Collections.emptyList();
         final boolean useStandardInput = useStandardInput();
-        if (useStandardInput || !files.isEmpty()) {
-            if (useStandardInput) {
-                try (LineNumberReader in = new LineNumberReader(new InputStreamReader(System.in, encoding))) {
-                    points = readCoordinates(in, "stdin");
-                }
-            } else {
-                for (final String file : files) {
-                    try (LineNumberReader in = new LineNumberReader(new InputStreamReader(new FileInputStream(file), encoding))) {
-                        points = readCoordinates(in, file);
+        try (CoordinateInput input = (useStandardInput || !files.isEmpty())
+                ? new CoordinateInput(sourceCRS, useStandardInput) : null)
+        {
+            Block first = null;
+            if (input != null) {
+                first = input.next();
+                try {
+                    final GeographicCRS domainOfValidityCRS = ReferencingUtilities.toNormalizedGeographicCRS(sourceCRS);
+                    if (domainOfValidityCRS != null) {
+                        toDomainOfValidity = CRS.findOperation(sourceCRS, domainOfValidityCRS, null).getMathTransform();
+                        if (first != null) {
+                            areaOfInterest = computeAreaOfInterest(first);
+                        }
                     }
+                } catch (FactoryException e) {
+                    warning(e);
                 }
             }
-            try {
-                final GeographicCRS domainOfValidityCRS = ReferencingUtilities.toNormalizedGeographicCRS(sourceCRS);
-                if (domainOfValidityCRS != null) {
-                    toDomainOfValidity = CRS.findOperation(sourceCRS, domainOfValidityCRS, null).getMathTransform();
-                    areaOfInterest = computeAreaOfInterest(points);
+            operation = CRS.findOperation(sourceCRS, targetCRS, areaOfInterest);
+            /*
+             * Prints the header: source CRS, target CRS, operation steps and positional accuracy.
+             * The header is omitted in binary output, since it would corrupt the stream of numbers.
+             */
+            if (!binaryOutput) {
+                outHeader = new TableAppender(new LineAppender(out), " ");
+                outHeader.setMultiLinesCells(true);
+                printHeader(Vocabulary.Keys.Source);      printNameAndIdentifier(operation.getSourceCRS(), false);
+                printHeader(Vocabulary.Keys.Destination); printNameAndIdentifier(operation.getTargetCRS(), false);
+                printHeader(Vocabulary.Keys.Operations);  printOperations (operation, false);
+                outHeader.nextLine();
+                printDomainOfValidity(operation.getDomainOfValidity());
+                printAccuracy(CRS.getLinearAccuracy(operation));
+                if (options.containsKey(Option.VERBOSE)) {
+                    printDetails();
                 }
-            } catch (FactoryException e) {
-                warning(e);
+                outHeader.flush();
+                outHeader = null;
+            }
+            /*
+             * At this point we finished to write the header. If there is at least one input file,
+             * compute the number of digits to format and perform the actual coordinate operations.
+             */
+            if (first != null) {
+                if (!binaryOutput) {
+                    ordinateWidth    = 15;                                  // Must be set before computeNumFractionDigits(…).
+                    coordinateFormat = NumberFormat.getInstance(Locale.US);
+                    coordinateFormat.setGroupingUsed(false);
+                    computeNumFractionDigits(operation.getTargetCRS().getCoordinateSystem());
+                    out.println();
+                    printAxes(operation.getTargetCRS().getCoordinateSystem());
+                    out.println();
+                }
+                transform(first, input);
+            }
+            if (input != null && input.failure != null) {
+                throw input.failure;
             }
-        }
-        operation = CRS.findOperation(sourceCRS, targetCRS, areaOfInterest);
-        /*
-         * Prints the header: source CRS, target CRS, operation steps and positional accuracy.
-         */
-        outHeader = new TableAppender(new LineAppender(out), " ");
-        outHeader.setMultiLinesCells(true);
-        printHeader(Vocabulary.Keys.Source);      printNameAndIdentifier(operation.getSourceCRS(), false);
-        printHeader(Vocabulary.Keys.Destination); printNameAndIdentifier(operation.getTargetCRS(), false);
-        printHeader(Vocabulary.Keys.Operations);  printOperations (operation, false);
-        outHeader.nextLine();
-        printDomainOfValidity(operation.getDomainOfValidity());
-        printAccuracy(CRS.getLinearAccuracy(operation));
-        if (options.containsKey(Option.VERBOSE)) {
-            printDetails();
-        }
-        outHeader.flush();
-        outHeader = null;
-        /*
-         * At this point we finished to write the header. If there is at least one input file,
-         * compute the number of digits to format and perform the actual coordinate operations.
-         */
-        if (!points.isEmpty()) {
-            ordinateWidth    = 15;                                      // Must be set before computeNumFractionDigits(…).
-            coordinateFormat = NumberFormat.getInstance(Locale.US);
-            coordinateFormat.setGroupingUsed(false);
-            computeNumFractionDigits(operation.getTargetCRS().getCoordinateSystem());
-            out.println();
-            printAxes(operation.getTargetCRS().getCoordinateSystem());
-            out.println();
-            transform(points);
             if (errorMessage != null) {
                 error(errorMessage, errorCause);
             }
@@ -436,10 +505,11 @@ final class TransformCommand extends FormattedOutputCommand {
     }
 
     /**
-     * Prints a quoted text in the given color.
+     * Appends a quoted text in the given color.
      * If the given text contains the quote character, it will be escaped.
+     * This method is invoked from worker threads, so it shall not write directly to {@link #out}.
      */
-    private void printQuotedText(String text, int fieldWidth, final X364 color) {
+    private void appendQuotedText(final StringBuilder buffer, String text, int fieldWidth, final X364 color) {
         final boolean quoted;
         if (text.indexOf('"') >= 0) {
             text = text.replace("\"", "\"\"");
@@ -448,12 +518,12 @@ final class TransformCommand extends FormattedOutputCommand {
             quoted = (text.indexOf(',') >= 0);
         }
         if (quoted) fieldWidth -= 2;
-        out.print(CharSequences.spaces(fieldWidth - text.length()));
-        if (colors) out.print(color.sequence());
-        if (quoted) out.print('"');
-        out.print(text);
-        if (quoted) out.print('"');
-        if (colors) out.print(X364.FOREGROUND_DEFAULT.sequence());
+        buffer.append(CharSequences.spaces(fieldWidth - text.length()));
+        if (colors) buffer.append(color.sequence());
+        if (quoted) buffer.append('"');
+        buffer.append(text);
+        if (quoted) buffer.append('"');
+        if (colors) buffer.append(X364.FOREGROUND_DEFAULT.sequence());
     }
 
     /*
@@ -465,9 +535,10 @@ final class TransformCommand extends FormattedOutputCommand {
      */
     private void printAxes(final CoordinateSystem cs) {
         final int targetDim = cs.getDimension();
+        final StringBuilder buffer = new StringBuilder();
         for (int i=0; i<targetDim; i++) {
             if (i != 0) {
-                out.print(',');
+                buffer.append(',');
             }
             final CoordinateSystemAxis axis = cs.getAxis(i);
             String name =  axis.getName().getCode();
@@ -476,8 +547,9 @@ final class TransformCommand extends FormattedOutputCommand {
             if (!unit.isEmpty()) {
                 name = name + " (" + unit + ')';
             }
-            printQuotedText(name, ordinateWidth, X364.FOREGROUND_CYAN);
+            appendQuotedText(buffer, name, ordinateWidth, X364.FOREGROUND_CYAN);
         }
+        out.print(buffer);
     }
 
     /**
@@ -512,133 +584,404 @@ final class TransformCommand extends FormattedOutputCommand {
     }
 
     /**
-     * Reads all coordinates.
-     * This method ignores empty and comment lines.
+     * Computes the geographic area of interest from the given block of points.
+     * This is typically the first block read, used as a sample of the whole input.
+     */
+    private GeographicBoundingBox computeAreaOfInterest(final Block block) {
+        final int dimension = toDomainOfValidity.getTargetDimensions();
+        if (dimension >= 2) {
+            double xmin = Double.POSITIVE_INFINITY;
+            double ymin = Double.POSITIVE_INFINITY;
+            double xmax = Double.NEGATIVE_INFINITY;
+            double ymax = Double.NEGATIVE_INFINITY;
+            final double[] domainCoordinates = transformToDomain(block.coordinates, block.count);
+            for (int i=0; i < domainCoordinates.length; i += dimension) {
+                final double x = domainCoordinates[i];
+                final double y = domainCoordinates[i+1];
+                if (x < xmin) xmin = x;                 // Comparisons with NaN are always false.
+                if (x > xmax) xmax = x;
+                if (y < ymin) ymin = y;
+                if (y > ymax) ymax = y;
+            }
+            if (xmin < xmax && ymin < ymax) {
+                return new DefaultGeographicBoundingBox(xmin, xmax, ymin, ymax);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Transforms the given points to the CRS of the domain of validity with a single call to the bulk
+     * transform method. If that call fails, the points are transformed individually and the ones that
+     * can not be transformed are set to NaN, which is considered as outside the domain of validity.
+     * This method may be invoked from worker threads.
      *
-     * @param  in        the stream from where to read coordinates.
-     * @param  filename  the filename, for error reporting only.
-     * @return the coordinate values.
+     * @param  coordinates  the coordinates to transform.
+     * @param  count        number of points to transform.
+     * @return the transformed coordinates, with NaN values for the points that can not be transformed.
      */
-    private List<double[]> readCoordinates(final LineNumberReader in, final String filename) throws IOException {
-        final List<double[]> points = new ArrayList<>();
+    private double[] transformToDomain(final double[] coordinates, final int count) {
+        final int srcDim = toDomainOfValidity.getSourceDimensions();
+        final int tgtDim = toDomainOfValidity.getTargetDimensions();
+        final double[] domainCoordinates = new double[count * tgtDim];
         try {
-            String line;
-            while ((line = in.readLine()) != null) {
-                final int start = CharSequences.skipLeadingWhitespaces(line, 0, line.length());
-                if (start < line.length() && line.charAt(start) != '#') {
-                    points.add(CharSequences.parseDoubles(line, ','));
+            toDomainOfValidity.transform(coordinates, 0, domainCoordinates, 0, count);
+        } catch (TransformException e) {
+            warning(e);
+            for (int i=0; i<count; i++) {
+                try {
+                    toDomainOfValidity.transform(coordinates, i*srcDim, domainCoordinates, i*tgtDim, 1);
+                } catch (TransformException f) {
+                    Arrays.fill(domainCoordinates, i*tgtDim, (i+1)*tgtDim, Double.NaN);
                 }
             }
-        } catch (NumberFormatException e) {
-            errorMessage = Errors.format(Errors.Keys.ErrorInFileAtLine_2, filename, in.getLineNumber());
-            errorCause = e;
         }
-        return points;
+        return domainCoordinates;
     }
 
     /**
-     * Computes the geographic area of interest from the given points.
-     * This method ignores the points having an unexpected number of dimensions since it is not this
-     * method's job to report those issues (they will be reported by {@link #transform(List)} instead.
+     * Transforms the given block of coordinates, then all remaining blocks of the given input.
+     * Each block is transformed and formatted in a background thread, but the results are written
+     * in the order the blocks were read. The number of blocks in progress is bounded for keeping
+     * memory usage independent of the input size.
+     *
+     * @param  block  the first block of coordinates.
+     * @param  input  the input from which to read the remaining blocks.
      */
-    private GeographicBoundingBox computeAreaOfInterest(final List<double[]> points) {
-        final int dimension = toDomainOfValidity.getSourceDimensions();
-        final double[] domainCoordinate = new double[toDomainOfValidity.getTargetDimensions()];
-        if (domainCoordinate.length >= 2) {
-            double xmin = Double.POSITIVE_INFINITY;
-            double ymin = Double.POSITIVE_INFINITY;
-            double xmax = Double.NEGATIVE_INFINITY;
-            double ymax = Double.NEGATIVE_INFINITY;
-            for (final double[] coordinates : points) {
-                if (coordinates.length == dimension) {
-                    try {
-                        toDomainOfValidity.transform(coordinates, 0, domainCoordinate, 0, 1);
-                    } catch (TransformException e) {
-                        warning(e);
-                        continue;
-                    }
-                    final double x = domainCoordinate[0];
-                    final double y = domainCoordinate[1];
-                    if (x < xmin) xmin = x;
-                    if (x > xmax) xmax = x;
-                    if (y < ymin) ymin = y;
-                    if (y > ymax) ymax = y;
+    private void transform(Block block, final CoordinateInput input) throws IOException, TransformException {
+        final GeographicBoundingBox bbox;
+        if (!binaryOutput && toDomainOfValidity != null && (bbox = CRS.getGeographicBoundingBox(operation)) != null) {
+            domainOfValidity  = new ImmutableEnvelope(bbox);
+            outsideDomainText = Errors.getResources(locale).getString(Errors.Keys.OutsideDomainOfValidity);
+        }
+        final ForkJoinPool executor = ForkJoinPool.commonPool();
+        final int maxPending = 2 * Runtime.getRuntime().availableProcessors();
+        final Deque<ForkJoinTask<Block>> pending = new ArrayDeque<>(maxPending);
+        try {
+            do {
+                if (pending.size() >= maxPending) {
+                    write(pending.removeFirst().join());
                 }
+                pending.addLast(executor.submit(block));
+            } while ((block = input.next()) != null);
+            while (!pending.isEmpty()) {
+                write(pending.removeFirst().join());
             }
-            if (xmin < xmax && ymin < ymax) {
-                return new DefaultGeographicBoundingBox(xmin, xmax, ymin, ymax);
+        } finally {
+            for (final ForkJoinTask<Block> task : pending) {
+                task.cancel(false);
+            }
+            if (binaryOutput) {
+                binaryStream.flush();
             }
         }
-        return null;
     }
 
     /**
-     * Transforms the given coordinates.
+     * Writes the result of the given block, then throws the exception which interrupted its
+     * transformation (if any). Since blocks are written in order, the exception is thrown
+     * after all coordinates preceding the failure have been written.
      */
-    private void transform(final List<double[]> points) throws TransformException {
-        final int dimension    = operation.getSourceCRS().getCoordinateSystem().getDimension();
-        final MathTransform mt = operation.getMathTransform();
-        final double[] result  = new double[mt.getTargetDimensions()];
-        final double[] domainCoordinate;
-        final DirectPositionView positionInDomain;
-        final ImmutableEnvelope domainOfValidity;
-        final GeographicBoundingBox bbox;
-        if (toDomainOfValidity != null && (bbox = CRS.getGeographicBoundingBox(operation)) != null) {
-            domainOfValidity = new ImmutableEnvelope(bbox);
-            domainCoordinate = new double[toDomainOfValidity.getTargetDimensions()];
-            positionInDomain = new DirectPositionView.Double(domainCoordinate, 0, domainCoordinate.length);
+    private void write(final Block block) throws IOException, TransformException {
+        if (block.output instanceof byte[]) {
+            binaryStream.write((byte[]) block.output);      // Intentionally use OutputStream instead than Writer.
         } else {
-            domainOfValidity = null;
-            domainCoordinate = null;
-            positionInDomain = null;
+            out.print((String) block.output);
         }
-        for (final double[] coordinates : points) {
-            if (coordinates.length != dimension) {
-                throw new MismatchedDimensionException(Errors.format(Errors.Keys.MismatchedDimensionForCRS_3,
-                            operation.getSourceCRS().getName().getCode(), dimension, coordinates.length));
+        if (block.failure != null) {
+            throw block.failure;
+        }
+    }
+
+    /**
+     * A block of at most {@value #BLOCK_SIZE} source coordinates, together with the transformed and formatted
+     * result once the block has been {@linkplain #call() processed}. Blocks are processed in worker threads,
+     * so they use only thread-safe or immutable objects from the enclosing command.
+     */
+    private final class Block implements Callable<Block> {
+        /**
+         * The source coordinates, as (<var>x</var>,<var>y</var>,<var>z</var>,…) tuples.
+         */
+        final double[] coordinates;
+
+        /**
+         * Number of points in the {@link #coordinates} array.
+         */
+        int count;
+
+        /**
+         * The transformed coordinates as a {@link String} or a {@code byte[]} array
+         * (for binary output), or {@code null} if not yet computed.
+         */
+        Object output;
+
+        /**
+         * The exception which stopped the transformation of this block, or {@code null} if none.
+         * Only the points before the failure are included in {@link #output}.
+         */
+        TransformException failure;
+
+        /**
+         * Creates a new block for points having the given number of dimensions.
+         */
+        Block(final int dimension) {
+            coordinates = new double[BLOCK_SIZE * dimension];
+        }
+
+        /**
+         * Transforms all coordinates with a single call to the bulk transform method, then formats the result.
+         * If the bulk transformation fails, this method transforms the points one-by-one in order to find the
+         * first point that can not be transformed, which is reported after the preceding points are written.
+         *
+         * @return {@code this}.
+         */
+        @Override
+        public Block call() {
+            final MathTransform mt = operation.getMathTransform();
+            final int srcDim = mt.getSourceDimensions();
+            final int tgtDim = mt.getTargetDimensions();
+            final double[] result = new double[count * tgtDim];
+            int n = count;
+            try {
+                mt.transform(coordinates, 0, result, 0, n);
+            } catch (TransformException e) {
+                for (n=0; n<count; n++) {
+                    try {
+                        mt.transform(coordinates, n*srcDim, result, n*tgtDim, 1);
+                    } catch (TransformException f) {
+                        failure = f;
+                        break;
+                    }
+                }
+            }
+            if (binaryOutput) {
+                final ByteBuffer buffer = ByteBuffer.allocate(n * tgtDim * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                buffer.asDoubleBuffer().put(result, 0, n * tgtDim);
+                output = buffer.array();
+                return this;
             }
             /*
-             * At this point we got the coordinates and they have the expected number of dimensions.
-             * Now perform the coordinate operation and print each ordinate values.  We will switch
-             * to scientific notation if the coordinate is much larger than expected.
+             * Format each ordinate value. We will switch to scientific notation if the coordinate
+             * is much larger than expected. The number format is not thread-safe, so we use a copy.
              */
-            mt.transform(coordinates, 0, result, 0, 1);
-            for (int i=0; i<result.length; i++) {
-                if (i != 0) {
-                    out.print(',');
+            final NumberFormat format = (NumberFormat) coordinateFormat.clone();
+            final String lineSeparator = System.lineSeparator();
+            final StringBuilder buffer = new StringBuilder(n * (tgtDim * (ordinateWidth + 1) + lineSeparator.length()));
+            DirectPositionView positionInDomain = null;
+            if (domainOfValidity != null) {
+                final double[] domainCoordinates = transformToDomain(coordinates, n);
+                positionInDomain = new DirectPositionView.Double(domainCoordinates, 0, toDomainOfValidity.getTargetDimensions());
+            }
+            for (int p=0; p<n; p++) {
+                for (int i=0; i<tgtDim; i++) {
+                    if (i != 0) {
+                        buffer.append(',');
+                    }
+                    final double value = result[p*tgtDim + i];
+                    final String s;
+                    if (Math.abs(value) >= thresholdForScientificNotation[i]) {
+                        s = Double.toString(value);
+                    } else {
+                        format.setMinimumFractionDigits(numFractionDigits[i]);
+                        format.setMaximumFractionDigits(numFractionDigits[i]);
+                        s = format.format(value);
+                    }
+                    buffer.append(CharSequences.spaces(ordinateWidth - s.length())).append(s);
                 }
-                final double value = result[i];
-                final String s;
-                if (Math.abs(value) >= thresholdForScientificNotation[i]) {
-                    s = Double.toString(value);
-                } else {
-                    coordinateFormat.setMinimumFractionDigits(numFractionDigits[i]);
-                    coordinateFormat.setMaximumFractionDigits(numFractionDigits[i]);
-                    s = coordinateFormat.format(value);
+                /*
+                 * Append a warning after the transformed coordinate values if the source coordinate was outside
+                 * the domain of validity. A failure to perform a coordinate transformation is also considered as
+                 * being out of the domain of valididty.
+                 */
+                if (positionInDomain != null) {
+                    positionInDomain.offset = p * positionInDomain.getDimension();
+                    if (!domainOfValidity.contains(positionInDomain)) {
+                        buffer.append(",    ");
+                        appendQuotedText(buffer, outsideDomainText, 0, X364.FOREGROUND_RED);
+                    }
                 }
-                out.print(CharSequences.spaces(ordinateWidth - s.length()));
-                out.print(s);
+                buffer.append(lineSeparator);
             }
-            /*
-             * Append a warning after the transformed coordinate values if the source coordinate was outside
-             * the domain of validity. A failure to perform a coordinate transformation is also considered as
-             * being out of the domain of valididty.
-             */
-            if (domainOfValidity != null) {
-                boolean inside;
-                try {
-                    toDomainOfValidity.transform(coordinates, 0, domainCoordinate, 0, 1);
-                    inside = domainOfValidity.contains(positionInDomain);
-                } catch (TransformException e) {
-                    inside = false;
-                    warning(e);
+            output = buffer.toString();
+            return this;
+        }
+    }
+
+    /**
+     * Reads coordinates in blocks of at most {@value #BLOCK_SIZE} points from the standard input stream
+     * or from all files given in argument, in that order. Text input ignores empty and comment lines.
+     * Binary input is a sequence of little-endian {@code double} values.
+     */
+    private final class CoordinateInput implements AutoCloseable {
+        /**
+         * Number of dimensions of source coordinates.
+         */
+        private final int dimension;
+
+        /**
+         * Name of the source CRS, for error reporting only.
+         */
+        private final String crsName;
+
+        /**
+         * Whether to read the standard input stream instead than the {@link #files}.
+         */
+        private final boolean useStandardInput;
+
+        /**
+         * Index of the next file to open.
+         */
+        private int fileIndex;
+
+        /**
+         * The name of the current input, for error reporting only.
+         */
+        private String filename;
+
+        /**
+         * The current text input, or {@code null} if none.
+         */
+        private LineNumberReader text;
+
+        /**
+         * The current binary input, or {@code null} if none.
+         */
+        private ReadableByteChannel binary;
+
+        /**
+         * Buffer for binary input, created when first needed.
+         */
+        private ByteBuffer buffer;
+
+        /**
+         * Set to {@code true} when reading must stop because of an error.
+         */
+        private boolean stopped;
+
+        /**
+         * Set if a line has an unexpected number of dimensions. This exception shall be thrown
+         * after the coordinates preceding that line have been transformed and written.
+         */
+        MismatchedDimensionException failure;
+
+        /**
+         * Prepares to read coordinates in the given coordinate reference system.
+         */
+        CoordinateInput(final CoordinateReferenceSystem sourceCRS, final boolean useStandardInput) {
+            dimension = sourceCRS.getCoordinateSystem().getDimension();
+            crsName   = sourceCRS.getName().getCode();
+            this.useStandardInput = useStandardInput;
+        }
+
+        /**
+         * Opens the next input. Returns {@code false} if there is no more input.
+         */
+        private boolean open() throws IOException {
+            final InputStream in;
+            if (useStandardInput) {
+                if (fileIndex++ != 0) return false;
+                filename = "stdin";
+                in = System.in;
+            } else {
+                if (fileIndex >= files.size()) return false;
+                filename = files.get(fileIndex++);
+                in = new FileInputStream(filename);
+            }
+            if (binaryInput) {
+                binary = Channels.newChannel(in);
+            } else {
+                text = new LineNumberReader(new InputStreamReader(in, encoding));
+            }
+            return true;
+        }
+
+        /**
+         * Reads the next block of coordinates. Blocks never span more than one input file.
+         *
+         * @return the next block, or {@code null} if there is no more coordinates to read.
+         */
+        Block next() throws IOException {
+            while (!stopped) {
+                if (text == null && binary == null && !open()) {
+                    break;
+                }
+                final Block block = new Block(dimension);
+                if (binaryInput) {
+                    readBinary(block);
+                } else {
+                    readText(block);
+                }
+                if (block.count != 0) {
+                    return block;
                 }
-                if (!inside) {
-                    out.print(",    ");
-                    printQuotedText(Errors.getResources(locale).getString(Errors.Keys.OutsideDomainOfValidity), 0, X364.FOREGROUND_RED);
+                close();
+            }
+            return null;
+        }
+
+        /**
+         * Reads lines of text until the given block is full or the end of current input is reached.
+         */
+        private void readText(final Block block) throws IOException {
+            try {
+                String line;
+                while (block.count < BLOCK_SIZE && (line = text.readLine()) != null) {
+                    final int start = CharSequences.skipLeadingWhitespaces(line, 0, line.length());
+                    if (start < line.length() && line.charAt(start) != '#') {
+                        final double[] coordinates = CharSequences.parseDoubles(line, ',');
+                        if (coordinates.length != dimension) {
+                            failure = new MismatchedDimensionException(Errors.format(Errors.Keys.MismatchedDimensionForCRS_3,
+                                        crsName, dimension, coordinates.length));
+                            stopped = true;
+                            break;
+                        }
+                        System.arraycopy(coordinates, 0, block.coordinates, block.count * dimension, dimension);
+                        block.count++;
+                    }
                 }
+            } catch (NumberFormatException e) {
+                errorMessage = Errors.format(Errors.Keys.ErrorInFileAtLine_2, filename, text.getLineNumber());
+                errorCause = e;
+                stopped = true;
+            }
+        }
+
+        /**
+         * Reads bytes until the given block is full or the end of current input is reached.
+         */
+        private void readBinary(final Block block) throws IOException {
+            final int pointSize = dimension * Double.BYTES;
+            if (buffer == null) {
+                buffer = ByteBuffer.allocate(BLOCK_SIZE * pointSize).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            buffer.clear();
+            while (buffer.hasRemaining() && binary.read(buffer) >= 0) {
+                // Continue until the buffer is full or the end of stream is reached.
+            }
+            buffer.flip();
+            final int length = buffer.remaining();
+            block.count = length / pointSize;
+            buffer.asDoubleBuffer().get(block.coordinates, 0, block.count * dimension);
+            if (length % pointSize != 0) {
+                errorMessage = Errors.format(Errors.Keys.UnexpectedEndOfFile_1, filename);
+                errorCause   = new EOFException(errorMessage);
+                stopped = true;
+            }
+        }
+
+        /**
+         * Closes the current input, if any.
+         */
+        @Override
+        public void close() throws IOException {
+            if (text != null) {
+                text.close();
+                text = null;
+            }
+            if (binary != null) {
+                binary.close();
+                binary = null;
             }
-            out.println();
         }
     }
 
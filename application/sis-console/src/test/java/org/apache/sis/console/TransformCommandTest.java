@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.console;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.io.IOException;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.opengis.geometry.MismatchedDimensionException;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link TransformCommand} sub-command. The tests transform more than {@value TransformCommand#BLOCK_SIZE}
+ * points, in order to verify that the coordinates of blocks transformed in parallel are written in input order.
+ * The operation is an axis swapping from geographic (<var>latitude</var>, <var>longitude</var>) coordinates to
+ * (<var>longitude</var>, <var>latitude</var>) coordinates.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+@DependsOn(CommandRunnerTest.class)
+public final strictfp class TransformCommandTest extends TestCase {
+    /**
+     * Number of points to transform. Shall be greater than twice the block size.
+     */
+    private static final int POINT_COUNT = 2 * TransformCommand.BLOCK_SIZE + 1000;
+
+    /**
+     * Tolerance threshold for comparing the coordinates parsed from the text output.
+     */
+    private static final double TOLERANCE = 1E-6;
+
+    /**
+     * Returns the latitude of the point at the given index.
+     */
+    private static double latitude(final int i) {
+        return -80 + i * 0.01;
+    }
+
+    /**
+     * Returns the longitude of the point at the given index.
+     */
+    private static double longitude(final int i) {
+        return -170 + i * 0.03;
+    }
+
+    /**
+     * Writes the given number of points as (<var>latitude</var>, <var>longitude</var>) text lines,
+     * preceded by a comment line. If {@code invalidLine} is non-null, it is written after the points.
+     */
+    private static void writeText(final Path file, final int count, final String invalidLine) throws IOException {
+        final List<String> lines = new ArrayList<>(count + 2);
+        lines.add("# Latitude, longitude");
+        for (int i=0; i<count; i++) {
+            lines.add(latitude(i) + ", " + longitude(i));
+        }
+        if (invalidLine != null) {
+            lines.add(invalidLine);
+            lines.add("10, 20");
+        }
+        Files.write(file, lines);
+    }
+
+    /**
+     * Verifies the coordinates in the text output of a command. Only the lines starting with a number are
+     * parsed; header, comment and error lines are ignored. The coordinates shall be the points written by
+     * {@link #writeText(Path, int, String)} in the same order, with axes swapped.
+     */
+    private static void verifyText(final String output, final int count) {
+        int i = 0;
+        for (final String line : output.split("\\R")) {
+            final String trimmed = line.trim();
+            if (!trimmed.isEmpty() && (Character.isDigit(trimmed.charAt(0)) || trimmed.charAt(0) == '-')) {
+                final String[] values = trimmed.split(",");
+                assertEquals(line, 2, values.length);
+                assertTrue("Too many points.", i < count);
+                assertEquals("longitude", longitude(i), Double.parseDouble(values[0].trim()), TOLERANCE);
+                assertEquals("latitude",  latitude (i), Double.parseDouble(values[1].trim()), TOLERANCE);
+                i++;
+            }
+        }
+        assertEquals("Number of points.", count, i);
+    }
+
+    /**
+     * Tests the transformation of a text file containing more points than a single block.
+     *
+     * @throws Exception if an error occurred while creating or running the command.
+     */
+    @Test
+    public void testText() throws Exception {
+        final Path file = Files.createTempFile("sis", ".csv");
+        try {
+            writeText(file, POINT_COUNT, null);
+            final TransformCommand test = new TransformCommand(0, CommandRunner.TEST,
+                    "--sourceCRS", "EPSG:4326", "--targetCRS", "CRS:84", file.toString());
+            assertEquals(0, test.run());
+            final String output = test.outputBuffer.toString();
+            assertTrue(output, output.startsWith("# "));
+            verifyText(output, POINT_COUNT);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests a line having an unexpected number of dimensions. All points before that line shall be written
+     * before the {@link MismatchedDimensionException} is thrown, and no point shall be written after it.
+     *
+     * @throws Exception if an error occurred while creating or running the command.
+     */
+    @Test
+    @DependsOnMethod("testText")
+    public void testMismatchedDimension() throws Exception {
+        final int count = TransformCommand.BLOCK_SIZE + 10;
+        final Path file = Files.createTempFile("sis", ".csv");
+        try {
+            writeText(file, count, "10, 20, 30");
+            final TransformCommand test = new TransformCommand(0, CommandRunner.TEST,
+                    "--sourceCRS", "EPSG:4326", "--targetCRS", "CRS:84", file.toString());
+            try {
+                test.run();
+                fail("Expected MismatchedDimensionException.");
+            } catch (MismatchedDimensionException e) {
+                assertNotNull(e.getMessage());
+            }
+            verifyText(test.outputBuffer.toString(), count);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests a line which can not be parsed. All points before that line shall be written,
+     * followed by an error message giving the file name.
+     *
+     * @throws Exception if an error occurred while creating or running the command.
+     */
+    @Test
+    @DependsOnMethod("testText")
+    public void testParseError() throws Exception {
+        final int count = TransformCommand.BLOCK_SIZE + 10;
+        final Path file = Files.createTempFile("sis", ".csv");
+        try {
+            writeText(file, count, "10, abc");
+            final TransformCommand test = new TransformCommand(0, CommandRunner.TEST,
+                    "--sourceCRS", "EPSG:4326", "--targetCRS", "CRS:84", file.toString());
+            assertEquals(0, test.run());
+            final String output = test.outputBuffer.toString();
+            verifyText(output, count);
+            assertTrue(output, output.contains(file.toString()));
+            assertTrue(output, output.contains(String.valueOf(count + 2)));     // Line number, including comment.
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests binary input and output. The points are transformed to (<var>longitude</var>, <var>latitude</var>)
+     * coordinates, then the result is transformed back. Since the operation is an axis swapping, the values
+     * shall be exact.
+     *
+     * @throws Exception if an error occurred while creating or running the command.
+     */
+    @Test
+    @DependsOnMethod("testText")
+    public void testBinary() throws Exception {
+        final ByteBuffer buffer = ByteBuffer.allocate(POINT_COUNT * 2 * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i=0; i<POINT_COUNT; i++) {
+            buffer.putDouble(latitude(i)).putDouble(longitude(i));
+        }
+        final byte[] source = buffer.array();
+        final Path file = Files.createTempFile("sis", ".bin");
+        try {
+            Files.write(file, source);
+            TransformCommand test = new TransformCommand(0, CommandRunner.TEST, "--inputFormat", "binary",
+                    "--format", "binary", "--sourceCRS", "EPSG:4326", "--targetCRS", "CRS:84", file.toString());
+            assertEquals(0, test.run());
+            assertEquals("No text expected in binary output.", "", test.outputBuffer.toString());
+            final byte[] target = ((ByteArrayOutputStream) test.binaryStream).toByteArray();
+            assertEquals("length", source.length, target.length);
+            final ByteBuffer result = ByteBuffer.wrap(target).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i=0; i<POINT_COUNT; i++) {
+                assertEquals("longitude", longitude(i), result.getDouble(), STRICT);
+                assertEquals("latitude",  latitude (i), result.getDouble(), STRICT);
+            }
+            /*
+             * Transform back to the source CRS. We should get the original bytes.
+             */
+            Files.write(file, target);
+            test = new TransformCommand(0, CommandRunner.TEST, "--inputFormat", "binary",
+                    "--format", "binary", "--sourceCRS", "CRS:84", "--targetCRS", "EPSG:4326", file.toString());
+            assertEquals(0, test.run());
+            assertArrayEquals(source, ((ByteArrayOutputStream) test.binaryStream).toByteArray());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.gui.dataset;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import org.apache.sis.feature.AbstractFeature;
+import org.apache.sis.internal.storage.query.SimpleQuery;
+import org.apache.sis.internal.system.Loggers;
+import org.apache.sis.storage.FeatureSet;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.UnsupportedQueryException;
+import org.apache.sis.util.collection.BackingStoreException;
+import org.apache.sis.util.logging.Logging;
+
+
+/**
+ * A read-only list of features loaded in background, one page at a time, when the rows are requested.
+ * Only a bounded number of pages are kept in memory; the least recently used pages are discarded.
+ * Rows that are not yet loaded are {@code null}, and a change event replaces them when they become available.
+ *
+ * <p>The total number of features is not known in advance. The list size is the number of rows
+ * known to exist, plus one pending row if more features may follow. Requesting that pending row
+ * (typically because the user scrolled to the end of the table) loads the next page.</p>
+ *
+ * <p>Features are read from a cursor which is kept open between pages, so scrolling forward never
+ * reads the same features twice. Jumping backward to a discarded page restarts the cursor at the
+ * page offset with a {@link SimpleQuery}, which data stores can execute natively.</p>
+ *
+ * <p>All methods except {@link #read(int)} shall be invoked from the JavaFX application thread.
+ * Pages are read sequentially in a single background thread, which also owns the cursor.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+final class FeatureList extends ObservableListBase<AbstractFeature> {
+    /**
+     * Number of features to read in a single background task.
+     */
+    static final int PAGE_SIZE = 100;
+
+    /**
+     * Maximal number of pages to keep in memory.
+     */
+    private static final int MAX_CACHED_PAGES = 20;
+
+    /**
+     * If the requested page is farther than this number of features after the cursor position,
+     * restart the cursor with a query instead than skipping all features in between.
+     */
+    private static final long MAX_SKIP = 10 * PAGE_SIZE;
+
+    /**
+     * The source of features.
+     */
+    private final FeatureSet features;
+
+    /**
+     * The loaded pages indexed by page number, in least recently used order.
+     */
+    private final Map<Integer,AbstractFeature[]> pages;
+
+    /**
+     * The pages for which a background task has been submitted but not yet completed.
+     */
+    private final Set<Integer> loading;
+
+    /**
+     * Number of features known to exist.
+     */
+    private int count;
+
+    /**
+     * Whether there is potentially more features after the {@link #count} known ones.
+     */
+    private boolean hasMore;
+
+    /**
+     * The executor for reading pages in a single background thread.
+     * The thread is created when first needed and terminated when idle.
+     */
+    private final Executor executor;
+
+    /**
+     * The stream of features from which {@link #cursor} is obtained, or {@code null} if none.
+     * Used only in the background thread.
+     */
+    private Stream<AbstractFeature> stream;
+
+    /**
+     * The iterator over features, or {@code null} if none. Used only in the background thread.
+     */
+    private Iterator<AbstractFeature> cursor;
+
+    /**
+     * Index of the next feature to be returned by {@link #cursor}. Used only in the background thread.
+     */
+    private long cursorPosition;
+
+    /**
+     * Creates a new list for the given features.
+     *
+     * @param  features  the source of features.
+     */
+    FeatureList(final FeatureSet features) {
+        this.features = features;
+        this.hasMore  = true;
+        loading  = new HashSet<>();
+        pages    = new LinkedHashMap<Integer,AbstractFeature[]>(MAX_CACHED_PAGES * 2, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(final Map.Entry<Integer,AbstractFeature[]> eldest) {
+                return size() > MAX_CACHED_PAGES;
+            }
+        };
+        executor = new ThreadPoolExecutor(0, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), (task) -> {
+            final Thread thread = new Thread(task, "FeatureTable loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the number of features known to exist, plus one pending row if there is potentially more features.
+     */
+    @Override
+    public int size() {
+        return hasMore ? count + 1 : count;
+    }
+
+    /**
+     * Returns the feature at the given index, or {@code null} if that feature is not yet loaded.
+     * In the later case, the page containing the feature is loaded in a background thread.
+     */
+    @Override
+    public AbstractFeature get(final int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        final Integer page = index / PAGE_SIZE;
+        final AbstractFeature[] rows = pages.get(page);
+        if (rows != null) {
+            final int i = index % PAGE_SIZE;
+            return (i < rows.length) ? rows[i] : null;
+        }
+        if (loading.add(page)) {
+            executor.execute(() -> {
+                try {
+                    final AbstractFeature[] result = read(page);
+                    Platform.runLater(() -> loaded(page, result));
+                } catch (DataStoreException | RuntimeException e) {
+                    Logging.unexpectedException(Logging.getLogger(Loggers.APPLICATION), FeatureTable.class, "get", e);
+                    Platform.runLater(() -> loading.remove(page));      // Not cached, so it can be retried.
+                }
+            });
+        }
+        return null;
+    }
+
+    /**
+     * Reads the given page. This method is invoked in the background thread.
+     *
+     * @param  page  index of the page to read.
+     * @return the features in the given page. The array length is less than {@link #PAGE_SIZE}
+     *         if the page is the last one.
+     * @throws DataStoreException if an error occurred while reading the features.
+     */
+    private AbstractFeature[] read(final int page) throws DataStoreException {
+        final long start = (long) page * PAGE_SIZE;
+        try {
+            if (cursor == null || start < cursorPosition || start - cursorPosition > MAX_SKIP) {
+                closeCursor();
+                FeatureSet subset = features;
+                if (start != 0) {
+                    final SimpleQuery query = new SimpleQuery();
+                    query.setOffset(start);
+                    try {
+                        subset = features.subset(query);
+                    } catch (UnsupportedQueryException e) {
+                        subset = query.execute(features);
+                    }
+                }
+                stream = subset.features(false);
+                cursor = stream.iterator();
+                cursorPosition = start;
+            }
+            while (cursorPosition < start && cursor.hasNext()) {
+                cursor.next();
+                cursorPosition++;
+            }
+            final AbstractFeature[] rows = new AbstractFeature[PAGE_SIZE];
+            int n = 0;
+            while (n < PAGE_SIZE && cursor.hasNext()) {
+                rows[n++] = cursor.next();
+            }
+            cursorPosition += n;
+            return (n == PAGE_SIZE) ? rows : Arrays.copyOf(rows, n);
+        } catch (BackingStoreException e) {
+            closeCursor();
+            throw e.unwrapOrRethrow(DataStoreException.class);
+        }
+    }
+
+    /**
+     * Stores the given page after it has been loaded, then notifies the listeners that the rows of that page
+     * replaced the {@code null} placeholders, and that rows were added or removed if the size changed.
+     * This method is invoked in the JavaFX thread.
+     */
+    private void loaded(final Integer page, final AbstractFeature[] rows) {
+        loading.remove(page);
+        pages.put(page, rows);
+        final int oldSize = size();
+        final int start = page * PAGE_SIZE;
+        final int end = start + rows.length;
+        if (rows.length < PAGE_SIZE) {
+            if (end >= count) {
+                count   = end;
+                hasMore = false;
+            }
+        } else if (end > count) {
+            count = end;
+        }
+        final int newSize = size();
+        final int endOfSet = Math.min(end, oldSize);
+        if (start < endOfSet || newSize != oldSize) {
+            beginChange();
+            for (int i=start; i<endOfSet; i++) {
+                nextSet(i, null);                                   // The rows were shown as not yet loaded.
+            }
+            if (newSize > oldSize) {
+                nextAdd(oldSize, newSize);
+            } else if (newSize < oldSize) {
+                nextRemove(newSize, (AbstractFeature) null);        // The pending row, which had no feature.
+            }
+            endChange();
+        }
+    }
+
+    /**
+     * Releases the cursor, for example when the table is no longer shown.
+     * A new cursor will be created if more pages are requested.
+     */
+    void release() {
+        executor.execute(this::closeCursor);
+    }
+
+    /**
+     * Closes the stream of features, if any. This method is invoked in the background thread.
+     */
+    private void closeCursor() {
+        if (stream != null) {
+            stream.close();
+        }
+        stream = null;
+        cursor = null;
+    }
+}
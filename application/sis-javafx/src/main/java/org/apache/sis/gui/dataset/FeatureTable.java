@@ -18,15 +18,11 @@ package org.apache.sis.gui.dataset;
 
 import java.util.Map;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Iterator;
 import java.util.ResourceBundle;
 import java.util.MissingResourceException;
-import java.util.stream.Stream;
-import java.util.stream.Collectors;
-import javafx.collections.FXCollections;
-import javafx.scene.control.Label;
 import javafx.scene.control.ScrollPane;
+import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TreeItem;
@@ -43,6 +39,8 @@ import org.apache.sis.storage.Resource;
 
 
 /**
+ * A table of features. Features are loaded in background, one page at a time, as the user scrolls.
+ * Only a bounded number of pages are kept in memory, so this table can show arbitrarily large feature sets.
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Smaniotto Enzo
@@ -51,6 +49,11 @@ import org.apache.sis.storage.Resource;
  * @module
  */
 public class FeatureTable extends BorderPane {
+    /**
+     * The value shown in cells of rows that are not yet loaded.
+     */
+    private static final Object LOADING = new Object();
+
     /**
      * Contains ResourceBundles indexed by table names.
      */
@@ -133,36 +136,69 @@ public class FeatureTable extends BorderPane {
         scroll.setPrefSize(600, 400);
         scroll.setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
         setCenter(scroll);
-        final List<AbstractFeature> list;
         if (res instanceof FeatureSet) {
-            try (Stream<AbstractFeature> stream = ((FeatureSet) res).features(false)) {
-                list = stream.collect(Collectors.toList());
-                ttv.setItems(FXCollections.observableArrayList(list));
-                for (AbstractIdentifiedType pt : list.get(0).getType().getProperties(false)) {
-                    final TableColumn<AbstractFeature, BorderPane> column = new TableColumn<>(generateFinalColumnName(pt));
-                    column.setCellValueFactory((TableColumn.CellDataFeatures<AbstractFeature, BorderPane> param) -> {
-                        final Object val = param.getValue().getPropertyValue(pt.getName().toString());
-                        if (val instanceof Geometry) {
-                            return new SimpleObjectProperty<>(new BorderPane(new Label("{geometry}")));
-                        } else {
-                            SimpleObjectProperty<BorderPane> sop = new SimpleObjectProperty<>();
-                            if (val instanceof CheckedArrayList<?>) {
-                                Iterator<String> it = ((CheckedArrayList<String>) val).iterator();
-                                TreeItem<String> ti = new TreeItem<>(it.next());
-                                while (it.hasNext()) {
-                                    ti.getChildren().add(new TreeItem<>(it.next()));
-                                }
-                                BorderPane bp = new BorderPane(new TreeView<>(ti));
-                                sop.setValue(bp);
-                                return sop;
-                            } else {
-                                sop.setValue(new BorderPane(new Label(String.valueOf(val))));
-                                return sop;
-                            }
-                        }
-                    });
-                    ttv.getColumns().add(column);
+            final FeatureSet features = (FeatureSet) res;
+            final FeatureList rows = new FeatureList(features);
+            ttv.setItems(rows);
+            for (AbstractIdentifiedType pt : features.getType().getProperties(false)) {
+                final String name = pt.getName().toString();
+                final TableColumn<AbstractFeature, Object> column = new TableColumn<>(generateFinalColumnName(pt));
+                column.setSortable(false);          // Sorting would require loading all features.
+                column.setCellValueFactory((TableColumn.CellDataFeatures<AbstractFeature, Object> param) -> {
+                    final AbstractFeature feature = param.getValue();
+                    return new SimpleObjectProperty<>(feature != null ? feature.getPropertyValue(name) : LOADING);
+                });
+                column.setCellFactory((c) -> new ValueCell());
+                ttv.getColumns().add(column);
+            }
+            sceneProperty().addListener((p, oldScene, newScene) -> {
+                if (newScene == null) {
+                    rows.release();
                 }
+            });
+        }
+    }
+
+    /**
+     * A cell showing a property value. Cells are recycled by the table when scrolling,
+     * so this class reuses the same nodes for all values instead of creating new ones.
+     */
+    private static final class ValueCell extends TableCell<AbstractFeature, Object> {
+        /**
+         * The view for multi-valued properties, created when first needed.
+         */
+        private TreeView<String> tree;
+
+        /**
+         * Invoked when the value to show in this cell changed.
+         */
+        @Override
+        protected void updateItem(final Object value, final boolean empty) {
+            super.updateItem(value, empty);
+            if (empty) {
+                setText(null);
+                setGraphic(null);
+            } else if (value == LOADING) {
+                setText("…");
+                setGraphic(null);
+            } else if (value instanceof Geometry) {
+                setText("{geometry}");
+                setGraphic(null);
+            } else if (value instanceof CheckedArrayList<?> && !((CheckedArrayList<?>) value).isEmpty()) {
+                final Iterator<?> it = ((CheckedArrayList<?>) value).iterator();
+                final TreeItem<String> ti = new TreeItem<>(String.valueOf(it.next()));
+                while (it.hasNext()) {
+                    ti.getChildren().add(new TreeItem<>(String.valueOf(it.next())));
+                }
+                if (tree == null) {
+                    tree = new TreeView<>();
+                }
+                tree.setRoot(ti);
+                setText(null);
+                setGraphic(tree);
+            } else {
+                setText(String.valueOf(value));
+                setGraphic(null);
             }
         }
     }
@@ -21,6 +21,7 @@ import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Path;
 
 //SIS imports
 import org.apache.sis.geometry.DirectPosition2D;
@@ -52,6 +53,22 @@ public final class QuadTreeReader {
     return tree;
   }
 
+  /**
+   * Opens the quad tree index saved in a single binary file by
+   * {@link QuadTreeWriter#writeTreeToBinaryFile(QuadTree, Path)}. The file is
+   * memory-mapped rather than loaded, so this method returns immediately and
+   * the returned tree is read-only.
+   *
+   * @param file
+   *          the binary index file
+   * @return read-only QuadTree backed by the given file
+   * @throws IOException
+   *          if the file can not be mapped or is not a quad tree file
+   */
+  public static QuadTree readFromBinaryFile(final Path file) throws IOException {
+    return QuadTree.mapFromFile(file, GeoRSSData::new);
+  }
+
   /**
    * Read the quad tree configuration from file.
    *
@@ -25,6 +25,9 @@ import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -78,6 +81,23 @@ import com.sun.syndication.io.XmlReader;
 public class LocationServlet extends HttpServlet {
 
   private static final long serialVersionUID = 731743219362175102L;
+
+  /**
+   * Name of the binary quad tree index file in the index directory.
+   */
+  private static final String BINARY_INDEX_FILE = "qtree.bin";
+
+  /**
+   * Number of data returned by "nearest" queries when the "n" parameter is not specified.
+   */
+  private static final int DEFAULT_NEAREST_COUNT = 10;
+
+  /**
+   * Maximal number of data returned for each point by "nearest" queries.
+   * Larger values of the "n" parameter are reduced to this limit.
+   */
+  private static final int MAX_NEAREST_COUNT = 100;
+
   private QuadTree tree;
   private ServletContext context;
   private String timeToLoad;
@@ -109,6 +129,22 @@ public class LocationServlet extends HttpServlet {
     if (!this.georssStoragePath.endsWith("/"))
       this.georssStoragePath += "/";
 
+    final Path binaryIndex = Paths.get(qtreeIdxPath, BINARY_INDEX_FILE);
+    if (Files.isRegularFile(binaryIndex)) {
+      startTime = System.currentTimeMillis();
+      try {
+        this.tree = QuadTreeReader.readFromBinaryFile(binaryIndex);
+        endTime = System.currentTimeMillis();
+        this.timeToLoad = "Quad Tree memory-mapped from index file in "
+            + Double.toString((endTime - startTime) / 1000L) + " seconds";
+        System.out.println("[INFO] Finished mapping tree from stored index");
+        return;
+      } catch (IOException e) {
+        System.out.println("[ERROR] Unable to map qtree index: [" + binaryIndex
+            + "]: Message: " + e.getMessage() + ": rebuilding index");
+      }
+    }
+
     InputStream indexStream = null;
     try {
       indexStream = new FileInputStream(qtreeIdxPath + "node_0.txt");
@@ -129,6 +165,12 @@ public class LocationServlet extends HttpServlet {
       this.timeToLoad = "Quad Tree fully loaded from index files in "
           + Double.toString((endTime - startTime) / 1000L) + " seconds";
       System.out.println("[INFO] Finished loading tree from stored index");
+      // Convert the index to the binary format for faster loading next time.
+      try {
+        QuadTreeWriter.writeTreeToBinaryFile(tree, binaryIndex);
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
     } else {
       startTime = System.currentTimeMillis();
       WireFeedInput wf = new WireFeedInput(true);
@@ -212,7 +254,8 @@ public class LocationServlet extends HttpServlet {
           endTime = System.currentTimeMillis();
           this.timeToLoad = "Quad Tree fully loaded from retrieving GeoRSS files over the network in "
               + Double.toString((endTime - startTime) / 1000L) + " seconds";
-          QuadTreeWriter.writeTreeToFile(tree, qtreeIdxPath);
+          Files.createDirectories(binaryIndex.getParent());
+          QuadTreeWriter.writeTreeToBinaryFile(tree, binaryIndex);
         } catch (ParserConfigurationException e) {
           e.printStackTrace();
         } catch (SAXException e) {
@@ -230,7 +273,11 @@ public class LocationServlet extends HttpServlet {
   }
 
   /**
-   * Provide GET requests for Bounding-box and Point-radius search queries.
+   * Provide GET requests for Bounding-box, Point-radius and Nearest search queries.
+   * Nearest queries ({@code type=nearest}) return the {@code n} data closest to each
+   * {@code lat}/{@code lon} pair, with {@code n} limited to {@value #MAX_NEAREST_COUNT};
+   * those parameters may be repeated for searching around many points in a single request.
+   * The results of nearest queries are grouped in one {@code nearest} element per point.
    * Return search results to client in xml format.
    *
    * @param request
@@ -254,6 +301,8 @@ public class LocationServlet extends HttpServlet {
     String type = request.getParameter("type");
 
     List<QuadTreeData> results = new ArrayList<QuadTreeData>();
+    List<DirectPosition2D> nearestPoints = new ArrayList<DirectPosition2D>();
+    List<List<QuadTreeData>> nearestResults = new ArrayList<List<QuadTreeData>>();
     List<String> regions = new ArrayList<String>();
     if (type != null && type.equals("bbox")) {
       String llLat = request.getParameter("llLat");
@@ -319,10 +368,37 @@ public class LocationServlet extends HttpServlet {
         afterTime = System.currentTimeMillis();
 
       }
+    } else if (type != null && type.equals("nearest")) {
+      // The lat and lon parameters may be repeated for searching around many points in one request.
+      String[] lats = request.getParameterValues("lat");
+      String[] lons = request.getParameterValues("lon");
+      String n = request.getParameter("n");
+
+      if (lats != null && lons != null && lats.length == lons.length) {
+        try {
+          int count = (n != null) ? Math.min(Integer.parseInt(n), MAX_NEAREST_COUNT) : DEFAULT_NEAREST_COUNT;
+          List<DirectPosition2D> points = new ArrayList<DirectPosition2D>(lats.length);
+          for (int i = 0; i < lats.length; i++) {
+            DirectPosition2D point = new DirectPosition2D(Double.parseDouble(lons[i]), Double.parseDouble(lats[i]));
+            points.add(point);
+            regions.add(point.y + "," + point.x);
+          }
+
+          beforeTime = System.currentTimeMillis();
+          nearestResults = tree.queryNearest(points, count);
+          afterTime = System.currentTimeMillis();
+          nearestPoints = points;
+        } catch (NumberFormatException ex) {
+          System.out
+              .println("[ERROR] Input parameters were not valid latitudes, longitudes and count");
+        } catch (IllegalArgumentException ex) {
+          System.out.println("[ERROR] " + ex.getMessage());
+        }
+      }
     }
     long timeSeconds = afterTime - beforeTime;
     // return matches from tree in xml format to client
-    out.write(buildXML(results, regions, timeSeconds));
+    out.write(buildXML(results, nearestPoints, nearestResults, regions, timeSeconds));
     out.close();
   }
 
@@ -377,11 +453,44 @@ public class LocationServlet extends HttpServlet {
     out.close();
   }
 
+  /**
+   * Builds the XML element for a single search result.
+   *
+   * @param doc
+   *          the document in which to create the element
+   * @param geo
+   *          the search result
+   * @return the {@code item} element
+   */
+  private static Element buildItem(final Document doc, final QuadTreeData geo) {
+    Element item = doc.createElement("item");
+
+    Element id = doc.createElement("id");
+    Text idText = doc.createTextNode(geo.getFileName());
+    id.appendChild(idText);
+    item.appendChild(id);
+
+    Element lat = doc.createElement("lat");
+    Text latText = doc.createTextNode(Double.toString(geo.getLatLon().y));
+    lat.appendChild(latText);
+    item.appendChild(lat);
+
+    Element lon = doc.createElement("lon");
+    Text lonText = doc.createTextNode(Double.toString(geo.getLatLon().x));
+    lon.appendChild(lonText);
+    item.appendChild(lon);
+    return item;
+  }
+
   /**
    * Builds the XML file to return to client.
    *
    * @param filterList
    *          list of QuadTreeData that are within the search region
+   * @param nearestPoints
+   *          the points of a nearest query, or an empty list if none
+   * @param nearestResults
+   *          for each point in {@code nearestPoints}, the data nearest to that point
    * @param regions
    *          the String coordinate representation of the search region
    * @param time
@@ -389,6 +498,8 @@ public class LocationServlet extends HttpServlet {
    * @return XML string
    */
   private String buildXML(final List<QuadTreeData> filterList,
+      final List<DirectPosition2D> nearestPoints,
+      final List<List<QuadTreeData>> nearestResults,
       final List<String> regions, final long time) {
     DocumentBuilderFactory dbfac = DocumentBuilderFactory.newInstance();
 
@@ -399,24 +510,17 @@ public class LocationServlet extends HttpServlet {
       Element root = doc.createElement("root");
       doc.appendChild(root);
       for (QuadTreeData geo : filterList) {
-        Element item = doc.createElement("item");
-
-        Element id = doc.createElement("id");
-        Text idText = doc.createTextNode(geo.getFileName());
-        id.appendChild(idText);
-        item.appendChild(id);
-
-        Element lat = doc.createElement("lat");
-        Text latText = doc.createTextNode(Double.toString(geo.getLatLon().y));
-        lat.appendChild(latText);
-        item.appendChild(lat);
-
-        Element lon = doc.createElement("lon");
-        Text lonText = doc.createTextNode(Double.toString(geo.getLatLon().x));
-        lon.appendChild(lonText);
-        item.appendChild(lon);
-
-        root.appendChild(item);
+        root.appendChild(buildItem(doc, geo));
+      }
+      for (int i = 0; i < nearestPoints.size(); i++) {
+        DirectPosition2D point = nearestPoints.get(i);
+        Element nearest = doc.createElement("nearest");
+        nearest.setAttribute("lat", Double.toString(point.y));
+        nearest.setAttribute("lon", Double.toString(point.x));
+        for (QuadTreeData geo : nearestResults.get(i)) {
+          nearest.appendChild(buildItem(doc, geo));
+        }
+        root.appendChild(nearest);
       }
 
       Element timeElem = doc.createElement("time");
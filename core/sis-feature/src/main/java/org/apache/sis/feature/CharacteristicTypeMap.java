@@ -43,7 +43,7 @@ import static org.apache.sis.util.ArgumentChecks.ensureNonNullElement;
  * amount of attribute instances.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.0
  * @since   0.5
  * @module
  */
@@ -86,15 +86,7 @@ final class CharacteristicTypeMap extends AbstractMap<String,DefaultAttributeTyp
      * @throws IllegalArgumentException if two characteristics have the same name.
      */
     static CharacteristicTypeMap create(final DefaultAttributeType<?> source, final DefaultAttributeType<?>[] characterizedBy) {
-        CharacteristicTypeMap map;
-        synchronized (SHARED) {
-            map = SHARED.get(characterizedBy);
-            if (map == null) {
-                map = new CharacteristicTypeMap(source, characterizedBy);
-                SHARED.put(characterizedBy, map);
-            }
-        }
-        return map;
+        return SHARED.computeIfAbsent(characterizedBy, (k) -> new CharacteristicTypeMap(source, k));
     }
 
     /**
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.xml;
+
+
+/**
+ * The JMX view of a {@link org.apache.sis.xml.MarshallerPool}, registered by
+ * {@link org.apache.sis.xml.MarshallerPool#register(String)}.
+ * Counters are cumulative since the pool creation.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public interface MarshallerPoolMXBean {
+    /**
+     * Returns the number of (un)marshallers created because no instance was available in the pool.
+     *
+     * @return number of (un)marshaller creations.
+     */
+    long getCreationCount();
+
+    /**
+     * Returns the number of (un)marshallers acquired from the pool instead than created.
+     *
+     * @return number of (un)marshaller reuses.
+     */
+    long getReuseCount();
+
+    /**
+     * Returns the number of (un)marshallers reset to their initial state when given back to the pool.
+     *
+     * @return number of (un)marshaller resets.
+     */
+    long getResetCount();
+
+    /**
+     * Returns the number of (un)marshallers currently available in the shared pool.
+     * This count does not include the instances kept in thread-affine slots.
+     *
+     * @return number of idle (un)marshallers in the shared pool.
+     */
+    int getAvailableCount();
+
+    /**
+     * Returns the minimal number of (un)marshallers of each kind to keep in the pool after the timeout.
+     *
+     * @return minimal number of idle marshallers and of idle unmarshallers.
+     */
+    int getMinimumSize();
+
+    /**
+     * Returns the maximal number of (un)marshallers of each kind that the pool can keep.
+     *
+     * @return maximal number of idle marshallers and of idle unmarshallers.
+     */
+    int getMaximumSize();
+}
@@ -0,0 +1,359 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.xml;
+
+import java.util.Set;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumSet;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.internal.util.StandardDateFormat;
+
+import static org.apache.sis.internal.xml.MetadataSummary.Property.*;
+
+
+/**
+ * Extracts a subset of properties from ISO 19139 metadata records without JAXB.
+ * This reader walks through the XML document with StAX and collects only the {@linkplain MetadataSummary.Property
+ * requested properties} in {@link MetadataSummary} objects. Branches of the XML tree that can not contain a requested
+ * property are skipped without being analyzed, which make this reader much faster than unmarshalling the full
+ * {@link org.apache.sis.metadata.iso.DefaultMetadata} graph.
+ *
+ * <p>The {@code MD_Metadata} elements can appear anywhere in the document. For example this reader can be used
+ * directly on a CSW {@code GetRecordsResponse} document containing many records. Elements are identified by their
+ * local name only, so this reader accepts both the legacy ISO 19139 namespaces and the ISO 19115-3 namespaces
+ * for the properties that did not change between those two schemas.</p>
+ *
+ * <p>This class is not thread-safe. The caller is responsible for closing the given StAX reader.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ *
+ * @see MetadataStreamWriter
+ *
+ * @since 1.0
+ * @module
+ */
+public final class MetadataStreamReader implements XMLStreamConstants {
+    /**
+     * Local name of the root element of metadata records.
+     */
+    static final String ROOT = "MD_Metadata";
+
+    /**
+     * Where to read the XML document.
+     */
+    private final XMLStreamReader reader;
+
+    /**
+     * The properties to extract.
+     */
+    private final Set<MetadataSummary.Property> properties;
+
+    /**
+     * Local names of the elements enclosing the current element, starting from the {@code MD_Metadata} element.
+     * Only the first {@link #depth} elements are valid.
+     */
+    private String[] path;
+
+    /**
+     * Number of valid elements in {@link #path}.
+     */
+    private int depth;
+
+    /**
+     * The summary in process of being built, or {@code null} if none.
+     */
+    private MetadataSummary summary;
+
+    /**
+     * The citation date and its type, stored until both values are known.
+     */
+    private Date date;
+
+    /**
+     * The type of {@link #date}, or {@code null} if not yet known.
+     */
+    private String dateType;
+
+    /**
+     * Bounding box in process of being read, in (west, east, south, north) order.
+     */
+    private final double[] bbox;
+
+    /**
+     * Creates a new reader extracting the given properties.
+     *
+     * @param  reader      where to read the XML document.
+     * @param  properties  the properties to extract.
+     */
+    public MetadataStreamReader(final XMLStreamReader reader, final Set<MetadataSummary.Property> properties) {
+        ArgumentChecks.ensureNonNull("reader", reader);
+        ArgumentChecks.ensureNonNull("properties", properties);
+        this.reader     = reader;
+        this.properties = properties.isEmpty() ? EnumSet.noneOf(MetadataSummary.Property.class) : EnumSet.copyOf(properties);
+        this.path       = new String[16];
+        this.bbox       = new double[4];
+    }
+
+    /**
+     * Reads the next metadata record in the document.
+     *
+     * @return the next metadata record, or {@code null} if there is no more record.
+     * @throws XMLStreamException if an error occurred while reading the XML document.
+     * @throws java.time.format.DateTimeParseException if a date can not be parsed.
+     * @throws NumberFormatException if a bounding box coordinate can not be parsed.
+     */
+    public MetadataSummary next() throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == START_ELEMENT && ROOT.equals(reader.getLocalName())) {
+                summary = new MetadataSummary();
+                depth   = 0;
+                readRecord();
+                final MetadataSummary s = summary;
+                summary = null;
+                return s;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the content of the current {@code MD_Metadata} element until its end.
+     * The current event when this method is invoked must be the start of {@code MD_Metadata}.
+     */
+    private void readRecord() throws XMLStreamException {
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case START_ELEMENT: {
+                    final String name = reader.getLocalName();
+                    if (!isWanted(name)) {
+                        skipElement();
+                        break;
+                    }
+                    if (depth == path.length) {
+                        path = Arrays.copyOf(path, depth * 2);
+                    }
+                    path[depth++] = name;
+                    if (startElement(name)) {
+                        depth--;                        // The element content and its end have been consumed.
+                    }
+                    break;
+                }
+                case END_ELEMENT: {
+                    if (depth == 0) {
+                        return;                         // End of MD_Metadata.
+                    }
+                    endElement(path[--depth]);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether the element of the given name, child of the current element, may contain a requested
+     * property. This method checks only the first levels of the tree, where most of the pruning happens.
+     */
+    private boolean isWanted(final String name) {
+        switch (depth) {
+            case 0: switch (name) {                                 // Children of MD_Metadata.
+                case "fileIdentifier":
+                case "metadataIdentifier": return properties.contains(IDENTIFIER);
+                case "dateStamp":
+                case "dateInfo":           return properties.contains(DATES);
+                case "identificationInfo": return properties.contains(TITLE) || properties.contains(DATES)
+                                                                              || properties.contains(EXTENT);
+                default: return false;
+            }
+            case 2: if ("identificationInfo".equals(path[0])) {     // Children of MD_DataIdentification.
+                switch (name) {
+                    case "citation":       return properties.contains(TITLE) || properties.contains(DATES);
+                    case "extent":         return properties.contains(EXTENT);
+                    default: return false;
+                }
+            }
+            break;
+            case 4: if ("identificationInfo".equals(path[0]) && "citation".equals(path[2])) {   // Children of CI_Citation.
+                switch (name) {
+                    case "title":          return properties.contains(TITLE);
+                    case "date":           return properties.contains(DATES);
+                    default: return false;
+                }
+            }
+            break;
+        }
+        return true;
+    }
+
+    /**
+     * Invoked after the given element has been pushed on the path.
+     *
+     * @return whether the element content, including its end, has been consumed by this method.
+     */
+    private boolean startElement(final String name) throws XMLStreamException {
+        switch (name) {
+            case "CharacterString":
+            case "Anchor": {
+                if (isPath("fileIdentifier", name) || isPath("metadataIdentifier", "MD_Identifier", "code", name)) {
+                    summary.identifier = getElementText();
+                    return true;
+                }
+                if (summary.title == null && isPath("identificationInfo", null, "citation", "CI_Citation", "title", name)) {
+                    summary.title = getElementText();
+                    return true;
+                }
+                break;
+            }
+            case "Date":
+            case "DateTime": {
+                if (isPath("dateStamp", name)) {
+                    summary.dateStamp = getElementAsDate();
+                    return true;
+                }
+                if (isPath("CI_Date", "date", name)) {
+                    date = getElementAsDate();
+                    return true;
+                }
+                break;
+            }
+            case "CI_DateTypeCode": {
+                if (isPath("CI_Date", "dateType", name)) {
+                    dateType = reader.getAttributeValue(null, "codeListValue");
+                    if (dateType == null) {
+                        dateType = getElementText();
+                        return true;
+                    }
+                }
+                break;
+            }
+            case "EX_GeographicBoundingBox": {
+                Arrays.fill(bbox, Double.NaN);
+                break;
+            }
+            case "Decimal": {
+                if (depth >= 3 && "EX_GeographicBoundingBox".equals(path[depth - 3])) {
+                    final int i;
+                    switch (path[depth - 2]) {
+                        case "westBoundLongitude": i = 0; break;
+                        case "eastBoundLongitude": i = 1; break;
+                        case "southBoundLatitude": i = 2; break;
+                        case "northBoundLatitude": i = 3; break;
+                        default: return false;
+                    }
+                    final String text = getElementText();
+                    if (text != null) {
+                        bbox[i] = Double.parseDouble(text);
+                    }
+                    return true;
+                }
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Invoked after the given element has been removed from the path.
+     */
+    private void endElement(final String name) {
+        switch (name) {
+            case "CI_Date": {
+                if (date != null) {
+                    if ("dateInfo".equals(path[0])) {
+                        if (summary.dateStamp == null) {
+                            summary.dateStamp = date;           // ISO 19115-3 replacement of dateStamp.
+                        }
+                    } else if (dateType != null && "citation".equals(path[2])) {
+                        summary.dates.putIfAbsent(dateType, date);
+                    }
+                }
+                date     = null;
+                dateType = null;
+                break;
+            }
+            case "EX_GeographicBoundingBox": {
+                summary.addExtent(bbox[0], bbox[1], bbox[2], bbox[3]);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns {@code true} if the current path, relative to {@code MD_Metadata}, ends with the given names.
+     * If the first name is a child of {@code MD_Metadata}, then the whole path must match.
+     * A {@code null} name matches any element.
+     */
+    private boolean isPath(final String... names) {
+        int i = depth - names.length;
+        if (i < 0) {
+            return false;
+        }
+        if ("fileIdentifier".equals(names[0]) || "metadataIdentifier".equals(names[0]) ||
+            "dateStamp".equals(names[0]) || "identificationInfo".equals(names[0]))
+        {
+            if (i != 0) return false;
+        }
+        for (final String name : names) {
+            if (name != null && !name.equals(path[i])) {
+                return false;
+            }
+            i++;
+        }
+        return true;
+    }
+
+    /**
+     * Skips the current element and all its children. After this method call,
+     * the current event is the end of the element which was current before the call.
+     */
+    private void skipElement() throws XMLStreamException {
+        int level = 1;
+        do {
+            switch (reader.next()) {
+                case START_ELEMENT: level++; break;
+                case END_ELEMENT:   level--; break;
+            }
+        } while (level != 0);
+    }
+
+    /**
+     * Returns the text of the current element, or {@code null} if empty.
+     * After this method invocation, the current event is the end of the element.
+     */
+    private String getElementText() throws XMLStreamException {
+        String text = reader.getElementText();
+        if (text != null) {
+            text = text.trim();
+            if (!text.isEmpty()) {
+                return text;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the text of the current element as a date, or {@code null} if empty.
+     */
+    private Date getElementAsDate() throws XMLStreamException {
+        final String text = getElementText();
+        return (text != null) ? StandardDateFormat.toDate(StandardDateFormat.FORMAT.parse(text)) : null;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.xml;
+
+import java.util.Map;
+import java.util.Date;
+import java.math.BigDecimal;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.stream.XMLStreamException;
+import org.apache.sis.util.ArgumentChecks;
+
+
+/**
+ * Writes {@link MetadataSummary} objects as ISO 19139 metadata records without JAXB.
+ * This writer emits directly the XML elements with StAX. Only the properties stored in
+ * {@code MetadataSummary} are written; properties declared mandatory by ISO 19139 but
+ * not available in the summary (for example the abstract) are omitted.
+ *
+ * <p>Each record is written as a {@code gmd:MD_Metadata} element declaring its namespaces,
+ * so records can be written in any enclosing document (for example a CSW response).
+ * This class does not write the start and end of the document; this is caller's responsibility.
+ * The caller is also responsible for closing the given StAX writer.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ *
+ * @see MetadataStreamReader
+ *
+ * @since 1.0
+ * @module
+ */
+public final class MetadataStreamWriter {
+    /**
+     * The prefixes used for the ISO 19139 namespaces.
+     */
+    private static final String GMD = "gmd", GCO = "gco";
+
+    /**
+     * The URL of the code list for {@code CI_DateTypeCode}.
+     */
+    private static final String DATE_TYPE_CODELIST =
+            Schemas.METADATA_ROOT_LEGACY + Schemas.CODELISTS_PATH_LEGACY + "#CI_DateTypeCode";
+
+    /**
+     * Where to write the XML document.
+     */
+    private final XMLStreamWriter writer;
+
+    /**
+     * Creates a new writer.
+     *
+     * @param  writer  where to write the XML document.
+     */
+    public MetadataStreamWriter(final XMLStreamWriter writer) {
+        ArgumentChecks.ensureNonNull("writer", writer);
+        this.writer = writer;
+    }
+
+    /**
+     * Writes the given summary as a {@code gmd:MD_Metadata} element.
+     *
+     * @param  summary  the metadata record to write.
+     * @throws XMLStreamException if the underlying StAX writer raised an error.
+     */
+    public void write(final MetadataSummary summary) throws XMLStreamException {
+        ArgumentChecks.ensureNonNull("summary", summary);
+        writer.writeStartElement(GMD, MetadataStreamReader.ROOT, LegacyNamespaces.GMD);
+        writer.writeNamespace(GMD, LegacyNamespaces.GMD);
+        writer.writeNamespace(GCO, LegacyNamespaces.GCO);
+        writeProperty("fileIdentifier", "CharacterString", summary.identifier);
+        writeProperty("dateStamp", "DateTime", summary.dateStamp);
+
+        final boolean hasCitation = (summary.title != null) || !summary.dates.isEmpty();
+        final boolean hasExtent   = summary.hasExtent();
+        if (hasCitation || hasExtent) {
+            start("identificationInfo");
+            start("MD_DataIdentification");
+            if (hasCitation) {
+                start("citation");
+                start("CI_Citation");
+                writeProperty("title", "CharacterString", summary.title);
+                for (final Map.Entry<String,Date> entry : summary.dates.entrySet()) {
+                    start("date");
+                    start("CI_Date");
+                    writeProperty("date", "DateTime", entry.getValue());
+                    start("dateType");
+                    start("CI_DateTypeCode");
+                    writer.writeAttribute("codeList", DATE_TYPE_CODELIST);
+                    writer.writeAttribute("codeListValue", entry.getKey());
+                    writer.writeCharacters(entry.getKey());
+                    writer.writeEndElement();               // CI_DateTypeCode
+                    writer.writeEndElement();               // dateType
+                    writer.writeEndElement();               // CI_Date
+                    writer.writeEndElement();               // date
+                }
+                writer.writeEndElement();                   // CI_Citation
+                writer.writeEndElement();                   // citation
+            }
+            if (hasExtent) {
+                start("extent");
+                start("EX_Extent");
+                start("geographicElement");
+                start("EX_GeographicBoundingBox");
+                writeProperty("westBoundLongitude", "Decimal", summary.westBoundLongitude);
+                writeProperty("eastBoundLongitude", "Decimal", summary.eastBoundLongitude);
+                writeProperty("southBoundLatitude", "Decimal", summary.southBoundLatitude);
+                writeProperty("northBoundLatitude", "Decimal", summary.northBoundLatitude);
+                writer.writeEndElement();                   // EX_GeographicBoundingBox
+                writer.writeEndElement();                   // geographicElement
+                writer.writeEndElement();                   // EX_Extent
+                writer.writeEndElement();                   // extent
+            }
+            writer.writeEndElement();                       // MD_DataIdentification
+            writer.writeEndElement();                       // identificationInfo
+        }
+        writer.writeEndElement();                           // MD_Metadata
+    }
+
+    /**
+     * Writes the start of an element in the {@code gmd} namespace.
+     */
+    private void start(final String localName) throws XMLStreamException {
+        writer.writeStartElement(GMD, localName, LegacyNamespaces.GMD);
+    }
+
+    /**
+     * Writes a {@code gmd} property containing a {@code gco} value, for example
+     * {@code <gmd:title><gco:CharacterString>value</gco:CharacterString></gmd:title>}.
+     * If the given value is null, then this method does nothing.
+     *
+     * @param  property  local name of the property element in the {@code gmd} namespace.
+     * @param  type      local name of the value element in the {@code gco} namespace.
+     * @param  value     the value to write, or {@code null}.
+     */
+    private void writeProperty(final String property, final String type, Object value) throws XMLStreamException {
+        if (value != null) {
+            if (value instanceof Date) {
+                value = ((Date) value).toInstant();
+            }
+            start(property);
+            writer.writeStartElement(GCO, type, LegacyNamespaces.GCO);
+            writer.writeCharacters(value.toString());
+            writer.writeEndElement();
+            writer.writeEndElement();
+        }
+    }
+
+    /**
+     * Writes a {@code gmd} property containing a {@code gco:Decimal} value.
+     * The value is written without exponent, as required by {@code xs:decimal}.
+     * If the given value is NaN or infinite, then this method does nothing.
+     */
+    private void writeProperty(final String property, final String type, final double value) throws XMLStreamException {
+        if (Double.isFinite(value)) {
+            writeProperty(property, type, BigDecimal.valueOf(value).toPlainString());
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.xml;
+
+import java.util.Map;
+import java.util.Date;
+import java.util.LinkedHashMap;
+
+
+/**
+ * A small subset of the properties of a metadata record, read or written without JAXB.
+ * This is a lightweight alternative to {@link org.apache.sis.metadata.iso.DefaultMetadata}
+ * for applications processing a large amount of ISO 19139 records (for example harvesters)
+ * and needing only a few properties of each record.
+ *
+ * <p>Missing values are {@code null} for objects and {@link Double#NaN} for bounding box coordinates.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ *
+ * @see MetadataStreamReader
+ * @see MetadataStreamWriter
+ *
+ * @since 1.0
+ * @module
+ */
+public final class MetadataSummary {
+    /**
+     * The properties that can be extracted from a metadata record.
+     */
+    public enum Property {
+        /** The metadata file identifier. */
+        IDENTIFIER,
+
+        /** The title of the citation of the first identification info. */
+        TITLE,
+
+        /** The metadata date stamp and the dates of the citation of the first identification info. */
+        DATES,
+
+        /** The union of all geographic bounding boxes of all identification info. */
+        EXTENT
+    }
+
+    /**
+     * The metadata file identifier, or {@code null} if none.
+     */
+    public String identifier;
+
+    /**
+     * The title of the resource, or {@code null} if none.
+     */
+    public String title;
+
+    /**
+     * The date at which the metadata was created, or {@code null} if none.
+     */
+    public Date dateStamp;
+
+    /**
+     * The citation dates of the resource, in declaration order. Keys are {@code CI_DateTypeCode}
+     * values like {@code "creation"}, {@code "publication"} or {@code "revision"}.
+     */
+    public final Map<String,Date> dates;
+
+    /**
+     * The union of the geographic bounding boxes in decimal degrees,
+     * or {@link Double#NaN} if there is no bounding box.
+     */
+    public double westBoundLongitude, eastBoundLongitude, southBoundLatitude, northBoundLatitude;
+
+    /**
+     * Creates an initially empty summary.
+     */
+    public MetadataSummary() {
+        dates = new LinkedHashMap<>();
+        westBoundLongitude = Double.NaN;
+        eastBoundLongitude = Double.NaN;
+        southBoundLatitude = Double.NaN;
+        northBoundLatitude = Double.NaN;
+    }
+
+    /**
+     * Returns {@code true} if this summary has a geographic bounding box.
+     *
+     * @return whether the bounding box coordinates are defined.
+     */
+    public boolean hasExtent() {
+        return !(Double.isNaN(westBoundLongitude) && Double.isNaN(eastBoundLongitude) &&
+                 Double.isNaN(southBoundLatitude) && Double.isNaN(northBoundLatitude));
+    }
+
+    /**
+     * Expands the bounding box of this summary for including the given bounding box.
+     * NaN values are ignored.
+     *
+     * @param  west   the western-most longitude in decimal degrees.
+     * @param  east   the eastern-most longitude in decimal degrees.
+     * @param  south  the southern-most latitude in decimal degrees.
+     * @param  north  the northern-most latitude in decimal degrees.
+     */
+    public void addExtent(final double west, final double east, final double south, final double north) {
+        westBoundLongitude = min(westBoundLongitude, west);
+        eastBoundLongitude = max(eastBoundLongitude, east);
+        southBoundLatitude = min(southBoundLatitude, south);
+        northBoundLatitude = max(northBoundLatitude, north);
+    }
+
+    /**
+     * Returns the minimal value, ignoring NaN.
+     */
+    private static double min(final double current, final double value) {
+        return (Double.isNaN(current) || value < current) ? value : current;
+    }
+
+    /**
+     * Returns the maximal value, ignoring NaN.
+     */
+    private static double max(final double current, final double value) {
+        return (Double.isNaN(current) || value > current) ? value : current;
+    }
+
+    /**
+     * Returns a string representation of this summary for debugging purpose.
+     *
+     * @return a string representation of this summary.
+     */
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder("MetadataSummary[“").append(identifier).append("”: ").append(title);
+        if (hasExtent()) {
+            buffer.append(", [").append(westBoundLongitude).append(" … ").append(eastBoundLongitude).append("] × [")
+                                .append(southBoundLatitude).append(" … ").append(northBoundLatitude).append(']');
+        }
+        return buffer.append(']').toString();
+    }
+}
@@ -19,9 +19,7 @@ package org.apache.sis.io.wkt;
 import java.util.Date;
 import java.util.Map;
 import java.util.List;
-import java.util.LinkedList;
-import java.util.ListIterator;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.Locale;
 import java.io.Serializable;
 import java.text.ParsePosition;
@@ -34,7 +32,6 @@ import org.apache.sis.util.CharSequences;
 import org.apache.sis.util.resources.Errors;
 import org.apache.sis.internal.metadata.WKTKeywords;
 import org.apache.sis.internal.util.CollectionsExt;
-import org.apache.sis.internal.util.UnmodifiableArrayList;
 
 import static org.apache.sis.util.CharSequences.skipLeadingWhitespaces;
 
@@ -51,9 +48,13 @@ import static org.apache.sis.util.CharSequences.skipLeadingWhitespaces;
  * The result is a tree, which can be seen with {@link #toString()} for debugging purpose.
  * Elements can be pulled in a <cite>first in, first out</cite> order.
  *
+ * <p>Children are stored in a plain array where pulled elements are replaced by {@code null}.
+ * Since elements are usually pulled in the order they appear in the WKT string, the index of
+ * the first remaining child is tracked for avoiding to scan the same null elements many times.</p>
+ *
  * @author  Rémi Ève (IRD)
  * @author  Martin Desruisseaux (IRD, Geomatys)
- * @version 0.6
+ * @version 1.0
  * @since   0.6
  * @module
  */
@@ -61,7 +62,7 @@ final class Element implements Serializable {
     /**
      * Indirectly for {@link WKTFormat} serialization compatibility.
      */
-    private static final long serialVersionUID = 2366817541632131955L;
+    private static final long serialVersionUID = -1432950624513404838L;
 
     /**
      * Kind of value expected in the element. Value 0 means "not yet determined".
@@ -97,10 +98,15 @@ final class Element implements Serializable {
     /**
      * An ordered sequence of {@link String}s, {@link Number}s and other {@link Element}s.
      * May be {@code null} if the keyword was not followed by a pair of brackets (e.g. "north").
-     *
-     * <p>Access to this list should be done using the iterator, not by random access.</p>
+     * Elements that have been pulled are replaced by {@code null}.
+     */
+    private final Object[] children;
+
+    /**
+     * Index of the first non-null element in the {@link #children} array.
+     * All elements before this index have been pulled.
      */
-    private final List<Object> list;
+    private int first;
 
     /**
      * The locale to be used for formatting an error message if the parsing fails, or {@code null} for
@@ -118,8 +124,7 @@ final class Element implements Serializable {
         keyword = name;
         offset  = singleton.offset;
         locale  = singleton.locale;
-        list    = new LinkedList<>();                           // Needs to be a modifiable list.
-        list.add(singleton);
+        children = new Object[] {singleton};
     }
 
     /**
@@ -129,14 +134,13 @@ final class Element implements Serializable {
         keyword = toCopy.keyword;
         offset  = toCopy.offset;
         locale  = toCopy.locale;
-        list    = new LinkedList<>(toCopy.list);                // Needs to be a modifiable list.
-        final ListIterator<Object> it = list.listIterator();
-        while (it.hasNext()) {
-            final Object value = it.next();
+        children = Arrays.copyOfRange(toCopy.children, toCopy.first, toCopy.children.length);
+        for (int i=0; i<children.length; i++) {
+            final Object value = children[i];
             if (value instanceof Element) {
                 final Element fragment = (Element) value;
-                if (fragment.list != null) {
-                    it.set(new Element(fragment));
+                if (fragment.children != null) {
+                    children[i] = new Element(fragment);
                 }
             }
         }
@@ -148,12 +152,12 @@ final class Element implements Serializable {
      *
      * <ul class="verbose">
      *   <li>If {@code null}, then the caller is parsing a WKT string. The {@code Element}
-     *     must be mutable because its content will be emptied as the parsing progress.</li>
+     *     content will be emptied as the parsing progress.</li>
      *
      *   <li>If non-null, then the caller is storing a WKT fragment. We create the elements but the caller will
-     *     not parse them immediately. The {@code Element} should be immutable because the fragment will potentially
-     *     be reused many time. Since the fragment may be stored for a long time, the {@code sharedValues} map will
-     *     be used for sharing unique instance of each value if possible.</li>
+     *     not parse them immediately. The {@code Element} shall not be modified because the fragment will potentially
+     *     be reused many time; it will be copied before use. Since the fragment may be stored for a long time,
+     *     the {@code sharedValues} map will be used for sharing unique instance of each value if possible.</li>
      * </ul>
      *
      * @param text          the text to parse.
@@ -200,7 +204,7 @@ final class Element implements Serializable {
                                 openingBracket = text.codePointAt(lower))) < 0)
         {
             position.setIndex(lower);
-            list = null;
+            children = null;
             return;
         }
         lower = skipLeadingWhitespaces(text, lower + Character.charCount(openingBracket), length);
@@ -214,7 +218,8 @@ final class Element implements Serializable {
          *   - Otherwise, if the first character is a quote, then the value is taken as a String.
          *   - Otherwise, the element is parsed as a number or as a date, depending of 'isTemporal' boolean value.
          */
-        final List<Object> list = new LinkedList<>();
+        Object[] list = new Object[8];
+        int count = 0;
         final String separator = parser.symbols.trimmedSeparator();
         while (lower < length) {
             final int firstChar = text.codePointAt(lower);
@@ -232,25 +237,29 @@ final class Element implements Serializable {
                     position.setErrorIndex(lower);
                     throw new UnparsableObjectException(locale, Errors.Keys.NoSuchValue_1, new Object[] {id}, lower);
                 }
-                if (fragment.list != null) {
+                if (fragment.children != null) {
                     fragment = new Element(fragment);
                 }
-                list.add(fragment);
+                if (count == list.length) list = Arrays.copyOf(list, count * 2);
+                list[count++] = fragment;
                 lower = upper;
             } else if (Character.isUnicodeIdentifierStart(firstChar)) {
                 /*
                  * If the character is the beginning of a Unicode identifier, add as a child element
                  * except for the boolean "true" and "false" values which are handled in a special way.
                  */
+                final Object value;
                 if (lower != (lower = regionMatches(text, lower, "true"))) {
-                    list.add(Boolean.TRUE);
+                    value = Boolean.TRUE;
                 } else if (lower != (lower = regionMatches(text, lower, "false"))) {
-                    list.add(Boolean.FALSE);
+                    value = Boolean.FALSE;
                 } else {
                     position.setIndex(lower);
-                    list.add(new Element(parser, text, position, sharedValues));
+                    value = new Element(parser, text, position, sharedValues);
                     lower = position.getIndex();
                 }
+                if (count == list.length) list = Arrays.copyOf(list, count * 2);
+                list[count++] = value;
             } else {
                 Object value;
                 final int closingQuote = parser.symbols.matchingQuote(firstChar);
@@ -319,7 +328,8 @@ final class Element implements Serializable {
                         value = e;
                     }
                 }
-                list.add(value);
+                if (count == list.length) list = Arrays.copyOf(list, count * 2);
+                list[count++] = value;
             }
             /*
              * At this point we finished to parse the component. If we find a separator (usually a coma),
@@ -333,11 +343,7 @@ final class Element implements Serializable {
                 final int c = text.codePointAt(lower);
                 if (c == closingBracket) {
                     position.setIndex(lower + Character.charCount(c));
-                    if (sharedValues != null) {
-                        this.list = UnmodifiableArrayList.wrap(list.toArray());
-                    } else {
-                        this.list = list;
-                    }
+                    children = ArraysExt.resize(list, count);
                     return;
                 }
                 position.setErrorIndex(lower);
@@ -446,7 +452,7 @@ final class Element implements Serializable {
      */
     final ParseException missingOrUnknownComponent(final String expected) {
         String name = null;
-        for (final Object child : list) {
+        for (final Object child : children) {
             if (child instanceof Element) {
                 name = ((Element) child).keyword;
                 if (name != null) {
@@ -499,16 +505,28 @@ final class Element implements Serializable {
     ////////                                                                      ////////
     //////////////////////////////////////////////////////////////////////////////////////
 
+    /**
+     * Removes the child at the given index and returns it.
+     * If the removed child was the first remaining one, then the {@link #first} index is advanced.
+     */
+    private Object remove(final int index) {
+        final Object object = children[index];
+        children[index] = null;
+        if (index == first) {
+            while (++first < children.length && children[first] == null);
+        }
+        return object;
+    }
+
     /**
      * Returns the next value (not a child element) without removing it.
      *
      * @return the next value, or {@code null} if none.
      */
     public Object peekValue() {
-        final Iterator<Object> iterator = list.iterator();
-        while (iterator.hasNext()) {
-            final Object object = iterator.next();
-            if (!(object instanceof Element)) {
+        for (int i=first; i<children.length; i++) {
+            final Object object = children[i];
+            if (object != null && !(object instanceof Element)) {
                 return object;
             }
         }
@@ -523,12 +541,9 @@ final class Element implements Serializable {
      * @throws ParseException if no more date is available.
      */
     public Date pullDate(final String key) throws ParseException {
-        final Iterator<Object> iterator = list.iterator();
-        while (iterator.hasNext()) {
-            final Object object = iterator.next();
-            if (object instanceof Date) {
-                iterator.remove();
-                return (Date) object;
+        for (int i=first; i<children.length; i++) {
+            if (children[i] instanceof Date) {
+                return (Date) remove(i);
             }
         }
         throw missingComponent(key);
@@ -542,12 +557,9 @@ final class Element implements Serializable {
      * @throws ParseException if no more number is available.
      */
     public double pullDouble(final String key) throws ParseException {
-        final Iterator<Object> iterator = list.iterator();
-        while (iterator.hasNext()) {
-            final Object object = iterator.next();
-            if (object instanceof Number) {
-                iterator.remove();
-                return ((Number) object).doubleValue();
+        for (int i=first; i<children.length; i++) {
+            if (children[i] instanceof Number) {
+                return ((Number) remove(i)).doubleValue();
             }
         }
         throw missingComponent(key);
@@ -561,12 +573,9 @@ final class Element implements Serializable {
      * @throws ParseException if no more number is available, or the number is not an integer.
      */
     public int pullInteger(final String key) throws ParseException {
-        final Iterator<Object> iterator = list.iterator();
-        while (iterator.hasNext()) {
-            final Object object = iterator.next();
-            if (object instanceof Number) {
-                iterator.remove();
-                final Number number = (Number) object;
+        for (int i=first; i<children.length; i++) {
+            if (children[i] instanceof Number) {
+                final Number number = (Number) remove(i);
                 if (number instanceof Float || number instanceof Double) {
                     throw new UnparsableObjectException(locale, Errors.Keys.UnparsableStringForClass_2,
                             new Object[] {Integer.class, number}, offset);
@@ -585,12 +594,9 @@ final class Element implements Serializable {
      * @throws ParseException if no more boolean is available.
      */
     public boolean pullBoolean(final String key) throws ParseException {
-        final Iterator<Object> iterator = list.iterator();
-        while (iterator.hasNext()) {
-            final Object object = iterator.next();
-            if (object instanceof Boolean) {
-                iterator.remove();
-                return (Boolean) object;
+        for (int i=first; i<children.length; i++) {
+            if (children[i] instanceof Boolean) {
+                return (Boolean) remove(i);
             }
         }
         throw missingComponent(key);
@@ -604,12 +610,9 @@ final class Element implements Serializable {
      * @throws ParseException if no more string is available.
      */
     public String pullString(final String key) throws ParseException {
-        final Iterator<Object> iterator = list.iterator();
-        while (iterator.hasNext()) {
-            final Object object = iterator.next();
-            if (object instanceof String) {
-                iterator.remove();
-                return (String) object;
+        for (int i=first; i<children.length; i++) {
+            if (children[i] instanceof String) {
+                return (String) remove(i);
             }
         }
         throw missingComponent(key);
@@ -623,12 +626,10 @@ final class Element implements Serializable {
      * @throws ParseException if no more object is available.
      */
     public Object pullObject(final String key) throws ParseException {
-        final Iterator<Object> iterator = list.iterator();
-        while (iterator.hasNext()) {
-            final Object object = iterator.next();
+        for (int i=first; i<children.length; i++) {
+            final Object object = children[i];
             if (object != null && !(object instanceof Element)) {
-                iterator.remove();
-                return object;
+                return remove(i);
             }
         }
         throw missingComponent(key);
@@ -650,19 +651,18 @@ final class Element implements Serializable {
      * @param  mode  {@link AbstractParser#FIRST}, {@link AbstractParser#OPTIONAL} or {@link AbstractParser#MANDATORY}.
      * @param  keys  the element names (e.g. {@code "PrimeMeridian"}).
      * @return the next {@link Element} of the given names found on the list, or {@code null} if none.
-     * @throws ParseException if {@code mode} is {@code MANDATORY} and no element of the given names was found.
+     * @throws ParseException if {@code mode} is {@code MANDATORY} and no element of the given names was found.
      */
     public Element pullElement(final int mode, final String... keys) throws ParseException {
-        final Iterator<Object> iterator = list.iterator();
-        while (iterator.hasNext()) {
-            final Object object = iterator.next();
+        for (int i=first; i<children.length; i++) {
+            final Object object = children[i];
             if (object instanceof Element) {
                 final Element element = (Element) object;
-                if (element.list != null) {
-                    for (int i=0; i<keys.length; i++) {
-                        if (element.keyword.equalsIgnoreCase(keys[i])) {
-                            element.keywordIndex = (byte) i;
-                            iterator.remove();
+                if (element.children != null) {
+                    for (int k=0; k<keys.length; k++) {
+                        if (element.keyword.equalsIgnoreCase(keys[k])) {
+                            element.keywordIndex = (byte) k;
+                            remove(i);
                             return element;
                         }
                     }
@@ -687,15 +687,10 @@ final class Element implements Serializable {
      * @throws ParseException if no more void element is available.
      */
     public Element pullVoidElement(final String key) throws ParseException {
-        final Iterator<Object> iterator = list.iterator();
-        while (iterator.hasNext()) {
-            final Object object = iterator.next();
-            if (object instanceof Element) {
-                final Element element = (Element) object;
-                if (element.list == null) {
-                    iterator.remove();
-                    return element;
-                }
+        for (int i=first; i<children.length; i++) {
+            final Object object = children[i];
+            if (object instanceof Element && ((Element) object).children == null) {
+                return (Element) remove(i);
             }
         }
         throw missingComponent(key);
@@ -709,12 +704,10 @@ final class Element implements Serializable {
      */
     @SuppressWarnings("unchecked")
     public <T> T pullOptional(final Class<T> type) {
-        final Iterator<Object> iterator = list.iterator();
-        while (iterator.hasNext()) {
-            final Object object = iterator.next();
+        for (int i=first; i<children.length; i++) {
+            final Object object = children[i];
             if (type.isInstance(object) && !(object instanceof Element)) {
-                iterator.remove();
-                return (T) object;
+                return (T) remove(i);
             }
         }
         return null;
@@ -726,7 +719,7 @@ final class Element implements Serializable {
      * @return {@code true} if there is no child remaining.
      */
     public boolean isEmpty() {
-        return list.isEmpty();
+        return first >= children.length;
     }
 
     /**
@@ -751,8 +744,12 @@ final class Element implements Serializable {
      * @throws ParseException if the list still contains some unprocessed values.
      */
     final void close(final Map<String, List<String>> ignoredElements) throws ParseException {
-        if (list != null) {
-            for (final Object value : list) {
+        if (children != null) {
+            for (int i=first; i<children.length; i++) {
+                final Object value = children[i];
+                if (value == null) {
+                    continue;
+                }
                 if (value instanceof Element) {
                     CollectionsExt.addToMultiValuesMap(ignoredElements, ((Element) value).keyword, keyword);
                 } else {
@@ -783,11 +780,15 @@ final class Element implements Serializable {
     @Debug
     private void format(final StringBuilder buffer, int margin, final String lineSeparator) {
         buffer.append(CharSequences.spaces(margin)).append(keyword);
-        if (list != null) {
+        if (children != null) {
             buffer.append('[');
             margin += 4;
             boolean addSeparator = false;
-            for (final Object value : list) {
+            for (int i=first; i<children.length; i++) {
+                final Object value = children[i];
+                if (value == null) {
+                    continue;
+                }
                 if (value instanceof Element) {
                     if (addSeparator) buffer.append(',');
                     buffer.append(lineSeparator);
@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.io.wkt;
+
+import java.util.Map;
+import java.util.Queue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.opengis.referencing.IdentifiedObject;
+import org.apache.sis.internal.system.ReferenceQueueConsumer;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.Disposable;
+
+
+/**
+ * A thread-safe facility for formatting objects as <cite>Well Known Text</cite> (WKT).
+ * {@link WKTFormat} instances are not synchronized, and creating a new instance for each formatting
+ * operation has a cost. This class keeps a pool of {@code WKTFormat} instances having all the same
+ * configuration than the template given at construction time, except for the {@link Convention}
+ * which can be specified at each method call. Each thread borrows an instance from the pool for
+ * the duration of a formatting operation, then gives it back.
+ *
+ * <p>In addition, the strings formatted for {@link IdentifiedObject}s are cached: formatting the same
+ * instance twice with the same convention returns the same string without formatting the object again.
+ * Objects are compared by identity and referenced weakly, so they can be garbage-collected when not used
+ * anymore. The cache can be read and updated concurrently.
+ * This cache assumes that identified objects are immutable, which is the case of all Apache SIS
+ * implementations. Strings formatted with warnings (for example because the object can not be
+ * represented in the requested convention) are not cached.</p>
+ *
+ * <p>This class is intended for applications formatting many objects concurrently,
+ * for example a web service returning the WKT of coordinate reference systems.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ *
+ * @see WKTFormat
+ *
+ * @since 1.0
+ * @module
+ */
+public final class WKTFormatPool {
+    /**
+     * The format from which to copy the configuration. This instance is never used directly
+     * for formatting; it is only cloned when a pool needs a new instance.
+     */
+    private final WKTFormat template;
+
+    /**
+     * The pools of available formats for each convention.
+     */
+    private final Map<Convention, Queue<WKTFormat>> pools;
+
+    /**
+     * The strings formatted for each identified object. Values are arrays indexed by
+     * {@link Convention#ordinal()}. Keys are compared by identity, since computing the
+     * hash code of an identified object may require a traversal of all its components.
+     * Entries are removed by the {@link ReferenceQueueConsumer} thread after their
+     * object has been garbage-collected.
+     *
+     * <p>Elements of the arrays are written without synchronization. This is okay because
+     * a thread seeing a {@code null} element only formats the object again.</p>
+     */
+    private final Map<Key, String[]> cache;
+
+    /**
+     * Creates a new pool of formats having the same configuration than the given format.
+     * The given format is copied; changes applied on it after this constructor call have
+     * no effect on this pool.
+     *
+     * @param  template  the format from which to copy the configuration.
+     */
+    public WKTFormatPool(final WKTFormat template) {
+        ArgumentChecks.ensureNonNull("template", template);
+        this.template = template.clone();
+        pools = new ConcurrentHashMap<>();
+        cache = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the convention used by the {@link #format(Object)} method.
+     * This is the convention of the template given at construction time.
+     *
+     * @return the default convention.
+     */
+    public Convention getConvention() {
+        return template.getConvention();
+    }
+
+    /**
+     * Formats the given object using the convention of the template given at construction time.
+     * This method can be invoked concurrently from any thread.
+     *
+     * @param  object  the object to format.
+     * @return the Well Known Text of the given object.
+     * @throws ClassCastException if the given object can not be formatted.
+     */
+    public String format(final Object object) {
+        return format(object, getConvention());
+    }
+
+    /**
+     * Formats the given object using the given convention.
+     * This method can be invoked concurrently from any thread.
+     *
+     * @param  object      the object to format.
+     * @param  convention  the convention to use.
+     * @return the Well Known Text of the given object.
+     * @throws ClassCastException if the given object can not be formatted.
+     */
+    public String format(final Object object, final Convention convention) {
+        ArgumentChecks.ensureNonNull("object",     object);
+        ArgumentChecks.ensureNonNull("convention", convention);
+        final boolean cacheable = (object instanceof IdentifiedObject);
+        if (cacheable) {
+            final String[] values = cache.get(new Key((IdentifiedObject) object, null));
+            if (values != null) {
+                final String wkt = values[convention.ordinal()];
+                if (wkt != null) {
+                    return wkt;
+                }
+            }
+        }
+        /*
+         * Not in the cache. Borrow a format from the pool, or create a new one if all
+         * existing formats are in use by other threads. The format is given back to the
+         * pool after the formatting, even if the formatting failed.
+         */
+        final Queue<WKTFormat> pool = pools.computeIfAbsent(convention, (c) -> new ConcurrentLinkedQueue<>());
+        WKTFormat format = pool.poll();
+        if (format == null) {
+            synchronized (template) {
+                format = template.clone();
+            }
+            format.setConvention(convention);
+        }
+        final String wkt;
+        final boolean valid;
+        try {
+            wkt = format.format(object);
+            valid = (format.getWarnings() == null);
+        } finally {
+            pool.add(format);
+        }
+        if (cacheable && valid) {
+            cache.computeIfAbsent(new Key((IdentifiedObject) object, cache),
+                    (k) -> new String[Convention.values().length])[convention.ordinal()] = wkt;
+        }
+        return wkt;
+    }
+
+    /**
+     * Clears the cache of formatted strings. The pools of formats are not cleared.
+     */
+    public void clearCache() {
+        cache.clear();
+    }
+
+    /**
+     * A weak reference to an identified object, used as a key in the {@link WKTFormatPool#cache}.
+     * Keys are compared by identity of the referenced objects.
+     */
+    private static final class Key extends WeakReference<IdentifiedObject> implements Disposable {
+        /**
+         * The map from which to remove this key after the object has been garbage-collected,
+         * or {@code null} if this key is used only for a search.
+         */
+        private final Map<Key,?> owner;
+
+        /**
+         * The identity hash code of the referenced object.
+         */
+        private final int hash;
+
+        /**
+         * Creates a new key for the given object.
+         *
+         * @param  object  the object to reference weakly.
+         * @param  owner   the map where the key will be stored, or {@code null} for a key used only for a search.
+         */
+        Key(final IdentifiedObject object, final Map<Key,?> owner) {
+            super(object, (owner != null) ? ReferenceQueueConsumer.QUEUE : null);
+            this.owner = owner;
+            hash = System.identityHashCode(object);
+        }
+
+        /**
+         * Invoked by the {@link ReferenceQueueConsumer} thread after the object has been garbage-collected.
+         */
+        @Override
+        public void dispose() {
+            owner.remove(this);
+        }
+
+        /**
+         * Returns the identity hash code of the referenced object.
+         */
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        /**
+         * Returns {@code true} if the given object is a key for the same referenced object.
+         * A key which has been cleared is equal only to itself.
+         */
+        @Override
+        public boolean equals(final Object other) {
+            if (other == this) {
+                return true;
+            }
+            if (other instanceof Key) {
+                final Object object = get();
+                return (object != null) && object == ((Key) other).get();
+            }
+            return false;
+        }
+    }
+}
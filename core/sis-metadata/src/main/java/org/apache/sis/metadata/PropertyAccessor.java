@@ -25,6 +25,9 @@ import java.util.Iterator;
 import java.util.Collection;
 import java.lang.reflect.Method;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import org.opengis.annotation.UML;
 import org.opengis.metadata.citation.Citation;
 import org.opengis.metadata.ExtendedElementInformation;
@@ -174,6 +177,25 @@ class PropertyAccessor {
      */
     private final Method[] setters;
 
+    /**
+     * Method handles for the {@link #getters}, with the parameter and return types erased to {@code Object}.
+     * Invoking a method handle is cheaper than {@link Method#invoke(Object, Object...)} since it avoids the
+     * access checks and the array of arguments on each call. Elements are {@code null} if the handle could
+     * not be created (for example because the method is declared in a non-public class), in which case the
+     * reflective path is used.
+     *
+     * @see #getValue(int, Object)
+     */
+    private final MethodHandle[] getterHandles;
+
+    /**
+     * Method handles for the {@link #setters}, or {@code null} if there is no setter.
+     * If non-null, this array has the same length than {@link #setters}.
+     *
+     * @see #setValue(int, Object, Object[])
+     */
+    private final MethodHandle[] setterHandles;
+
     /**
      * The JavaBeans property names. They are computed at construction time, {@linkplain String#intern() interned}
      * then cached. Those names are often the same than field names (at least in SIS implementation), so it is
@@ -362,6 +384,38 @@ class PropertyAccessor {
             elementTypes[i] = Numbers.primitiveToWrapper(elementType);
         }
         this.setters = setters;
+        /*
+         * Create the method handles after all methods have been selected. The types are erased
+         * to Object for allowing the use of MethodHandle.invokeExact(…) without knowing the types.
+         */
+        final MethodType getterType = MethodType.methodType(Object.class, Object.class);
+        getterHandles = new MethodHandle[getters.length];
+        for (int i=0; i<getters.length; i++) {
+            getterHandles[i] = handle(getters[i], getterType);
+        }
+        if (setters != null) {
+            final MethodType setterType = MethodType.methodType(Void.TYPE, Object.class, Object.class);
+            setterHandles = new MethodHandle[setters.length];
+            for (int i=0; i<setters.length; i++) {
+                if (setters[i] != null) {
+                    setterHandles[i] = handle(setters[i], setterType);
+                }
+            }
+        } else {
+            setterHandles = null;
+        }
+    }
+
+    /**
+     * Returns a method handle for the given public method with the given type,
+     * or {@code null} if the method is not accessible through a method handle.
+     */
+    private static MethodHandle handle(final Method method, final MethodType type) {
+        try {
+            return MethodHandles.publicLookup().unreflect(method).asType(type);
+        } catch (IllegalAccessException e) {
+            return null;                // Method declared in a non-public class. Caller will use reflection.
+        }
     }
 
     /**
@@ -680,6 +734,16 @@ class PropertyAccessor {
         return (index >= 0) && (index < allCount) && (setters != null) && (setters[index] != null);
     }
 
+    /**
+     * Returns {@code true} if the getter and the setter (if any) of the property at the given index
+     * are invoked through method handles, or {@code false} if at least one of them uses reflection.
+     * This is used for testing purpose only.
+     */
+    final boolean usesMethodHandles(final int index) {
+        return (getterHandles[index] != null) &&
+               (setters == null || setters[index] == null || setterHandles[index] != null);
+    }
+
     /**
      * Returns the value for the specified metadata, or {@code null} if none.
      * If the given index is out of bounds, then this method returns {@code null},
@@ -692,7 +756,39 @@ class PropertyAccessor {
      * @throws BackingStoreException if the implementation threw a checked exception.
      */
     Object get(final int index, final Object metadata) throws BackingStoreException {
-        return (index >= 0 && index < allCount) ? get(getters[index], metadata) : null;
+        return (index >= 0 && index < allCount) ? getValue(index, metadata) : null;
+    }
+
+    /**
+     * Gets the value of the property at the given index, which must be valid.
+     * This method uses the method handle if available, or reflection otherwise.
+     * Exceptions are handled in the same way than {@link #get(Method, Object)}.
+     *
+     * @param  index     the index of the property for which to get a value.
+     * @param  metadata  the metadata object to query.
+     * @throws BackingStoreException if the implementation threw a checked exception.
+     */
+    private Object getValue(final int index, final Object metadata) throws BackingStoreException {
+        final MethodHandle handle = getterHandles[index];
+        if (handle == null) {
+            return get(getters[index], metadata);
+        }
+        try {
+            return handle.invokeExact(metadata);
+        } catch (ClassCastException e) {
+            /*
+             * May happen if the getter method is defined only in the implementation class, not in the interface.
+             * This is the same case than the IllegalArgumentException documented in get(Method, Object).
+             */
+            if (!getters[index].getDeclaringClass().isInstance(metadata)) {
+                return null;
+            }
+            throw e;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new BackingStoreException(e);
+        }
     }
 
     /**
@@ -706,6 +802,7 @@ class PropertyAccessor {
      * @throws BackingStoreException if the implementation threw a checked exception.
      *
      * @see #set(Method, Object, Object[])
+     * @see #getValue(int, Object)
      */
     private static Object get(final Method method, final Object metadata) throws BackingStoreException {
         assert (method.getReturnType() != Void.TYPE) : method;
@@ -765,7 +862,7 @@ class PropertyAccessor {
      * </ul>
      *
      * <p>The {@code APPEND} mode has an additional side effect: it sets the {@code append} argument to
-     * {@code true} in the call to the {@link #convert(Method, Object, Object, Object[], Class, boolean)}
+     * {@code true} in the call to the {@link #convert(int, Object, Object, Object[], Class, boolean)}
      * method. See the {@code convert} javadoc for more information.</p>
      *
      * <p>If the given index is out of bounds, then this method does nothing and return {@code null}.
@@ -791,9 +888,7 @@ class PropertyAccessor {
             return null;
         }
         if (setters != null) {
-            final Method getter = getters[index];
-            final Method setter = setters[index];
-            if (setter != null) {
+            if (setters[index] != null) {
                 final Object oldValue;
                 final Object snapshot;                      // Copy of oldValue before modification.
                 switch (mode) {
@@ -804,12 +899,12 @@ class PropertyAccessor {
                         break;
                     }
                     case APPEND: {
-                        oldValue = get(getter, metadata);
+                        oldValue = getValue(index, metadata);
                         snapshot = null;
                         break;
                     }
                     case RETURN_PREVIOUS: {
-                        oldValue = get(getter, metadata);
+                        oldValue = getValue(index, metadata);
                         if (oldValue instanceof Collection<?>) {
                             if (oldValue instanceof List<?>) {
                                 snapshot = snapshot((List<?>) oldValue);
@@ -834,7 +929,7 @@ class PropertyAccessor {
                  * that there is always a change in RETURN_NULL mode since we don't know the previous value.
                  */
                 final Object[] newValues = new Object[] {value};
-                Boolean changed = convert(getter, metadata, oldValue, newValues, elementTypes[index], mode == APPEND);
+                Boolean changed = convert(index, metadata, oldValue, newValues, elementTypes[index], mode == APPEND);
                 if (changed == null) {
                     changed = (mode == RETURN_NULL) || (mode == IGNORE_READ_ONLY) || (newValues[0] != oldValue);
                     if (changed && mode == APPEND && !isNullOrEmpty(oldValue)) {
@@ -846,7 +941,7 @@ class PropertyAccessor {
                     }
                 }
                 if (changed) {
-                    set(setter, metadata, newValues);
+                    setValue(index, metadata, newValues);
                 }
                 return (mode == APPEND) ? changed : snapshot;
             }
@@ -874,6 +969,7 @@ class PropertyAccessor {
      * @throws BackingStoreException if the implementation threw a checked exception.
      *
      * @see #get(Method, Object)
+     * @see #setValue(int, Object, Object[])
      */
     private static void set(final Method setter, final Object metadata, final Object[] newValues)
             throws BackingStoreException
@@ -895,6 +991,31 @@ class PropertyAccessor {
         }
     }
 
+    /**
+     * Sets the value of the property at the given index, which must have a setter.
+     * This method uses the method handle if available, or reflection otherwise.
+     * No conversion is applied on the values.
+     *
+     * @param  index      the index of the property to set.
+     * @param  metadata   the metadata object on which to set the value.
+     * @param  newValues  the argument to give to the setter method, as an array of length 1.
+     * @throws BackingStoreException if the implementation threw a checked exception.
+     */
+    private void setValue(final int index, final Object metadata, final Object[] newValues) throws BackingStoreException {
+        final MethodHandle handle = setterHandles[index];
+        if (handle == null) {
+            set(setters[index], metadata, newValues);
+            return;
+        }
+        try {
+            handle.invokeExact(metadata, newValues[0]);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new BackingStoreException(e);
+        }
+    }
+
     /**
      * Converts a value to the type required by a setter method.
      * The values are converted in-place in the {@code newValues} array. We use an array instead
@@ -919,9 +1040,9 @@ class PropertyAccessor {
      * those collections are live. However this method can be though as if the collections were
      * not live, since the caller will invoke the setter method with the collection anyway.
      *
-     * @param  getter       the method to use for fetching the previous value.
+     * @param  index        index of the getter method to use for fetching the previous value.
      * @param  metadata     the metadata object to query and modify.
-     * @param  oldValue     the value returned by {@code get(getter, metadata)}, or {@code null} if unknown.
+     * @param  oldValue     the value returned by {@code getValue(index, metadata)}, or {@code null} if unknown.
      *                      This parameter is only an optimization for avoiding to invoke the getter method
      *                      twice if the value is already known.
      * @param  newValues    the argument to convert. The content of this array will be modified in-place.
@@ -935,10 +1056,11 @@ class PropertyAccessor {
      * @throws ClassCastException if the element of the {@code arguments} array is not of the expected type.
      * @throws BackingStoreException if the implementation threw a checked exception.
      */
-    private Boolean convert(final Method getter, final Object metadata, Object oldValue, final Object[] newValues,
+    private Boolean convert(final int index, final Object metadata, Object oldValue, final Object[] newValues,
             Class<?> elementType, final boolean append) throws ClassCastException, BackingStoreException
     {
         assert newValues.length == 1;
+        final Method getter = getters[index];
         Object newValue = newValues[0];
         Class<?> targetType = getter.getReturnType();
         if (newValue == null) {
@@ -997,7 +1119,7 @@ class PropertyAccessor {
             Collection<?> addTo = null;
             if (!isCollection || append) {
                 if (oldValue == null) {
-                    oldValue = get(getter, metadata);
+                    oldValue = getValue(index, metadata);
                 }
                 if (oldValue != null) {
                     addTo = (Collection<?>) oldValue;
@@ -1110,7 +1232,7 @@ class PropertyAccessor {
         int count = 0;
         // Use 'standardCount' instead of 'allCount' for ignoring deprecated methods.
         for (int i=0; i<standardCount; i++) {
-            final Object value = get(getters[i], metadata);
+            final Object value = getValue(i, metadata);
             if (!valuePolicy.isSkipped(value)) {
                 switch (mode) {
                     case COUNT_FIRST:{
@@ -1154,9 +1276,8 @@ class PropertyAccessor {
         assert type.isInstance(metadata1) : metadata1;
         assert type.isInstance(metadata2) : metadata2;
         for (int i=0; i<standardCount; i++) {
-            final Method method = getters[i];
-            final Object value1 = get(method, metadata1);
-            final Object value2 = get(method, metadata2);
+            final Object value1 = getValue(i, metadata1);
+            final Object value2 = getValue(i, metadata2);
             if (isNullOrEmpty(value1) && isNullOrEmpty(value2)) {
                 /*
                  * Consider empty collections/arrays as equal to null.
@@ -1203,7 +1324,7 @@ class PropertyAccessor {
         assert type.isInstance(metadata) : metadata;
         for (int i=0; i<standardCount; i++) {
             visitor.setCurrentProperty(names[i]);
-            final Object value = get(getters[i], metadata);
+            final Object value = getValue(i, metadata);
             if (value != null) {
                 final Object result = visitor.visit(elementTypes[i], value);
                 if (result != value) {
@@ -1250,12 +1371,12 @@ class PropertyAccessor {
                      */
                     continue;
                 }
-                final Object value = get(getters[i], source);
+                final Object value = getValue(i, source);
                 final Object result = visitor.visit(elementTypes[i], value);
                 if (source == target ? (result != value) : !isNullOrEmpty(result)) {    // See "constraint" in Javadoc
                     if (result == MetadataVisitor.SKIP_SIBLINGS) break;
                     arguments[0] = result;
-                    set(setter, target, arguments);
+                    setValue(i, target, arguments);
                     /*
                      * We invoke the set(…) method variant that do not perform type conversion
                      * because we do not want it to replace the immutable collections created
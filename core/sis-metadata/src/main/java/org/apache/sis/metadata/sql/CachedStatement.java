@@ -16,11 +16,13 @@
  */
 package org.apache.sis.metadata.sql;
 
+import java.util.Map;
 import java.util.Locale;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import org.apache.sis.util.resources.Errors;
 import org.apache.sis.util.logging.WarningListeners;
@@ -44,7 +46,7 @@ import org.apache.sis.internal.system.Loggers;
  * the {@code CachedStatement} instance. This object is closed by a background thread of {@link MetadataSource}.</div>
  *
  * @author  Martin Desruisseaux (IRD, Geomatys)
- * @version 0.8
+ * @version 1.0
  * @since   0.8
  * @module
  */
@@ -79,6 +81,12 @@ final class CachedStatement implements AutoCloseable {
      */
     long expireTime;
 
+    /**
+     * Number of times that the SQL query has been executed by this statement.
+     * This is read by {@link MetadataSource} for computing cache statistics.
+     */
+    int queryCount;
+
     /**
      * Where to report the warnings. This is not necessarily a logger, since users can register listeners.
      */
@@ -109,6 +117,33 @@ final class CachedStatement implements AutoCloseable {
      * @throws MetadataStoreException if no record has been found for the given key.
      */
     final Object getValue(final String id, final String attribute) throws SQLException, MetadataStoreException {
+        return results(id).getObject(attribute);
+    }
+
+    /**
+     * Copies all attribute values of the given record in the given map. Keys are column labels as
+     * reported by the JDBC driver and values are the column values, including {@code null} values.
+     * This method does not execute a new query if the record is already the current one.
+     *
+     * @param  id    the object identifier, usually the primary key value.
+     * @param  row   where to store the attribute values.
+     * @throws SQLException if an SQL operation failed.
+     * @throws MetadataStoreException if no record has been found for the given key.
+     */
+    final void getRow(final String id, final Map<String,Object> row) throws SQLException, MetadataStoreException {
+        final ResultSet r = results(id);
+        final ResultSetMetaData md = r.getMetaData();
+        final int count = md.getColumnCount();
+        for (int i=1; i<=count; i++) {
+            row.put(md.getColumnLabel(i), r.getObject(i));
+        }
+    }
+
+    /**
+     * Returns the result set positioned on the record for the given identifier.
+     * The query is executed only if the current result set is for another record.
+     */
+    private ResultSet results(final String id) throws SQLException, MetadataStoreException {
         if (!id.equals(identifier)) {
             closeResultSet();
         }
@@ -116,6 +151,7 @@ final class CachedStatement implements AutoCloseable {
         if (r == null) {
             statement.setString(1, id);
             r = statement.executeQuery();
+            queryCount++;
             if (!r.next()) {
                 final String table = r.getMetaData().getTableName(1);
                 r.close();
@@ -124,7 +160,7 @@ final class CachedStatement implements AutoCloseable {
             results = r;
             identifier = id;
         }
-        return r.getObject(attribute);
+        return r;
     }
 
     /**
@@ -109,6 +109,14 @@ final class Dispatcher implements InvocationHandler {
      */
     private transient long nullValues;
 
+    /**
+     * Whether {@link #fetchRow(LookupInfo)} has already been invoked. This is needed because the row is not
+     * stored if there is no implementation class for the metadata interface, in which case {@link #cache}
+     * stay {@code null}. Like {@link #nullValues}, this field is only an optimization; it is okay if the
+     * row is fetched twice.
+     */
+    private transient boolean rowFetched;
+
     /**
      * Creates a new metadata handler.
      *
@@ -227,6 +235,9 @@ final class Dispatcher implements InvocationHandler {
             final boolean allowNull = Semaphores.queryAndSet(Semaphores.NULL_COLLECTION);
             try {
                 Object cache = this.cache;
+                if (cache == null && source.eagerFetch && !rowFetched) {
+                    cache = fetchRow(info);
+                }
                 if (cache != null) {
                     synchronized (cache) {
                         value = method.invoke(cache);
@@ -234,22 +245,15 @@ final class Dispatcher implements InvocationHandler {
                 }
                 if (value == null) {
                     info.setMetadataType(type);     // Precaution in case method.invoke(cache) fetched other metadata.
-                    value = source.readColumn(info, method, this);
+                    if ((nullValues & nullBit) == 0) {
+                        value = source.readColumn(info, method, this);
+                    }
                     if (value != null) {
                         if (cache == null) {
-                            final Class<?> impl = source.standard.getImplementation(type);
-                            if (impl == null) {
+                            cache = createCache(type);
+                            if (cache == null) {
                                 return value;
                             }
-                            cache = impl.newInstance();
-                            if (cache instanceof ModifiableMetadata) {
-                                ((ModifiableMetadata) cache).transition(ModifiableMetadata.State.COMPLETABLE);
-                            }
-                            /*
-                             * We do not use AtomicReference because it is okay if the cache is instantiated twice.
-                             * It would cause us to query the database twice, but we should get the same information.
-                             */
-                            this.cache = cache;
                         }
                         final Map<String, Object> map = source.standard.asValueMap(cache, type,
                                     KeyNamePolicy.METHOD_NAME, ValueExistencePolicy.ALL);
@@ -298,6 +302,78 @@ final class Dispatcher implements InvocationHandler {
         return value;
     }
 
+    /**
+     * Creates the metadata object where to store the property values, or returns {@code null}
+     * if there is no implementation class for the given type.
+     *
+     * @param  type  the metadata interface for which to create an implementation.
+     * @return the new {@link #cache} value, or {@code null} if none.
+     * @throws ReflectiveOperationException if an error occurred while creating the implementation instance.
+     */
+    private Object createCache(final Class<?> type) throws ReflectiveOperationException {
+        final Class<?> impl = source.standard.getImplementation(type);
+        if (impl == null) {
+            return null;
+        }
+        final Object cache = impl.newInstance();
+        if (cache instanceof ModifiableMetadata) {
+            ((ModifiableMetadata) cache).transition(ModifiableMetadata.State.COMPLETABLE);
+        }
+        /*
+         * We do not use AtomicReference because it is okay if the cache is instantiated twice.
+         * It would cause us to query the database twice, but we should get the same information.
+         */
+        this.cache = cache;
+        return cache;
+    }
+
+    /**
+     * Reads all property values of the record in a single step and stores them in a new {@link #cache}.
+     * Properties having a {@code null} value in the database are recorded in the {@link #nullValues}
+     * bitmask, so that {@link #fetchValue(LookupInfo, Method)} will not query the database again for them.
+     * This method is invoked only if {@link MetadataSource#eagerFetch} is {@code true}, and only once
+     * (even if there is no implementation class where to store the values).
+     *
+     * @param  info  information related to the interface of the metadata object for which a property value is requested.
+     * @return the new {@link #cache} value, or {@code null} if there is no implementation class.
+     */
+    private Object fetchRow(final LookupInfo info)
+            throws ReflectiveOperationException, SQLException, MetadataStoreException
+    {
+        final Class<?> type = info.getMetadataType();
+        final Map<String,Integer> indices = info.asIndexMap(source.standard);
+        final Map<String,Object> row = source.readRow(info, this);
+        final Object cache = createCache(type);
+        if (cache != null) {
+            final Map<String, Object> map = source.standard.asValueMap(cache, type,
+                        KeyNamePolicy.METHOD_NAME, ValueExistencePolicy.ALL);
+            synchronized (cache) {
+                for (final Map.Entry<String,Object> entry : row.entrySet()) {
+                    final Object value = entry.getValue();
+                    if (value != null) {
+                        map.putIfAbsent(entry.getKey(), value);
+                    }
+                }
+            }
+        }
+        /*
+         * Remember the null values even if there is no cache, since
+         * they are not going to be stored anywhere else.
+         */
+        long nulls = 0;
+        for (final Map.Entry<String,Object> entry : row.entrySet()) {
+            if (entry.getValue() == null) {
+                final Integer index = indices.get(entry.getKey());
+                if (index != null && index < Long.SIZE) {
+                    nulls |= 1L << index;
+                }
+            }
+        }
+        nullValues |= nulls;
+        rowFetched = true;
+        return cache;
+    }
+
     /**
      * Returns the error message for a failure to query the database for the property identified by the given method.
      */
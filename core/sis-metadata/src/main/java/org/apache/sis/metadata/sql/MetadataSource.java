@@ -22,6 +22,7 @@ import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.TreeSet;
+import java.util.TreeMap;
 import java.util.SortedSet;
 import java.util.Collection;
 import java.util.Collections;
@@ -102,8 +103,17 @@ import org.apache.sis.internal.geoapi.evolution.Interim;
  *   <tr><td>{@code "catalog"}</td>       <td>{@link String}</td>      <td>The database catalog where the metadata schema is stored.</td></tr>
  *   <tr><td>{@code "classloader"}</td>   <td>{@link ClassLoader}</td> <td>The class loader to use for creating {@link Proxy} instances.</td></tr>
  *   <tr><td>{@code "maxStatements"}</td> <td>{@link Integer}</td>     <td>Maximal number of {@link PreparedStatement}s that can be kept simultaneously open.</td></tr>
+ *   <tr><td>{@code "eagerFetch"}</td>    <td>{@link Boolean}</td>     <td>Whether to fetch all columns of a record when the first property is requested.</td></tr>
  * </table>
  *
+ * <div class="section">Eager fetching</div>
+ * By default, the property values of a metadata object are read from the database only when first requested.
+ * If the {@code "eagerFetch"} property is {@link Boolean#TRUE}, then the first property request reads the whole
+ * record in a single step and stores all values in the metadata object at once. This is more efficient when most
+ * properties of the fetched metadata are going to be used. Foreigner keys are still resolved lazily, but each of
+ * the referenced records will also be fetched in one step when first used. The efficiency of the cache can be
+ * verified with {@link #getHitRatios()}.
+ *
  * <div class="section">Concurrency</div>
  * {@code MetadataSource} is thread-safe but is not concurrent. If concurrency is desired,
  * multiple instances of {@code MetadataSource} can be created for the same {@link DataSource}.
@@ -269,6 +279,22 @@ public class MetadataSource implements AutoCloseable {
      */
     private final WarningListeners<MetadataSource> listeners;
 
+    /**
+     * Whether to read all columns of a record when the first property of a metadata object is requested.
+     *
+     * @see #readRow(LookupInfo, Dispatcher)
+     */
+    final boolean eagerFetch;
+
+    /**
+     * Number of column values read and number of SQL queries executed for each table.
+     * Keys are table names and values are arrays of length 2 containing those two counts.
+     * Every access to this map must be synchronized on {@code MetadataSource.this}.
+     *
+     * @see #getHitRatios()
+     */
+    private final Map<String,long[]> accessCounts;
+
     /**
      * Whether at least one {@link CloseTask} is scheduled for execution.
      *
@@ -368,10 +394,12 @@ public class MetadataSource implements AutoCloseable {
         ArgumentChecks.ensureNonNull("dataSource", dataSource);
         ClassLoader classloader;
         Integer maxStatements;
+        Boolean eagerFetch;
 
         catalog       = Containers.property(properties, "catalog",       String.class);
         classloader   = Containers.property(properties, "classloader",   ClassLoader.class);
         maxStatements = Containers.property(properties, "maxStatements", Integer.class);
+        eagerFetch    = Containers.property(properties, "eagerFetch",    Boolean.class);
         if (classloader == null) {
             classloader = getClass().getClassLoader();
         }
@@ -390,6 +418,8 @@ public class MetadataSource implements AutoCloseable {
         this.pool         = new WeakValueHashMap<>(CacheKey.class);
         this.listeners    = new WarningListeners<>(this);
         this.lastUsed     = ThreadLocal.withInitial(LookupInfo::new);
+        this.eagerFetch   = (eagerFetch != null) && eagerFetch;
+        this.accessCounts = new HashMap<>();
     }
 
     /**
@@ -417,6 +447,8 @@ public class MetadataSource implements AutoCloseable {
         pool         = source.pool;
         lastUsed     = source.lastUsed;
         listeners    = new WarningListeners<>(this, source.listeners);
+        eagerFetch   = source.eagerFetch;
+        accessCounts = new HashMap<>();
     }
 
     /**
@@ -432,6 +464,8 @@ public class MetadataSource implements AutoCloseable {
         pool         = null;
         lastUsed     = null;
         listeners    = null;
+        eagerFetch   = false;
+        accessCounts = null;
     }
 
     /**
@@ -837,16 +871,10 @@ public class MetadataSource implements AutoCloseable {
             final CacheKey key = new CacheKey(type, identifier);
             /*
              * IMPLEMENTATION NOTE: be careful to not invoke any method that may synchronize on 'this'
-             * inside the block synchronized on 'pool'.
+             * inside the function given to 'pool', since that function is invoked while holding a lock.
              */
-            synchronized (pool) {
-                value = pool.get(key);
-                if (value == null && type.isInterface()) {
-                    value = Proxy.newProxyInstance(classloader,
-                            new Class<?>[] {type, MetadataProxy.class}, new Dispatcher(identifier, this));
-                    pool.put(key, value);
-                }
-            }
+            value = pool.computeIfAbsent(key, (k) -> type.isInterface() ? Proxy.newProxyInstance(classloader,
+                    new Class<?>[] {type, MetadataProxy.class}, new Dispatcher(identifier, this)) : null);
             /*
              * At this point, a null value means that the given type is a class rather than an interface.
              * This may happen when a new type defined by a standard has not yet been defined in GeoAPI.
@@ -855,26 +883,23 @@ public class MetadataSource implements AutoCloseable {
              * very efficient and may waste a little bit of memory, but it should not happen too often.
              */
             if (value == null) {
-                Method method = null;
                 final Class<?> subType = TableHierarchy.subType(type, identifier);
                 final Dispatcher toSearch = new Dispatcher(identifier, this);
                 try {
                     value = subType.getConstructor().newInstance();
-                    final LookupInfo info            = getLookupInfo(subType);
-                    final Map<String,Object> map     = asValueMap(value);
-                    final Map<String,String> methods = standard.asNameMap(subType, NAME_POLICY, KeyNamePolicy.METHOD_NAME);
-                    for (final Map.Entry<String,Object> entry : map.entrySet()) {
-                        method = subType.getMethod(methods.get(entry.getKey()));
-                        info.setMetadataType(subType);
-                        final Object p = readColumn(info, method, toSearch);
+                    final Map<String,Object> row = readRow(getLookupInfo(subType), toSearch);
+                    final Map<String,Object> map = standard.asValueMap(value, subType,
+                                KeyNamePolicy.METHOD_NAME, ValueExistencePolicy.ALL);
+                    for (final Map.Entry<String,Object> entry : row.entrySet()) {
+                        final Object p = entry.getValue();
                         if (p != null) {
-                            entry.setValue(p);
+                            map.put(entry.getKey(), p);
                         }
                     }
                 } catch (ReflectiveOperationException e) {
                     throw new MetadataStoreException(Errors.format(Errors.Keys.UnsupportedImplementation_1, subType), e);
                 } catch (SQLException e) {
-                    throw new MetadataStoreException(toSearch.error(method), e);
+                    throw new MetadataStoreException(Errors.format(Errors.Keys.DatabaseError_2, subType, identifier), e);
                 }
             }
         }
@@ -912,13 +937,9 @@ public class MetadataSource implements AutoCloseable {
          * If the identifier is prefixed with a table name as in "{Organisation}identifier",
          * the name between bracket is a subtype of the given 'type' argument.
          */
-        final Class<?> type           = TableHierarchy.subType(info.getMetadataType(), toSearch.identifier);
-        final Class<?> returnType     = Interim.getReturnType(method);
-        final boolean  wantCollection = Collection.class.isAssignableFrom(returnType);
-        final Class<?> elementType    = wantCollection ? Classes.boundOfParameterizedProperty(method) : returnType;
-        final boolean  isMetadata     = standard.isMetadata(elementType);
-        final String   tableName      = getTableName(type);
-        final String   columnName     = info.asNameMap(standard).get(method.getName());
+        final Class<?> type       = TableHierarchy.subType(info.getMetadataType(), toSearch.identifier);
+        final String   tableName  = getTableName(type);
+        final String   columnName = info.asNameMap(standard).get(method.getName());
         final boolean  isArray;
         Object value;
         synchronized (this) {
@@ -931,24 +952,183 @@ public class MetadataSource implements AutoCloseable {
                  * Note that the usage of 'result' must stay inside this synchronized block
                  * because we can not assume that JDBC connections are thread-safe.
                  */
-                CachedStatement result = take(type, Byte.toUnsignedInt(toSearch.preferredIndex));
-                if (result == null) {
-                    final SQLBuilder helper = helper();
-                    final String query = helper.clear().append("SELECT * FROM ")
-                            .appendIdentifier(schema, tableName).append(" WHERE ")
-                            .appendIdentifier(ID_COLUMN).append("=?").toString();
-                    result = new CachedStatement(type, connection().prepareStatement(query), listeners);
-                }
+                final CachedStatement result = prepare(type, tableName, toSearch);
+                final int queryCount = result.queryCount;
                 value = result.getValue(toSearch.identifier, columnName);
                 isArray = (value instanceof java.sql.Array);
                 if (isArray) {
-                    final java.sql.Array array = (java.sql.Array) value;
-                    value = array.getArray();
-                    array.free();
+                    value = toJavaArray((java.sql.Array) value);
                 }
+                count(tableName, 1, result.queryCount - queryCount);
                 toSearch.preferredIndex = (byte) recycle(result, Byte.toUnsignedInt(toSearch.preferredIndex));
             }
         }
+        return convert(info, method, columnName, value, isArray);
+    }
+
+    /**
+     * Invoked by {@link Dispatcher} for fetching all attribute values of a record in a single step.
+     * The returned map contains an entry for each property of the {@linkplain LookupInfo#getMetadataType()
+     * metadata type} having a column in the database table, including the properties having a {@code null}
+     * value in the database. Keys are method names and values are converted as if they were read by
+     * {@link #readColumn(LookupInfo, Method, Dispatcher)}.
+     *
+     * @param  info      the interface type (together with cached information).
+     *                   This is mapped to the table name in the database.
+     * @param  toSearch  contains the identifier and preferred index of the record to search.
+     * @return the values of all properties having a column in the table, keyed by method names.
+     * @throws SQLException if the SQL query failed.
+     * @throws MetadataStoreException if a value was not found or can not be converted to the expected type.
+     */
+    final Map<String,Object> readRow(final LookupInfo info, final Dispatcher toSearch)
+            throws SQLException, MetadataStoreException
+    {
+        final Class<?> metadataType = info.getMetadataType();
+        final Class<?> type         = TableHierarchy.subType(metadataType, toSearch.identifier);
+        final String   tableName    = getTableName(type);
+        final Map<String,String> columns = info.asNameMap(standard);
+        /*
+         * JDBC drivers may change the case of column labels (e.g. Derby uses upper-case for unquoted identifiers).
+         * We use a case-insensitive map for consistency with the behavior of 'ResultSet.getObject(String)'.
+         */
+        final Map<String,Object> row = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        final Set<String> arrays = new HashSet<>();
+        synchronized (this) {
+            final CachedStatement result = prepare(type, tableName, toSearch);
+            final int queryCount = result.queryCount;
+            result.getRow(toSearch.identifier, row);
+            for (final Map.Entry<String,Object> entry : row.entrySet()) {
+                final Object value = entry.getValue();
+                if (value instanceof java.sql.Array) {
+                    entry.setValue(toJavaArray((java.sql.Array) value));
+                    arrays.add(entry.getKey());
+                }
+            }
+            count(tableName, row.size(), result.queryCount - queryCount);
+            toSearch.preferredIndex = (byte) recycle(result, Byte.toUnsignedInt(toSearch.preferredIndex));
+        }
+        /*
+         * Conversions are done outside the synchronized block because they may need to resolve foreigner keys,
+         * which may cause new queries on this MetadataSource for types that are classes instead than interfaces.
+         */
+        final Map<String,Object> values = new HashMap<>();
+        for (final Map.Entry<String,String> entry : columns.entrySet()) {
+            final String columnName = entry.getValue();
+            if (row.containsKey(columnName)) {
+                final Method method;
+                try {
+                    method = metadataType.getMethod(entry.getKey());
+                } catch (NoSuchMethodException e) {
+                    continue;                   // Property declared only in the implementation class.
+                }
+                values.put(entry.getKey(), convert(info, method, columnName,
+                           row.get(columnName), arrays.contains(columnName)));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Gets a prepared statement for fetching records of the given type, creating it if needed.
+     * This method shall be invoked in a block synchronized on {@code this}, and the returned
+     * statement shall be given back to {@link #recycle(CachedStatement, int)} in the same block.
+     */
+    private CachedStatement prepare(final Class<?> type, final String tableName, final Dispatcher toSearch)
+            throws SQLException
+    {
+        assert Thread.holdsLock(this);
+        CachedStatement result = take(type, Byte.toUnsignedInt(toSearch.preferredIndex));
+        if (result == null) {
+            final SQLBuilder helper = helper();
+            final String query = helper.clear().append("SELECT * FROM ")
+                    .appendIdentifier(schema, tableName).append(" WHERE ")
+                    .appendIdentifier(ID_COLUMN).append("=?").toString();
+            result = new CachedStatement(type, connection().prepareStatement(query), listeners);
+        }
+        return result;
+    }
+
+    /**
+     * Copies the content of the given SQL array in a Java array, then releases the SQL array.
+     * This method shall be invoked in a block synchronized on {@code this}.
+     */
+    private static Object toJavaArray(final java.sql.Array array) throws SQLException {
+        final Object value = array.getArray();
+        array.free();
+        return value;
+    }
+
+    /**
+     * Records that column values have been read from the given table.
+     * This method shall be invoked in a block synchronized on {@code this}.
+     *
+     * @param  tableName    the table from which column values have been read.
+     * @param  columnCount  number of column values that have been read.
+     * @param  queryCount   number of SQL queries that have been executed for reading those values.
+     */
+    private void count(final String tableName, final int columnCount, final int queryCount) {
+        final long[] counts = accessCounts.computeIfAbsent(tableName, (k) -> new long[2]);
+        counts[0] += columnCount;
+        counts[1] += queryCount;
+    }
+
+    /**
+     * Returns, for each table queried up to date, the fraction of column values that have been read
+     * without executing a new SQL query. A value close to 1 means that most values have been read from
+     * the result of previous queries, and a value of 0 means that each value required a new query.
+     * Property values served by the metadata objects themselves (because they were already fetched)
+     * are not counted.
+     *
+     * <p>Values are computed from the statistics collected since the creation of this {@code MetadataSource}.
+     * They are useful for deciding whether the {@code "eagerFetch"} property should be enabled.</p>
+     *
+     * @return the cache hit ratio (between 0 and 1 inclusive) for each table name.
+     *
+     * @since 1.0
+     */
+    public synchronized Map<String,Double> getHitRatios() {
+        final Map<String,Double> ratios = new TreeMap<>();
+        if (accessCounts != null) {
+            for (final Map.Entry<String,long[]> entry : accessCounts.entrySet()) {
+                final long[] counts = entry.getValue();
+                ratios.put(entry.getKey(), (counts[0] - counts[1]) / (double) counts[0]);
+            }
+        }
+        return Collections.unmodifiableMap(ratios);
+    }
+
+    /**
+     * Returns the number of SQL queries executed up to date for reading records in the given table.
+     * This is used for testing purpose only.
+     *
+     * @param  tableName  the table for which to get the number of queries.
+     * @return number of SQL queries executed on the given table.
+     */
+    final synchronized long getQueryCount(final String tableName) {
+        final long[] counts = (accessCounts != null) ? accessCounts.get(tableName) : null;
+        return (counts != null) ? counts[1] : 0;
+    }
+
+    /**
+     * Converts a value read from the database to the return type of the given method.
+     * Foreigner keys are resolved by calls to {@link #lookup(Class, String)}.
+     * This method shall <strong>not</strong> be invoked in a block synchronized on {@code this}.
+     *
+     * @param  info        the interface type (together with cached information).
+     * @param  method      the method invoked. This is mapped to the column name in the database.
+     * @param  columnName  the column name, used in error messages.
+     * @param  value       the value read from the database, or {@code null}.
+     * @param  isArray     whether the value was a SQL array copied in a Java array.
+     * @return the value to return from the given method.
+     * @throws MetadataStoreException if a value was not found or can not be converted to the expected type.
+     */
+    private Object convert(final LookupInfo info, final Method method, final String columnName,
+            Object value, final boolean isArray) throws MetadataStoreException
+    {
+        final Class<?> returnType     = Interim.getReturnType(method);
+        final boolean  wantCollection = Collection.class.isAssignableFrom(returnType);
+        final Class<?> elementType    = wantCollection ? Classes.boundOfParameterizedProperty(method) : returnType;
+        final boolean  isMetadata     = standard.isMetadata(elementType);
         /*
          * If the value is an array and the return type is anything except an array of primitive type, ensure
          * that the value is converted in an array of type Object[]. In this process, resolve foreigner keys.
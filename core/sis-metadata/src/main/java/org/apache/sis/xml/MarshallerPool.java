@@ -21,6 +21,14 @@ import java.util.Deque;
 import java.util.ServiceLoader;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
@@ -33,8 +41,10 @@ import org.apache.sis.internal.system.DefaultFactories;
 import org.apache.sis.internal.jaxb.AdapterReplacement;
 import org.apache.sis.internal.jaxb.TypeRegistration;
 import org.apache.sis.internal.util.Constants;
+import org.apache.sis.internal.xml.MarshallerPoolMXBean;
 import org.apache.sis.util.ArgumentChecks;
 import org.apache.sis.util.CharSequences;
+import org.apache.sis.util.Configuration;
 
 
 /**
@@ -53,13 +63,21 @@ import org.apache.sis.util.CharSequences;
  * The (un)marshallers created by this class can optionally by configured with the SIS-specific
  * properties defined in the {@link XML} class, in addition to JAXB standard properties.
  *
+ * <div class="section">Pool size</div>
+ * Idle (un)marshallers are discarded after a timeout of about 15 seconds. Applications with bursty loads
+ * can keep a minimal amount of instances regardless the timeout, and bound the amount of idle instances,
+ * by invoking {@link #setPoolSize(int, int)}. Applications where the same threads marshal repeatedly can
+ * also enable {@linkplain #setThreadAffinity(boolean) thread affinity}, in which case each thread keeps
+ * its last recycled (un)marshallers for itself, outside the pool size limits. Usage statistics can be
+ * monitored with JMX after a call to {@link #register(String)}.
+ *
  * <div class="section">Thread safety</div>
  * The same {@code MarshallerPool} instance can be safely used by many threads without synchronization
  * on the part of the caller. Subclasses should make sure that any overridden methods remain safe to call
  * from multiple threads.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.0
  *
  * @see XML
  * @see <a href="http://jaxb.java.net/guide/Performance_and_thread_safety.html">JAXB Performance and thread-safety</a>
@@ -146,6 +164,50 @@ public class MarshallerPool {
      */
     private final AtomicBoolean isRemovalScheduled;
 
+    /**
+     * Number of elements in the {@link #marshallers} and {@link #unmarshallers} queues.
+     * Maintained separately because {@link ConcurrentLinkedDeque#size()} is a costly operation.
+     */
+    private final AtomicInteger marshallerCount, unmarshallerCount;
+
+    /**
+     * Minimal number of idle (un)marshallers of each kind to keep after the timeout.
+     *
+     * @see #setPoolSize(int, int)
+     */
+    private volatile int minimumSize;
+
+    /**
+     * Maximal number of idle (un)marshallers of each kind to keep in the pool.
+     * Recycled (un)marshallers in excess are discarded.
+     *
+     * @see #setPoolSize(int, int)
+     */
+    private volatile int maximumSize;
+
+    /**
+     * The last marshaller (at index 0) and unmarshaller (at index 1) recycled by the current thread,
+     * or {@code null} if thread affinity is disabled. Those (un)marshallers are reused in priority by
+     * the same thread, without the compare-and-set operations of the shared queues.
+     * Changes of this field value must be synchronized on {@code this}.
+     *
+     * @see #setThreadAffinity(boolean)
+     */
+    private volatile ThreadLocal<Object[]> affinity;
+
+    /**
+     * Counters of (un)marshaller creations, reuses and resets, for monitoring purpose.
+     */
+    private final LongAdder creationCount, reuseCount, resetCount;
+
+    /**
+     * The JMX name under which this pool is registered, or {@code null} if not registered.
+     * Every access to this field must be synchronized on {@code this}.
+     *
+     * @see #register(String)
+     */
+    private ObjectName name;
+
     /**
      * Creates a new factory using the SIS default {@code JAXBContext} instance.
      * The {@code properties} map is optional. If non-null, then the keys can be {@link XML} constants or the
@@ -211,6 +273,116 @@ public class MarshallerPool {
         marshallers        = new ConcurrentLinkedDeque<>();
         unmarshallers      = new ConcurrentLinkedDeque<>();
         isRemovalScheduled = new AtomicBoolean();
+        marshallerCount    = new AtomicInteger();
+        unmarshallerCount  = new AtomicInteger();
+        maximumSize        = Integer.MAX_VALUE;
+        creationCount      = new LongAdder();
+        reuseCount         = new LongAdder();
+        resetCount         = new LongAdder();
+    }
+
+    /**
+     * Sets the minimal and maximal number of idle marshallers, and of idle unmarshallers, to keep in this pool.
+     * The minimal number of instances are kept even after the timeout, which avoid constant re-creation of JAXB
+     * (un)marshallers when the load is bursty. Instances recycled when the pool already contains the maximal
+     * number of instances are discarded. The default values are 0 and {@link Integer#MAX_VALUE} respectively.
+     *
+     * <p>Those limits apply separately to the marshallers and to the unmarshallers.
+     * They do not apply to the (un)marshallers kept in thread-affine slots.</p>
+     *
+     * @param  minimum  minimal number of idle (un)marshallers to keep regardless the timeout.
+     * @param  maximum  maximal number of idle (un)marshallers to keep.
+     *
+     * @since 1.0
+     */
+    public void setPoolSize(final int minimum, final int maximum) {
+        ArgumentChecks.ensurePositive("minimum", minimum);
+        ArgumentChecks.ensureBetween("maximum", minimum, Integer.MAX_VALUE, maximum);
+        minimumSize = minimum;
+        maximumSize = maximum;
+    }
+
+    /**
+     * Enables or disables thread affinity. When enabled, each thread keeps the last marshaller and the last
+     * unmarshaller that it recycled, and gets them back in priority on the next {@code acquire} call. This
+     * avoid the concurrent queue operations when the same threads are used repeatedly (for example the threads
+     * of a web server), at the cost of keeping up to one marshaller and one unmarshaller per thread.
+     *
+     * <p>The instances kept by threads are not counted in the {@linkplain #setPoolSize(int, int) pool size}
+     * and are not discarded after the timeout. Consequently a pool used by <var>n</var> threads may retain
+     * up to 2<var>n</var> instances in addition to the idle instances of the pool. Disabling thread affinity
+     * does not remove the instances already kept by threads; those instances are released lazily, when the
+     * threads die or when their thread-local storage discards stale entries.</p>
+     *
+     * <p>The default value is {@code false}.</p>
+     *
+     * @param  enabled  whether each thread should keep its last recycled (un)marshallers.
+     *
+     * @since 1.0
+     */
+    public synchronized void setThreadAffinity(final boolean enabled) {
+        if (enabled != (affinity != null)) {
+            affinity = enabled ? ThreadLocal.withInitial(() -> new Object[2]) : null;
+        }
+    }
+
+    /**
+     * Registers this pool as a JMX bean under the given name. The bean provides the counters of (un)marshaller
+     * creations, reuses and resets, which can be used for tuning the {@linkplain #setPoolSize(int, int) pool size}.
+     * If this pool is already registered, then this method does nothing.
+     *
+     * <p>If the registration fails, then this method logs a message at the warning level.
+     * This method does not propagate the exception because monitoring is not a mandatory
+     * part of this pool.</p>
+     *
+     * @param  id  the value of the {@code name} key in the JMX object name.
+     *
+     * @since 1.0
+     */
+    @Configuration
+    public synchronized void register(final String id) {
+        ArgumentChecks.ensureNonEmpty("id", id);
+        if (name == null) try {
+            final ObjectName n = new ObjectName("org.apache.sis:type=MarshallerPool,name=" + ObjectName.quote(id));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    new StandardMBean(new Monitor(), MarshallerPoolMXBean.class, true), n);
+            name = n;
+        } catch (JMException | SecurityException e) {
+            final LogRecord record = new LogRecord(Level.WARNING, e.toString());
+            record.setLoggerName(Loggers.XML);
+            record.setThrown(e);
+            Logging.log(MarshallerPool.class, "register", record);
+        }
+    }
+
+    /**
+     * Unregisters this pool from JMX. This method does nothing if this pool has not been
+     * successfully {@linkplain #register(String) registered}, or has already been unregistered.
+     *
+     * @throws JMException if an error occurred during unregistration.
+     *
+     * @since 1.0
+     */
+    @Configuration
+    public synchronized void unregister() throws JMException {
+        final ObjectName n = name;
+        if (n != null) {
+            name = null;                    // Clear even if the next line fail.
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(n);
+        }
+    }
+
+    /**
+     * The JMX view of this pool. Defined as a separated class for keeping the
+     * {@link MarshallerPoolMXBean} methods out of the {@code MarshallerPool} public API.
+     */
+    private final class Monitor implements MarshallerPoolMXBean {
+        @Override public long getCreationCount()  {return creationCount.sum();}
+        @Override public long getReuseCount()     {return reuseCount.sum();}
+        @Override public long getResetCount()     {return resetCount.sum();}
+        @Override public int  getAvailableCount() {return marshallerCount.get() + unmarshallerCount.get();}
+        @Override public int  getMinimumSize()    {return minimumSize;}
+        @Override public int  getMaximumSize()    {return maximumSize;}
     }
 
     /**
@@ -219,11 +391,15 @@ public class MarshallerPool {
      *
      * <ul>
      *   <li>{@link Pooled#reset(Pooled) Resets} the (un)marshaller to its initial state.</li>
-     *   <li>{@linkplain Deque#push(Object) Pushes} the (un)marshaller in the given queue.</li>
+     *   <li>Stores the (un)marshaller in the thread-affine slot if that slot is enabled and empty.</li>
+     *   <li>Otherwise {@linkplain Deque#push(Object) pushes} the (un)marshaller in the given queue,
+     *       unless the queue already contains the maximal number of elements.</li>
      *   <li>Registers a delayed task for disposing expired (un)marshallers after the timeout.</li>
      * </ul>
+     *
+     * @param  slot  index in the thread-affine slots: 0 for marshallers or 1 for unmarshallers.
      */
-    private <T> void recycle(final Deque<T> queue, final T marshaller) {
+    private <T> void recycle(final Deque<T> queue, final AtomicInteger count, final int slot, final T marshaller) {
         try {
             ((Pooled) marshaller).reset(template);
         } catch (JAXBException exception) {
@@ -234,10 +410,51 @@ public class MarshallerPool {
             Logging.unexpectedException(Logging.getLogger(Loggers.XML), MarshallerPool.class, "recycle", exception);
             return;
         }
+        resetCount.increment();
+        final ThreadLocal<Object[]> affinity = this.affinity;
+        if (affinity != null) {
+            final Object[] slots = affinity.get();
+            if (slots[slot] == null) {
+                slots[slot] = marshaller;
+                return;
+            }
+        }
+        if (count.incrementAndGet() > maximumSize) {
+            count.decrementAndGet();            // Pool is full: let the (un)marshaller be garbage-collected.
+            return;
+        }
         queue.push(marshaller);
         scheduleRemoval();
     }
 
+    /**
+     * Returns an (un)marshaller from the thread-affine slot or from the given queue,
+     * or {@code null} if none is available.
+     *
+     * @param  slot  index in the thread-affine slots: 0 for marshallers or 1 for unmarshallers.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T poll(final Deque<T> queue, final AtomicInteger count, final int slot) {
+        final ThreadLocal<Object[]> affinity = this.affinity;
+        if (affinity != null) {
+            final Object[] slots = affinity.get();
+            final Object marshaller = slots[slot];
+            if (marshaller != null) {
+                slots[slot] = null;
+                reuseCount.increment();
+                return (T) marshaller;
+            }
+        }
+        final T marshaller = queue.poll();
+        if (marshaller != null) {
+            count.decrementAndGet();
+            reuseCount.increment();
+        } else {
+            creationCount.increment();
+        }
+        return marshaller;
+    }
+
     /**
      * Schedule a new task for removing expired (un)marshallers if no such task is currently
      * registered. If a task is already registered, then this method does nothing. Note that
@@ -262,8 +479,9 @@ public class MarshallerPool {
     final void removeExpired() {
         isRemovalScheduled.set(false);
         final long now = System.nanoTime();
-        if (!removeExpired(marshallers, now) |                      // Really |, not ||
-            !removeExpired(unmarshallers, now))
+        final int minimum = minimumSize;
+        if (!removeExpired(marshallers,   marshallerCount,   minimum, now) |     // Really |, not ||
+            !removeExpired(unmarshallers, unmarshallerCount, minimum, now))
         {
             scheduleRemoval();
         }
@@ -272,14 +490,16 @@ public class MarshallerPool {
     /**
      * Removes expired (un)marshallers from the given queue.
      *
-     * @param  <T>    either {@code Marshaller} or {@code Unmarshaller} type.
-     * @param  queue  the queue from which to remove expired (un)marshallers.
-     * @param  now    current value of {@link System#nanoTime()}.
-     * @return {@code true} if the queue became empty as a result of this method call.
+     * @param  <T>      either {@code Marshaller} or {@code Unmarshaller} type.
+     * @param  queue    the queue from which to remove expired (un)marshallers.
+     * @param  count    number of elements in the given queue.
+     * @param  minimum  minimal number of elements to keep in the queue.
+     * @param  now      current value of {@link System#nanoTime()}.
+     * @return {@code true} if the queue contains no more than the minimal number of elements.
      */
-    private static <T> boolean removeExpired(final Deque<T> queue, final long now) {
+    private static <T> boolean removeExpired(final Deque<T> queue, final AtomicInteger count, final int minimum, final long now) {
         T next;
-        while ((next = queue.peekLast()) != null) {
+        while (count.get() > minimum && (next = queue.peekLast()) != null) {
             /*
              * The above line fetched the oldest (un)marshaller without removing it.
              * If the timeout is not yet elapsed, do not remove that (un)marshaller.
@@ -296,10 +516,14 @@ public class MarshallerPool {
              * If such case, restore the (un)marshaller on the queue.
              */
             next = queue.pollLast();
+            if (next == null) {
+                break;
+            }
             if (now - ((Pooled) next).resetTime < TIMEOUT) {
                 queue.addLast(next);
                 return false;
             }
+            count.decrementAndGet();
         }
         return true;
     }
@@ -323,7 +547,7 @@ public class MarshallerPool {
      * @throws JAXBException if an error occurred while creating and configuring a marshaller.
      */
     public Marshaller acquireMarshaller() throws JAXBException {
-        Marshaller marshaller = marshallers.poll();
+        Marshaller marshaller = poll(marshallers, marshallerCount, 0);
         if (marshaller == null) {
             marshaller = new PooledMarshaller(createMarshaller(), template);
         }
@@ -349,7 +573,7 @@ public class MarshallerPool {
      * @throws JAXBException if an error occurred while creating and configuring the unmarshaller.
      */
     public Unmarshaller acquireUnmarshaller() throws JAXBException {
-        Unmarshaller unmarshaller = unmarshallers.poll();
+        Unmarshaller unmarshaller = poll(unmarshallers, unmarshallerCount, 1);
         if (unmarshaller == null) {
             unmarshaller = new PooledUnmarshaller(createUnmarshaller(), template);
         }
@@ -390,7 +614,7 @@ public class MarshallerPool {
      * @param  marshaller  the marshaller to return to the pool.
      */
     public void recycle(final Marshaller marshaller) {
-        recycle(marshallers, marshaller);
+        recycle(marshallers, marshallerCount, 0, marshaller);
     }
 
     /**
@@ -414,7 +638,7 @@ public class MarshallerPool {
      * @param  unmarshaller  the unmarshaller to return to the pool.
      */
     public void recycle(final Unmarshaller unmarshaller) {
-        recycle(unmarshallers, unmarshaller);
+        recycle(unmarshallers, unmarshallerCount, 1, unmarshaller);
     }
 
     /**
@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.xml;
+
+import java.util.Date;
+import java.util.EnumSet;
+import java.io.StringReader;
+import java.io.StringWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.stream.XMLStreamException;
+import org.apache.sis.xml.Namespaces;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link MetadataStreamReader} and {@link MetadataStreamWriter}.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public final strictfp class MetadataStreamReaderTest extends TestCase {
+    /**
+     * Two metadata records enclosed in an arbitrary root element.
+     */
+    private static final String RECORDS =
+            "<csw:GetRecordsResponse xmlns:csw=\"http://www.opengis.net/cat/csw/2.0.2\"\n" +
+            "                        xmlns:gmd=\"" + LegacyNamespaces.GMD + "\"\n" +
+            "                        xmlns:gco=\"" + LegacyNamespaces.GCO + "\">\n" +
+            "  <gmd:MD_Metadata>\n" +
+            "    <gmd:fileIdentifier><gco:CharacterString>first</gco:CharacterString></gmd:fileIdentifier>\n" +
+            "    <gmd:contact><gmd:CI_ResponsibleParty><gmd:individualName>\n" +
+            "      <gco:CharacterString>Ignored</gco:CharacterString>\n" +
+            "    </gmd:individualName></gmd:CI_ResponsibleParty></gmd:contact>\n" +
+            "    <gmd:dateStamp><gco:DateTime>2009-01-01T04:00:00Z</gco:DateTime></gmd:dateStamp>\n" +
+            "    <gmd:identificationInfo><gmd:MD_DataIdentification>\n" +
+            "      <gmd:citation><gmd:CI_Citation>\n" +
+            "        <gmd:title><gco:CharacterString>Sea surface temperature</gco:CharacterString></gmd:title>\n" +
+            "        <gmd:date><gmd:CI_Date>\n" +
+            "          <gmd:date><gco:Date>2005-09-22</gco:Date></gmd:date>\n" +
+            "          <gmd:dateType><gmd:CI_DateTypeCode codeList=\"\" codeListValue=\"creation\"/></gmd:dateType>\n" +
+            "        </gmd:CI_Date></gmd:date>\n" +
+            "      </gmd:CI_Citation></gmd:citation>\n" +
+            "      <gmd:abstract><gco:CharacterString>Ignored</gco:CharacterString></gmd:abstract>\n" +
+            "      <gmd:extent><gmd:EX_Extent>\n" +
+            "        <gmd:geographicElement><gmd:EX_GeographicBoundingBox>\n" +
+            "          <gmd:westBoundLongitude><gco:Decimal>-10</gco:Decimal></gmd:westBoundLongitude>\n" +
+            "          <gmd:eastBoundLongitude><gco:Decimal>20</gco:Decimal></gmd:eastBoundLongitude>\n" +
+            "          <gmd:southBoundLatitude><gco:Decimal>30</gco:Decimal></gmd:southBoundLatitude>\n" +
+            "          <gmd:northBoundLatitude><gco:Decimal>40</gco:Decimal></gmd:northBoundLatitude>\n" +
+            "        </gmd:EX_GeographicBoundingBox></gmd:geographicElement>\n" +
+            "        <gmd:geographicElement><gmd:EX_GeographicBoundingBox>\n" +
+            "          <gmd:westBoundLongitude><gco:Decimal>15</gco:Decimal></gmd:westBoundLongitude>\n" +
+            "          <gmd:eastBoundLongitude><gco:Decimal>25</gco:Decimal></gmd:eastBoundLongitude>\n" +
+            "          <gmd:southBoundLatitude><gco:Decimal>35</gco:Decimal></gmd:southBoundLatitude>\n" +
+            "          <gmd:northBoundLatitude><gco:Decimal>45</gco:Decimal></gmd:northBoundLatitude>\n" +
+            "        </gmd:EX_GeographicBoundingBox></gmd:geographicElement>\n" +
+            "      </gmd:EX_Extent></gmd:extent>\n" +
+            "    </gmd:MD_DataIdentification></gmd:identificationInfo>\n" +
+            "  </gmd:MD_Metadata>\n" +
+            "  <gmd:MD_Metadata>\n" +
+            "    <gmd:fileIdentifier><gco:CharacterString>second</gco:CharacterString></gmd:fileIdentifier>\n" +
+            "  </gmd:MD_Metadata>\n" +
+            "</csw:GetRecordsResponse>\n";
+
+    /**
+     * A metadata record in the ISO 19115-3 schema, where the identifier and the metadata date
+     * are stored in different elements than in the legacy ISO 19139 schema.
+     */
+    private static final String RECORD_19115_3 =
+            "<mdb:MD_Metadata xmlns:mdb=\"" + Namespaces.MDB + "\"\n" +
+            "                 xmlns:mcc=\"" + Namespaces.MCC + "\"\n" +
+            "                 xmlns:cit=\"" + Namespaces.CIT + "\"\n" +
+            "                 xmlns:mri=\"" + Namespaces.MRI + "\"\n" +
+            "                 xmlns:gex=\"" + Namespaces.GEX + "\"\n" +
+            "                 xmlns:gco=\"" + Namespaces.GCO + "\">\n" +
+            "  <mdb:metadataIdentifier><mcc:MD_Identifier>\n" +
+            "    <mcc:authority><cit:CI_Citation><cit:title>\n" +
+            "      <gco:CharacterString>Ignored</gco:CharacterString>\n" +
+            "    </cit:title></cit:CI_Citation></mcc:authority>\n" +
+            "    <mcc:code><gco:CharacterString>third</gco:CharacterString></mcc:code>\n" +
+            "  </mcc:MD_Identifier></mdb:metadataIdentifier>\n" +
+            "  <mdb:dateInfo><cit:CI_Date>\n" +
+            "    <cit:date><gco:DateTime>2009-01-01T04:00:00Z</gco:DateTime></cit:date>\n" +
+            "    <cit:dateType><cit:CI_DateTypeCode codeList=\"\" codeListValue=\"creation\"/></cit:dateType>\n" +
+            "  </cit:CI_Date></mdb:dateInfo>\n" +
+            "  <mdb:identificationInfo><mri:MD_DataIdentification>\n" +
+            "    <mri:citation><cit:CI_Citation>\n" +
+            "      <cit:title><gco:CharacterString>Sea surface temperature</gco:CharacterString></cit:title>\n" +
+            "      <cit:date><cit:CI_Date>\n" +
+            "        <cit:date><gco:Date>2005-09-22</gco:Date></cit:date>\n" +
+            "        <cit:dateType><cit:CI_DateTypeCode codeList=\"\" codeListValue=\"creation\"/></cit:dateType>\n" +
+            "      </cit:CI_Date></cit:date>\n" +
+            "      <cit:date><cit:CI_Date>\n" +
+            "        <cit:date><gco:Date>2006-03-15</gco:Date></cit:date>\n" +
+            "        <cit:dateType><cit:CI_DateTypeCode codeList=\"\" codeListValue=\"revision\"/></cit:dateType>\n" +
+            "      </cit:CI_Date></cit:date>\n" +
+            "    </cit:CI_Citation></mri:citation>\n" +
+            "    <mri:extent><gex:EX_Extent>\n" +
+            "      <gex:geographicElement><gex:EX_GeographicBoundingBox>\n" +
+            "        <gex:westBoundLongitude><gco:Decimal>-10</gco:Decimal></gex:westBoundLongitude>\n" +
+            "        <gex:eastBoundLongitude><gco:Decimal>20</gco:Decimal></gex:eastBoundLongitude>\n" +
+            "        <gex:southBoundLatitude><gco:Decimal>30</gco:Decimal></gex:southBoundLatitude>\n" +
+            "        <gex:northBoundLatitude><gco:Decimal>40</gco:Decimal></gex:northBoundLatitude>\n" +
+            "      </gex:EX_GeographicBoundingBox></gex:geographicElement>\n" +
+            "    </gex:EX_Extent></mri:extent>\n" +
+            "  </mri:MD_DataIdentification></mdb:identificationInfo>\n" +
+            "</mdb:MD_Metadata>\n";
+
+    /**
+     * Reads all records in the given XML and verifies that they match the {@link #RECORDS} content.
+     */
+    private static void verifyRecords(final String xml, final boolean identifierOnly) throws XMLStreamException {
+        final XMLStreamReader in = XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(xml));
+        final MetadataStreamReader reader = new MetadataStreamReader(in, identifierOnly
+                ? EnumSet.of(MetadataSummary.Property.IDENTIFIER)
+                : EnumSet.allOf(MetadataSummary.Property.class));
+
+        MetadataSummary summary = reader.next();
+        assertNotNull(summary);
+        assertEquals("identifier", "first", summary.identifier);
+        if (identifierOnly) {
+            assertNull(summary.title);
+            assertNull(summary.dateStamp);
+            assertTrue(summary.dates.isEmpty());
+            assertFalse(summary.hasExtent());
+        } else {
+            assertEquals("title", "Sea surface temperature", summary.title);
+            assertEquals("dateStamp", new Date(1230782400000L), summary.dateStamp);
+            assertEquals("dates", 1, summary.dates.size());
+            assertNotNull("creation", summary.dates.get("creation"));
+            assertEquals("westBoundLongitude", -10, summary.westBoundLongitude, STRICT);
+            assertEquals("eastBoundLongitude",  25, summary.eastBoundLongitude, STRICT);
+            assertEquals("southBoundLatitude",  30, summary.southBoundLatitude, STRICT);
+            assertEquals("northBoundLatitude",  45, summary.northBoundLatitude, STRICT);
+        }
+        summary = reader.next();
+        assertNotNull(summary);
+        assertEquals("identifier", "second", summary.identifier);
+        assertNull(summary.title);
+        assertFalse(summary.hasExtent());
+        assertNull(reader.next());
+        in.close();
+    }
+
+    /**
+     * Tests reading records with all properties, then with only the identifier.
+     *
+     * @throws XMLStreamException if an error occurred while reading the XML.
+     */
+    @Test
+    public void testRead() throws XMLStreamException {
+        verifyRecords(RECORDS, false);
+        verifyRecords(RECORDS, true);
+    }
+
+    /**
+     * Tests reading a record in the ISO 19115-3 schema. The identifier and the metadata date
+     * are read from {@code metadataIdentifier} and {@code dateInfo} instead of {@code fileIdentifier}
+     * and {@code dateStamp}.
+     *
+     * @throws XMLStreamException if an error occurred while reading the XML.
+     */
+    @Test
+    @DependsOnMethod("testRead")
+    public void testReadISO19115_3() throws XMLStreamException {
+        final XMLStreamReader in = XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(RECORD_19115_3));
+        final MetadataStreamReader reader = new MetadataStreamReader(in, EnumSet.allOf(MetadataSummary.Property.class));
+        final MetadataSummary summary = reader.next();
+        assertNotNull(summary);
+        assertEquals("identifier", "third", summary.identifier);
+        assertEquals("title", "Sea surface temperature", summary.title);
+        assertEquals("dateStamp", new Date(1230782400000L), summary.dateStamp);
+        assertEquals("dates", 2, summary.dates.size());
+        assertNotNull("creation", summary.dates.get("creation"));
+        assertNotNull("revision", summary.dates.get("revision"));
+        assertTrue("creation", summary.dates.get("creation").before(summary.dates.get("revision")));
+        assertEquals("westBoundLongitude", -10, summary.westBoundLongitude, STRICT);
+        assertEquals("eastBoundLongitude",  20, summary.eastBoundLongitude, STRICT);
+        assertEquals("southBoundLatitude",  30, summary.southBoundLatitude, STRICT);
+        assertEquals("northBoundLatitude",  40, summary.northBoundLatitude, STRICT);
+        assertNull(reader.next());
+        in.close();
+    }
+
+    /**
+     * Tests writing records, then reading them back.
+     *
+     * @throws XMLStreamException if an error occurred while reading or writing the XML.
+     */
+    @Test
+    @DependsOnMethod("testRead")
+    public void testWrite() throws XMLStreamException {
+        final XMLStreamReader in = XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(RECORDS));
+        final MetadataStreamReader reader = new MetadataStreamReader(in, EnumSet.allOf(MetadataSummary.Property.class));
+        final StringWriter buffer = new StringWriter();
+        final XMLStreamWriter out = XMLOutputFactory.newInstance().createXMLStreamWriter(buffer);
+        final MetadataStreamWriter writer = new MetadataStreamWriter(out);
+        out.writeStartElement("records");
+        MetadataSummary summary;
+        while ((summary = reader.next()) != null) {
+            writer.write(summary);
+        }
+        out.writeEndElement();
+        out.close();
+        in.close();
+        verifyRecords(buffer.toString(), false);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.metadata;
+
+import java.util.Date;
+import java.lang.reflect.Method;
+import org.opengis.metadata.citation.Citation;
+import org.opengis.metadata.citation.DateType;
+import org.opengis.metadata.citation.PresentationForm;
+import org.apache.sis.metadata.iso.DefaultIdentifier;
+import org.apache.sis.metadata.iso.citation.DefaultCitation;
+import org.apache.sis.metadata.iso.citation.DefaultCitationDate;
+import org.apache.sis.metadata.iso.citation.HardCodedCitations;
+import org.apache.sis.util.iso.SimpleInternationalString;
+import org.apache.sis.util.ComparisonMode;
+
+
+/**
+ * Measures the performance of {@link PropertyAccessor} getter methods compared to {@link Method#invoke(Object, Object...)}.
+ * The reflective path is the approach used by {@code PropertyAccessor} before method handles were introduced.
+ * This class also measures the time spent in {@link MetadataStandard#equals(Object, Object, ComparisonMode)}
+ * and {@link MetadataStandard#hashCode(Object)}, which are built on top of the accessor.
+ *
+ * <p><b>Usage:</b> run the {@code main} method. Results are printed to the standard output.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public final class PropertyAccessorBenchmark {
+    /**
+     * Number of iterations in each measurement. Can be modified freely.
+     */
+    private static final int NUM_ITERATIONS = 1000000;
+
+    /**
+     * Runs the benchmark and prints the time result to the standard output.
+     *
+     * @param  args  ignored.
+     * @throws Exception if an error occurred while invoking a getter method.
+     */
+    public static void main(String[] args) throws Exception {
+        final DefaultCitation citation = new DefaultCitation("Some title");
+        citation.setEdition(new SimpleInternationalString("First edition"));
+        citation.setEditionDate(new Date());
+        citation.getDates().add(new DefaultCitationDate(new Date(), DateType.CREATION));
+        citation.getIdentifiers().add(new DefaultIdentifier("42"));
+        citation.getPresentationForms().add(PresentationForm.DOCUMENT_DIGITAL);
+        final DefaultCitation other = new DefaultCitation(citation);
+
+        final PropertyAccessor accessor = new PropertyAccessor(HardCodedCitations.ISO_19115,
+                Citation.class, DefaultCitation.class, DefaultCitation.class);
+        /*
+         * Use the same getter methods, in the same order, for the reflective path and the accessor path.
+         */
+        final int count = accessor.count();
+        final Method[] methods = new Method[count];
+        for (int j=0; j<count; j++) {
+            methods[j] = DefaultCitation.class.getMethod(accessor.name(j, KeyNamePolicy.METHOD_NAME));
+        }
+        for (int n=0; n<5; n++) {
+            long time = System.nanoTime();
+            int sum = 0;
+            for (int i=0; i<NUM_ITERATIONS; i++) {
+                for (int j=0; j<count; j++) {
+                    if (methods[j].invoke(citation, (Object[]) null) != null) sum++;
+                }
+            }
+            print("Method.invoke", time, sum);
+
+            time = System.nanoTime();
+            sum = 0;
+            for (int i=0; i<NUM_ITERATIONS; i++) {
+                for (int j=0; j<count; j++) {
+                    if (accessor.get(j, citation) != null) sum++;
+                }
+            }
+            print("PropertyAccessor.get", time, sum);
+
+            time = System.nanoTime();
+            sum = 0;
+            for (int i=0; i<NUM_ITERATIONS / 10; i++) {
+                if (MetadataStandard.ISO_19115.equals(citation, other, ComparisonMode.STRICT)) sum++;
+                sum += MetadataStandard.ISO_19115.hashCode(citation);
+            }
+            print("MetadataStandard.equals + hashCode", time, sum);
+            System.out.println();
+        }
+    }
+
+    /**
+     * Prints the time elapsed since the given start time.
+     * The {@code sum} argument is printed only for preventing the JIT compiler to discard the loop.
+     */
+    private static void print(final String label, final long start, final int sum) {
+        System.out.printf("%-36s %8.1f ms  (%d)%n", label, (System.nanoTime() - start) / 1E6, sum);
+    }
+}
@@ -24,6 +24,9 @@ import java.util.Collection;
 import java.util.Locale;
 import java.util.Date;
 
+import org.opengis.annotation.UML;
+import org.opengis.annotation.Obligation;
+import org.opengis.annotation.Specification;
 import org.opengis.metadata.Identifier;
 import org.opengis.metadata.extent.Extent;
 import org.opengis.metadata.citation.Series;
@@ -295,6 +298,26 @@ public final strictfp class PropertyAccessorTest extends TestCase {
         assertEquals("19111", getSingletonCode(identifiers));
     }
 
+    /**
+     * Verifies that the values returned by {@link PropertyAccessor#get(int, Object)}, which uses method handles,
+     * are the same than the values returned by the getter methods invoked by reflection.
+     *
+     * @throws ReflectiveOperationException if a getter method can not be invoked by reflection.
+     */
+    @Test
+    @DependsOnMethod("testGet")
+    public void testGetSameAsReflection() throws ReflectiveOperationException {
+        final DefaultCitation  instance = HardCodedCitations.ISO_19111;
+        final PropertyAccessor accessor = createPropertyAccessor();
+        final int count = accessor.count();
+        for (int i=0; i<count; i++) {
+            final String name = accessor.name(i, KeyNamePolicy.METHOD_NAME);
+            final Object expected = DefaultCitation.class.getMethod(name).invoke(instance);
+            assertTrue  (name, accessor.usesMethodHandles(i));
+            assertEquals(name, expected, accessor.get(i, instance));
+        }
+    }
+
     /**
      * Tests the {@link PropertyAccessor#set(int, Object, Object, int)} method
      * with a value to be stored <cite>as-is</cite> (without conversion).
@@ -615,6 +638,46 @@ public final strictfp class PropertyAccessorTest extends TestCase {
         assertTrue("Should have replaced null by an empty collection.", ((Collection<?>) value).isEmpty());
     }
 
+    /**
+     * A metadata class which is not public. Method handles can not be created for the methods
+     * of this class, so {@link PropertyAccessor} needs to fallback on reflection.
+     */
+    static final class NonPublicMetadata {
+        /** The value of the only property in this class. */
+        String title;
+
+        /** Returns the title. */
+        @UML(identifier="title", obligation=Obligation.MANDATORY, specification=Specification.ISO_19115)
+        public String getTitle() {
+            return title;
+        }
+
+        /** Sets the title. */
+        public void setTitle(final String title) {
+            this.title = title;
+        }
+    }
+
+    /**
+     * Tests {@link PropertyAccessor#get(int, Object)} and {@link PropertyAccessor#set(int, Object, Object, int)}
+     * on a class for which no method handle can be created. The accessor shall use reflection instead.
+     */
+    @Test
+    @DependsOnMethod("testSet")
+    public void testNonPublicClass() {
+        final PropertyAccessor accessor = new PropertyAccessor(HardCodedCitations.ISO_19115,
+                NonPublicMetadata.class, NonPublicMetadata.class, NonPublicMetadata.class);
+        final NonPublicMetadata instance = new NonPublicMetadata();
+        final int index = accessor.indexOf("title", true);
+        assertFalse ("usesMethodHandles", accessor.usesMethodHandles(index));
+        assertNull  ("title", accessor.get(index, instance));
+        assertNull  ("title", accessor.set(index, instance, "Some title", RETURN_PREVIOUS));
+        assertEquals("title", "Some title", instance.title);
+        assertEquals("title", "Some title", accessor.get(index, instance));
+        assertEquals("title", "Some title", accessor.set(index, instance, "Other title", RETURN_PREVIOUS));
+        assertEquals("title", "Other title", instance.getTitle());
+    }
+
     /**
      * Tests {@link PropertyAccessor#toString()}. The {@code toString()}
      * method is only for debugging purpose, but we test it anyway.
@@ -16,6 +16,7 @@
  */
 package org.apache.sis.metadata.sql;
 
+import java.util.Map;
 import java.util.Collection;
 import java.util.Collections;
 import org.opengis.util.InternationalString;
@@ -83,6 +84,12 @@ public final strictfp class MetadataSourceTest extends TestCase {
             // Opportunistic verification using the database we have at hand.
             MetadataFallbackVerifier.compare(source);
         }
+        try (MetadataSource lazy  = new MetadataSource(MetadataStandard.ISO_19115, db.source, "metadata", null);
+             MetadataSource eager = new MetadataSource(MetadataStandard.ISO_19115, db.source, "metadata",
+                    Collections.singletonMap("eagerFetch", Boolean.TRUE)))
+        {
+            testEagerFetch(eager, lazy);
+        }
     }
 
     /**
@@ -101,6 +108,40 @@ public final strictfp class MetadataSourceTest extends TestCase {
         verify(source.lookup(Format.class, "CSV-MF"),  "CSV",     "OGC Moving Features Encoding Extension: Simple Comma-Separated Values (CSV)");
     }
 
+    /**
+     * Tests {@link MetadataSource#lookup(Class, String)} on a source configured for fetching whole records.
+     * Each record shall be read by exactly one SQL query, and no query shall be executed when properties
+     * of an already fetched record are requested again. The results are compared with a source using the
+     * default lazy fetching: since all columns are read by each query, the hit ratio of the eager source
+     * shall be higher.
+     *
+     * @param  eager  the instance to test, with the {@code "eagerFetch"} property set to {@code true}.
+     * @param  lazy   an instance with default properties, for comparison purpose.
+     * @throws MetadataStoreException if an error occurred while querying the database.
+     */
+    @TestStep
+    public static void testEagerFetch(final MetadataSource eager, final MetadataSource lazy) throws MetadataStoreException {
+        assertTrue(eager.getHitRatios().isEmpty());
+        verifyFormats(eager);
+        verifyFormats(lazy);
+        assertEquals("One query per record.", 5, eager.getQueryCount("Format"));
+        final Map<String,Double> ratios = eager.getHitRatios();
+        assertFalse(ratios.isEmpty());
+        for (final Map.Entry<String,Double> entry : ratios.entrySet()) {
+            final double ratio = entry.getValue();
+            assertTrue(entry.getKey(), ratio >= 0 && ratio <= 1);
+        }
+        assertTrue(ratios.get("Format") > lazy.getHitRatios().get("Format"));
+        /*
+         * Properties requested again shall be served by the metadata object without new query.
+         */
+        final Format format = eager.lookup(Format.class, "PNG");
+        final long queryCount = eager.getQueryCount("Format");
+        verify(format, "PNG", "PNG (Portable Network Graphics) Specification");
+        verify(format, "PNG", "PNG (Portable Network Graphics) Specification");
+        assertEquals("No query for fetched record.", queryCount, eager.getQueryCount("Format"));
+    }
+
     /**
      * Verifies properties of the given format.
      *
@@ -68,6 +68,7 @@ import org.junit.BeforeClass;
     org.apache.sis.xml.MarshallerPoolTest.class,
     org.apache.sis.xml.TransformingNamespacesTest.class,
     org.apache.sis.internal.xml.XmlUtilitiesTest.class,
+    org.apache.sis.internal.xml.MetadataStreamReaderTest.class,
     org.apache.sis.internal.jaxb.IdentifierMapAdapterTest.class,
     org.apache.sis.internal.jaxb.ModifiableIdentifierMapTest.class,
     org.apache.sis.internal.jaxb.gco.StringAdapterTest.class,
@@ -17,9 +17,11 @@
 package org.apache.sis.xml;
 
 import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.DependsOnMethod;
 import org.apache.sis.test.TestCase;
 import org.junit.Test;
 
@@ -30,7 +32,7 @@ import static org.junit.Assert.*;
  * Tests the {@link MarshallerPool}.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.3
+ * @version 1.0
  * @since   0.3
  * @module
  */
@@ -67,4 +69,45 @@ public final strictfp class MarshallerPoolTest extends TestCase {
         assertEquals("", marshaller.getProperty("com.sun.xml.bind.xmlHeaders"));
         pool.recycle(marshaller);
     }
+
+    /**
+     * Tests {@link MarshallerPool#setPoolSize(int, int)}. Marshallers recycled when the pool
+     * is full shall be discarded.
+     *
+     * @throws JAXBException if (un)marhaller construction failed.
+     */
+    @Test
+    @DependsOnMethod("testAcquireRelease")
+    public void testPoolSize() throws JAXBException {
+        final MarshallerPool pool = new MarshallerPool(JAXBContext.newInstance(new Class<?>[0]), null);
+        pool.setPoolSize(0, 1);
+        final Marshaller m1 = pool.acquireMarshaller();
+        final Marshaller m2 = pool.acquireMarshaller();
+        assertNotSame(m1, m2);
+        pool.recycle(m1);
+        pool.recycle(m2);                               // Shall be discarded.
+        assertSame(m1, pool.acquireMarshaller());
+        final Marshaller m3 = pool.acquireMarshaller();
+        assertNotSame(m1, m3);
+        assertNotSame(m2, m3);
+    }
+
+    /**
+     * Tests {@link MarshallerPool#setThreadAffinity(boolean)}.
+     *
+     * @throws JAXBException if (un)marhaller construction failed.
+     */
+    @Test
+    @DependsOnMethod("testAcquireRelease")
+    public void testThreadAffinity() throws JAXBException {
+        final MarshallerPool pool = new MarshallerPool(JAXBContext.newInstance(new Class<?>[0]), null);
+        pool.setThreadAffinity(true);
+        pool.setPoolSize(0, 0);                         // Only the thread-affine slot can keep an instance.
+        final Unmarshaller u1 = pool.acquireUnmarshaller();
+        final Unmarshaller u2 = pool.acquireUnmarshaller();
+        pool.recycle(u1);
+        pool.recycle(u2);                               // Shall be discarded.
+        assertSame(u1, pool.acquireUnmarshaller());
+        assertNotSame(u2, pool.acquireUnmarshaller());
+    }
 }
@@ -16,6 +16,7 @@
  */
 package org.apache.sis.referencing.gazetteer;
 
+import java.util.Arrays;
 import javax.xml.bind.annotation.XmlTransient;
 import org.opengis.util.FactoryException;
 import org.opengis.referencing.crs.GeographicCRS;
@@ -23,12 +24,14 @@ import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.CoordinateOperation;
 import org.opengis.referencing.operation.TransformException;
 import org.opengis.geometry.DirectPosition;
+import org.opengis.geometry.Envelope;
 import org.apache.sis.measure.Latitude;
 import org.apache.sis.measure.Longitude;
 import org.apache.sis.referencing.CRS;
 import org.apache.sis.referencing.CommonCRS;
 import org.apache.sis.referencing.cs.AxesConvention;
 import org.apache.sis.referencing.crs.DefaultGeographicCRS;
+import org.apache.sis.geometry.Envelopes;
 import org.apache.sis.util.Utilities;
 import org.apache.sis.util.Workaround;
 import org.apache.sis.util.ComparisonMode;
@@ -45,9 +48,17 @@ import org.apache.sis.util.resources.Vocabulary;
  * equator than close to a pole. For a system having more uniform accuracy, see the
  * {@linkplain MilitaryGridReferenceSystem Military Grid Reference System} (MGRS).
  *
+ * <div class="section">Geohashes as {@code long} integers</div>
+ * Geohashes of up to 12 characters in {@link Format#BASE32} can also be handled as {@code long} integers,
+ * which avoid the creation of a {@code String} for each coordinate. Those codes contain the bits of the geohash
+ * (alternating longitude and latitude bits, starting with longitude) in their highest bits, and the number of
+ * characters in their 4 lowest bits. Consequently sorting those codes with {@link Long#compareUnsigned(long, long)}
+ * gives the same order than sorting the geohash strings, and a geohash prefix has the same leading bits than
+ * all geohashes starting with that prefix. See {@link Coder#encode(double[], int, long[], int, int)}.
+ *
  * @author  Chris Mattmann (JPL)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.0
  *
  * @see <a href="http://en.wikipedia.org/wiki/Geohash">Geohash on Wikipedia</a>
  *
@@ -61,6 +72,17 @@ public class GeohashReferenceSystem extends ReferencingByIdentifiers {
      */
     private static final long serialVersionUID = 9162259764027168776L;
 
+    /**
+     * Maximal number of bits used by geohashes encoded as {@code long} integers.
+     * The 4 remaining bits store the number of characters.
+     */
+    private static final int LONG_HASH_BITS = Long.SIZE - 4;
+
+    /**
+     * The mask for the number of characters stored in geohashes encoded as {@code long} integers.
+     */
+    private static final long LENGTH_MASK = (1 << (Long.SIZE - LONG_HASH_BITS)) - 1;
+
     /**
      * The encoding format used by {@link GeohashReferenceSystem.Coder}.
      */
@@ -201,9 +223,12 @@ public class GeohashReferenceSystem extends ReferencingByIdentifiers {
      * This class is <strong>not</strong> thread-safe. A new instance must be created for each thread,
      * or synchronization must be applied by the caller.
      *
+     * <p>The methods working on geohashes encoded as {@code long} integers do not modify the state of this coder.
+     * Consequently they can be invoked concurrently by many threads, provided that the hash length is not modified.</p>
+     *
      * @author  Chris Mattmann (JPL)
      * @author  Martin Desruisseaux (Geomatys)
-     * @version 0.8
+     * @version 1.0
      * @since   0.8
      * @module
      */
@@ -363,6 +388,452 @@ public class GeohashReferenceSystem extends ReferencingByIdentifiers {
             ArgumentChecks.ensureNonEmpty("geohash", geohash);
             return new Decoder(geohash, coordinates);
         }
+
+        /**
+         * Returns the {@linkplain #getHashLength() hash length}, making sure that it can be used
+         * for geohashes encoded as {@code long} integers.
+         */
+        private int longHashLength() {
+            final int max = LONG_HASH_BITS / bitsPerChar();
+            final int n = Byte.toUnsignedInt(length);
+            if (n > max) {
+                throw new IllegalStateException(Errors.format(Errors.Keys.ValueOutOfRange_4, "hashLength", 1, max, n));
+            }
+            return n;
+        }
+
+        /**
+         * Encodes the given latitude and longitude into a geohash stored in a {@code long} integer.
+         * The geohash length is the {@linkplain #getHashLength() hash length}, which shall not exceed 12
+         * characters in {@link Format#BASE32}. Converting the returned value with {@link #toChars toChars(…)}
+         * gives the same characters than {@link #encode(double, double)}, except sometime for coordinates
+         * at less than one ULP from a cell border.
+         *
+         * @param  φ  latitude to encode,  as decimal degrees in the [-90 … 90]° range.
+         * @param  λ  longitude to encode, as decimal degrees in the [-180 … 180]° range.
+         * @return geohash encoding of the given longitude and latitude.
+         * @throws IllegalStateException if the hash length is too large for a {@code long} integer.
+         *
+         * @since 1.0
+         */
+        public long encodeAsLong(final double φ, final double λ) {
+            return code(λ, φ, longHashLength());
+        }
+
+        /**
+         * Encodes an array of coordinates into geohashes stored in {@code long} integers.
+         * Coordinates are (<var>longitude</var>, <var>latitude</var>) tuples in decimal degrees,
+         * which is the axis order of the normalized geographic CRS.
+         * As with {@link #encode(double, double)}, the CRS given at construction time is ignored.
+         *
+         * <p>The bits of each geohash are computed by interleaving the bits of the longitude and latitude
+         * cell indices, without the bisection loop of {@link #encode(double, double)}.</p>
+         *
+         * @param  coordinates  (<var>longitude</var>, <var>latitude</var>) tuples to encode.
+         * @param  offset       index of the first coordinate to encode in the {@code coordinates} array.
+         * @param  codes        where to store the geohashes.
+         * @param  codesOffset  index of the first geohash to write in the {@code codes} array.
+         * @param  count        number of points to encode.
+         * @throws IllegalStateException if the hash length is too large for a {@code long} integer.
+         *
+         * @since 1.0
+         */
+        public void encode(final double[] coordinates, int offset, final long[] codes, int codesOffset, int count) {
+            ArgumentChecks.ensureNonNull("coordinates", coordinates);
+            ArgumentChecks.ensureNonNull("codes", codes);
+            ArgumentChecks.ensurePositive("count", count);
+            final int n = longHashLength();
+            while (--count >= 0) {
+                final double λ = coordinates[offset++];
+                final double φ = coordinates[offset++];
+                codes[codesOffset++] = code(λ, φ, n);
+            }
+        }
+
+        /**
+         * Writes the characters of the given geohash in the given buffer.
+         * The number of characters written is the length stored in the geohash,
+         * which is not necessarily the {@linkplain #getHashLength() hash length} of this coder.
+         *
+         * @param  code         a geohash encoded as a {@code long} integer.
+         * @param  destination  where to write the geohash characters.
+         * @param  offset       index of the first character to write in the {@code destination} array.
+         * @return index after the last character written.
+         * @throws IllegalArgumentException if the given code is not a valid geohash.
+         *
+         * @since 1.0
+         */
+        public int toChars(final long code, final char[] destination, int offset) {
+            final int n = length(code);
+            final int bitsPerChar = bitsPerChar();
+            final byte[] encoding = format.encoding;
+            final int mask = encoding.length - 1;
+            for (int i=1; i<=n; i++) {
+                destination[offset++] = (char) encoding[(int) (code >>> (Long.SIZE - bitsPerChar * i)) & mask];
+            }
+            return offset;
+        }
+
+        /**
+         * Returns the characters of the given geohash.
+         *
+         * @param  code  a geohash encoded as a {@code long} integer.
+         * @return the geohash characters.
+         * @throws IllegalArgumentException if the given code is not a valid geohash.
+         *
+         * @since 1.0
+         */
+        public String toString(final long code) {
+            final char[] geohash = new char[length(code)];
+            toChars(code, geohash, 0);
+            return new String(geohash);
+        }
+
+        /**
+         * Parses the given geohash into a {@code long} integer.
+         *
+         * @param  geohash  the geohash to parse, of at most 12 characters in {@link Format#BASE32}.
+         * @return the geohash encoded as a {@code long} integer.
+         * @throws GazetteerException if the given string is not a valid geohash or is too long.
+         *
+         * @since 1.0
+         */
+        public long toLong(final CharSequence geohash) throws GazetteerException {
+            ArgumentChecks.ensureNonNull("geohash", geohash);
+            final int n = geohash.length();
+            final int bitsPerChar = bitsPerChar();
+            final int max = LONG_HASH_BITS / bitsPerChar;
+            if (n > max) {
+                throw new GazetteerException(Errors.format(Errors.Keys.ValueOutOfRange_4, "geohash.length", 0, max, n));
+            }
+            long code = n;
+            for (int i=0; i<n; i++) {
+                int c = geohash.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    c -= '0';
+                } else {
+                    if (c >= 'a' && c <= 'z') {
+                        c = format.decodingLowerCase[c - 'a'];
+                    } else if (c >= 'A' && c <= 'Z') {
+                        c = format.decodingUpperCase[c - 'A'];
+                    } else {
+                        c = 0;
+                    }
+                    if (c == 0) {
+                        throw new GazetteerException(Errors.format(Errors.Keys.UnparsableStringForClass_3,
+                                "GeoHash", geohash, geohash.subSequence(i, i+1)));
+                    }
+                }
+                code |= ((long) c) << (Long.SIZE - bitsPerChar * (i+1));
+            }
+            return code;
+        }
+
+        /**
+         * Returns the geohash of the cell containing the given cell, with one less character.
+         *
+         * @param  code  a geohash encoded as a {@code long} integer, of at least one character.
+         * @return the geohash of the enclosing cell.
+         * @throws IllegalArgumentException if the given code is not a valid geohash or has no character.
+         *
+         * @since 1.0
+         */
+        public long parent(final long code) {
+            final int n = length(code) - 1;
+            if (n < 0) {
+                throw new IllegalArgumentException(Errors.format(Errors.Keys.IllegalArgumentValue_2, "code", code));
+            }
+            return (code & highBits(n)) | n;
+        }
+
+        /**
+         * Returns the geohash of a cell contained in the given cell, with one more character.
+         * The cells are numbered from 0 inclusive to 32 exclusive in {@link Format#BASE32},
+         * in the order of the geohash characters.
+         *
+         * @param  code   a geohash encoded as a {@code long} integer, of less than 12 characters.
+         * @param  index  index of the child cell, from 0 inclusive to 32 exclusive.
+         * @return the geohash of the child cell.
+         * @throws IllegalArgumentException if the given code is not a valid geohash or can not have more characters.
+         *
+         * @since 1.0
+         */
+        public long child(final long code, final int index) {
+            final int bitsPerChar = bitsPerChar();
+            final int n = length(code) + 1;
+            if (n * bitsPerChar > LONG_HASH_BITS) {
+                throw new IllegalArgumentException(Errors.format(Errors.Keys.IllegalArgumentValue_2, "code", code));
+            }
+            ArgumentChecks.ensureValidIndex(format.encoding.length, index);
+            return (code & ~LENGTH_MASK) | ((long) index << (Long.SIZE - bitsPerChar * n)) | n;
+        }
+
+        /**
+         * Returns the geohash of a cell at the given distance of the given cell, in number of cells
+         * of the same size. Moving over the anti-meridian wraps around the world, but moving over
+         * a pole is not possible.
+         *
+         * @param  code  a geohash encoded as a {@code long} integer.
+         * @param  dx    number of cells toward east (positive values) or west (negative values).
+         * @param  dy    number of cells toward north (positive values) or south (negative values).
+         * @return the geohash of the neighbor cell, or -1 if that cell would be beyond a pole.
+         * @throws IllegalArgumentException if the given code is not a valid geohash.
+         *
+         * @since 1.0
+         */
+        public long neighbor(final long code, final int dx, final int dy) {
+            final int n     = length(code);
+            final int nbits = n * bitsPerChar();
+            final long hash = code & ~LENGTH_MASK;
+            final long x = (compact(hash >>> 1) + ((long) dx << (Integer.SIZE - (nbits + 1) / 2))) & 0xFFFFFFFFL;
+            final long y =  compact(hash)       + ((long) dy << (Integer.SIZE -  nbits      / 2));
+            if (y < 0 || y > 0xFFFFFFFFL || (nbits < 2 && dy != 0)) {
+                return -1;
+            }
+            return (spread(x) << 1) | spread(y) | n;
+        }
+
+        /**
+         * Returns the geohashes of the cells around the given cell, in the order of increasing latitude then
+         * increasing longitude. There is 8 neighbors, except for cells touching a pole which have 5 neighbors.
+         *
+         * @param  code  a geohash encoded as a {@code long} integer.
+         * @return the geohashes of the neighbor cells.
+         * @throws IllegalArgumentException if the given code is not a valid geohash.
+         *
+         * @since 1.0
+         */
+        public long[] neighbors(final long code) {
+            final long[] neighbors = new long[8];
+            int count = 0;
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    if (dx != 0 || dy != 0) {
+                        final long neighbor = neighbor(code, dx, dy);
+                        if (neighbor != -1) {
+                            neighbors[count++] = neighbor;
+                        }
+                    }
+                }
+            }
+            return (count == neighbors.length) ? neighbors : Arrays.copyOf(neighbors, count);
+        }
+
+        /**
+         * Returns the smallest set of geohashes whose cells cover the given area of interest.
+         * Cells fully inside the area are merged into their enclosing cell, so the returned geohashes may be
+         * shorter than the {@linkplain #getHashLength() hash length}; cells on the area borders have the hash length.
+         * The geohashes are returned in the order of their characters. If the given envelope has a coordinate
+         * reference system, it is transformed to the normalized geographic CRS; otherwise it is assumed to be
+         * (<var>longitude</var>, <var>latitude</var>) in degrees. An envelope crossing the anti-meridian is
+         * supported.
+         *
+         * <p>The number of returned geohashes grows with the ratio between the area perimeter and the size of
+         * the cells, so the hash length should be adjusted to the size of the area.</p>
+         *
+         * @param  areaOfInterest  the area to cover.
+         * @return geohashes covering the given area of interest.
+         * @throws IllegalStateException if the hash length is too large for a {@code long} integer.
+         * @throws TransformException if the given envelope can not be transformed to geographic coordinates.
+         *
+         * @since 1.0
+         */
+        public long[] cover(Envelope areaOfInterest) throws TransformException {
+            ArgumentChecks.ensureNonNull("areaOfInterest", areaOfInterest);
+            final int n = longHashLength();
+            final CoordinateReferenceSystem crs = areaOfInterest.getCoordinateReferenceSystem();
+            if (crs != null && !normalizedCRS.equals(crs, ComparisonMode.IGNORE_METADATA)) {
+                areaOfInterest = Envelopes.transform(areaOfInterest, normalizedCRS);
+            }
+            final Cover cover = new Cover(n * bitsPerChar(), Latitude.clamp(areaOfInterest.getMinimum(1)),
+                                                             Latitude.clamp(areaOfInterest.getMaximum(1)));
+            double λmin = areaOfInterest.getLowerCorner().getOrdinate(0);
+            double λmax = areaOfInterest.getUpperCorner().getOrdinate(0);
+            double span = λmax - λmin;
+            if (span < 0) {
+                span += Longitude.MAX_VALUE - Longitude.MIN_VALUE;      // Envelope crossing the anti-meridian.
+            }
+            if (!(span < Longitude.MAX_VALUE - Longitude.MIN_VALUE)) {
+                cover.ranges = new double[] {Longitude.MIN_VALUE, Longitude.MAX_VALUE};
+            } else {
+                λmin = Longitude.normalize(λmin);
+                λmax = Longitude.normalize(λmax);
+                if (λmax == Longitude.MIN_VALUE && span != 0) {
+                    λmax = Longitude.MAX_VALUE;                         // East bound on the anti-meridian.
+                }
+                if (λmin <= λmax) {
+                    cover.ranges = new double[] {λmin, λmax};
+                } else {
+                    cover.ranges = new double[] {λmin, Longitude.MAX_VALUE, Longitude.MIN_VALUE, λmax};
+                }
+            }
+            cover.add(0, 0, Longitude.MIN_VALUE, Latitude.MIN_VALUE, Longitude.MAX_VALUE, Latitude.MAX_VALUE);
+            return Arrays.copyOf(cover.codes, cover.count);
+        }
+
+        /**
+         * Returns the number of characters stored in the given geohash, after verification of its validity.
+         */
+        private int length(final long code) {
+            final int n = (int) (code & LENGTH_MASK);
+            if (n * bitsPerChar() > LONG_HASH_BITS || (code & ~(highBits(n) | LENGTH_MASK)) != 0) {
+                throw new IllegalArgumentException(Errors.format(Errors.Keys.IllegalArgumentValue_2, "code", code));
+            }
+            return n;
+        }
+
+        /**
+         * Returns a mask for the bits of the first characters of a geohash.
+         */
+        private long highBits(final int n) {
+            return (n == 0) ? 0 : -1L << (Long.SIZE - n * bitsPerChar());
+        }
+
+        /**
+         * Computes the geohash of the given coordinates.
+         *
+         * @param  λ  longitude to encode, as decimal degrees.
+         * @param  φ  latitude to encode, as decimal degrees.
+         * @param  n  the number of characters, which shall not exceed the capacity of a {@code long}.
+         */
+        private long code(final double λ, final double φ, final int n) {
+            final long x = cell(Longitude.normalize(λ) - Longitude.MIN_VALUE, Longitude.MAX_VALUE - Longitude.MIN_VALUE);
+            final long y = cell(Latitude.clamp(φ)      - Latitude.MIN_VALUE,  Latitude.MAX_VALUE  - Latitude.MIN_VALUE);
+            return ((spread(x) << 1) | spread(y)) & highBits(n) | n;
+        }
+    }
+
+    /**
+     * Returns the number of bits encoded by each letter or digit of a geohash.
+     */
+    final int bitsPerChar() {
+        return Integer.numberOfTrailingZeros(format.highestOneBit) + 1;
+    }
+
+    /**
+     * Returns the index of the cell containing the given value when the range is divided in 2³² cells.
+     * As in the bisection of {@link Coder#encode(double, double)}, values on a cell border belong to the
+     * cell below that border.
+     *
+     * @param  value  the value, relative to the minimal value of the range.
+     * @param  span   the span of the range.
+     * @return the cell index as an unsigned 32 bits integer.
+     */
+    private static long cell(final double value, final double span) {
+        final double index = Math.ceil(value / span * 0x1p32) - 1;
+        if (index >= 0xFFFFFFFFL) return 0xFFFFFFFFL;
+        if (index >= 0) return (long) index;
+        return 0;                                           // Also for NaN.
+    }
+
+    /**
+     * Spreads the 32 lowest bits of the given value into the even bits of the returned value.
+     * For example the bits {@code abcd} become {@code 0a0b0c0d}.
+     */
+    private static long spread(long x) {
+        x &= 0xFFFFFFFFL;
+        x = (x | (x << 16)) & 0x0000FFFF0000FFFFL;
+        x = (x | (x <<  8)) & 0x00FF00FF00FF00FFL;
+        x = (x | (x <<  4)) & 0x0F0F0F0F0F0F0F0FL;
+        x = (x | (x <<  2)) & 0x3333333333333333L;
+        x = (x | (x <<  1)) & 0x5555555555555555L;
+        return x;
+    }
+
+    /**
+     * Reverse of {@link #spread(long)}: gathers the even bits of the given value into a 32 bits value.
+     */
+    private static long compact(long x) {
+        x &= 0x5555555555555555L;
+        x = (x | (x >>>  1)) & 0x3333333333333333L;
+        x = (x | (x >>>  2)) & 0x0F0F0F0F0F0F0F0FL;
+        x = (x | (x >>>  4)) & 0x00FF00FF00FF00FFL;
+        x = (x | (x >>>  8)) & 0x0000FFFF0000FFFFL;
+        x = (x | (x >>> 16)) & 0x00000000FFFFFFFFL;
+        return x;
+    }
+
+    /**
+     * Computation of the geohashes covering an area of interest, by recursive subdivision of the world.
+     * Cells fully inside the area are added without subdivision; cells crossing the area border are
+     * subdivided until the maximal number of bits is reached.
+     */
+    private final class Cover {
+        /** Number of bits of the longest geohashes to create. */
+        private final int maxBits;
+
+        /** Latitude range of the area of interest. */
+        private final double φmin, φmax;
+
+        /** Longitude ranges of the area of interest, as (min, max) pairs. There is two ranges if the area crosses the anti-meridian. */
+        double[] ranges;
+
+        /** The geohashes found. */
+        long[] codes;
+
+        /** Number of valid geohashes in {@link #codes}. */
+        int count;
+
+        /** Creates a new cover for the given latitude range. Longitude ranges shall be specified after construction. */
+        Cover(final int maxBits, final double φmin, final double φmax) {
+            this.maxBits = maxBits;
+            this.φmin    = φmin;
+            this.φmax    = φmax;
+            codes        = new long[64];
+        }
+
+        /**
+         * Returns whether the cell range intersects the area range. Borders are considered exclusive,
+         * unless the area has no span in that dimension.
+         */
+        private boolean overlaps(final double min, final double max, final double amin, final double amax) {
+            return (amin == amax) ? (min <= amax && max >= amin) : (min < amax && max > amin);
+        }
+
+        /**
+         * Adds the geohashes of the given cell or its descendants, if the cell intersects the area of interest.
+         *
+         * @param  hash   bits of the geohash of the cell, without the number of characters.
+         * @param  nbits  number of bits in the geohash of the cell.
+         */
+        void add(final long hash, final int nbits, final double xmin, final double ymin, final double xmax, final double ymax) {
+            if (!overlaps(ymin, ymax, φmin, φmax)) {
+                return;
+            }
+            boolean inside = false, intersects = false;
+            for (int i=0; i<ranges.length; i += 2) {
+                if (overlaps(xmin, xmax, ranges[i], ranges[i+1])) {
+                    intersects = true;
+                    inside |= (xmin >= ranges[i] && xmax <= ranges[i+1]);
+                }
+            }
+            if (!intersects) {
+                return;
+            }
+            final int bitsPerChar = bitsPerChar();
+            if (nbits == maxBits || (inside && ymin >= φmin && ymax <= φmax)) {
+                if (count == codes.length) {
+                    codes = Arrays.copyOf(codes, count * 2);
+                }
+                codes[count++] = hash | (nbits / bitsPerChar);
+                return;
+            }
+            final int base = format.encoding.length;
+            for (int index=0; index<base; index++) {
+                double x0 = xmin, y0 = ymin, x1 = xmax, y1 = ymax;
+                for (int bit = bitsPerChar; --bit >= 0;) {
+                    final boolean upper = (index & (1 << bit)) != 0;
+                    if (((nbits + bitsPerChar - 1 - bit) & 1) == 0) {                   // Longitude bit.
+                        final double mid = (x0 + x1) / 2;
+                        if (upper) x0 = mid; else x1 = mid;
+                    } else {
+                        final double mid = (y0 + y1) / 2;
+                        if (upper) y0 = mid; else y1 = mid;
+                    }
+                }
+                add(hash | ((long) index << (Long.SIZE - nbits - bitsPerChar)), nbits + bitsPerChar, x0, y0, x1, y1);
+            }
+        }
     }
 
     /**
@@ -125,7 +125,7 @@ import org.apache.sis.metadata.iso.citation.AbstractParty;
  * are not thread-safe; it is recommended to create a new {@code Coder} instance for each thread.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.0
  *
  * @see CommonCRS#universal(double, double)
  * @see <a href="https://en.wikipedia.org/wiki/Military_Grid_Reference_System">Military Grid Reference System on Wikipedia</a>
@@ -315,6 +315,63 @@ public class MilitaryGridReferenceSystem extends ReferencingByIdentifiers {
         return origin;
     }
 
+    /**
+     * Transforms an array of coordinates, setting to NaN the coordinates of points that can not be transformed.
+     * The whole array is first transformed in a single operation. Only if that operation fails, the points are
+     * transformed again one by one for identifying the failures.
+     *
+     * @param  mt         the transform to apply.
+     * @param  src        the source coordinates.
+     * @param  srcOffset  index of the first ordinate to transform in {@code src}.
+     * @param  dst        where to write the transformed coordinates. Shall not be the same array than {@code src}.
+     * @param  dstOffset  index of the first ordinate to write in {@code dst}.
+     * @param  count      number of points to transform.
+     */
+    static void transform(final MathTransform mt, final double[] src, final int srcOffset,
+                          final double[] dst, final int dstOffset, final int count)
+    {
+        try {
+            mt.transform(src, srcOffset, dst, dstOffset, count);
+        } catch (TransformException e) {
+            final int srcDim = mt.getSourceDimensions();
+            final int tgtDim = mt.getTargetDimensions();
+            for (int i=0; i<count; i++) {
+                final int d = dstOffset + i*tgtDim;
+                try {
+                    mt.transform(src, srcOffset + i*srcDim, dst, d, 1);
+                } catch (TransformException f) {
+                    Arrays.fill(dst, d, d + tgtDim, Double.NaN);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sorts the indices of points by increasing group number, using a counting sort.
+     * Points having a negative group number are omitted.
+     *
+     * @param  groups  the group number of each point, or -1 for points to omit.
+     * @param  start   an array of length (number of groups + 1), initially filled with zero values.
+     *                 On return, {@code start[g]} is the index in the returned array of the first point
+     *                 of group <var>g</var>, and the last element is the number of points not omitted.
+     * @return indices of the points sorted by group number.
+     */
+    static int[] sortByGroup(final int[] groups, final int[] start) {
+        for (final int g : groups) {
+            if (g >= 0) start[g + 1]++;
+        }
+        for (int i=1; i<start.length; i++) {
+            start[i] += start[i-1];
+        }
+        final int[] next  = Arrays.copyOf(start, start.length - 1);
+        final int[] order = new int[start[start.length - 1]];
+        for (int i=0; i<groups.length; i++) {
+            final int g = groups[i];
+            if (g >= 0) order[next[g]++] = i;
+        }
+        return order;
+    }
+
     /**
      * Returns a new object performing conversions between {@code DirectPosition} and MGRS references.
      * The returned object is <strong>not</strong> thread-safe; a new instance must be created for
@@ -339,7 +396,7 @@ public class MilitaryGridReferenceSystem extends ReferencingByIdentifiers {
      * or synchronization must be applied by the caller.
      *
      * @author  Martin Desruisseaux (Geomatys)
-     * @version 0.8
+     * @version 1.0
      * @since   0.8
      * @module
      */
@@ -567,6 +624,40 @@ public class MilitaryGridReferenceSystem extends ReferencingByIdentifiers {
             }
         }
 
+        /**
+         * Encodes an array of coordinates into MGRS references. The coordinates are stored in a flat array
+         * in the same way than {@link MathTransform#transform(double[], int, double[], int, int)}, with the
+         * number of dimensions given by the coordinate reference system.
+         *
+         * <p>This method is more efficient than invoking {@link #encode(DirectPosition)} for each point:
+         * the points are grouped by UTM or UPS zone and each group is projected with a single call to
+         * {@code MathTransform.transform(…)}, so the cost of dispatching transforms is paid only once per zone.
+         * Positions that can not be encoded (for example because of NaN ordinate values) get a {@code null}
+         * reference, in the same way than {@code MathTransform} uses NaN for points that can not be transformed.</p>
+         *
+         * @param  crs          the coordinate reference system of the given coordinates.
+         * @param  coordinates  the coordinates to encode.
+         * @param  offset       index of the first ordinate to encode.
+         * @param  references   where to store the MGRS references. This array can be reused for many calls.
+         * @param  refOffset    index where to store the first reference.
+         * @param  count        number of positions to encode.
+         * @throws TransformException if an error occurred while preparing the transformation of coordinates.
+         *
+         * @since 1.0
+         */
+        public void encode(final CoordinateReferenceSystem crs, final double[] coordinates, final int offset,
+                final String[] references, final int refOffset, final int count) throws TransformException
+        {
+            ArgumentChecks.ensureNonNull("coordinates", coordinates);
+            ArgumentChecks.ensureNonNull("references",  references);
+            ArgumentChecks.ensurePositive("count", count);
+            try {
+                encoder(crs).encode(this, coordinates, offset, references, refOffset, count, getSeparator(), digits());
+            } catch (IllegalArgumentException | FactoryException e) {
+                throw new GazetteerException(e.getLocalizedMessage(), e);
+            }
+        }
+
         /**
          * Returns an iterator over all MGRS references that intersect the given envelope.
          * The given envelope must have a Coordinate Reference System (CRS) associated to it.
@@ -638,6 +729,85 @@ public class MilitaryGridReferenceSystem extends ReferencingByIdentifiers {
             return new Decoder(this, reference);
         }
 
+        /**
+         * Decodes an array of MGRS references into the coordinates of their centroids in the given CRS.
+         * The coordinates are stored in a flat array in the same way than
+         * {@link MathTransform#transform(double[], int, double[], int, int)}.
+         *
+         * <p>Each reference is parsed and clipped in the same way than {@link #decode(CharSequence)}.
+         * Then the centroids are grouped by UTM or UPS zone and each group is transformed to the
+         * target CRS with a single call to {@code MathTransform.transform(…)}. References that are
+         * {@code null} or can not be parsed get NaN coordinates.</p>
+         *
+         * @param  references   the MGRS references to decode.
+         * @param  offset       index of the first reference to decode.
+         * @param  crs          the coordinate reference system of the coordinates to store.
+         * @param  coordinates  where to store the coordinates. This array can be reused for many calls.
+         * @param  coordOffset  index where to store the first ordinate.
+         * @param  count        number of references to decode.
+         * @throws TransformException if an error occurred while transforming the centroids to the given CRS.
+         *
+         * @since 1.0
+         */
+        public void decode(final CharSequence[] references, final int offset, final CoordinateReferenceSystem crs,
+                final double[] coordinates, final int coordOffset, final int count) throws TransformException
+        {
+            ArgumentChecks.ensureNonNull("references",  references);
+            ArgumentChecks.ensureNonNull("crs",         crs);
+            ArgumentChecks.ensureNonNull("coordinates", coordinates);
+            ArgumentChecks.ensurePositive("count", count);
+            final int dimension = crs.getCoordinateSystem().getDimension();
+            final double[] centroids = new double[count * 2];
+            final int[] groups = new int[count];
+            final Map<CoordinateReferenceSystem,Integer> groupOf = new IdentityHashMap<>();
+            final CoordinateReferenceSystem[] sources = new CoordinateReferenceSystem[count];
+            for (int i=0; i<count; i++) {
+                final CharSequence reference = references[offset + i];
+                groups[i] = -1;                 // Will result in NaN coordinates if the reference can not be parsed.
+                if (reference != null && reference.length() != 0) {
+                    final Decoder location;
+                    try {
+                        location = new Decoder(this, reference);
+                    } catch (GazetteerException e) {
+                        continue;
+                    }
+                    final CoordinateReferenceSystem source = location.getCoordinateReferenceSystem();
+                    centroids[i*2]     = location.getOrdinate(0);
+                    centroids[i*2 + 1] = location.getOrdinate(1);
+                    final int g = groupOf.computeIfAbsent(source, (k) -> groupOf.size());
+                    sources[g] = source;
+                    groups [i] = g;
+                }
+            }
+            Arrays.fill(coordinates, coordOffset, coordOffset + count * dimension, Double.NaN);
+            final int[] start = new int[groupOf.size() + 1];
+            final int[] order = sortByGroup(groups, start);
+            double[] xy = null, out = null;
+            for (int g=0; g < start.length - 1; g++) {
+                final int lower = start[g];
+                final int n = start[g+1] - lower;
+                if (xy == null || xy.length < n*2) {
+                    xy = new double[n*2];
+                }
+                if (out == null || out.length < n*dimension) {
+                    out = new double[n*dimension];
+                }
+                for (int j=0; j<n; j++) {
+                    System.arraycopy(centroids, order[lower + j] * 2, xy, j*2, 2);
+                }
+                final MathTransform mt;
+                try {
+                    mt = CRS.findOperation(sources[g], crs, null).getMathTransform();
+                } catch (FactoryException e) {
+                    throw new GazetteerException(e.getLocalizedMessage(), e);
+                }
+                transform(mt, xy, 0, out, 0, n);
+                for (int j=0; j<n; j++) {
+                    System.arraycopy(out, j*dimension, coordinates, coordOffset + order[lower + j] * dimension, dimension);
+                }
+            }
+        }
+
 
 
         /**
@@ -1290,7 +1460,7 @@ public class MilitaryGridReferenceSystem extends ReferencingByIdentifiers {
      * or synchronization must be applied by the caller.
      *
      * @author  Martin Desruisseaux (Geomatys)
-     * @version 0.8
+     * @version 1.0
      *
      * @see <a href="https://en.wikipedia.org/wiki/Military_Grid_Reference_System">Military Grid Reference System on Wikipedia</a>
      *
@@ -1339,18 +1509,14 @@ public class MilitaryGridReferenceSystem extends ReferencingByIdentifiers {
         private final MathTransform toGeographic;
 
         /**
-         * A transform from a position in the CRS given at construction time to a position in the CRS identified by
-         * {@link #actualZone}. This field is updated only when a given position is not located in the zone of the
-         * CRS given at construction time.
-         */
-        private MathTransform toActualZone;
-
-        /**
-         * The actual zone where the position to encode is located. Legal values are the same than {@link #crsZone}.
-         * If non-zero, then this is the zone of the {@link #toActualZone} transform. This field is updated only when
-         * a given position is not located in the zone of the CRS given at construction time.
+         * Transforms from geographic coordinates to the UTM or UPS projection of each zone, created when first needed.
+         * Elements are indexed by the signed zone number (same convention than {@link #crsZone}) plus {@value #POLE}.
+         * Those transforms are used only for positions which are not located in the zone of the CRS given at
+         * construction time.
+         *
+         * @see #toActualZone(int, double, double)
          */
-        private int actualZone;
+        private MathTransform[] toActualZones;
 
         /**
          * The latitude band of the last encoded reference.
@@ -1457,7 +1623,6 @@ public class MilitaryGridReferenceSystem extends ReferencingByIdentifiers {
         String encode(final Coder owner, DirectPosition position, final boolean reproject,
                 final String separator, final int digits) throws FactoryException, TransformException
         {
-            final StringBuilder buffer = owner.buffer;
             if (toNormalized != null) {
                 owner.normalized = position = toNormalized.transform(position, owner.normalized);
             }
@@ -1482,14 +1647,143 @@ public class MilitaryGridReferenceSystem extends ReferencingByIdentifiers {
                 if (!reproject) {
                     return null;
                 }
-                if (signedZone != actualZone) {
-                    actualZone   = 0;                           // In case an exception is thrown on the next line.
-                    toActualZone = CRS.findOperation(datum.geographic(), datum.universal(φ, λ), null).getMathTransform();
-                    actualZone   = signedZone;
-                }
                 geographic.setOrdinate(1, Longitude.normalize(λ));
-                owner.normalized = position = toActualZone.transform(geographic, owner.normalized);
+                owner.normalized = position = toActualZone(signedZone, φ, λ).transform(geographic, owner.normalized);
+            }
+            return format(owner, φ, λ, signedZone, position.getOrdinate(0), position.getOrdinate(1), separator, digits);
+        }
+
+        /**
+         * Encodes many positions into MGRS references. Coordinates are transformed to geographic coordinates
+         * in a single operation, then grouped by UTM or UPS zone. Coordinates in the zone of the CRS given at
+         * construction time are used directly. Coordinates in other zones are projected with one call to
+         * {@link MathTransform#transform(double[], int, double[], int, int)} per zone.
+         *
+         * <p>Positions that can not be encoded (for example because of NaN ordinate values or because
+         * they are outside the domain of validity) get a {@code null} reference.</p>
+         *
+         * @param  owner        the {@code Coder} which own this {@code Encoder}.
+         * @param  coordinates  the coordinates to encode, in the CRS given at construction time.
+         * @param  offset       index of the first ordinate to encode.
+         * @param  references   where to store the MGRS references.
+         * @param  refOffset    index of the first reference to write.
+         * @param  count        number of positions to encode.
+         * @param  separator    the separator to insert between each component of the MGRS identifier.
+         * @param  digits       number of digits to use for formatting the numerical part of a MGRS reference.
+         */
+        void encode(final Coder owner, final double[] coordinates, final int offset, final String[] references,
+                final int refOffset, final int count, final String separator, final int digits)
+                throws FactoryException
+        {
+            double[] projected = coordinates;
+            int projOffset = offset;
+            if (toNormalized != null) {
+                projected  = new double[count * toNormalized.getTargetDimensions()];
+                projOffset = 0;
+                transform(toNormalized, coordinates, offset, projected, 0, count);
+            }
+            final double[] geographic = new double[count * 2];
+            transform(toGeographic, projected, projOffset, geographic, 0, count);
+            /*
+             * Compute the zone of all points, then sort the point indices by zone.
+             * Points having NaN or infinite ordinate values are excluded (zone -1).
+             */
+            final int[] groups = new int[count];
+            for (int i=0; i<count; i++) {
+                final double φ = geographic[i*2];
+                final double λ = geographic[i*2 + 1];
+                final int zone = (φ >= TransverseMercator.Zoner.SOUTH_BOUNDS &&
+                                  φ <  TransverseMercator.Zoner.NORTH_BOUNDS) ? ZONER.zone(φ, λ) : POLE;
+                final int signedZone = MathFunctions.isNegative(φ) ? -zone : zone;
+                groups[i] = (signedZone != 0 && Double.isFinite(λ)) ? signedZone + POLE : -1;
             }
+            final int[] start = new int[2*POLE + 2];
+            final int[] order = sortByGroup(groups, start);
+            Arrays.fill(references, refOffset, refOffset + count, null);
+            double[] xy = null, out = null;
+            for (int g=0; g < start.length - 1; g++) {
+                final int lower = start[g];
+                final int n = start[g+1] - lower;
+                if (n == 0) continue;
+                final int signedZone = g - POLE;
+                final double[] source;
+                final int sourceOffset, stride;
+                if (signedZone == crsZone) {
+                    source       = projected;
+                    sourceOffset = projOffset;
+                    stride       = (toNormalized != null) ? toNormalized.getTargetDimensions() : 2;
+                } else {
+                    /*
+                     * Gather the (φ,λ) coordinates of this zone in a contiguous array,
+                     * then project all of them in a single operation.
+                     */
+                    if (xy == null || xy.length < n*2) {
+                        xy  = new double[n*2];
+                        out = new double[n*2];
+                    }
+                    for (int j=0; j<n; j++) {
+                        final int i = order[lower + j];
+                        xy[j*2]     = geographic[i*2];
+                        xy[j*2 + 1] = Longitude.normalize(geographic[i*2 + 1]);
+                    }
+                    final int i = order[lower];
+                    transform(toActualZone(signedZone, geographic[i*2], geographic[i*2 + 1]), xy, 0, out, 0, n);
+                    source       = out;
+                    sourceOffset = 0;
+                    stride       = 2;
+                }
+                for (int j=0; j<n; j++) {
+                    final int i = order[lower + j];
+                    final int p = sourceOffset + ((source == out) ? j : i) * stride;
+                    try {
+                        references[refOffset + i] = format(owner, geographic[i*2], geographic[i*2 + 1],
+                                signedZone, source[p], source[p+1], separator, digits);
+                    } catch (GazetteerException e) {
+                        // Leave the reference to null, like NaN values for MathTransform.
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns the transform from geographic coordinates to the projection of the given zone.
+         * The transforms are cached for reuse by subsequent calls.
+         *
+         * @param  signedZone  the zone, using the same convention than {@link #crsZone}.
+         * @param  φ           latitude of a point in that zone.
+         * @param  λ           longitude of a point in that zone.
+         */
+        private MathTransform toActualZone(final int signedZone, final double φ, final double λ) throws FactoryException {
+            if (toActualZones == null) {
+                toActualZones = new MathTransform[2*POLE + 1];
+            }
+            MathTransform mt = toActualZones[signedZone + POLE];
+            if (mt == null) {
+                mt = CRS.findOperation(datum.geographic(), datum.universal(φ, λ), null).getMathTransform();
+                toActualZones[signedZone + POLE] = mt;
+            }
+            return mt;
+        }
+
+        /**
+         * Formats the MGRS reference of a position for which the zone and the projected coordinates are known.
+         *
+         * @param  owner       the {@code Coder} which own this {@code Encoder}.
+         * @param  φ           latitude of the position to format, in degrees.
+         * @param  λ           longitude of the position to format, in degrees.
+         * @param  signedZone  the zone of the position, using the same convention than {@link #crsZone}.
+         * @param  x           easting of the position in the projection of the given zone, in metres.
+         * @param  y           northing of the position in the projection of the given zone, in metres.
+         * @param  separator   the separator to insert between each component of the MGRS identifier.
+         * @param  digits      number of digits to use for formatting the numerical part of a MGRS reference.
+         * @return the value of {@code buffer.toString()}.
+         */
+        private String format(final Coder owner, final double φ, final double λ, final int signedZone,
+                final double x, final double y, final String separator, final int digits) throws GazetteerException
+        {
+            final StringBuilder buffer = owner.buffer;
+            final int     zone  = Math.abs(signedZone);
+            final boolean isUTM = (zone != POLE);
             /*
              * Grid Zone Designator (GZD).
              */
@@ -1506,8 +1800,6 @@ public class MilitaryGridReferenceSystem extends ReferencingByIdentifiers {
              * 100 kilometres square identification.
              */
             if (digits >= 0) {
-                final double  x = position.getOrdinate(0);
-                final double  y = position.getOrdinate(1);
                 final double cx = Math.floor(x / GRID_SQUARE_SIZE);
                 final double cy = Math.floor(y / GRID_SQUARE_SIZE);
                 int col = (int) cx;
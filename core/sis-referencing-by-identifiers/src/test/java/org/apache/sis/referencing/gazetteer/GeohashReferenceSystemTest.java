@@ -16,10 +16,16 @@
  */
 package org.apache.sis.referencing.gazetteer;
 
+import java.util.Set;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Locale;
 import org.opengis.referencing.operation.TransformException;
 import org.opengis.geometry.DirectPosition;
+import org.opengis.geometry.Envelope;
 import org.apache.sis.geometry.DirectPosition2D;
+import org.apache.sis.geometry.Envelope2D;
+import org.apache.sis.geometry.GeneralEnvelope;
 import org.apache.sis.referencing.CommonCRS;
 import org.apache.sis.test.TestUtilities;
 import org.apache.sis.test.DependsOnMethod;
@@ -28,6 +34,7 @@ import org.apache.sis.test.TestCase;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
+import static org.apache.sis.test.Assert.assertSetEquals;
 
 
 /**
@@ -35,7 +42,7 @@ import static org.junit.Assert.*;
  *
  * @author  Ross Laidlaw
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.0
  * @since   0.1
  * @module
  */
@@ -148,6 +155,142 @@ public final strictfp class GeohashReferenceSystemTest extends TestCase {
         }
     }
 
+    /**
+     * Tests the {@link GeohashReferenceSystem.Coder#encode(double[], int, long[], int, int)} method
+     * together with the conversions between {@code long} codes and strings.
+     *
+     * @throws TransformException if an exception occurred while formatting or parsing the geohash.
+     */
+    @Test
+    @DependsOnMethod("testEncode")
+    public void testEncodeAsLong() throws TransformException {
+        final GeohashReferenceSystem.Coder coder = instance().createCoder();
+        final double[] coordinates = new double[PLACES.length * 2];
+        for (int i=0; i<PLACES.length; i++) {
+            coordinates[i*2    ] = PLACES[i].longitude;
+            coordinates[i*2 + 1] = PLACES[i].latitude;
+        }
+        final long[] codes = new long[PLACES.length];
+        coder.encode(coordinates, 0, codes, 0, PLACES.length);
+        final char[] buffer = new char[12];
+        for (int i=0; i<PLACES.length; i++) {
+            final Place place = PLACES[i];
+            assertEquals(place.name, 12, coder.toChars(codes[i], buffer, 0));
+            assertEquals(place.name, place.geohash, new String(buffer));
+            assertEquals(place.name, codes[i], coder.toLong(place.geohash));
+            assertEquals(place.name, codes[i], coder.encodeAsLong(place.latitude, place.longitude));
+            assertEquals(place.name, place.geohash.substring(0, 11), coder.toString(coder.parent(codes[i])));
+        }
+        final long parent = coder.toLong("dr5r");
+        assertEquals("dr5r0", coder.toString(coder.child(parent, 0)));
+        assertEquals("dr5rz", coder.toString(coder.child(parent, 31)));
+        assertTrue(Long.compareUnsigned(parent, coder.child(parent, 0)) < 0);
+        assertTrue(Long.compareUnsigned(coder.child(parent, 31), coder.toLong("dr5s")) < 0);
+    }
+
+    /**
+     * Tests the {@link GeohashReferenceSystem.Coder#neighbors(long)} method.
+     *
+     * @throws GazetteerException if an exception occurred while parsing the geohash.
+     */
+    @Test
+    @DependsOnMethod("testEncodeAsLong")
+    public void testNeighbors() throws GazetteerException {
+        final GeohashReferenceSystem.Coder coder = instance().createCoder();
+        final long[] neighbors = coder.neighbors(coder.toLong("dqcjq"));
+        final String[] expected = {"dqcjj", "dqcjn", "dqcjp", "dqcjm", "dqcjr", "dqcjt", "dqcjw", "dqcjx"};
+        assertEquals(expected.length, neighbors.length);
+        for (int i=0; i<expected.length; i++) {
+            assertEquals(expected[i], coder.toString(neighbors[i]));
+        }
+        assertEquals("Shall wrap around the anti-meridian.", "8", coder.toString(coder.neighbor(coder.toLong("x"), 1, 0)));
+        assertEquals("Shall not go beyond the north pole.", -1, coder.neighbor(coder.toLong("b"), 0, 1));
+        assertEquals("Cells touching a pole have 5 neighbors.", 5, coder.neighbors(coder.toLong("b")).length);
+    }
+
+    /**
+     * Tests the {@link GeohashReferenceSystem.Coder#cover(Envelope)} method.
+     *
+     * @throws TransformException if an exception occurred while computing the geohashes.
+     */
+    @Test
+    @DependsOnMethod("testEncodeAsLong")
+    public void testCover() throws TransformException {
+        final GeohashReferenceSystem.Coder coder = instance().createCoder();
+        coder.setHashLength(5);
+        final Envelope2D areaOfInterest = new Envelope2D(null, -74.3, 40.4, 0.7, 0.6);
+        final long[] cover = coder.cover(areaOfInterest);
+        final Set<String> cells = new HashSet<>();
+        for (int i=0; i<cover.length; i++) {
+            assertTrue(coder.toString(cover[i]).length() <= 5);
+            assertTrue(cells.add(coder.toString(cover[i])));
+            if (i != 0) {
+                assertTrue("Geohashes shall be sorted.", Long.compareUnsigned(cover[i-1], cover[i]) < 0);
+            }
+        }
+        for (final Place place : PLACES) {
+            if (areaOfInterest.contains(place.longitude, place.latitude)) {
+                boolean found = false;
+                for (int n=1; n<=5; n++) {
+                    found |= cells.contains(place.geohash.substring(0, n));
+                }
+                assertTrue(place.name, found);
+            }
+        }
+        assertTrue(cells.contains("dr5r"));             // A cell fully inside the area of interest, merged.
+        assertFalse(cells.contains("dr5r0"));
+    }
+
+    /**
+     * Tests {@link GeohashReferenceSystem.Coder#cover(Envelope)} with areas of interest on the anti-meridian.
+     * With a hash length of 2, cells are 11.25° of longitude by 5.625° of latitude.
+     *
+     * @throws TransformException if an error occurred while transforming the envelope.
+     */
+    @Test
+    @DependsOnMethod("testCover")
+    public void testCoverAntiMeridian() throws TransformException {
+        final GeohashReferenceSystem.Coder coder = instance().createCoder();
+        coder.setHashLength(2);
+        /*
+         * Envelope from 170°E to 170°W, crossing the anti-meridian.
+         * Expected cells are [168.75 … 180]°E and [180 … 168.75]°W.
+         */
+        final GeneralEnvelope areaOfInterest = new GeneralEnvelope(CommonCRS.defaultGeographic());
+        areaOfInterest.setRange(0,  170, -170);
+        areaOfInterest.setRange(1,    0,    5);
+        assertSetEquals(Arrays.asList("xb", "80"), cells(coder, areaOfInterest));
+        /*
+         * Same envelope without CRS. The anti-meridian crossing shall still be recognized.
+         */
+        areaOfInterest.setCoordinateReferenceSystem(null);
+        assertSetEquals(Arrays.asList("xb", "80"), cells(coder, areaOfInterest));
+        /*
+         * Envelope with the east bound at 180°. Longitude.normalize(180) returns -180,
+         * but cells on the west side of the anti-meridian shall not be included.
+         */
+        areaOfInterest.setRange(0, 170, 180);
+        assertSetEquals(Arrays.asList("xb"), cells(coder, areaOfInterest));
+        /*
+         * Envelope with the west bound at -180°, for symmetry with the previous case.
+         */
+        areaOfInterest.setRange(0, -180, -170);
+        assertSetEquals(Arrays.asList("80"), cells(coder, areaOfInterest));
+    }
+
+    /**
+     * Returns the geohashes covering the given area of interest, as strings.
+     */
+    private static Set<String> cells(final GeohashReferenceSystem.Coder coder, final Envelope areaOfInterest)
+            throws TransformException
+    {
+        final Set<String> cells = new HashSet<>();
+        for (final long code : coder.cover(areaOfInterest)) {
+            assertTrue(cells.add(coder.toString(code)));
+        }
+        return cells;
+    }
+
     /**
      * Verifies the metadata.
      *
@@ -25,6 +25,7 @@ import java.util.Random;
 import java.util.Iterator;
 import java.util.Collections;
 import java.lang.reflect.Field;
+import org.opengis.util.FactoryException;
 import org.opengis.referencing.crs.ProjectedCRS;
 import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.TransformException;
@@ -34,6 +35,7 @@ import org.apache.sis.geometry.DirectPosition2D;
 import org.apache.sis.geometry.Envelope2D;
 import org.apache.sis.geometry.GeneralEnvelope;
 import org.apache.sis.internal.referencing.provider.TransverseMercator;
+import org.apache.sis.referencing.CRS;
 import org.apache.sis.referencing.CommonCRS;
 import org.apache.sis.test.DependsOnMethod;
 import org.apache.sis.test.DependsOn;
@@ -48,7 +50,7 @@ import static org.junit.Assert.*;
  * Tests {@link MilitaryGridReferenceSystem}.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.0
  * @since   0.8
  * @module
  */
@@ -638,6 +640,86 @@ public final strictfp class MilitaryGridReferenceSystemTest extends TestCase {
         }
     }
 
+    /**
+     * Tests encoding of an array of coordinates. The references shall be the same than the ones
+     * computed by {@link MilitaryGridReferenceSystem.Coder#encode(DirectPosition)} for each point.
+     *
+     * @throws TransformException if an error occurred while computing the coordinate.
+     */
+    @Test
+    @DependsOnMethod("verifyConsistency")
+    public void testEncodeArray() throws TransformException {
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final MilitaryGridReferenceSystem.Coder coder = coder();
+        final DirectPosition2D position = new DirectPosition2D(CommonCRS.WGS84.geographic());
+        final double[] coordinates = new double[1000 * 2];
+        for (int i=0; i<coordinates.length; i += 2) {
+            coordinates[i]   = random.nextDouble() * 180 -  90;     // Latitude
+            coordinates[i+1] = random.nextDouble() * 358 - 179;     // Longitude
+        }
+        coordinates[10] = Double.NaN;
+        final String[] references = new String[coordinates.length / 2 + 1];
+        coder.encode(CommonCRS.WGS84.geographic(), coordinates, 0, references, 1, coordinates.length / 2);
+        assertNull(references[0]);
+        assertNull(references[6]);
+        for (int i=0; i<coordinates.length; i += 2) {
+            if (i != 10) {
+                position.x = coordinates[i];
+                position.y = coordinates[i+1];
+                assertEquals(coder.encode(position), references[i/2 + 1]);
+            }
+        }
+        /*
+         * Same test with projected coordinates, including points outside the zone of the CRS.
+         */
+        final ProjectedCRS crs = CommonCRS.WGS84.universal(41, 10);
+        final MathTransform mt = crs.getConversionFromBase().getMathTransform();
+        for (int i=0; i<coordinates.length; i += 2) {
+            coordinates[i]   = random.nextDouble() * 16 + 33;       // Latitude
+            coordinates[i+1] = random.nextDouble() * 20;            // Longitude
+        }
+        mt.transform(coordinates, 0, coordinates, 0, coordinates.length / 2);
+        coder.encode(crs, coordinates, 0, references, 0, coordinates.length / 2);
+        position.setCoordinateReferenceSystem(crs);
+        for (int i=0; i<coordinates.length; i += 2) {
+            position.x = coordinates[i];
+            position.y = coordinates[i+1];
+            assertEquals(coder.encode(position), references[i/2]);
+        }
+    }
+
+    /**
+     * Tests decoding of an array of references. The coordinates shall be the centroids computed by
+     * {@link MilitaryGridReferenceSystem.Coder#decode(CharSequence)}, transformed to the target CRS.
+     *
+     * @throws TransformException if an error occurred while computing the coordinate.
+     * @throws FactoryException if an error occurred while searching a coordinate operation.
+     */
+    @Test
+    @DependsOnMethod("testEncodeArray")
+    public void testDecodeArray() throws TransformException, FactoryException {
+        final MilitaryGridReferenceSystem.Coder coder = coder();
+        final String[] references = {
+            "32TNL8410239239", "29XMM8446304963", null, "32GNV8410260761",
+            "32TNL84102", "99XMM", "32FNL9360826322", "33XVM2240708183"
+        };
+        final double[] coordinates = new double[references.length * 2];
+        coder.decode(references, 0, CommonCRS.WGS84.geographic(), coordinates, 0, references.length);
+        final DirectPosition2D expected = new DirectPosition2D();
+        for (int i=0; i<references.length; i++) {
+            if (references[i] == null || references[i].startsWith("99")) {
+                assertTrue(Double.isNaN(coordinates[i*2]));
+                assertTrue(Double.isNaN(coordinates[i*2 + 1]));
+            } else {
+                final DirectPosition r = decode(coder, references[i]);
+                CRS.findOperation(r.getCoordinateReferenceSystem(), CommonCRS.WGS84.geographic(), null)
+                        .getMathTransform().transform(r, expected);
+                assertEquals(references[i], expected.x, coordinates[i*2],     1E-9);
+                assertEquals(references[i], expected.y, coordinates[i*2 + 1], 1E-9);
+            }
+        }
+    }
+
     /**
      * Tests iteration over all codes in a given area of interest. The geographic area used for this test is based on
      * <a href="https://www.ff-reichertshausen.de/cms/wp-content/uploads/2012/10/utmmeldegitter.jpg">this picture</a>
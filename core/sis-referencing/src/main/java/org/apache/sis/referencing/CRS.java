@@ -84,6 +84,7 @@ import org.apache.sis.util.logging.Logging;
 import org.apache.sis.util.logging.WarningListener;
 import org.apache.sis.util.ArgumentChecks;
 import org.apache.sis.util.Utilities;
+import org.apache.sis.util.collection.Cache;
 import org.apache.sis.util.Static;
 
 
@@ -136,6 +137,13 @@ import org.apache.sis.util.Static;
  * @module
  */
 public final class CRS extends Static {
+    /**
+     * The CRS parsed by {@link #fromWKT(String)}, indexed by their WKT text after {@linkplain #normalizeWKT
+     * normalization}. The most recently used values are retained by strong references, and the other
+     * values by soft references.
+     */
+    private static final Cache<String,CoordinateReferenceSystem> WKT_CACHE = new Cache<>(12, 100, true);
+
     /**
      * Do not allow instantiation of this class.
      */
@@ -284,6 +292,11 @@ public final class CRS extends Static {
      * Applications which need to parse a large amount of WKT strings should consider to use
      * the {@link org.apache.sis.io.wkt.WKTFormat} class instead than this method.
      *
+     * <p>This method caches the parsed CRS, using the WKT text with insignificant white spaces removed as the key.
+     * Consequently applications parsing often the same WKT strings (for example from {@code *.prj} files) pay the
+     * parsing and verification cost only once. A consequence of this caching is that warnings about discrepancies
+     * with the authoritative description are logged only the first time that a WKT string is parsed.</p>
+     *
      * @param  text  coordinate system encoded in Well-Known Text format (version 1 or 2).
      * @return the parsed Coordinate Reference System.
      * @throws FactoryException if the given WKT can not be parsed.
@@ -297,11 +310,67 @@ public final class CRS extends Static {
      */
     public static CoordinateReferenceSystem fromWKT(final String text) throws FactoryException {
         ArgumentChecks.ensureNonNull("text", text);
-        final CoordinateReferenceSystem crs = DefaultFactories.forBuildin(CRSFactory.class).createFromWKT(text);
-        DefinitionVerifier.withAuthority(crs, Loggers.WKT, CRS.class, "fromWKT");
+        final Cache.Handler<CoordinateReferenceSystem> handler = WKT_CACHE.lock(normalizeWKT(text));
+        CoordinateReferenceSystem crs = null;
+        try {
+            crs = handler.peek();
+            if (crs == null) {
+                crs = DefaultFactories.forBuildin(CRSFactory.class).createFromWKT(text);
+                DefinitionVerifier.withAuthority(crs, Loggers.WKT, CRS.class, "fromWKT");
+            }
+        } finally {
+            handler.putAndUnlock(crs);
+        }
         return crs;
     }
 
+    /**
+     * Removes the white spaces that are not significant in the given WKT string. White spaces between quotes
+     * are kept unchanged. Other sequences of white spaces are removed if they are before or after a bracket
+     * or a separator, or replaced by a single space otherwise. This method is used for computing cache keys,
+     * not for parsing.
+     *
+     * @param  text  the WKT string to normalize.
+     * @return the WKT string without insignificant white spaces.
+     */
+    static String normalizeWKT(final String text) {
+        final int length = text.length();
+        final StringBuilder buffer = new StringBuilder(length);
+        boolean quoted = false;
+        boolean space  = false;
+        for (int i=0; i<length; i++) {
+            final char c = text.charAt(i);
+            if (!quoted && Character.isWhitespace(c)) {
+                space = true;
+                continue;
+            }
+            if (space) {
+                space = false;
+                final int n = buffer.length();
+                if (n != 0 && !isWKTSeparator(buffer.charAt(n - 1)) && !isWKTSeparator(c)) {
+                    buffer.append(' ');
+                }
+            }
+            switch (c) {
+                case '"': quoted = !quoted; break;     // A doubled quote toggles twice, which is correct.
+                case '“': quoted = true;    break;
+                case '”': quoted = false;   break;
+            }
+            buffer.append(c);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Returns {@code true} if the given character is a bracket or a separator in a WKT string.
+     */
+    private static boolean isWKTSeparator(final char c) {
+        switch (c) {
+            case '[': case ']': case '(': case ')': case ',': return true;
+            default: return false;
+        }
+    }
+
     /**
      * Creates a coordinate reference system object from a XML string.
      * Note that the given argument is the XML document itself, <strong>not</strong> a URL to a XML document.
@@ -22,6 +22,7 @@ import org.opengis.referencing.crs.VerticalCRS;
 import org.apache.sis.measure.Units;
 import org.apache.sis.metadata.iso.citation.Citations;
 import org.apache.sis.referencing.crs.DefaultProjectedCRS;
+import org.apache.sis.referencing.crs.HardCodedCRS;
 import org.apache.sis.referencing.datum.DefaultPrimeMeridian;
 import org.apache.sis.test.DependsOnMethod;
 import org.apache.sis.test.DependsOn;
@@ -35,7 +36,7 @@ import static org.apache.sis.test.Assert.*;
  * Tests {@link WKTFormat}.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.0
  * @since   0.5
  * @module
  */
@@ -431,4 +432,31 @@ public final strictfp class WKTFormatTest extends TestCase {
                 "    AXIS[\"Longitude (L)\", east, ORDER[2]],\n" +
                 "    ANGLEUNIT[\"degree\", 0.017453292519943295]]", wkt);
     }
+
+    /**
+     * Tests {@link WKTFormatPool}. Verifies that the pooled formats produce the same WKT than
+     * a {@code WKTFormat} having the same configuration, and that the formatted strings are cached.
+     */
+    @Test
+    public void testPool() {
+        format = new WKTFormat(null, null);
+        format.setConvention(Convention.WKT1);
+        final WKTFormatPool pool = new WKTFormatPool(format);
+        assertEquals(Convention.WKT1, pool.getConvention());
+
+        final String wkt1 = pool.format(HardCodedCRS.WGS84);
+        assertEquals(format.format(HardCodedCRS.WGS84), wkt1);
+        assertSame("Expected cached string.", wkt1, pool.format(HardCodedCRS.WGS84));
+
+        format.setConvention(Convention.WKT2);
+        final String wkt2 = pool.format(HardCodedCRS.WGS84, Convention.WKT2);
+        assertEquals(format.format(HardCodedCRS.WGS84), wkt2);
+        assertSame("Expected cached string.", wkt2, pool.format(HardCodedCRS.WGS84, Convention.WKT2));
+        assertSame("Expected cached string.", wkt1, pool.format(HardCodedCRS.WGS84, Convention.WKT1));
+
+        pool.clearCache();
+        final String again = pool.format(HardCodedCRS.WGS84);
+        assertNotSame("Cache shall have been cleared.", wkt1, again);
+        assertEquals(wkt1, again);
+    }
 }
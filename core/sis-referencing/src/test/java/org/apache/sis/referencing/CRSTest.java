@@ -50,7 +50,7 @@ import static org.apache.sis.test.Assert.*;
  * Tests the {@link CRS} class.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.0
  * @since   0.4
  * @module
  */
@@ -148,6 +148,23 @@ public final strictfp class CRSTest extends TestCase {
                 + "PRIMEM[\"Greenwich\",0],UNIT[\"degree\",0.0174532925199433]]");
         assertInstanceOf("GEOGCS", DefaultGeographicCRS.class, crs);
         assertEquals("GCS WGS 1984", crs.getName().getCode());
+        assertSame("Expected cached instance.", crs, CRS.fromWKT(
+                "GEOGCS[\"GCS WGS 1984\",\n"
+                + "  DATUM[\"WGS 1984\", SPHEROID[\"WGS 1984\", 6378137, 298.257223563]],\n"
+                + "  PRIMEM[\"Greenwich\", 0], UNIT[\"degree\", 0.0174532925199433]]"));
+    }
+
+    /**
+     * Tests the normalization of WKT strings used as keys by the {@link CRS#fromWKT(String)} cache.
+     *
+     * @since 1.0
+     */
+    @Test
+    public void testNormalizeWKT() {
+        assertEquals("GEOGCS[\"GCS  WGS 1984\",UNIT[\"degree\",1]]",
+                CRS.normalizeWKT(" GEOGCS [ \"GCS  WGS 1984\" ,\n\tUNIT[\"degree\", 1] ] "));
+        assertEquals("AXIS[\"x\",EAST]", CRS.normalizeWKT("AXIS[\"x\", EAST]"));
+        assertEquals("A[\"x \"\" y\",B C]", CRS.normalizeWKT("A[\"x \"\" y\", B   C]"));
     }
 
     /**
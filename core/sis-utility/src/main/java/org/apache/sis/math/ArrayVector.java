@@ -30,7 +30,7 @@ import org.apache.sis.measure.NumberRange;
  * so changes in the underlying array is reflected in this vector and vis-versa.
  *
  * @author  Martin Desruisseaux (MPO, Geomatys)
- * @version 0.8
+ * @version 1.0
  * @since   0.8
  * @module
  */
@@ -87,7 +87,7 @@ abstract class ArrayVector<E extends Number> extends Vector implements CheckedCo
     static Vector compress(final Vector source, final long min, final long max) {
         boolean isSigned = (min >= Byte.MIN_VALUE && max <= Byte.MAX_VALUE);
         if (isSigned || (min >= 0 && max <= 0xFF)) {
-            if (source instanceof Bytes) return null;
+            if (source instanceof Bytes || source instanceof BufferVector.Bytes) return null;
             final byte[] array = new byte[source.size()];
             for (int i=0; i < array.length; i++) {
                 array[i] = (byte) source.intValue(i);
@@ -96,7 +96,7 @@ abstract class ArrayVector<E extends Number> extends Vector implements CheckedCo
         }
         isSigned = (min >= Short.MIN_VALUE && max <= Short.MAX_VALUE);
         if (isSigned || (min >= 0 && max <= 0xFFFF)) {
-            if (source instanceof Shorts) return null;
+            if (source instanceof Shorts || source instanceof BufferVector.Shorts) return null;
             final short[] array = new short[source.size()];
             for (int i=0; i < array.length; i++) {
                 array[i] = (short) source.intValue(i);
@@ -105,14 +105,17 @@ abstract class ArrayVector<E extends Number> extends Vector implements CheckedCo
         }
         isSigned = (min >= Integer.MIN_VALUE && max <= Integer.MAX_VALUE);
         if (isSigned || (min >= 0 && max <= 0xFFFFFFFF)) {
-            if (source instanceof Integers) return null;
+            if (source instanceof Integers || source instanceof BufferVector.Integers) return null;
             final int[] array = new int[source.size()];
             for (int i=0; i < array.length; i++) {
                 array[i] = (int) source.longValue(i);
             }
             return isSigned ? new Integers(array) : new UnsignedIntegers(array);
         }
-        if (!(source instanceof Longs) && !(source instanceof Floats) && !(source instanceof Doubles)) {
+        if (!(source instanceof Longs) && !(source instanceof Floats) && !(source instanceof Doubles) &&
+            !(source instanceof BufferVector.Longs) && !(source instanceof BufferVector.Floats) &&
+            !(source instanceof BufferVector.Doubles))
+        {
             final long[] array = new long[source.size()];
             for (int i=0; i < array.length; i++) {
                 array[i] = source.longValue(i);
@@ -169,18 +172,6 @@ abstract class ArrayVector<E extends Number> extends Vector implements CheckedCo
         return false;
     }
 
-    /**
-     * Verifies that a value of the given type can be casted to the expected type.
-     * The expected type must be one of the {@link Numbers} constants.
-     */
-    final void verifyType(final Class<? extends Number> type, final byte expected) {
-        final byte t = Numbers.getEnumConstant(type);
-        if (t < Numbers.BYTE || t > expected) {
-            throw new ClassCastException(Errors.format(Errors.Keys.CanNotConvertFromType_2,
-                type, Numbers.wrapperToPrimitive(getElementType())));
-        }
-    }
-
     /**
      * A vector backed by an array of type {@code double[]}.
      */
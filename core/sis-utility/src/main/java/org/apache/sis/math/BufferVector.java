@@ -0,0 +1,590 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.math;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.util.function.IntSupplier;
+import org.apache.sis.util.Numbers;
+import org.apache.sis.util.resources.Errors;
+import org.apache.sis.internal.util.Numerics;
+import org.apache.sis.measure.NumberRange;
+
+
+/**
+ * A vector backed by a NIO buffer, which may be direct or mapped to a file. This class does not copy the buffer
+ * content, so changes in the underlying buffer are reflected in this vector and vis-versa. Values are read with
+ * absolute {@code get(int)} methods, so the position and limit of the buffer given at construction time can be
+ * modified after this vector creation without effect on this vector.
+ *
+ * <p>Unlike {@link ArrayVector}, this class is not serializable since the buffer may be a view over a file.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+abstract class BufferVector extends Vector {
+    /**
+     * For sub-classes constructor.
+     */
+    BufferVector() {
+    }
+
+    /**
+     * Creates a new instance wrapping the remaining elements of the given buffer.
+     *
+     * @throws IllegalArgumentException if the type of the given buffer is not recognized by the method.
+     */
+    static Vector newInstance(final Buffer buffer, final boolean isUnsigned) throws IllegalArgumentException {
+        if (buffer instanceof DoubleBuffer) return new Doubles (((DoubleBuffer) buffer).slice());
+        if (buffer instanceof FloatBuffer)  return new Floats  (((FloatBuffer)  buffer).slice());
+        if (buffer instanceof LongBuffer)   return new Longs   (((LongBuffer)   buffer).slice(), isUnsigned);
+        if (buffer instanceof IntBuffer)    return new Integers(((IntBuffer)    buffer).slice(), isUnsigned);
+        if (buffer instanceof ShortBuffer)  return new Shorts  (((ShortBuffer)  buffer).slice(), isUnsigned);
+        if (buffer instanceof ByteBuffer)   return new Bytes   (((ByteBuffer)   buffer).slice(), isUnsigned);
+        throw new IllegalArgumentException(Errors.format(Errors.Keys.IllegalArgumentClass_2, "buffer", buffer.getClass()));
+    }
+
+    /**
+     * Creates a new instance interpreting the remaining bytes of the given buffer as values of the given type.
+     *
+     * @throws IllegalArgumentException if the given type is not a primitive number type or its wrapper.
+     */
+    static Vector newInstance(ByteBuffer buffer, final ByteOrder order, final Class<? extends Number> type,
+            final boolean isUnsigned) throws IllegalArgumentException
+    {
+        buffer = buffer.slice().order(order);
+        switch (Numbers.getEnumConstant(Numbers.primitiveToWrapper(type))) {
+            case Numbers.DOUBLE:  return new Doubles (buffer.asDoubleBuffer());
+            case Numbers.FLOAT:   return new Floats  (buffer.asFloatBuffer());
+            case Numbers.LONG:    return new Longs   (buffer.asLongBuffer(),  isUnsigned);
+            case Numbers.INTEGER: return new Integers(buffer.asIntBuffer(),   isUnsigned);
+            case Numbers.SHORT:   return new Shorts  (buffer.asShortBuffer(), isUnsigned);
+            case Numbers.BYTE:    return new Bytes   (buffer,                 isUnsigned);
+            default: throw new IllegalArgumentException(Errors.format(Errors.Keys.IllegalArgumentClass_2, "type", type));
+        }
+    }
+
+    /**
+     * Default implementation for the convenience of wrapper of floating point types.
+     */
+    @Override
+    public boolean isUnsigned() {
+        return false;
+    }
+
+    /**
+     * Default implementation for the convenience of wrapper of integer types.
+     */
+    @Override
+    public boolean isNaN(int index) {
+        return false;
+    }
+
+    /**
+     * A vector backed by a buffer of {@code double} values.
+     */
+    static final class Doubles extends BufferVector {
+        /** The backing buffer. */
+        private final DoubleBuffer buffer;
+
+        /** Creates a new vector for the given buffer. */
+        Doubles(final DoubleBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /** Returns the type of elements in the backing buffer. */
+        @Override public Class<Double> getElementType() {
+            return Double.class;
+        }
+
+        /** Returns the capacity of the backing buffer. */
+        @Override public int size() {
+            return buffer.capacity();
+        }
+
+        /** Returns {@code true} if the value at the given index is {@code NaN}. */
+        @Override public boolean isNaN(final int index) {
+            return Double.isNaN(buffer.get(index));
+        }
+
+        /** Returns the string representation at the given index. */
+        @Override public String stringValue(final int index) {
+            return Double.toString(buffer.get(index));
+        }
+
+        @Override public double doubleValue(int index) {return buffer.get(index);}
+        @Override public float   floatValue(int index) {return (float) buffer.get(index);}
+        @Override public Number         get(int index) {return buffer.get(index);}
+
+        /** Sets the value at the given index. */
+        @Override public Number set(final int index, final Number value) {
+            final double old = buffer.get(index);
+            buffer.put(index, value.doubleValue());
+            modCount++;
+            return old;
+        }
+
+        /** Finds the minimum and maximum values in the buffer or in a subset of the buffer. */
+        @Override NumberRange<Double> range(final IntSupplier indices, int n) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            while (--n >= 0) {
+                final double value = buffer.get((indices != null) ? indices.getAsInt() : n);
+                if (value < min) min = value;
+                if (value > max) max = value;
+            }
+            return NumberRange.create(min, true, max, true);
+        }
+
+        /** Returns a copy of current data as a floating point array, using a bulk get operation. */
+        @Override public double[] doubleValues() {
+            final double[] array = new double[buffer.capacity()];
+            buffer.duplicate().get(array);
+            return array;
+        }
+    }
+
+    /**
+     * A vector backed by a buffer of {@code float} values.
+     */
+    static final class Floats extends BufferVector {
+        /** The backing buffer. */
+        private final FloatBuffer buffer;
+
+        /** Creates a new vector for the given buffer. */
+        Floats(final FloatBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /** Returns the type of elements in the backing buffer. */
+        @Override public Class<Float> getElementType() {
+            return Float.class;
+        }
+
+        /** Returns the capacity of the backing buffer. */
+        @Override public int size() {
+            return buffer.capacity();
+        }
+
+        /** Returns {@code true} if the value at the given index is {@code NaN}. */
+        @Override public boolean isNaN(final int index) {
+            return Float.isNaN(buffer.get(index));
+        }
+
+        /** Returns the string representation at the given index. */
+        @Override public String stringValue(final int index) {
+            return Float.toString(buffer.get(index));
+        }
+
+        @Override public double doubleValue(int index) {return buffer.get(index);}
+        @Override public float   floatValue(int index) {return buffer.get(index);}
+        @Override public Number         get(int index) {return buffer.get(index);}
+
+        /** Sets the value at the given index. */
+        @Override public Number set(final int index, final Number value) {
+            final float old = buffer.get(index);
+            buffer.put(index, value.floatValue());
+            modCount++;
+            return old;
+        }
+
+        /** Finds the minimum and maximum values in the buffer or in a subset of the buffer. */
+        @Override NumberRange<Float> range(final IntSupplier indices, int n) {
+            float min = Float.POSITIVE_INFINITY;
+            float max = Float.NEGATIVE_INFINITY;
+            while (--n >= 0) {
+                final float value = buffer.get((indices != null) ? indices.getAsInt() : n);
+                if (value < min) min = value;
+                if (value > max) max = value;
+            }
+            return NumberRange.create(min, true, max, true);
+        }
+
+        /** Returns a copy of current data as a floating point array, using a bulk get operation. */
+        @Override public float[] floatValues() {
+            final float[] array = new float[buffer.capacity()];
+            buffer.duplicate().get(array);
+            return array;
+        }
+    }
+
+    /**
+     * A vector backed by a buffer of {@code long} values, interpreted as signed or unsigned integers.
+     */
+    static final class Longs extends BufferVector {
+        /** The backing buffer. */
+        private final LongBuffer buffer;
+
+        /** Whether values shall be interpreted as unsigned integers. */
+        private final boolean isUnsigned;
+
+        /** Creates a new vector for the given buffer. */
+        Longs(final LongBuffer buffer, final boolean isUnsigned) {
+            this.buffer     = buffer;
+            this.isUnsigned = isUnsigned;
+        }
+
+        /** Returns the type of elements in the backing buffer. */
+        @Override public Class<Long> getElementType() {
+            return Long.class;
+        }
+
+        /** Values in this vector are guaranteed to be integers. */
+        @Override public boolean isInteger() {
+            return true;
+        }
+
+        /** Returns whether values are interpreted as unsigned integers. */
+        @Override public boolean isUnsigned() {
+            return isUnsigned;
+        }
+
+        /** Returns the capacity of the backing buffer. */
+        @Override public int size() {
+            return buffer.capacity();
+        }
+
+        /** Returns the string representation at the given index. */
+        @Override public String stringValue(final int index) {
+            final long value = buffer.get(index);
+            return isUnsigned ? Long.toUnsignedString(value) : Long.toString(value);
+        }
+
+        /** Returns the value at the given index, converted to unsigned if needed. */
+        @Override public double doubleValue(final int index) {
+            final long value = buffer.get(index);
+            return isUnsigned ? Numerics.toUnsignedDouble(value) : value;
+        }
+
+        /** Returns the value at the given index, converted to unsigned if needed. */
+        @Override public float floatValue(final int index) {
+            final long value = buffer.get(index);
+            return isUnsigned ? Numerics.toUnsignedFloat(value) : value;
+        }
+
+        /** Returns the value at the given index, or throws an exception if the unsigned value is too large. */
+        @Override public long longValue(final int index) {
+            final long value = buffer.get(index);
+            if (isUnsigned && value < 0) {
+                throw new ArithmeticException();
+            }
+            return value;
+        }
+
+        /** Returns the value at the given index. */
+        @Override public Number get(final int index) {
+            return longValue(index);
+        }
+
+        /** Sets the value at the given index. */
+        @Override public Number set(final int index, final Number value) {
+            verifyType(value.getClass(), Numbers.LONG);
+            final long old = buffer.get(index);
+            buffer.put(index, value.longValue());
+            modCount++;
+            return old;
+        }
+
+        /** Finds the minimum and maximum values in the buffer or in a subset of the buffer. */
+        @Override NumberRange<?> range(final IntSupplier indices, int n) {
+            if (isUnsigned) {
+                return super.range(indices, n);
+            }
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            while (--n >= 0) {
+                final long value = buffer.get((indices != null) ? indices.getAsInt() : n);
+                if (value < min) min = value;
+                if (value > max) max = value;
+            }
+            return NumberRange.create(min, true, max, true);
+        }
+    }
+
+    /**
+     * A vector backed by a buffer of {@code int} values, interpreted as signed or unsigned integers.
+     */
+    static final class Integers extends BufferVector {
+        /** The backing buffer. */
+        private final IntBuffer buffer;
+
+        /** Whether values shall be interpreted as unsigned integers. */
+        private final boolean isUnsigned;
+
+        /** Creates a new vector for the given buffer. */
+        Integers(final IntBuffer buffer, final boolean isUnsigned) {
+            this.buffer     = buffer;
+            this.isUnsigned = isUnsigned;
+        }
+
+        /** Returns the type of elements in the backing buffer. */
+        @Override public Class<Integer> getElementType() {
+            return Integer.class;
+        }
+
+        /** Values in this vector are guaranteed to be integers. */
+        @Override public boolean isInteger() {
+            return true;
+        }
+
+        /** Returns whether values are interpreted as unsigned integers. */
+        @Override public boolean isUnsigned() {
+            return isUnsigned;
+        }
+
+        /** Returns the capacity of the backing buffer. */
+        @Override public int size() {
+            return buffer.capacity();
+        }
+
+        /** Returns the string representation at the given index. */
+        @Override public String stringValue(final int index) {
+            final int value = buffer.get(index);
+            return isUnsigned ? Integer.toUnsignedString(value) : Integer.toString(value);
+        }
+
+        /** Returns the value at the given index, converted to unsigned if needed. */
+        @Override public long longValue(final int index) {
+            final int value = buffer.get(index);
+            return isUnsigned ? Integer.toUnsignedLong(value) : value;
+        }
+
+        @Override public double doubleValue(int index) {return longValue(index);}
+        @Override public float   floatValue(int index) {return longValue(index);}
+
+        /** Returns the value at the given index, or throws an exception if the unsigned value is too large. */
+        @Override public int intValue(final int index) {
+            final int value = buffer.get(index);
+            if (isUnsigned && value < 0) {
+                throw new ArithmeticException();
+            }
+            return value;
+        }
+
+        /** Returns the value at the given index. */
+        @Override public Number get(final int index) {
+            return intValue(index);
+        }
+
+        /** Sets the value at the given index. */
+        @Override public Number set(final int index, final Number value) {
+            verifyType(value.getClass(), Numbers.INTEGER);
+            final int old = buffer.get(index);
+            buffer.put(index, value.intValue());
+            modCount++;
+            return old;
+        }
+
+        /** Finds the minimum and maximum values in the buffer or in a subset of the buffer. */
+        @Override NumberRange<?> range(final IntSupplier indices, int n) {
+            long min = isUnsigned ? Long.MAX_VALUE : Integer.MAX_VALUE;
+            long max = isUnsigned ? Long.MIN_VALUE : Integer.MIN_VALUE;
+            while (--n >= 0) {
+                final long value = longValue((indices != null) ? indices.getAsInt() : n);
+                if (value < min) min = value;
+                if (value > max) max = value;
+            }
+            return isUnsigned ? NumberRange.create(min, true, max, true)
+                              : NumberRange.create((int) min, true, (int) max, true);
+        }
+    }
+
+    /**
+     * A vector backed by a buffer of {@code short} values, interpreted as signed or unsigned integers.
+     */
+    static final class Shorts extends BufferVector {
+        /** The backing buffer. */
+        private final ShortBuffer buffer;
+
+        /** Whether values shall be interpreted as unsigned integers. */
+        private final boolean isUnsigned;
+
+        /** Creates a new vector for the given buffer. */
+        Shorts(final ShortBuffer buffer, final boolean isUnsigned) {
+            this.buffer     = buffer;
+            this.isUnsigned = isUnsigned;
+        }
+
+        /** Returns the type of elements in the backing buffer. */
+        @Override public Class<Short> getElementType() {
+            return Short.class;
+        }
+
+        /** Values in this vector are guaranteed to be integers. */
+        @Override public boolean isInteger() {
+            return true;
+        }
+
+        /** Returns whether values are interpreted as unsigned integers. */
+        @Override public boolean isUnsigned() {
+            return isUnsigned;
+        }
+
+        /** Returns the capacity of the backing buffer. */
+        @Override public int size() {
+            return buffer.capacity();
+        }
+
+        /** Returns the string representation at the given index. */
+        @Override public String stringValue(final int index) {
+            return Integer.toString(intValue(index));
+        }
+
+        /** Returns the value at the given index, converted to unsigned if needed. */
+        @Override public int intValue(final int index) {
+            final short value = buffer.get(index);
+            return isUnsigned ? Short.toUnsignedInt(value) : value;
+        }
+
+        @Override public double doubleValue(int index) {return intValue(index);}
+        @Override public float   floatValue(int index) {return intValue(index);}
+        @Override public long     longValue(int index) {return intValue(index);}
+
+        /** Returns the value at the given index, or throws an exception if the unsigned value is too large. */
+        @Override public short shortValue(final int index) {
+            final short value = buffer.get(index);
+            if (isUnsigned && value < 0) {
+                throw new ArithmeticException();
+            }
+            return value;
+        }
+
+        /** Returns the value at the given index. */
+        @Override public Number get(final int index) {
+            return shortValue(index);
+        }
+
+        /** Sets the value at the given index. */
+        @Override public Number set(final int index, final Number value) {
+            verifyType(value.getClass(), Numbers.SHORT);
+            final short old = buffer.get(index);
+            buffer.put(index, value.shortValue());
+            modCount++;
+            return old;
+        }
+
+        /** Finds the minimum and maximum values in the buffer or in a subset of the buffer. */
+        @Override NumberRange<?> range(final IntSupplier indices, int n) {
+            int min = isUnsigned ? Integer.MAX_VALUE : Short.MAX_VALUE;
+            int max = isUnsigned ? Integer.MIN_VALUE : Short.MIN_VALUE;
+            while (--n >= 0) {
+                final int value = intValue((indices != null) ? indices.getAsInt() : n);
+                if (value < min) min = value;
+                if (value > max) max = value;
+            }
+            return isUnsigned ? NumberRange.create(min, true, max, true)
+                              : NumberRange.create((short) min, true, (short) max, true);
+        }
+    }
+
+    /**
+     * A vector backed by a buffer of {@code byte} values, interpreted as signed or unsigned integers.
+     */
+    static final class Bytes extends BufferVector {
+        /** The backing buffer. */
+        private final ByteBuffer buffer;
+
+        /** Whether values shall be interpreted as unsigned integers. */
+        private final boolean isUnsigned;
+
+        /** Creates a new vector for the given buffer. */
+        Bytes(final ByteBuffer buffer, final boolean isUnsigned) {
+            this.buffer     = buffer;
+            this.isUnsigned = isUnsigned;
+        }
+
+        /** Returns the type of elements in the backing buffer. */
+        @Override public Class<Byte> getElementType() {
+            return Byte.class;
+        }
+
+        /** Values in this vector are guaranteed to be integers. */
+        @Override public boolean isInteger() {
+            return true;
+        }
+
+        /** Returns whether values are interpreted as unsigned integers. */
+        @Override public boolean isUnsigned() {
+            return isUnsigned;
+        }
+
+        /** Returns the capacity of the backing buffer. */
+        @Override public int size() {
+            return buffer.capacity();
+        }
+
+        /** Returns the string representation at the given index. */
+        @Override public String stringValue(final int index) {
+            return Integer.toString(intValue(index));
+        }
+
+        /** Returns the value at the given index, converted to unsigned if needed. */
+        @Override public int intValue(final int index) {
+            final byte value = buffer.get(index);
+            return isUnsigned ? Byte.toUnsignedInt(value) : value;
+        }
+
+        @Override public double doubleValue(int index) {return intValue(index);}
+        @Override public float   floatValue(int index) {return intValue(index);}
+        @Override public long     longValue(int index) {return intValue(index);}
+        @Override public short   shortValue(int index) {return (short) intValue(index);}
+
+        /** Returns the value at the given index, or throws an exception if the unsigned value is too large. */
+        @Override public byte byteValue(final int index) {
+            final byte value = buffer.get(index);
+            if (isUnsigned && value < 0) {
+                throw new ArithmeticException();
+            }
+            return value;
+        }
+
+        /** Returns the value at the given index. */
+        @Override public Number get(final int index) {
+            return shortValue(index);
+        }
+
+        /** Sets the value at the given index. */
+        @Override public Number set(final int index, final Number value) {
+            verifyType(value.getClass(), Numbers.BYTE);
+            final byte old = buffer.get(index);
+            buffer.put(index, value.byteValue());
+            modCount++;
+            return old;
+        }
+
+        /** Finds the minimum and maximum values in the buffer or in a subset of the buffer. */
+        @Override NumberRange<?> range(final IntSupplier indices, int n) {
+            int min = isUnsigned ? Short.MAX_VALUE : Byte.MAX_VALUE;
+            int max = isUnsigned ? Short.MIN_VALUE : Byte.MIN_VALUE;
+            while (--n >= 0) {
+                final int value = intValue((indices != null) ? indices.getAsInt() : n);
+                if (value < min) min = value;
+                if (value > max) max = value;
+            }
+            return isUnsigned ? NumberRange.create((short) min, true, (short) max, true)
+                              : NumberRange.create((byte)  min, true, (byte)  max, true);
+        }
+    }
+}
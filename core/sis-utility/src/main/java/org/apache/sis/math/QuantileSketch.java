@@ -0,0 +1,384 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.math;
+
+import java.io.Serializable;
+import java.util.function.DoubleConsumer;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.resources.Errors;
+
+import static java.lang.Double.NaN;
+import static java.lang.Double.isNaN;
+
+
+/**
+ * Approximates quantiles (median, percentiles, <i>etc.</i>) of a series of sample values without storing them.
+ * Sample values are counted in buckets having logarithmically increasing widths, so that any quantile estimated
+ * by this class is within a given relative error of a sample value ranked at that quantile. For example with a
+ * relative accuracy of 0.01, the estimated median of samples having a true median of 200 will be between 198
+ * and 202. The memory used by this sketch depends on the range of sample values, not on the number of samples:
+ * a few thousands of buckets are sufficient for covering the range from 10<sup>-9</sup> to 10<sup>9</sup>
+ * with 1% accuracy.
+ *
+ * <p>Sketches computed on different subsets of the samples can be merged by {@link #combine(QuantileSketch)},
+ * which makes this class suitable for parallel computation. This class is typically used together with
+ * {@link Statistics}, which computes exact minimum, maximum, mean and standard deviation.</p>
+ *
+ * <p>{@link Double#NaN NaN} values are counted separately and otherwise ignored.
+ * Infinite values are counted in the extreme buckets.
+ * Values smaller than {@value #MIN_MAGNITUDE} in magnitude are counted as zero.</p>
+ *
+ * <div class="note"><b>Reference:</b>
+ * Masson, Rim and Lee, <cite>DDSketch: A fast and fully-mergeable quantile sketch with relative-error guarantees</cite>,
+ * Proceedings of the VLDB Endowment, 2019.</div>
+ *
+ * <p>Instances of this class are not thread-safe.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ *
+ * @see Statistics
+ *
+ * @since 1.0
+ * @module
+ */
+public final class QuantileSketch implements DoubleConsumer, Cloneable, Serializable {
+    /**
+     * Serial number for compatibility with different versions.
+     */
+    private static final long serialVersionUID = -5925469446436698390L;
+
+    /**
+     * Sample values having a magnitude smaller than this threshold are counted as zero.
+     */
+    public static final double MIN_MAGNITUDE = 1E-300;
+
+    /**
+     * The relative accuracy specified at construction time.
+     */
+    private final double relativeAccuracy;
+
+    /**
+     * Ratio between the upper and lower bounds of each bucket.
+     */
+    private final double gamma;
+
+    /**
+     * Natural logarithm of {@link #gamma}, cached for performance reasons.
+     */
+    private final double logGamma;
+
+    /**
+     * Counts of positive and negative values. The bucket index of a value <var>v</var>
+     * is ⌈log<sub>γ</sub>(|<var>v</var>|)⌉.
+     */
+    private Buckets positive, negative;
+
+    /**
+     * Number of values having a magnitude smaller than {@link #MIN_MAGNITUDE}.
+     */
+    private long zeroCount;
+
+    /**
+     * Number of NaN values.
+     */
+    private long countNaN;
+
+    /**
+     * Minimal and maximal values given to the {@code accept(…)} methods, or NaN if none.
+     * Used for clamping the quantile estimations.
+     */
+    private double minimum = NaN, maximum = NaN;
+
+    /**
+     * Counts of values in buckets of consecutive indices.
+     */
+    private static final class Buckets implements Cloneable, Serializable {
+        /** For cross-version compatibility. */
+        private static final long serialVersionUID = 4049925431569722916L;
+
+        /** The count of values in each bucket. */
+        long[] counts = new long[64];
+
+        /** Bucket index of the first element in the {@link #counts} array. */
+        int offset;
+
+        /** Range of bucket indices having non-zero counts, or {@code lower > upper} if empty. */
+        int lower = Integer.MAX_VALUE, upper = Integer.MIN_VALUE;
+
+        /** Total number of values in all buckets. */
+        long total;
+
+        /** Adds the given amount of values in the bucket at the given index. */
+        final void add(final int index, final long n) {
+            if (index < offset || index - offset >= counts.length) {
+                final int newLower = Math.min(index, (total != 0) ? lower : index);
+                final int newUpper = Math.max(index, (total != 0) ? upper : index);
+                final int length   = Math.max(counts.length, (newUpper - newLower + 1) * 2);
+                final int newStart = newLower - (length - (newUpper - newLower + 1)) / 2;
+                final long[] grown = new long[length];
+                if (total != 0) {
+                    System.arraycopy(counts, lower - offset, grown, lower - newStart, upper - lower + 1);
+                }
+                counts = grown;
+                offset = newStart;
+            }
+            counts[index - offset] += n;
+            if (index < lower) lower = index;
+            if (index > upper) upper = index;
+            total += n;
+        }
+
+        /** Adds all counts of the given buckets to this buckets. */
+        final void add(final Buckets other) {
+            for (int i = other.lower; i <= other.upper; i++) {
+                final long n = other.counts[i - other.offset];
+                if (n != 0) add(i, n);
+            }
+        }
+
+        /** Returns a deep copy of this buckets. */
+        @Override
+        protected Buckets clone() {
+            try {
+                final Buckets clone = (Buckets) super.clone();
+                clone.counts = clone.counts.clone();
+                return clone;
+            } catch (CloneNotSupportedException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    /**
+     * Creates an initially empty sketch with the given relative accuracy.
+     *
+     * @param  relativeAccuracy  the maximal relative error of quantile estimations, between 0 and 1 exclusive.
+     *                           A typical value is 0.01 for an accuracy of 1%.
+     */
+    public QuantileSketch(final double relativeAccuracy) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException(Errors.format(Errors.Keys.ValueOutOfRange_4,
+                    "relativeAccuracy", 0, 1, relativeAccuracy));
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        gamma    = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        logGamma = Math.log(gamma);
+        positive = new Buckets();
+        negative = new Buckets();
+    }
+
+    /**
+     * Returns the relative accuracy specified at construction time.
+     *
+     * @return the maximal relative error of quantile estimations.
+     */
+    public double relativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * Resets this sketch state as if it was just created.
+     */
+    public void reset() {
+        positive  = new Buckets();
+        negative  = new Buckets();
+        zeroCount = 0;
+        countNaN  = 0;
+        minimum   = NaN;
+        maximum   = NaN;
+    }
+
+    /**
+     * Returns the bucket index of the given strictly positive value.
+     * Infinite values are counted in the bucket of {@link Double#MAX_VALUE}.
+     */
+    private int index(final double magnitude) {
+        return (int) Math.ceil(Math.log(Math.min(magnitude, Double.MAX_VALUE)) / logGamma);
+    }
+
+    /**
+     * Returns a representative value of the bucket at the given index.
+     * This is the value minimizing the relative error for all values in the bucket.
+     */
+    private double value(final int index) {
+        return 2 * Math.exp(index * logGamma) / (gamma + 1);
+    }
+
+    /**
+     * Adds the given sample value to this sketch.
+     * {@link Double#NaN NaN} values increment the {@linkplain #countNaN() NaN count},
+     * but are otherwise ignored.
+     *
+     * @param  sample  the sample value (may be NaN).
+     */
+    @Override
+    public void accept(final double sample) {
+        if (isNaN(sample)) {
+            countNaN++;
+            return;
+        }
+        if (!(minimum <= sample)) minimum = sample;
+        if (!(maximum >= sample)) maximum = sample;
+        if (sample >= MIN_MAGNITUDE) {
+            positive.add(index(sample), 1);
+        } else if (sample <= -MIN_MAGNITUDE) {
+            negative.add(index(-sample), 1);
+        } else {
+            zeroCount++;
+        }
+    }
+
+    /**
+     * Adds all sample values in the given range of the given array.
+     * This method is equivalent to invoking {@link #accept(double)} for each value.
+     *
+     * @param  samples  the sample values (may contain NaN).
+     * @param  offset   index of the first value to add.
+     * @param  length   number of values to add.
+     * @throws IndexOutOfBoundsException if the given range is outside the array bounds.
+     */
+    public void accept(final double[] samples, final int offset, final int length) {
+        ArgumentChecks.ensureNonNull("samples", samples);
+        ArgumentChecks.ensureValidIndexRange(samples.length, offset, offset + length);
+        for (int i=0; i<length; i++) {
+            accept(samples[offset + i]);
+        }
+    }
+
+    /**
+     * Adds all samples from the given sketch to this sketch. The resulting quantile estimations are the same than
+     * the ones that would have been obtained if all samples had been given to this sketch. The given sketch shall
+     * have the same {@linkplain #relativeAccuracy() relative accuracy} than this sketch.
+     *
+     * @param  other  the sketch to add to this sketch.
+     * @throws IllegalArgumentException if the given sketch does not have the same relative accuracy.
+     */
+    public void combine(final QuantileSketch other) {
+        ArgumentChecks.ensureNonNull("other", other);
+        if (Double.doubleToLongBits(other.relativeAccuracy) != Double.doubleToLongBits(relativeAccuracy)) {
+            throw new IllegalArgumentException(Errors.format(Errors.Keys.IncompatiblePropertyValue_1, "relativeAccuracy"));
+        }
+        positive.add(other.positive);
+        negative.add(other.negative);
+        zeroCount += other.zeroCount;
+        countNaN  += other.countNaN;
+        if (isNaN(minimum) || other.minimum < minimum) minimum = other.minimum;
+        if (isNaN(maximum) || other.maximum > maximum) maximum = other.maximum;
+    }
+
+    /**
+     * Returns the number of NaN samples.
+     *
+     * @return number of NaN samples.
+     */
+    public long countNaN() {
+        return countNaN;
+    }
+
+    /**
+     * Returns the number of samples, excluding NaN values.
+     *
+     * @return number of samples, excluding NaN values.
+     */
+    public long count() {
+        return positive.total + negative.total + zeroCount;
+    }
+
+    /**
+     * Returns an approximation of the median, or NaN if none.
+     * This is a shortcut for {@code quantile(0.5)}.
+     *
+     * @return an approximation of the median, or NaN if none.
+     */
+    public double median() {
+        return quantile(0.5);
+    }
+
+    /**
+     * Returns an approximation of the sample value at the given quantile.
+     * A quantile of 0 returns the minimal value, 0.5 returns the median and 1 returns the maximal value.
+     * The minimal and maximal values are exact; other values are approximations within the
+     * {@linkplain #relativeAccuracy() relative accuracy} of a sample value at that rank.
+     *
+     * @param  q  the quantile, between 0 and 1 inclusive.
+     * @return an approximation of the sample value at the given quantile, or NaN if there is no sample.
+     * @throws IllegalArgumentException if the given quantile is not between 0 and 1.
+     */
+    public double quantile(final double q) {
+        ArgumentChecks.ensureBetween("q", 0.0, 1.0, q);
+        final long count = count();
+        if (count == 0) return NaN;
+        if (q == 0) return minimum;
+        if (q == 1) return maximum;
+        final long rank = (long) (q * (count - 1));
+        long n = 0;
+        double value = 0;
+        search: {
+            /*
+             * Negative values, from the most negative (highest index) to the closest to zero.
+             */
+            for (int i = negative.upper; i >= negative.lower; i--) {
+                n += negative.counts[i - negative.offset];
+                if (n > rank) {
+                    value = -value(i);
+                    break search;
+                }
+            }
+            n += zeroCount;
+            if (n > rank) {
+                break search;           // value = 0.
+            }
+            for (int i = positive.lower; i <= positive.upper; i++) {
+                n += positive.counts[i - positive.offset];
+                if (n > rank) {
+                    value = value(i);
+                    break search;
+                }
+            }
+            value = maximum;
+        }
+        return Math.max(minimum, Math.min(maximum, value));
+    }
+
+    /**
+     * Returns a copy of this sketch.
+     *
+     * @return a clone of this sketch.
+     */
+    @Override
+    public QuantileSketch clone() {
+        try {
+            final QuantileSketch clone = (QuantileSketch) super.clone();
+            clone.positive = positive.clone();
+            clone.negative = negative.clone();
+            return clone;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Returns a string representation of this sketch for debugging purpose.
+     *
+     * @return a string representation of this sketch.
+     */
+    @Override
+    public String toString() {
+        return "QuantileSketch[count=" + count() + ", median=" + median() + ']';
+    }
+}
@@ -20,6 +20,7 @@ import java.util.Objects;
 import java.io.Serializable;
 import java.util.function.LongConsumer;
 import java.util.function.DoubleConsumer;
+import java.util.stream.Collector;
 import org.opengis.util.InternationalString;
 import org.apache.sis.util.iso.SimpleInternationalString;
 import org.apache.sis.util.ArgumentChecks;
@@ -50,7 +51,11 @@ import static java.lang.Double.doubleToLongBits;
  *
  * <p>Statistics are computed on the fly using the
  * <a href="http://en.wikipedia.org/wiki/Kahan_summation_algorithm">Kahan summation algorithm</a>
- * for reducing the numerical errors; the sample values are never stored in memory.</p>
+ * for reducing the numerical errors; the sample values are never stored in memory.
+ * Large arrays of sample values can be given in a single call to one of the {@code accept(array, offset, length)}
+ * methods, and statistics computed in parallel can be merged by {@link #combine(Statistics)} or collected from
+ * a stream by {@link #collector(CharSequence)}. Statistics which require sorted values like the median are not
+ * computed by this class; see {@link QuantileSketch} for approximations of those statistics.</p>
  *
  * <p>An instance of {@code Statistics} is initially empty: the {@linkplain #count() count} of
  * values is set to zero, and all above-cited statistical values are set to {@link Double#NaN NaN}.
@@ -94,6 +99,12 @@ public class Statistics implements DoubleConsumer, LongConsumer, Cloneable, Seri
      */
     private static final long serialVersionUID = 8495118253884975477L;
 
+    /**
+     * Maximal length of temporary buffers used for converting integer or single-precision values
+     * to {@code double} values in the bulk {@code accept(…)} methods.
+     */
+    private static final int BUFFER_SIZE = 4096;
+
     /**
      * The name of the phenomenon for which this object is collecting statistics.
      * If non-null, then this name will be shown as column header in the table formatted
@@ -300,6 +311,130 @@ public class Statistics implements DoubleConsumer, LongConsumer, Cloneable, Seri
         real(sample);
     }
 
+    /**
+     * Updates statistics for all sample values in the given range of the given array.
+     * This method is equivalent to invoking {@link #accept(double)} for each value,
+     * but is more efficient for large arrays since the loop works on local variables.
+     * {@link Double#NaN NaN} values increment the {@linkplain #countNaN() NaN count},
+     * but are otherwise ignored.
+     *
+     * @param  samples  the sample values (may contain NaN).
+     * @param  offset   index of the first value to add.
+     * @param  length   number of values to add.
+     * @throws IndexOutOfBoundsException if the given range is outside the array bounds.
+     *
+     * @see #accept(double)
+     *
+     * @since 1.0
+     */
+    public void accept(final double[] samples, final int offset, final int length) {
+        ArgumentChecks.ensureNonNull("samples", samples);
+        ArgumentChecks.ensureValidIndexRange(samples.length, offset, offset + length);
+        double min  = minimum;
+        double max  = maximum;
+        double sum  = this.sum,       lowBits       = this.lowBits;
+        double sum2 = this.squareSum, squareLowBits = this.squareLowBits;
+        int n = 0;
+        final int end = offset + length;
+        for (int i=offset; i<end; i++) {
+            double sample = samples[i];
+            if (!isNaN(sample)) {
+                if (!(min <= sample)) min = sample;     // Same algorithm than real(double).
+                if (!(max >= sample)) max = sample;
+                double y = sample + lowBits;
+                lowBits = y + (sum - (sum += y));
+                sample *= sample;
+                y = sample + squareLowBits;
+                squareLowBits = y + (sum2 - (sum2 += y));
+                n++;
+            }
+        }
+        minimum            = min;
+        maximum            = max;
+        this.sum           = sum;
+        this.lowBits       = lowBits;
+        this.squareSum     = sum2;
+        this.squareLowBits = squareLowBits;
+        count             += n;
+        countNaN          += length - n;
+    }
+
+    /**
+     * Updates statistics for all sample values in the given range of the given array.
+     * This method is equivalent to invoking {@link #accept(double)} for each value.
+     *
+     * @param  samples  the sample values (may contain NaN).
+     * @param  offset   index of the first value to add.
+     * @param  length   number of values to add.
+     * @throws IndexOutOfBoundsException if the given range is outside the array bounds.
+     *
+     * @since 1.0
+     */
+    public void accept(final float[] samples, final int offset, final int length) {
+        ArgumentChecks.ensureNonNull("samples", samples);
+        ArgumentChecks.ensureValidIndexRange(samples.length, offset, offset + length);
+        final double[] buffer = new double[min(length, BUFFER_SIZE)];
+        for (int i=0; i<length; i += buffer.length) {
+            final int n = min(buffer.length, length - i);
+            for (int j=0; j<n; j++) {
+                buffer[j] = samples[offset + i + j];
+            }
+            accept(buffer, 0, n);
+        }
+    }
+
+    /**
+     * Updates statistics for all sample values in the given range of the given array.
+     * This method is equivalent to invoking {@link #accept(long)} for each value.
+     *
+     * @param  samples  the sample values.
+     * @param  offset   index of the first value to add.
+     * @param  length   number of values to add.
+     * @throws IndexOutOfBoundsException if the given range is outside the array bounds.
+     *
+     * @since 1.0
+     */
+    public void accept(final int[] samples, final int offset, final int length) {
+        ArgumentChecks.ensureNonNull("samples", samples);
+        ArgumentChecks.ensureValidIndexRange(samples.length, offset, offset + length);
+        final double[] buffer = new double[min(length, BUFFER_SIZE)];
+        for (int i=0; i<length; i += buffer.length) {
+            final int n = min(buffer.length, length - i);
+            for (int j=0; j<n; j++) {
+                buffer[j] = samples[offset + i + j];            // Conversion to double is exact.
+            }
+            accept(buffer, 0, n);
+        }
+    }
+
+    /**
+     * Returns a collector computing statistics on a stream of numbers. The collector supports parallel streams:
+     * each thread accumulates statistics in its own {@code Statistics} instance, and the instances are merged by
+     * {@link #combine(Statistics)}. The returned statistics do not compute differences between consecutive values,
+     * since the order of values is not preserved by parallel streams.
+     *
+     * <div class="note"><b>Tip:</b>
+     * for a {@link java.util.stream.DoubleStream}, the same reduction can be performed without boxing by
+     * {@code stream.collect(() -> new Statistics(name), Statistics::accept, Statistics::combine)}.</div>
+     *
+     * @param  name  the phenomenon for which to collect statistics, or {@code null} if none.
+     * @return a collector of statistics on the stream values.
+     *
+     * @since 1.0
+     */
+    public static Collector<Number,Statistics,Statistics> collector(final CharSequence name) {
+        return Collector.of(() -> new Statistics(name), (stats, value) -> {
+            if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                stats.accept(value.longValue());
+            } else {
+                stats.accept(value.doubleValue());
+            }
+        }, (s1, s2) -> {
+            s1.combine(s2);
+            return s1;
+        }, Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED);
+    }
+
     /**
      * Updates statistics with all samples from the specified {@code stats}.
      * Invoking this method is equivalent (except for rounding errors) to invoking
@@ -648,6 +783,19 @@ public class Statistics implements DoubleConsumer, LongConsumer, Cloneable, Seri
             lastAsLong = (long) sample;
         }
 
+        /**
+         * Updates statistics for all sample values in the given array. The values are processed one by one
+         * because each value is needed for computing the differences with the next value.
+         */
+        @Override
+        public void accept(final double[] samples, final int offset, final int length) {
+            ArgumentChecks.ensureNonNull("samples", samples);
+            ArgumentChecks.ensureValidIndexRange(samples.length, offset, offset + length);
+            for (int i=0; i<length; i++) {
+                accept(samples[offset + i]);
+            }
+        }
+
         /**
          * Performs the same work than {@link #accept(double)}, but with greater precision for
          * very large integer values (greater than 2<sup>52</sup> in magnitude),
@@ -17,6 +17,9 @@
 package org.apache.sis.math;
 
 import java.io.Serializable;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.AbstractList;
 import java.util.RandomAccess;
@@ -84,7 +87,7 @@ import static org.apache.sis.util.ArgumentChecks.ensureValidIndex;
  * without concern about whether the data were really stored as {@code double} or as {@code float} values.</div>
  *
  * @author  Martin Desruisseaux (MPO, Geomatys)
- * @version 0.8
+ * @version 1.0
  *
  * @see org.apache.sis.util.collection.IntegerList
  *
@@ -99,12 +102,16 @@ public abstract class Vector extends AbstractList<Number> implements RandomAcces
      *   <li>An array of a primitive type, like {@code float[]}.</li>
      *   <li>A {@code Number[]} array.</li>
      *   <li>A {@code String[]} array (not recommended, but happen with some file formats).</li>
+     *   <li>A NIO buffer of a primitive type, like {@link java.nio.FloatBuffer}.
+     *       Only the elements from the buffer position to its limit are wrapped.</li>
      *   <li>A {@code Vector}, in which case it is returned unchanged.</li>
      *   <li>The {@code null} value, in which case {@code null} is returned.</li>
      * </ul>
      *
      * The given argument is not cloned.
      * Consequently changes in the underlying array are reflected in this vector, and vis-versa.
+     * Buffers may be direct or mapped to a file, in which case values are read from the native memory
+     * on each access without being copied in the Java heap.
      *
      * <div class="section">Unsigned integers</div>
      * Java has no primitive support for unsigned integers. But some file formats use unsigned integers,
@@ -112,7 +119,7 @@ public abstract class Vector extends AbstractList<Number> implements RandomAcces
      * This {@code Vector} class applies automatically those masks (unless otherwise noticed in method Javadoc)
      * if the {@code isUnsigned} argument is {@code true}.
      * That argument applies only to {@code byte[]}, {@code short[]}, {@code int[]} or {@code long[]} arrays
-     * and is ignored for all other kind of arrays.
+     * (or the equivalent buffers) and is ignored for all other kind of arrays.
      *
      * @param  array       the object to wrap in a vector, or {@code null}.
      * @param  isUnsigned  {@code true} if integer types should be interpreted as unsigned integers.
@@ -126,12 +133,47 @@ public abstract class Vector extends AbstractList<Number> implements RandomAcces
         if (array.getClass().isArray()) {
             return ArrayVector.newInstance(array, isUnsigned);
         }
+        if (array instanceof Buffer) {
+            return BufferVector.newInstance((Buffer) array, isUnsigned);
+        }
         if (array instanceof Vector) {
             return (Vector) array;
         }
         throw new IllegalArgumentException(Errors.format(Errors.Keys.IllegalArgumentClass_2, "array", array.getClass()));
     }
 
+    /**
+     * Wraps the given bytes in a vector of values of the given type. The bytes from the buffer position to its limit
+     * are interpreted as a sequence of values of the given type in the given byte order. The given buffer is not copied:
+     * if it is a {@linkplain ByteBuffer#isDirect() direct} or {@linkplain java.nio.MappedByteBuffer mapped} buffer,
+     * then the returned vector is a view over the native memory or the file region. This method allows decoders to
+     * provide vectors over large columns of numbers without loading them in the Java heap.
+     *
+     * <p>The position, limit and byte order of the given buffer are not modified by this method.
+     * Changes in the buffer position or limit after this method call have no effect on the returned vector,
+     * but changes in the buffer content are reflected in the vector and vis-versa.</p>
+     *
+     * @param  buffer      the bytes to wrap in a vector.
+     * @param  order       the byte order of the values in the buffer.
+     * @param  type        the type of values: {@code Double}, {@code Float}, {@code Long}, {@code Integer},
+     *                     {@code Short} or {@code Byte} (either the wrapper class or the primitive type).
+     * @param  isUnsigned  {@code true} if integer types should be interpreted as unsigned integers.
+     * @return the given bytes wrapped in a vector.
+     * @throws IllegalArgumentException if the given type is not one of the above-cited types.
+     *
+     * @see #create(Object, boolean)
+     *
+     * @since 1.0
+     */
+    public static Vector create(final ByteBuffer buffer, final ByteOrder order,
+            final Class<? extends Number> type, final boolean isUnsigned) throws IllegalArgumentException
+    {
+        ArgumentChecks.ensureNonNull("buffer", buffer);
+        ArgumentChecks.ensureNonNull("order",  order);
+        ArgumentChecks.ensureNonNull("type",   type);
+        return BufferVector.newInstance(buffer, order, type, isUnsigned);
+    }
+
     /**
      * Wraps the given {@code float[]} array in a vector that preserve the string representations in base 10.
      * For example the 0.1 {@code float} value casted to {@code double} normally produces 0.10000000149011612
@@ -1037,6 +1079,18 @@ public abstract class Vector extends AbstractList<Number> implements RandomAcces
         return this;
     }
 
+    /**
+     * Verifies that a value of the given type can be casted to the expected type.
+     * The expected type must be one of the {@link Numbers} constants.
+     */
+    final void verifyType(final Class<? extends Number> type, final byte expected) {
+        final byte t = Numbers.getEnumConstant(type);
+        if (t < Numbers.BYTE || t > expected) {
+            throw new ClassCastException(Errors.format(Errors.Keys.CanNotConvertFromType_2,
+                type, Numbers.wrapperToPrimitive(getElementType())));
+        }
+    }
+
     /**
      * Logs a warning about an exception that can be safely ignored.
      */
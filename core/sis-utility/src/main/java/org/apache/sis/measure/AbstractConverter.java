@@ -69,6 +69,35 @@ abstract class AbstractConverter implements UnitConverter, Serializable {
         return Double.NaN;
     }
 
+    /**
+     * Converts in-place the values in the given range of the given array. The default implementation
+     * invokes {@link #convert(double)} for each value. Subclasses should override this method with a
+     * more efficient implementation when possible.
+     *
+     * @param  values  the values to convert in-place.
+     * @param  lower   index of the first value to convert, inclusive.
+     * @param  upper   index after the last value to convert.
+     */
+    void convert(final double[] values, final int lower, final int upper) {
+        for (int i=lower; i<upper; i++) {
+            values[i] = convert(values[i]);
+        }
+    }
+
+    /**
+     * Delegates to {@link #convert(double[], int, int)} if the given converter is an Apache SIS implementation,
+     * or converts each value individually otherwise.
+     */
+    static void convert(final UnitConverter converter, final double[] values, final int lower, final int upper) {
+        if (converter instanceof AbstractConverter) {
+            ((AbstractConverter) converter).convert(values, lower, upper);
+        } else if (!converter.isIdentity()) {
+            for (int i=lower; i<upper; i++) {
+                values[i] = converter.convert(values[i]);
+            }
+        }
+    }
+
     /**
      * Returns the scale factor of the given converter if the conversion is linear, or NaN otherwise.
      */
@@ -29,7 +29,7 @@ import org.apache.sis.util.Utilities;
  * The concatenation of two unit converters where at least one of them is not linear.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.0
  * @since   0.8
  * @module
  */
@@ -102,6 +102,16 @@ final class ConcatenatedConverter extends AbstractConverter implements LenientCo
         return c2.convert(c1.convert(value));
     }
 
+    /**
+     * Applies the conversion on all values in the given range of the given array.
+     * The whole range is converted by {@code c1} first, then by {@code c2}.
+     */
+    @Override
+    void convert(final double[] values, final int lower, final int upper) {
+        convert(c1, values, lower, upper);
+        convert(c2, values, lower, upper);
+    }
+
     /**
      * Applies the linear conversion on the given value.
      */
@@ -285,6 +285,29 @@ final class LinearConverter extends AbstractConverter implements LenientComparab
         return (value * scale + offset) / divisor;
     }
 
+    /**
+     * Applies the linear conversion on all values in the given range of the given array.
+     * This method uses the same formula than {@link #convert(double)} in a loop without virtual calls.
+     */
+    @Override
+    void convert(final double[] values, final int lower, final int upper) {
+        if (isIdentity()) {
+            return;
+        }
+        final double scale   = this.scale;
+        final double offset  = this.offset;
+        final double divisor = this.divisor;
+        if (divisor == 1) {
+            for (int i=lower; i<upper; i++) {
+                values[i] = values[i] * scale + offset;
+            }
+        } else {
+            for (int i=lower; i<upper; i++) {
+                values[i] = (values[i] * scale + offset) / divisor;
+            }
+        }
+    }
+
     /**
      * Applies the linear conversion on the given value. This method uses {@link BigDecimal} arithmetic if
      * the given value is an instance of {@code BigDecimal}, or IEEE 754 floating-point arithmetic otherwise.
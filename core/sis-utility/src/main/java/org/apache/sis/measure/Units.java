@@ -27,6 +27,8 @@ import org.opengis.geometry.DirectPosition;         // For javadoc
 import org.opengis.referencing.cs.AxisDirection;    // For javadoc
 
 import org.apache.sis.util.Static;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.collection.Cache;
 import org.apache.sis.util.resources.Errors;
 import org.apache.sis.internal.util.Constants;
 
@@ -74,7 +76,7 @@ import static org.apache.sis.measure.UnitRegistry.PREFIXABLE;
  * </table>
  *
  * @author  Martin Desruisseaux (IRD, Geomatys)
- * @version 0.8
+ * @version 1.0
  * @since   0.3
  * @module
  */
@@ -1575,6 +1577,39 @@ public final class Units extends Static {
         return AbstractConverter.derivative(converter, value);
     }
 
+    /**
+     * Converts an array of values. This method is equivalent to invoking {@link UnitConverter#convert(double)}
+     * for each value, but is more efficient for Apache SIS implementations of linear converters and for the
+     * concatenation of converters, since the whole array is converted without virtual call per value.
+     * The source and destination arrays may be the same array, and the ranges may overlap.
+     *
+     * @param  converter  the converter to apply.
+     * @param  srcPts     the array containing the values to convert.
+     * @param  srcOff     the offset of the first value to convert in the source array.
+     * @param  dstPts     the array into which the converted values are written. May be the same than {@code srcPts}.
+     * @param  dstOff     the offset of the location of the first converted value in the destination array.
+     * @param  numPts     the number of values to convert.
+     * @throws IndexOutOfBoundsException if a range is outside the bounds of its array.
+     *
+     * @since 1.0
+     */
+    public static void convert(final UnitConverter converter, final double[] srcPts, final int srcOff,
+                               final double[] dstPts, final int dstOff, final int numPts)
+    {
+        ArgumentChecks.ensureNonNull("converter", converter);
+        ArgumentChecks.ensureValidIndexRange(srcPts.length, srcOff, srcOff + numPts);
+        ArgumentChecks.ensureValidIndexRange(dstPts.length, dstOff, dstOff + numPts);
+        System.arraycopy(srcPts, srcOff, dstPts, dstOff, numPts);
+        AbstractConverter.convert(converter, dstPts, dstOff, dstOff + numPts);
+    }
+
+    /**
+     * Units or parsing errors for unit symbols given to {@link #valueOf(String)}.
+     * Values are either {@link Unit} or {@link ParserException} instances; the latter are cached
+     * for avoiding to parse again invalid symbols, which may be frequent in some data files.
+     */
+    private static final Cache<String,Object> PARSED = new Cache<>(32, 256, true);
+
     /**
      * Parses the given symbol. Invoking this method is equivalent to invoking
      * {@link UnitFormat#parse(CharSequence)} on a shared locale-independent instance.
@@ -1602,7 +1637,30 @@ public final class Units extends Static {
      * @see UnitFormat#parse(CharSequence)
      */
     public static Unit<?> valueOf(String uom) throws ParserException {
-        return (uom != null) ? UnitFormat.INSTANCE.parse(uom) : null;
+        if (uom == null) {
+            return null;
+        }
+        Object value = PARSED.peek(uom);
+        if (value == null) {
+            try {
+                value = UnitFormat.INSTANCE.parse(uom);
+            } catch (ParserException e) {
+                value = e;
+            }
+            final Object previous = PARSED.putIfAbsent(uom, value);
+            if (previous != null) {
+                value = previous;
+            }
+        }
+        if (value instanceof ParserException) {
+            /*
+             * Create a new exception for getting a stack trace relevant to the caller.
+             * The message is the same than the one of the original exception.
+             */
+            final ParserException e = (ParserException) value;
+            throw new ParserException(e.getMessage(), e.getParsedString(), e.getPosition());
+        }
+        return (Unit<?>) value;
     }
 
     /**
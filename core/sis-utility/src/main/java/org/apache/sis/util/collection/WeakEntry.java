@@ -36,7 +36,7 @@ import org.apache.sis.math.MathFunctions;
  * from the enclosing collection.
  *
  * @author  Martin Desruisseaux (MPO, IRD, Geomatys)
- * @version 0.3
+ * @version 1.0
  *
  * @param <E>  the type of elements in the collection.
  *
@@ -63,6 +63,13 @@ abstract class WeakEntry<E> extends WeakReference<E> implements Disposable {
      */
     static final long REHASH_DELAY = 4000000000L;
 
+    /**
+     * Number of segments in {@link WeakHashSet} and {@link WeakValueHashMap}. Each segment is a hash table
+     * guarded by its own lock, so threads working on elements in different segments do not block each other.
+     * Must be a power of 2.
+     */
+    static final int SEGMENT_COUNT = 16;
+
     /**
      * The logger where to logs collection events, if logging at the finest level is enabled.
      */
@@ -185,6 +192,18 @@ abstract class WeakEntry<E> extends WeakReference<E> implements Disposable {
         return table;
     }
 
+    /**
+     * Returns the index of the segment where to store an element of the given hash code.
+     * The hash code bits are mixed before to be masked because the segment index and the index in the
+     * segment table are both derived from the same hash code; this method avoids using the same bits.
+     *
+     * @param  hash  the hash code of the element, as a positive value.
+     * @return index of the segment where to store the element.
+     */
+    static int segmentIndex(final int hash) {
+        return (hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1);
+    }
+
     /**
      * If the number of elements is lower than this threshold, then the table should be
      * rehashed for saving space.
@@ -64,11 +64,13 @@ import static org.apache.sis.util.collection.WeakEntry.*;
  *
  * <div class="section">Thread safety</div>
  * The same {@code WeakHashSet} instance can be safely used by many threads without synchronization on the part of
- * the caller. But if a sequence of two or more method calls need to appear atomic from other threads perspective,
- * then the caller can synchronize on {@code this}.
+ * the caller. Elements are dispatched in a fixed number of segments, each segment having its own lock, so threads
+ * working on different elements usually do not block each other. The {@link #unique(Object)} method is atomic.
+ * But if a sequence of two or more method calls need to appear atomic from other threads perspective, then the
+ * caller needs to synchronize on {@code this} in all threads executing such sequences.
  *
  * @author  Martin Desruisseaux (MPO, IRD, Geomatys)
- * @version 0.3
+ * @version 1.0
  *
  * @param <E>  the type of elements in the set.
  *
@@ -102,14 +104,52 @@ public class WeakHashSet<E> extends AbstractSet<E> implements CheckedContainer<E
     }
 
     /**
-     * Table of weak references.
+     * A portion of the hash table, guarded by its own lock. All fields shall be accessed
+     * in a block synchronized on the segment.
      */
-    private Entry[] table;
+    private final class Segment {
+        /**
+         * Table of weak references, or {@code null} if no element has been added yet in this segment.
+         */
+        Entry[] table;
+
+        /**
+         * Number of non-null elements in {@link #table}.
+         */
+        int count;
+
+        /**
+         * The last time when {@link #table} was not in need for rehash. When the garbage collector
+         * collected a lot of elements, we will wait a few seconds before rehashing {@link #table}
+         * in case lot of news elements are going to be added. Without this field, we noticed many
+         * "reduce", "expand", "reduce", "expand", <i>etc.</i> cycles.
+         */
+        long lastTimeNormalCapacity;
+
+        /**
+         * Checks if this segment is valid. This method counts the number of elements and
+         * compares it to {@link #count}. This method is invoked in assertions only.
+         */
+        @Debug
+        boolean isValid() {
+            if (!Thread.holdsLock(this)) {
+                throw new AssertionError();
+            }
+            if (table == null) {
+                return count == 0;
+            }
+            if (count > upperCapacityThreshold(table.length)) {
+                throw new AssertionError(count);
+            }
+            return count(table) == count;
+        }
+    }
 
     /**
-     * Number of non-null elements in {@link #table}.
+     * The segments of the hash table. The segment of an element is determined by
+     * {@link WeakEntry#segmentIndex(int)}. The length of this array is fixed.
      */
-    private int count;
+    private final Segment[] segments;
 
     /**
      * The type of the elements in this set.
@@ -122,32 +162,26 @@ public class WeakHashSet<E> extends AbstractSet<E> implements CheckedContainer<E
      */
     private final boolean mayContainArrays;
 
-    /**
-     * The last time when {@link #table} was not in need for rehash. When the garbage collector
-     * collected a lot of elements, we will wait a few seconds before rehashing {@link #table}
-     * in case lot of news elements are going to be added. Without this field, we noticed many
-     * "reduce", "expand", "reduce", "expand", <i>etc.</i> cycles.
-     */
-    private transient long lastTimeNormalCapacity;
-
     /**
      * Creates a {@code WeakHashSet} for elements of the specified type.
      *
      * @param  type  the type of the element to be included in this set.
      */
     public WeakHashSet(final Class<E> type) {
-        elementType            = type;
-        mayContainArrays       = type.isArray() || type.equals(Object.class);
-        lastTimeNormalCapacity = System.nanoTime();
+        elementType      = type;
+        mayContainArrays = type.isArray() || type.equals(Object.class);
         /*
          * Workaround for the "generic array creation" compiler error.
          * Otherwise we would use the commented-out line instead.
          */
         @SuppressWarnings("unchecked")
         @Workaround(library="JDK", version="1.7")
-        final Entry[] table = (Entry[]) Array.newInstance(Entry.class, MIN_CAPACITY);
-//      table = new Entry[size];
-        this.table = table;
+        final Segment[] segments = (Segment[]) Array.newInstance(Segment.class, SEGMENT_COUNT);
+//      segments = new Segment[SEGMENT_COUNT];
+        for (int i=0; i<segments.length; i++) {
+            segments[i] = new Segment();
+        }
+        this.segments = segments;
     }
 
     /**
@@ -159,49 +193,48 @@ public class WeakHashSet<E> extends AbstractSet<E> implements CheckedContainer<E
     }
 
     /**
-     * Invoked by {@link Entry} when an element has been collected by the garbage
-     * collector. This method removes the weak reference from the {@link #table}.
+     * Invoked by {@link Entry} when an element has been collected by the garbage collector.
+     * This method removes the weak reference from the table. Only the segment containing
+     * the entry is locked.
      */
-    private synchronized void removeEntry(final Entry toRemove) {
-        assert isValid();
-        final int capacity = table.length;
-        if (toRemove.removeFrom(table, toRemove.hash % capacity)) {
-            count--;
-            assert isValid();
-            if (count < lowerCapacityThreshold(capacity)) {
-                final long currentTime = System.nanoTime();
-                if (currentTime - lastTimeNormalCapacity > REHASH_DELAY) {
-                    table = (Entry[]) WeakEntry.rehash(table, count, "remove");
-                    lastTimeNormalCapacity = currentTime;
-                    assert isValid();
+    private void removeEntry(final Entry toRemove) {
+        final Segment segment = segments[segmentIndex(toRemove.hash)];
+        synchronized (segment) {
+            assert segment.isValid();
+            final Entry[] table = segment.table;
+            if (table == null) {
+                return;                             // Set has been cleared.
+            }
+            final int capacity = table.length;
+            if (toRemove.removeFrom(table, toRemove.hash % capacity)) {
+                segment.count--;
+                assert segment.isValid();
+                if (segment.count < lowerCapacityThreshold(capacity)) {
+                    final long currentTime = System.nanoTime();
+                    if (currentTime - segment.lastTimeNormalCapacity > REHASH_DELAY) {
+                        segment.table = (Entry[]) WeakEntry.rehash(table, segment.count, "remove");
+                        segment.lastTimeNormalCapacity = currentTime;
+                        assert segment.isValid();
+                    }
                 }
             }
         }
     }
 
-    /**
-     * Checks if this {@code WeakHashSet} is valid. This method counts the number of elements and
-     * compares it to {@link #count}. This method is invoked in assertions only.
-     */
-    @Debug
-    private boolean isValid() {
-        if (!Thread.holdsLock(this)) {
-            throw new AssertionError();
-        }
-        if (count > upperCapacityThreshold(table.length)) {
-            throw new AssertionError(count);
-        }
-        return count(table) == count;
-    }
-
     /**
      * Returns the count of element in this set.
      *
      * @return number of elements in this set.
      */
     @Override
-    public synchronized int size() {
-        assert isValid();
+    public int size() {
+        int count = 0;
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                assert segment.isValid();
+                count += segment.count;
+            }
+        }
         return count;
     }
 
@@ -215,7 +248,7 @@ public class WeakHashSet<E> extends AbstractSet<E> implements CheckedContainer<E
      * @throws NullArgumentException if the given object is {@code null}.
      */
     @Override
-    public synchronized boolean add(final E element) throws NullArgumentException {
+    public boolean add(final E element) throws NullArgumentException {
         ArgumentChecks.ensureNonNull("element", element);
         return intern(element, ADD) == null;
     }
@@ -228,7 +261,7 @@ public class WeakHashSet<E> extends AbstractSet<E> implements CheckedContainer<E
      * @return {@code true} if the set contained the specified element.
      */
     @Override
-    public synchronized boolean remove(final Object element) {
+    public boolean remove(final Object element) {
         return intern(element, REMOVE) != null;
     }
 
@@ -243,7 +276,7 @@ public class WeakHashSet<E> extends AbstractSet<E> implements CheckedContainer<E
      *
      * @see #unique(Object)
      */
-    public synchronized E get(final Object element) {
+    public E get(final Object element) {
         return intern(element, GET);
     }
 
@@ -255,7 +288,7 @@ public class WeakHashSet<E> extends AbstractSet<E> implements CheckedContainer<E
      * @return {@code true} if this set contains the specified element.
      */
     @Override
-    public synchronized boolean contains(final Object element) {
+    public boolean contains(final Object element) {
         return intern(element, GET) != null;
     }
 
@@ -282,7 +315,7 @@ public class WeakHashSet<E> extends AbstractSet<E> implements CheckedContainer<E
      * @return an element equals to the given one if already presents in the set,
      *         or the given {@code object} otherwise.
      */
-    public synchronized <T extends E> T unique(final T element) {
+    public <T extends E> T unique(final T element) {
         /*
          * There is no way to make sure that this operation is really safe.
          * We have to trust the Object.equals(Object) method to be strict
@@ -299,45 +332,60 @@ public class WeakHashSet<E> extends AbstractSet<E> implements CheckedContainer<E
 
     /**
      * Implementation of the {@link #add(Object)}, {@link #remove(Object)}, {@link #get(Object)},
-     * {@link #contains(Object)} and {@link #unique(Object)} methods.
+     * {@link #contains(Object)} and {@link #unique(Object)} methods. Only the segment where the
+     * given object would be stored is locked.
      */
     private E intern(final Object obj, final int operation) {
-        assert isValid();
         if (obj != null) {
-            /*
-             * Check if the object is already contained in this
-             * WeakHashSet. If yes, return the existing element.
-             */
-            Entry[] table = this.table;
             final int hash = (mayContainArrays ? Utilities.deepHashCode(obj) : obj.hashCode()) & HASH_MASK;
-            int index = hash % table.length;
-            for (Entry e=table[index]; e!=null; e=(Entry) e.next) {
-                final E candidate = e.get();
-                if (mayContainArrays ? Objects.deepEquals(candidate, obj) : obj.equals(candidate)) {
-                    if (operation == REMOVE) {
-                        e.dispose();
-                    }
-                    return candidate;
-                }
-                // Do not remove the null element; lets ReferenceQueue do its job
-                // (it was a bug to remove element here as an "optimization")
-            }
-            if (operation >= ADD) {
+            final Segment segment = segments[segmentIndex(hash)];
+            synchronized (segment) {
+                assert segment.isValid();
                 /*
-                 * Check if the table needs to be rehashed, and add {@code obj} to the table.
+                 * Check if the object is already contained in this
+                 * WeakHashSet. If yes, return the existing element.
                  */
-                if (++count >= lowerCapacityThreshold(table.length)) {
-                    if (count > upperCapacityThreshold(table.length)) {
-                        this.table = table = (Entry[]) rehash(table, count, "add");
-                        index = hash % table.length;
+                Entry[] table = segment.table;
+                int index = 0;
+                if (table != null) {
+                    index = hash % table.length;
+                    for (Entry e=table[index]; e!=null; e=(Entry) e.next) {
+                        final E candidate = e.get();
+                        if (mayContainArrays ? Objects.deepEquals(candidate, obj) : obj.equals(candidate)) {
+                            if (operation == REMOVE) {
+                                e.dispose();
+                            }
+                            return candidate;
+                        }
+                        // Do not remove the null element; lets ReferenceQueue do its job
+                        // (it was a bug to remove element here as an "optimization")
                     }
-                    lastTimeNormalCapacity = System.nanoTime();
                 }
-                final E element = elementType.cast(obj);
-                table[index] = new Entry(element, table[index], hash);
-                assert isValid();
-                if (operation == INTERN) {
-                    return element;
+                if (operation >= ADD) {
+                    /*
+                     * Check if the table needs to be rehashed, and add {@code obj} to the table.
+                     */
+                    if (table == null) {
+                        @SuppressWarnings("unchecked")
+                        @Workaround(library="JDK", version="1.7")
+                        final Entry[] created = (Entry[]) Array.newInstance(Entry.class, MIN_CAPACITY);
+                        segment.table = table = created;
+                        segment.lastTimeNormalCapacity = System.nanoTime();
+                        index = hash % table.length;
+                    }
+                    if (++segment.count >= lowerCapacityThreshold(table.length)) {
+                        if (segment.count > upperCapacityThreshold(table.length)) {
+                            segment.table = table = (Entry[]) rehash(table, segment.count, "add");
+                            index = hash % table.length;
+                        }
+                        segment.lastTimeNormalCapacity = System.nanoTime();
+                    }
+                    final E element = elementType.cast(obj);
+                    table[index] = new Entry(element, table[index], hash);
+                    assert segment.isValid();
+                    if (operation == INTERN) {
+                        return element;
+                    }
                 }
             }
         }
@@ -348,9 +396,13 @@ public class WeakHashSet<E> extends AbstractSet<E> implements CheckedContainer<E
      * Removes all of the elements from this set.
      */
     @Override
-    public synchronized void clear() {
-        Arrays.fill(table, null);
-        count = 0;
+    public void clear() {
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                segment.table = null;
+                segment.count = 0;
+            }
+        }
     }
 
     /**
@@ -358,20 +410,33 @@ public class WeakHashSet<E> extends AbstractSet<E> implements CheckedContainer<E
      * order. Note that this array contains strong references. Consequently, no
      * object reclamation will occur as long as a reference to this array is hold.
      *
+     * <p>The segments are locked one after the other, not all together. Consequently if other threads
+     * modify this set concurrently, the returned array may not be a snapshot of this set at a single
+     * instant in time.</p>
+     *
      * @return all elements in this set.
      */
     @Override
-    public synchronized E[] toArray() {
-        assert isValid();
+    public E[] toArray() {
         @SuppressWarnings("unchecked")
-        final E[] elements = (E[]) Array.newInstance(elementType, count);
+        E[] elements = (E[]) Array.newInstance(elementType, 0);
         int index = 0;
-        for (Entry el : table) {
-            while (el != null) {
-                if ((elements[index] = el.get()) != null) {
-                    index++;
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                assert segment.isValid();
+                if (segment.table != null) {
+                    if (elements.length - index < segment.count) {
+                        elements = Arrays.copyOf(elements, index + segment.count);
+                    }
+                    for (Entry el : segment.table) {
+                        while (el != null) {
+                            if ((elements[index] = el.get()) != null) {
+                                index++;
+                            }
+                            el = (Entry) el.next;
+                        }
+                    }
                 }
-                el = (Entry) el.next;
             }
         }
         return ArraysExt.resize(elements, index);
@@ -23,12 +23,14 @@ import java.util.AbstractSet;
 import java.util.Iterator;
 import java.util.Objects;
 import java.util.Arrays;
+import java.util.function.Function;
 import java.lang.reflect.Array;
 import java.lang.ref.WeakReference;
 import org.apache.sis.util.Debug;
 import org.apache.sis.util.ArraysExt;
 import org.apache.sis.util.Utilities;
 import org.apache.sis.util.Workaround;
+import org.apache.sis.util.ArgumentChecks;
 import org.apache.sis.util.NullArgumentException;
 import org.apache.sis.util.resources.Errors;
 
@@ -44,37 +46,34 @@ import static org.apache.sis.util.collection.WeakEntry.*;
  *
  * <p>Note that this class is <strong>not</strong> a cache, because the entries are discarded
  * as soon as the garbage collector determines that they are no longer in use. If caching
- * service are wanted, or if concurrency are wanted, consider using {@link Cache} instead.</p>
+ * service are wanted, consider using {@link Cache} instead.</p>
  *
  * <p>This class is convenient for avoiding the creation of duplicated elements, as in the
  * example below:</p>
  *
  * {@preformat java
  *     K key = ...
- *     V value;
- *     synchronized (map) {
- *         value = map.get(key);
- *         if (value == null) {
- *             value = ...; // Create the value here.
- *             map.put(key, value);
- *         }
- *     }
+ *     V value = map.computeIfAbsent(key, (k) -> {
+ *         return ...;      // Create the value here.
+ *     });
  * }
  *
- * In the above example, the calculation of a new value needs to be fast because it is performed inside a synchronized
- * statement blocking all other access to the map. This is okay if that particular {@code WeakValueHashMap} instance
- * is not expected to be used in a highly concurrent environment.
+ * In the above example, the calculation of a new value needs to be fast because it is performed while holding
+ * the lock of the segment where the key is stored, thus blocking access to all other keys in the same segment.
+ * Keys in other segments are not blocked.
  *
  * <p>{@code WeakValueHashMap} works with array keys as one would expect. For example arrays of {@code int[]} are
  * compared using the {@link java.util.Arrays#equals(int[], int[])} method.</p>
  *
  * <div class="section">Thread safety</div>
  * The same {@code WeakValueHashMap} instance can be safely used by many threads without synchronization on the part
- * of the caller. But if a sequence of two or more method calls need to appear atomic from other threads perspective,
- * then the caller can synchronize on {@code this}.
+ * of the caller. Entries are dispatched in a fixed number of segments, each segment having its own lock, so threads
+ * working on different keys usually do not block each other. The {@code putIfAbsent(…)} and {@code computeIfAbsent(…)}
+ * methods are atomic. But if a sequence of two or more method calls need to appear atomic from other threads
+ * perspective, then the caller needs to synchronize on {@code this} in all threads executing such sequences.
  *
  * @author  Martin Desruisseaux (IRD, Geomatys)
- * @version 0.7
+ * @version 1.0
  *
  * @param <K>  the class of key elements.
  * @param <V>  the class of value elements.
@@ -191,14 +190,52 @@ public class WeakValueHashMap<K,V> extends AbstractMap<K,V> {
     }
 
     /**
-     * Table of weak references.
+     * A portion of the hash table, guarded by its own lock. All fields shall be accessed
+     * in a block synchronized on the segment.
      */
-    private Entry[] table;
+    private final class Segment {
+        /**
+         * Table of weak references, or {@code null} if no entry has been added yet in this segment.
+         */
+        Entry[] table;
+
+        /**
+         * Number of non-null elements in {@link #table}.
+         */
+        int count;
+
+        /**
+         * The last time when {@link #table} was not in need for rehash. When the garbage collector
+         * collected a lot of elements, we will wait a few seconds before rehashing {@link #table}
+         * in case lot of news entries are going to be added. Without this field, we noticed many
+         * "reduce", "expand", "reduce", "expand", <i>etc.</i> cycles.
+         */
+        long lastTimeNormalCapacity;
+
+        /**
+         * Checks if this segment is valid. This method counts the number of elements and
+         * compares it to {@link #count}. This method is invoked in assertions only.
+         */
+        @Debug
+        boolean isValid() {
+            if (!Thread.holdsLock(this)) {
+                throw new AssertionError();
+            }
+            if (table == null) {
+                return count == 0;
+            }
+            if (count > upperCapacityThreshold(table.length)) {
+                throw new AssertionError(count);
+            }
+            return count(table) == count;
+        }
+    }
 
     /**
-     * Number of non-null elements in {@link #table}.
+     * The segments of the hash table. The segment of an entry is determined by
+     * {@link WeakEntry#segmentIndex(int)}. The length of this array is fixed.
      */
-    private int count;
+    private final Segment[] segments;
 
     /**
      * The type of the keys in this map.
@@ -221,14 +258,6 @@ public class WeakValueHashMap<K,V> extends AbstractMap<K,V> {
      */
     private transient Set<Map.Entry<K,V>> entrySet;
 
-    /**
-     * The last time when {@link #table} was not in need for rehash. When the garbage collector
-     * collected a lot of elements, we will wait a few seconds before rehashing {@link #table}
-     * in case lot of news entries are going to be added. Without this field, we noticed many
-     * "reduce", "expand", "reduce", "expand", <i>etc.</i> cycles.
-     */
-    private transient long lastTimeNormalCapacity;
-
     /**
      * Creates a new {@code WeakValueHashMap}.
      *
@@ -256,53 +285,57 @@ public class WeakValueHashMap<K,V> extends AbstractMap<K,V> {
         this.keyType   = keyType;
         comparisonMode = identity ? IDENTITY :
                 (keyType.isArray() || keyType.equals(Object.class)) ? DEEP_EQUALS : EQUALS;
-        lastTimeNormalCapacity = System.nanoTime();
         /*
          * Workaround for the "generic array creation" compiler error.
          * Otherwise we would use the commented-out line instead.
          */
         @SuppressWarnings("unchecked")
         @Workaround(library="JDK", version="1.7")
-        final Entry[] table = (Entry[]) Array.newInstance(Entry.class, MIN_CAPACITY);
-//      table = new Entry[size];
-        this.table = table;
+        final Segment[] segments = (Segment[]) Array.newInstance(Segment.class, SEGMENT_COUNT);
+//      segments = new Segment[SEGMENT_COUNT];
+        for (int i=0; i<segments.length; i++) {
+            segments[i] = new Segment();
+        }
+        this.segments = segments;
     }
 
     /**
-     * Invoked by {@link Entry} when an element has been collected by the garbage
-     * collector. This method removes the weak reference from the {@link #table}.
+     * Invoked by {@link Entry} when an element has been collected by the garbage collector.
+     * This method removes the weak reference from the table. Only the segment containing
+     * the entry is locked.
      */
     @SuppressWarnings("unchecked")
-    private synchronized void removeEntry(final Entry toRemove) {
-        assert isValid();
-        final int capacity = table.length;
-        if (toRemove.removeFrom(table, toRemove.hash % capacity)) {
-            count--;
-            assert isValid();
-            if (count < lowerCapacityThreshold(capacity)) {
-                final long currentTime = System.nanoTime();
-                if (currentTime - lastTimeNormalCapacity > REHASH_DELAY) {
-                    table = (Entry[]) WeakEntry.rehash(table, count, "remove");
-                    lastTimeNormalCapacity = currentTime;
-                    assert isValid();
+    private void removeEntry(final Entry toRemove) {
+        final Segment segment = segments[segmentIndex(toRemove.hash)];
+        synchronized (segment) {
+            assert segment.isValid();
+            final Entry[] table = segment.table;
+            if (table == null) {
+                return;                             // Map has been cleared.
+            }
+            final int capacity = table.length;
+            if (toRemove.removeFrom(table, toRemove.hash % capacity)) {
+                segment.count--;
+                assert segment.isValid();
+                if (segment.count < lowerCapacityThreshold(capacity)) {
+                    final long currentTime = System.nanoTime();
+                    if (currentTime - segment.lastTimeNormalCapacity > REHASH_DELAY) {
+                        segment.table = (Entry[]) WeakEntry.rehash(table, segment.count, "remove");
+                        segment.lastTimeNormalCapacity = currentTime;
+                        assert segment.isValid();
+                    }
                 }
             }
         }
     }
 
     /**
-     * Checks if this {@code WeakValueHashMap} is valid. This method counts the number of elements
-     * and compares it to {@link #count}. This method is invoked in assertions only.
+     * Returns the segment where to store the entry for a key of the given hash code.
+     *
+     * @param  hash  the key hash code, as a positive value.
      */
-    @Debug
-    final boolean isValid() {
-        if (!Thread.holdsLock(this)) {
-            throw new AssertionError();
-        }
-        if (count > upperCapacityThreshold(table.length)) {
-            throw new AssertionError(count);
-        }
-        return count(table) == count;
+    private Segment segment(final int hash) {
+        return segments[segmentIndex(hash)];
     }
 
     /**
@@ -311,8 +344,14 @@ public class WeakValueHashMap<K,V> extends AbstractMap<K,V> {
      * @return the number of entries in this map.
      */
     @Override
-    public synchronized int size() {
-        assert isValid();
+    public int size() {
+        int count = 0;
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                assert segment.isValid();
+                count += segment.count;
+            }
+        }
         return count;
     }
 
@@ -365,7 +404,7 @@ public class WeakValueHashMap<K,V> extends AbstractMap<K,V> {
      * @return {@code true} if this map maps one or more keys to this value.
      */
     @Override
-    public synchronized boolean containsValue(final Object value) {
+    public boolean containsValue(final Object value) {
         return super.containsValue(value);
     }
 
@@ -378,15 +417,19 @@ public class WeakValueHashMap<K,V> extends AbstractMap<K,V> {
      * @return the value to which this map maps the specified key.
      */
     @Override
-    @SuppressWarnings("unchecked")
-    public synchronized V get(final Object key) {
-        assert isValid();
+    public V get(final Object key) {
         if (key != null) {
-            final Entry[] table = this.table;
-            final int index = (keyHashCode(key) & HASH_MASK) % table.length;
-            for (Entry e = table[index]; e != null; e = (Entry) e.next) {
-                if (keyEquals(key, e.key)) {
-                    return e.get();
+            final int hash = keyHashCode(key) & HASH_MASK;
+            final Segment segment = segment(hash);
+            synchronized (segment) {
+                assert segment.isValid();
+                final Entry[] table = segment.table;
+                if (table != null) {
+                    for (Entry e = table[hash % table.length]; e != null; e = (Entry) e.next) {
+                        if (keyEquals(key, e.key)) {
+                            return e.get();
+                        }
+                    }
                 }
             }
         }
@@ -394,41 +437,58 @@ public class WeakValueHashMap<K,V> extends AbstractMap<K,V> {
     }
 
     /**
-     * Implementation of {@link #put(Object, Object)} and {@link #remove(Object)} operations
+     * Implementation of {@link #put(Object, Object)} and {@link #remove(Object)} operations.
+     * Only the segment where the given key would be stored is locked.
      */
-    @SuppressWarnings("unchecked")
-    private synchronized V intern(final Object key, final V value, final boolean replace) {
-        assert isValid();
-        /*
-         * If 'value' is already contained in this WeakValueHashMap, we need to clear it.
-         */
-        V oldValue = null;
-        Entry[] table = this.table;
+    private V intern(final Object key, final V value, final boolean replace) {
         final int hash = keyHashCode(key) & HASH_MASK;
-        int index = hash % table.length;
-        for (Entry e = table[index]; e != null; e = (Entry) e.next) {
-            if (keyEquals(key, e.key)) {
-                oldValue = e.get();
-                if (oldValue != null && !replace) {
-                    return oldValue;
+        final Segment segment = segment(hash);
+        synchronized (segment) {
+            assert segment.isValid();
+            /*
+             * If 'value' is already contained in this WeakValueHashMap, we need to clear it.
+             */
+            V oldValue = null;
+            if (segment.table != null) {
+                for (Entry e = segment.table[hash % segment.table.length]; e != null; e = (Entry) e.next) {
+                    if (keyEquals(key, e.key)) {
+                        oldValue = e.get();
+                        if (oldValue != null && !replace) {
+                            return oldValue;
+                        }
+                        e.dispose();                            // May change 'segment.table'.
+                    }
                 }
-                e.dispose();
-                table = this.table; // May have changed.
-                index = hash % table.length;
             }
+            if (value != null) {
+                add(segment, key, value, hash);
+            }
+            assert segment.isValid();
+            return oldValue;
         }
-        if (value != null) {
-            if (++count >= lowerCapacityThreshold(table.length)) {
-                if (count > upperCapacityThreshold(table.length)) {
-                    this.table = table = (Entry[]) rehash(table, count, "put");
-                    index = hash % table.length;
-                }
-                lastTimeNormalCapacity = System.nanoTime();
+    }
+
+    /**
+     * Adds a new entry in the given segment. The caller must hold the segment lock
+     * and must have verified that there is no entry for the given key.
+     */
+    @SuppressWarnings("unchecked")
+    private void add(final Segment segment, final Object key, final V value, final int hash) {
+        Entry[] table = segment.table;
+        if (table == null) {
+            @Workaround(library="JDK", version="1.7")
+            final Entry[] created = (Entry[]) Array.newInstance(Entry.class, MIN_CAPACITY);
+            segment.table = table = created;
+            segment.lastTimeNormalCapacity = System.nanoTime();
+        }
+        if (++segment.count >= lowerCapacityThreshold(table.length)) {
+            if (segment.count > upperCapacityThreshold(table.length)) {
+                segment.table = table = (Entry[]) rehash(table, segment.count, "put");
             }
-            table[index] = new Entry(keyType.cast(key), value, table[index], hash);
+            segment.lastTimeNormalCapacity = System.nanoTime();
         }
-        assert isValid();
-        return oldValue;
+        final int index = hash % table.length;
+        table[index] = new Entry(keyType.cast(key), value, table[index], hash);
     }
 
     /**
@@ -473,6 +533,51 @@ public class WeakValueHashMap<K,V> extends AbstractMap<K,V> {
         return intern(key, value, false);
     }
 
+    /**
+     * Returns the value associated to the given key, computing and storing it if no value were previously associated.
+     * The mapping function is invoked at most once per missing key, while holding the lock of the segment where the
+     * key is stored. Consequently the function should be fast and shall not access this map.
+     * If the function returns {@code null}, then no mapping is recorded.
+     *
+     * @param  key       key with which the value is to be associated.
+     * @param  function  the function computing a value for the given key.
+     * @return the current (existing or computed) value associated with the given key, or {@code null} if none.
+     *
+     * @throws NullArgumentException if the key or the function is {@code null}.
+     *
+     * @since 1.0
+     */
+    @Override
+    public V computeIfAbsent(final K key, final Function<? super K, ? extends V> function) throws NullArgumentException {
+        if (key == null) {
+            throw new NullArgumentException(Errors.format(Errors.Keys.NullMapKey));
+        }
+        ArgumentChecks.ensureNonNull("function", function);
+        final int hash = keyHashCode(key) & HASH_MASK;
+        final Segment segment = segment(hash);
+        synchronized (segment) {
+            assert segment.isValid();
+            if (segment.table != null) {
+                for (Entry e = segment.table[hash % segment.table.length]; e != null; e = (Entry) e.next) {
+                    if (keyEquals(key, e.key)) {
+                        final V value = e.get();
+                        if (value != null) {
+                            return value;
+                        }
+                        e.dispose();                            // May change 'segment.table'.
+                        break;
+                    }
+                }
+            }
+            final V value = function.apply(key);
+            if (value != null) {
+                add(segment, key, value, hash);
+            }
+            assert segment.isValid();
+            return value;
+        }
+    }
+
     /**
      * Removes the mapping for this key from this map if present.
      *
@@ -488,9 +593,13 @@ public class WeakValueHashMap<K,V> extends AbstractMap<K,V> {
      * Removes all of the elements from this map.
      */
     @Override
-    public synchronized void clear() {
-        Arrays.fill(table, null);
-        count = 0;
+    public void clear() {
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                segment.table = null;
+                segment.count = 0;
+            }
+        }
     }
 
     /**
@@ -501,7 +610,7 @@ public class WeakValueHashMap<K,V> extends AbstractMap<K,V> {
      */
     @Override
     @SuppressWarnings("ReturnOfCollectionOrArrayField")
-    public synchronized Set<Map.Entry<K,V>> entrySet() {
+    public Set<Map.Entry<K,V>> entrySet() {
         if (entrySet == null) {
             entrySet = new EntrySet();
         }
@@ -528,27 +637,35 @@ public class WeakValueHashMap<K,V> extends AbstractMap<K,V> {
         /**
          * Returns a view of this set as an array. Note that this array contains strong references.
          * Consequently, no object reclamation will occur as long as a reference to this array is hold.
+         * Segments are locked one after the other, so the array is not necessarily a snapshot of the
+         * map at a single instant in time if other threads modify the map concurrently.
          */
         @Override
         @SuppressWarnings("unchecked")
         public Map.Entry<K,V>[] toArray() {
-            synchronized (WeakValueHashMap.this) {
-                assert isValid();
-                @SuppressWarnings({"unchecked","rawtypes"})
-                final Map.Entry<K,V>[] elements = new Map.Entry[size()];
-                int index = 0;
-                final Entry[] table = WeakValueHashMap.this.table;
-                for (Entry el : table) {
-                    while (el != null) {
-                        final Map.Entry<K,V> entry = new SimpleEntry<>(el);
-                        if (entry.getValue() != null) {
-                            elements[index++] = entry;
+            @SuppressWarnings({"unchecked","rawtypes"})
+            Map.Entry<K,V>[] elements = new Map.Entry[0];
+            int index = 0;
+            for (final Segment segment : segments) {
+                synchronized (segment) {
+                    assert segment.isValid();
+                    if (segment.table != null) {
+                        if (elements.length - index < segment.count) {
+                            elements = Arrays.copyOf(elements, index + segment.count);
+                        }
+                        for (Entry el : segment.table) {
+                            while (el != null) {
+                                final Map.Entry<K,V> entry = new SimpleEntry<>(el);
+                                if (entry.getValue() != null) {
+                                    elements[index++] = entry;
+                                }
+                                el = (Entry) el.next;
+                            }
                         }
-                        el= (Entry) el.next;
                     }
                 }
-                return ArraysExt.resize(elements, index);
             }
+            return ArraysExt.resize(elements, index);
         }
 
         /**
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.math;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.TestCase;
+
+import static java.lang.Double.NaN;
+import static java.lang.Double.isNaN;
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link QuantileSketch} class.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public final strictfp class QuantileSketchTest extends TestCase {
+    /**
+     * The relative accuracy used for all tests in this class.
+     */
+    private static final double ACCURACY = 0.01;
+
+    /**
+     * Verifies the quantiles estimated by the given sketch against the exact quantiles of the given values.
+     */
+    private static void verifyQuantiles(final QuantileSketch sketch, final double[] values) {
+        final double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        assertEquals("count", sorted.length, sketch.count());
+        assertEquals("minimum", sorted[0], sketch.quantile(0), STRICT);
+        assertEquals("maximum", sorted[sorted.length - 1], sketch.quantile(1), STRICT);
+        for (int p=1; p<100; p++) {
+            final double q = p / 100.0;
+            final double expected = sorted[(int) (q * (sorted.length - 1))];
+            assertEquals("quantile", expected, sketch.quantile(q), Math.abs(expected) * ACCURACY * 1.0001);
+        }
+    }
+
+    /**
+     * Tests the initial state of newly constructed instance.
+     */
+    @Test
+    public void testInitialState() {
+        final QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        assertEquals(ACCURACY, sketch.relativeAccuracy(), STRICT);
+        assertEquals(0, sketch.count());
+        assertEquals(0, sketch.countNaN());
+        assertTrue(isNaN(sketch.median()));
+    }
+
+    /**
+     * Tests quantiles of Gaussian values, which include positive and negative values.
+     */
+    @Test
+    @DependsOnMethod("testInitialState")
+    public void testGaussian() {
+        final Random random = new Random(317780561);
+        final double[] values = new double[10000];
+        for (int i=0; i<values.length; i++) {
+            values[i] = random.nextGaussian() * 100;
+        }
+        final QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        sketch.accept(values, 0, values.length);
+        sketch.accept(NaN);
+        assertEquals(1, sketch.countNaN());
+        verifyQuantiles(sketch, values);
+    }
+
+    /**
+     * Tests quantiles of values spanning many orders of magnitude.
+     */
+    @Test
+    @DependsOnMethod("testInitialState")
+    public void testLogNormal() {
+        final Random random = new Random(309080660);
+        final double[] values = new double[10000];
+        for (int i=0; i<values.length; i++) {
+            values[i] = Math.exp(random.nextGaussian() * 10);
+        }
+        final QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        for (final double value : values) {
+            sketch.accept(value);
+        }
+        verifyQuantiles(sketch, values);
+    }
+
+    /**
+     * Tests the combination of sketches computed on different subsets of the same values.
+     */
+    @Test
+    @DependsOnMethod("testGaussian")
+    public void testCombine() {
+        final Random random = new Random(309080660);
+        final double[] values = new double[10000];
+        for (int i=0; i<values.length; i++) {
+            values[i] = random.nextGaussian() * 100 + 20;
+        }
+        final QuantileSketch s1 = new QuantileSketch(ACCURACY);
+        final QuantileSketch s2 = new QuantileSketch(ACCURACY);
+        s1.accept(values, 0, 3000);
+        s2.accept(values, 3000, values.length - 3000);
+        final QuantileSketch copy = s1.clone();
+        s1.combine(s2);
+        verifyQuantiles(s1, values);
+        assertEquals("clone should not be modified.", 3000, copy.count());
+        try {
+            s1.combine(new QuantileSketch(ACCURACY / 2));
+            fail("Should not combine sketches of different accuracies.");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("relativeAccuracy"));
+        }
+    }
+}
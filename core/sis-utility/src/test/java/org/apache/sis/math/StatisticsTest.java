@@ -17,8 +17,10 @@
 package org.apache.sis.math;
 
 import java.util.Random;
+import java.util.stream.IntStream;
 import java.io.IOException;
 import org.junit.Test;
+import org.apache.sis.test.DependsOnMethod;
 import org.apache.sis.test.TestCase;
 
 import static java.lang.StrictMath.*;
@@ -41,7 +43,7 @@ import static org.apache.sis.test.Assert.*;
  * that are known to produce results inside the range expected by this test class.</p>
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.3
+ * @version 1.0
  * @since   0.3
  * @module
  */
@@ -224,6 +226,66 @@ public final strictfp class StatisticsTest extends TestCase {
         }
     }
 
+    /**
+     * Tests the {@code accept(…)} methods working on arrays, which should give the same results
+     * than invoking {@link Statistics#accept(double)} for each value.
+     */
+    @Test
+    @DependsOnMethod("testUniform")
+    public void testAcceptArray() {
+        final Random random = new Random(309080660);
+        final double[] values = new double[10000];
+        final float[]  floats = new float [values.length];
+        final int[]    ints   = new int   [values.length];
+        final Statistics expected = new Statistics(null);
+        for (int i=0; i<values.length; i++) {
+            final double value = (i % 100 == 0) ? NaN : random.nextDouble()*2000 - 1000;
+            values[i] = value;
+            floats[i] = (float) value;
+            ints[i]   = (int) value;
+            if (i >= 10 && i < values.length - 20) {
+                expected.accept(value);
+            }
+        }
+        final Statistics statistics = new Statistics(null);
+        statistics.accept(values, 10, values.length - 30);
+        assertEquals(expected.count(),    statistics.count());
+        assertEquals(expected.countNaN(), statistics.countNaN());
+        assertEquals(expected.minimum(),  statistics.minimum(), STRICT);
+        assertEquals(expected.maximum(),  statistics.maximum(), STRICT);
+        assertEquals(expected.mean(),     statistics.mean(),    EPS);
+        assertEquals(expected.rms(),      statistics.rms(),     EPS);
+        assertEquals(expected.standardDeviation(false), statistics.standardDeviation(false), EPS);
+
+        final Statistics fromFloats = new Statistics(null);
+        fromFloats.accept(floats, 10, floats.length - 30);
+        assertEquals(expected.count(),    fromFloats.count());
+        assertEquals(expected.countNaN(), fromFloats.countNaN());
+        assertEquals(expected.mean(),     fromFloats.mean(), 1E-3);
+
+        final Statistics fromInts = new Statistics(null);
+        fromInts.accept(ints, 0, ints.length);
+        assertEquals(ints.length, fromInts.count());
+        assertEquals(0,           fromInts.countNaN());
+        assertEquals(expected.mean(), fromInts.mean(), 1);
+    }
+
+    /**
+     * Tests {@link Statistics#collector(CharSequence)} on a parallel stream.
+     */
+    @Test
+    @DependsOnMethod("testConcatenation")
+    public void testCollector() {
+        final Statistics statistics = IntStream.rangeClosed(1, 10000).parallel().boxed()
+                .collect(Statistics.collector(null));
+        assertEquals(10000,    statistics.count());
+        assertEquals(0,        statistics.countNaN());
+        assertEquals(1,        statistics.minimum(), STRICT);
+        assertEquals(10000,    statistics.maximum(), STRICT);
+        assertEquals(50005000, statistics.sum(),     STRICT);
+        assertEquals(5000.5,   statistics.mean(),    EPS);
+    }
+
     /**
      * Tests the serialization.
      *
@@ -16,6 +16,9 @@
  */
 package org.apache.sis.math;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 import org.apache.sis.measure.NumberRange;
 import org.apache.sis.test.DependsOnMethod;
 import org.apache.sis.test.TestCase;
@@ -28,7 +31,7 @@ import static org.opengis.test.Assert.*;
  * Tests the {@link Vector} class.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.0
  * @since   0.8
  * @module
  */
@@ -172,6 +175,68 @@ public final strictfp class VectorTest extends TestCase {
         }
     }
 
+    /**
+     * Tests {@link BufferVector} backed by a direct buffer of {@code int} values in little-endian byte order.
+     */
+    @Test
+    @DependsOnMethod("testShortArray")
+    public void testIntegerBuffer() {
+        final ByteBuffer bytes = ByteBuffer.allocateDirect(4 * 401).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.put((byte) 7);                                        // Skipped by the position.
+        final IntBuffer buffer = bytes.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        for (int i=0; i<400; i++) {
+            buffer.put(i, (i + 100) * 10);
+        }
+        vector = Vector.create(bytes, ByteOrder.LITTLE_ENDIAN, Integer.class, false);
+        assertInstanceOf("vector", BufferVector.class, vector);
+        assertEquals("position", 1, bytes.position());
+        assertEquals(400, vector.size());
+        assertEquals(Integer.class, vector.getElementType());
+        for (int i=0; i<400; i++) {
+            assertEquals(buffer.get(i), vector.intValue(i));
+            assertEquals(buffer.get(i), vector.doubleValue(i), STRICT);
+        }
+        assertEquals(NumberRange.create(1000, true, 4990, true), vector.range());
+        assertEquals(10, vector.increment(0));
+        /*
+         * Same vector created from the IntBuffer. Changes in the buffer shall be reflected in the vector.
+         */
+        vector = Vector.create(buffer, false);
+        assertInstanceOf("vector", BufferVector.class, vector);
+        buffer.put(3, -40);
+        assertEquals(-40, vector.intValue(3));
+        vector.set(4, 60);
+        assertEquals(60, buffer.get(4));
+    }
+
+    /**
+     * Tests {@link BufferVector} with unsigned values.
+     */
+    @Test
+    @DependsOnMethod("testIntegerBuffer")
+    public void testUnsignedBuffer() {
+        final ByteBuffer bytes = ByteBuffer.wrap(new byte[] {(byte) 0xFF, (byte) 0xFE, 0x00, 0x10});
+        vector = Vector.create(bytes, ByteOrder.BIG_ENDIAN, short.class, true);
+        assertEquals(2, vector.size());
+        assertTrue(vector.isUnsigned());
+        assertEquals(0xFFFE, vector.intValue(0));
+        assertEquals(0x0010, vector.intValue(1));
+        assertEquals("65534", vector.stringValue(0));
+        try {
+            vector.shortValue(0);
+            fail("Expected an ArithmeticException");
+        } catch (ArithmeticException e) {
+            // This is the expected exception.
+        }
+        vector = Vector.create(bytes, ByteOrder.LITTLE_ENDIAN, Short.class, false);
+        assertFalse(vector.isUnsigned());
+        assertEquals((short) 0xFEFF, vector.shortValue(0));
+        assertEquals(0x1000, vector.shortValue(1));
+        vector = Vector.create(bytes, ByteOrder.BIG_ENDIAN, Byte.class, true);
+        assertEquals(4, vector.size());
+        assertEquals(255, vector.intValue(0));
+    }
+
     /**
      * Tests {@link Vector#reverse()}.
      */
@@ -365,6 +430,8 @@ public final strictfp class VectorTest extends TestCase {
         Vector vec =  Vector.create(new byte[] {30, 120, -50, -120}, false);
         Vector compressed = vec.compress(0);
         assertSame(vec, compressed);
+        vec = Vector.create(ByteBuffer.wrap(new byte[] {30, 120, -50, -120}), false);
+        assertSame(vec, vec.compress(0));
         /*
          * Values that can be compressed as signed bytes.
          */
@@ -392,6 +459,16 @@ public final strictfp class VectorTest extends TestCase {
         assertEquals("elementType", Short.class, compressed.getElementType());
         assertFalse("isUnsigned()", compressed.isUnsigned());
         assertContentEquals(vec, compressed);
+        /*
+         * Same values, but read from a buffer of big-endian long integers.
+         */
+        final ByteBuffer bytes = ByteBuffer.allocate(4 * Long.BYTES);
+        bytes.asLongBuffer().put(new long[] {32000, 120, -25000, 14});
+        vec = Vector.create(bytes, ByteOrder.BIG_ENDIAN, Long.class, false);
+        assertNotSame(vec, compressed = vec.compress(0));
+        assertInstanceOf("vector.compress(0)", ArrayVector.class, compressed);
+        assertEquals("elementType", Short.class, compressed.getElementType());
+        assertContentEquals(vec, compressed);
         /*
          * Values that can be compressed as unsigned unsigned shorts.
          */
@@ -29,8 +29,11 @@ import javax.measure.quantity.Speed;
 import javax.measure.quantity.Temperature;
 import javax.measure.quantity.Time;
 import javax.measure.quantity.Volume;
+import javax.measure.UnitConverter;
 import javax.measure.IncommensurableException;
+import javax.measure.format.ParserException;
 import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.DependsOnMethod;
 import org.apache.sis.test.TestCase;
 import org.junit.Test;
 
@@ -374,4 +377,59 @@ public final strictfp class UnitsTest extends TestCase {
         assertEquals(Integer.valueOf(9201), getEpsgCode(UNITY,          false));
         assertEquals(Integer.valueOf(9202), getEpsgCode(PPM,            false));
     }
+
+    /**
+     * Tests {@link Units#valueOf(String)} on invalid symbols. The failure is cached,
+     * but each invocation shall nevertheless throw a new exception.
+     */
+    @Test
+    @DependsOnMethod("testAdvancedValueOf")
+    public void testInvalidValueOf() {
+        ParserException first = null;
+        for (int i=0; i<2; i++) {
+            try {
+                valueOf("degree foo");
+                fail("Expected an exception for invalid symbol.");
+            } catch (ParserException e) {
+                assertNotSame(first, e);
+                if (first != null) {
+                    assertEquals(first.getMessage(),  e.getMessage());
+                    assertEquals(first.getPosition(), e.getPosition());
+                }
+                first = e;
+            }
+        }
+        assertSame(valueOf("m/s"), valueOf("m/s"));
+    }
+
+    /**
+     * Tests {@link Units#convert(UnitConverter, double[], int, double[], int, int)}
+     * with linear and non-linear converters.
+     *
+     * @throws IncommensurableException if two units are not convertible.
+     */
+    @Test
+    public void testConvertArray() throws IncommensurableException {
+        final double[] values = {-40, 0, 36.6, 100, Double.NaN};
+        verifyConvertArray(CELSIUS.getConverterTo(FAHRENHEIT), values);
+        verifyConvertArray(KILOMETRE.getConverterTo(FOOT), values);
+        verifyConvertArray(DMS.getConverterToAny(DEGREE), new double[] {10.3045, -20.1530, 45});
+    }
+
+    /**
+     * Verifies that the bulk conversion of the given values produces the same results than
+     * the conversion of each value individually, including when the arrays overlap.
+     */
+    private static void verifyConvertArray(final UnitConverter converter, final double[] values) {
+        final double[] actual = new double[values.length + 1];
+        Units.convert(converter, values, 0, actual, 1, values.length);
+        for (int i=0; i<values.length; i++) {
+            assertEquals(converter.convert(values[i]), actual[i+1], STRICT);
+        }
+        System.arraycopy(values, 0, actual, 0, values.length);
+        Units.convert(converter, actual, 0, actual, 1, values.length);
+        for (int i=0; i<values.length; i++) {
+            assertEquals(converter.convert(values[i]), actual[i+1], STRICT);
+        }
+    }
 }
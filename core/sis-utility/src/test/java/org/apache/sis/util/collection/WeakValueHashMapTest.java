@@ -19,6 +19,10 @@ package org.apache.sis.util.collection;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.apache.sis.test.TestCase;
 import org.apache.sis.test.DependsOn;
 import org.apache.sis.test.DependsOnMethod;
@@ -34,7 +38,7 @@ import static org.apache.sis.test.TestUtilities.waitForGarbageCollection;
  * A standard {@link HashMap} object is used for comparison purpose.
  *
  * @author  Martin Desruisseaux (IRD, Geomatys)
- * @version 0.4
+ * @version 1.0
  * @since   0.3
  * @module
  */
@@ -219,4 +223,50 @@ public final strictfp class WeakValueHashMapTest extends TestCase {
         assertSame(v2, weakMap.get(k2));
         assertSame(v3, weakMap.get(k3));
     }
+
+    /**
+     * Tests {@link WeakValueHashMap#computeIfAbsent(Object, java.util.function.Function)} invoked concurrently
+     * by many threads. Each key shall be associated to exactly one value, regardless which thread created it.
+     *
+     * @throws Exception if an error occurred in a worker thread, or if the test has been interrupted.
+     *
+     * @since 1.0
+     */
+    @Test
+    @DependsOnMethod("testStrongReferences")
+    public void testConcurrentComputeIfAbsent() throws Exception {
+        final WeakValueHashMap<Integer,Integer> weakMap = new WeakValueHashMap<>(Integer.class);
+        final Integer[] values = new Integer[SAMPLE_SIZE];          // Strong references to the values.
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            @SuppressWarnings({"unchecked","rawtypes"})
+            final Future<Integer[]>[] tasks = new Future[8];
+            for (int t=0; t<tasks.length; t++) {
+                tasks[t] = executor.submit(() -> {
+                    final Integer[] created = new Integer[SAMPLE_SIZE];
+                    for (int i=0; i<SAMPLE_SIZE; i++) {
+                        created[i] = weakMap.computeIfAbsent(i, (k) -> new Integer(k * 10));
+                    }
+                    return created;
+                });
+            }
+            for (final Future<Integer[]> task : tasks) {
+                final Integer[] created = task.get();
+                for (int i=0; i<SAMPLE_SIZE; i++) {
+                    if (values[i] == null) {
+                        values[i] = created[i];
+                        assertEquals(i * 10, values[i].intValue());
+                    } else {
+                        assertSame("Two threads created a value for the same key.", values[i], created[i]);
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        }
+        assertEquals(SAMPLE_SIZE, weakMap.size());
+        assertNull(weakMap.computeIfAbsent(SAMPLE_SIZE, (k) -> null));
+        assertEquals(SAMPLE_SIZE, weakMap.size());
+    }
 }
@@ -45,7 +45,7 @@ import org.apache.sis.math.Vector;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.0
  * @since   0.3
  * @module
  */
@@ -451,6 +451,25 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
      */
     @Override
     public Vector read(int[] areaLower, int[] areaUpper, int[] subsampling) throws IOException, DataStoreException {
+        return Vector.create(read(areaLower, areaUpper, subsampling, null, 0), dataType.isUnsigned);
+    }
+
+    /**
+     * Reads a sub-sampled sub-area of the variable in the given array of a Java primitive type.
+     * This method avoids the creation of a new array on each invocation, which is useful for
+     * repeated small read operations such as the extraction of time series.
+     *
+     * @param  areaLower    index of the first value to read along each dimension, as unsigned integers.
+     * @param  areaUpper    index after the last value to read along each dimension, as unsigned integers.
+     * @param  subsampling  sub-sampling along each dimension. 1 means no sub-sampling.
+     * @param  destination  the array where to store the values, or {@code null} for creating a new array.
+     * @param  offset       index of the first element to write in the destination array.
+     * @return the destination array, or a new array if {@code destination} was null.
+     * @throws ClassCastException if the given array is not of the primitive type of this variable.
+     */
+    public Object read(int[] areaLower, int[] areaUpper, int[] subsampling, final Object destination, final int offset)
+            throws IOException, DataStoreException
+    {
         if (reader == null) {
             throw new DataStoreContentException(unknownType());
         }
@@ -485,7 +504,7 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
             sub  [i] = subsampling[j];
             size [i] = dimensions[j].length();
         }
-        return Vector.create(reader.read(new Region(size, lower, upper, sub)), dataType.isUnsigned);
+        return reader.read(new Region(size, lower, upper, sub), destination, offset);
     }
 
     /**
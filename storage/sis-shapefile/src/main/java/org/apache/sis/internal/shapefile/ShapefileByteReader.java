@@ -17,6 +17,7 @@
 package org.apache.sis.internal.shapefile;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
@@ -39,7 +40,7 @@ import com.esri.core.geometry.*;
  * Reader of a Shapefile Binary content by the way of a {@link java.nio.MappedByteBuffer}
  *
  * @author  Marc Le Bihan
- * @version 0.5
+ * @version 1.0
  * @since   0.5
  * @module
  */
@@ -59,11 +60,11 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
     /** Shapefile index. */
     private File shapeFileIndex;
 
-    /** Shapefile indexes (loaded from .SHX file, if any found). */
-    private ArrayList<Integer> indexes;
+    /** Shapefile indexes (loaded from .SHX file if any found, or computed from the records headers), in 16 bits words. */
+    private int[] indexes;
 
-    /** Shapefile records lengths (loaded from .SHX file, if any found). */
-    private ArrayList<Integer> recordsLengths;
+    /** Shapefile records lengths (loaded from .SHX file, if any found), in 16 bits words. */
+    private int[] recordsLengths;
 
     /**
      * Construct a shapefile byte reader.
@@ -162,23 +163,25 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
                 int fsize = (int)fc.size();
                 MappedByteBuffer indexesByteBuffer = fc.map(FileChannel.MapMode.READ_ONLY, 0, fsize);
 
-                // Indexes entries follow.
-                this.indexes = new ArrayList<>();
-                this.recordsLengths = new ArrayList<>();
+                // Indexes entries follow : 8 bytes per record.
+                int count = Math.max(0, (fsize - 100) / 8);
+                this.indexes = new int[count];
+                this.recordsLengths = new int[count];
                 indexesByteBuffer.position(100);
                 indexesByteBuffer.order(ByteOrder.BIG_ENDIAN);
 
-                while(indexesByteBuffer.hasRemaining()) {
-                    this.indexes.add(indexesByteBuffer.getInt());        // Data offset : the position of the record in the main shapefile, expressed in words (16 bits).
-                    this.recordsLengths.add(indexesByteBuffer.getInt()); // Length of this shapefile record.
+                for(int index=0; index < count; index ++) {
+                    this.indexes[index] = indexesByteBuffer.getInt();        // Data offset : the position of the record in the main shapefile, expressed in words (16 bits).
+                    this.recordsLengths[index] = indexesByteBuffer.getInt(); // Length of this shapefile record.
                 }
 
-                log(Level.INFO, "log.index_has_been_read", this.shapeFileIndex.getAbsolutePath(), this.indexes.size(), this.getFile().getAbsolutePath());
+                log(Level.INFO, "log.index_has_been_read", this.shapeFileIndex.getAbsolutePath(), this.indexes.length, this.getFile().getAbsolutePath());
                 return true;
             }
             catch(IOException e) {
                 log(Level.WARNING, "log.invalid_file_content_for_shapefile_index", this.shapeFileIndex.getAbsolutePath(), e.getMessage());
                 this.shapeFileIndex = null;
+                this.indexes = null; // Partially read : the positions will be computed from the records headers.
                 return false;
             }
         }
@@ -218,26 +221,109 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
         }
     }
 
+    /**
+     * Returns the positions of all records in the shapefile, in 16 bits words as in the shapefile index.
+     * If no shapefile index has been given, the positions are computed by walking through the records headers.
+     * @return Records positions. This array is shared and shall not be modified.
+     */
+    public synchronized int[] getRecordsPositions() {
+        if (this.indexes == null) {
+            ByteBuffer buffer = getByteBuffer().duplicate();
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            int[] positions = new int[64];
+            int count = 0;
+            int position = 100; // Records start after the 100 bytes of the main file header.
+
+            while(position + 8 <= buffer.limit()) {
+                if (count == positions.length) {
+                    positions = Arrays.copyOf(positions, count * 2);
+                }
+
+                int contentLength = buffer.getInt(position + 4); // In words (16 bits).
+
+                if (contentLength < 0) {
+                    break; // Corrupted record header : keep the records read so far.
+                }
+
+                positions[count++] = position / 2;
+                position += 8 + contentLength * 2;
+            }
+
+            this.indexes = Arrays.copyOf(positions, count);
+        }
+
+        return this.indexes;
+    }
+
+    /**
+     * Read the bounding box of a record from its header, without decoding its geometry.
+     * Points have an empty bounding box made of their coordinates.
+     * @param recordIndex Record index, starting at 0.
+     * @param buffer Buffer to read, which may be a duplicate of the mapped buffer. Its position is not changed.
+     * @param bounds Array of length 4 receiving xmin, ymin, xmax, ymax.
+     * @return false if the record is a null shape, and has no bounding box.
+     * @throws InvalidShapefileFormatException if the shape type of the record isn't known.
+     */
+    public boolean getRecordBounds(int recordIndex, ByteBuffer buffer, double[] bounds) throws InvalidShapefileFormatException {
+        int position = getRecordsPositions()[recordIndex] * 2 + 8; // Skip the record number and content length.
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        try {
+            int iShapeType = buffer.getInt(position);
+            ShapeTypeEnum type = ShapeTypeEnum.get(iShapeType);
+
+            if (type == null) {
+                throw new InvalidShapefileFormatException(MessageFormat.format("The shape type {0} of the record {1} doesn''t match to any known feature type.", iShapeType, recordIndex + 1));
+            }
+
+            switch(type) {
+                case NullShape:
+                    return false;
+
+                case Point:
+                case PointZ:
+                case PointM:
+                    bounds[0] = bounds[2] = buffer.getDouble(position + 4);
+                    bounds[1] = bounds[3] = buffer.getDouble(position + 12);
+                    return true;
+
+                default:
+                    // Every other shape type begins by its bounding box.
+                    for(int index=0; index < 4; index ++) {
+                        bounds[index] = buffer.getDouble(position + 4 + index * 8);
+                    }
+
+                    return true;
+            }
+        }
+        finally {
+            buffer.order(ByteOrder.BIG_ENDIAN);
+        }
+    }
+
     /**
      * Direct access to a feature by its record number.
+     * The records positions are read from the shapefile index if any, or computed from the records headers otherwise.
      * @param recordNumber Record number.
-     * @throws SQLNoDirectAccessAvailableException if this shape file doesn't allow direct acces, because it has no index.
      * @throws SQLInvalidRecordNumberForDirectAccessException if the record number asked for is invalid (below the start, after the end).
+     * @see #getRecordsPositions()
      */
-    public void setRowNum(int recordNumber) throws SQLNoDirectAccessAvailableException, SQLInvalidRecordNumberForDirectAccessException {
+    public void setRowNum(int recordNumber) throws SQLInvalidRecordNumberForDirectAccessException {
         // Check that the asked record number is not before the first.
         if (recordNumber < 1) {
             String message = format(Level.SEVERE, "excp.wrong_direct_access_before_start", recordNumber, getFile().getAbsolutePath());
             throw new SQLInvalidRecordNumberForDirectAccessException(recordNumber, message);
         }
 
-        // Check that the shapefile allows direct access : it won't if it has no index.
-        if (this.shapeFileIndex == null) {
-            String message = format(Level.SEVERE, "excp.no_direct_access", getFile().getAbsolutePath());
-            throw new SQLNoDirectAccessAvailableException(message);
+        int[] positions = getRecordsPositions();
+
+        // Check that the asked record number is not after the last.
+        if (recordNumber > positions.length) {
+            String message = format(Level.SEVERE, "excp.wrong_direct_access_after_last", recordNumber, getFile().getAbsolutePath());
+            throw new SQLInvalidRecordNumberForDirectAccessException(recordNumber, message);
         }
 
-        int position = this.indexes.get(recordNumber - 1) * 2; // Indexes unit are words (16 bits).
+        int position = positions[recordNumber - 1] * 2; // Indexes unit are words (16 bits).
 
         // Check that the asked record number is not after the last.
         if (position >= this.getByteBuffer().capacity()) {
@@ -260,13 +346,26 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
      * @throws InvalidShapefileFormatException if a validation problem occurs.
      */
     public void completeFeature(AbstractFeature feature) throws InvalidShapefileFormatException {
+        completeFeature(feature, getByteBuffer());
+    }
+
+    /**
+     * Complete a feature with the shapefile record at the current position of the given buffer.
+     * The buffer may be a duplicate of the {@linkplain #getByteBuffer() mapped buffer}, for reading
+     * many records concurrently. After this method call, the buffer is positioned after the record.
+     * @param feature Feature to complete.
+     * @param buffer Buffer positioned on the header of the record to read.
+     * @throws InvalidShapefileFormatException if a validation problem occurs.
+     */
+    public void completeFeature(AbstractFeature feature, ByteBuffer buffer) throws InvalidShapefileFormatException {
+        buffer.order(ByteOrder.BIG_ENDIAN);
         // insert points into some type of list
-        int RecordNumber = getByteBuffer().getInt();
+        int RecordNumber = buffer.getInt();
         @SuppressWarnings("unused")
-        int ContentLength = getByteBuffer().getInt();
+        int ContentLength = buffer.getInt();
 
-        getByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
-        int iShapeType = getByteBuffer().getInt();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int iShapeType = buffer.getInt();
 
         ShapeTypeEnum type = ShapeTypeEnum.get(iShapeType);
 
@@ -275,31 +374,32 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
 
         switch (type) {
             case Point:
-                loadPointFeature(feature);
+                loadPointFeature(feature, buffer);
                 break;
 
             case Polygon:
-                loadPolygonFeature(feature);
+                loadPolygonFeature(feature, buffer);
                 break;
 
             case PolyLine:
-                loadPolylineFeature(feature);
+                loadPolylineFeature(feature, buffer);
                 break;
 
             default:
                 throw new InvalidShapefileFormatException("Unsupported shapefile type: " + iShapeType);
         }
 
-        getByteBuffer().order(ByteOrder.BIG_ENDIAN);
+        buffer.order(ByteOrder.BIG_ENDIAN);
     }
 
     /**
      * Load point feature.
      * @param feature Feature to fill.
+     * @param buffer Buffer positioned on the record content.
      */
-    private void loadPointFeature(AbstractFeature feature) {
-        double x = getByteBuffer().getDouble();
-        double y = getByteBuffer().getDouble();
+    private void loadPointFeature(AbstractFeature feature, ByteBuffer buffer) {
+        double x = buffer.getDouble();
+        double y = buffer.getDouble();
         Point pnt = new Point(x, y);
         feature.setPropertyValue(GEOMETRY_NAME, pnt);
     }
@@ -307,14 +407,15 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
     /**
      * Load polygon feature.
      * @param feature Feature to fill.
+     * @param buffer Buffer positioned on the record content.
      */
-    private void loadPolygonFeature(AbstractFeature feature) {
-        /* double xmin = */getByteBuffer().getDouble();
-        /* double ymin = */getByteBuffer().getDouble();
-        /* double xmax = */getByteBuffer().getDouble();
-        /* double ymax = */getByteBuffer().getDouble();
-        int numParts = getByteBuffer().getInt();
-        int numPoints = getByteBuffer().getInt();
+    private void loadPolygonFeature(AbstractFeature feature, ByteBuffer buffer) {
+        /* double xmin = */buffer.getDouble();
+        /* double ymin = */buffer.getDouble();
+        /* double xmax = */buffer.getDouble();
+        /* double ymax = */buffer.getDouble();
+        int numParts = buffer.getInt();
+        int numPoints = buffer.getInt();
 
         Polygon poly;
 
@@ -324,15 +425,15 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
 
             if (log.isLoggable(Level.FINER)) {
                 String format = "Polygon with multiple linear rings encountered at position {0,number} with {1,number} parts.";
-                String message = MessageFormat.format(format, getByteBuffer().position(), numParts);
+                String message = MessageFormat.format(format, buffer.position(), numParts);
                 log.finer(message);
             }
 
-            poly = readMultiplePolygonParts(numParts, numPoints);
+            poly = readMultiplePolygonParts(numParts, numPoints, buffer);
         }
         else {
             // Polygon with an unique part.
-            poly = readUniquePolygonPart(numPoints);
+            poly = readUniquePolygonPart(numPoints, buffer);
         }
 
         feature.setPropertyValue(GEOMETRY_NAME, poly);
@@ -341,22 +442,23 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
     /**
      * Read a polygon that has a unique part.
      * @param numPoints Number of the points of the polygon.
+     * @param buffer Buffer positioned on the polygon part.
      * @return Polygon.
      */
     @Deprecated // As soon as the readMultiplePolygonParts method proofs working well, this readUniquePolygonPart method can be removed and all calls be deferred to readMultiplePolygonParts.
-    private Polygon readUniquePolygonPart(int numPoints) {
-        /*int part = */ getByteBuffer().getInt();
+    private Polygon readUniquePolygonPart(int numPoints, ByteBuffer buffer) {
+        /*int part = */ buffer.getInt();
         Polygon poly = new Polygon();
 
         // create a line from the points
-        double xpnt = getByteBuffer().getDouble();
-        double ypnt = getByteBuffer().getDouble();
+        double xpnt = buffer.getDouble();
+        double ypnt = buffer.getDouble();
 
         poly.startPath(xpnt, ypnt);
 
         for (int j = 0; j < numPoints - 1; j++) {
-            xpnt = getByteBuffer().getDouble();
-            ypnt = getByteBuffer().getDouble();
+            xpnt = buffer.getDouble();
+            ypnt = buffer.getDouble();
             poly.lineTo(xpnt, ypnt);
         }
 
@@ -367,9 +469,10 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
      * Read a polygon that has multiple parts.
      * @param numParts Number of parts of this polygon.
      * @param numPoints Total number of points of this polygon, all parts considered.
+     * @param buffer Buffer positioned on the polygon parts.
      * @return a multiple part polygon.
      */
-    private Polygon readMultiplePolygonParts(int numParts, int numPoints) {
+    private Polygon readMultiplePolygonParts(int numParts, int numPoints, ByteBuffer buffer) {
         /**
          * From ESRI Specification :
          * Parts : 0 5  (meaning : 0 designs the first v1, 5 designs the first v5 on the points list below).
@@ -387,7 +490,7 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
 
         // Read all the parts indexes (starting at byte 44).
         for(int index=0; index < numParts; index ++) {
-            partsIndexes[index] = getByteBuffer().getInt();
+            partsIndexes[index] = buffer.getInt();
         }
 
         // Read all the points.
@@ -395,8 +498,8 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
         double[] yPoints = new double[numPoints];
 
         for(int index=0; index < numPoints; index ++) {
-            xPoints[index] = getByteBuffer().getDouble();
-            yPoints[index] = getByteBuffer().getDouble();
+            xPoints[index] = buffer.getDouble();
+            yPoints[index] = buffer.getDouble();
         }
 
         // Create the polygon from the points.
@@ -428,20 +531,21 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
     /**
      * Load polyline feature.
      * @param feature Feature to fill.
+     * @param buffer Buffer positioned on the record content.
      */
-    private void loadPolylineFeature(AbstractFeature feature) {
-        /* double xmin = */getByteBuffer().getDouble();
-        /* double ymin = */getByteBuffer().getDouble();
-        /* double xmax = */getByteBuffer().getDouble();
-        /* double ymax = */getByteBuffer().getDouble();
+    private void loadPolylineFeature(AbstractFeature feature, ByteBuffer buffer) {
+        /* double xmin = */buffer.getDouble();
+        /* double ymin = */buffer.getDouble();
+        /* double xmax = */buffer.getDouble();
+        /* double ymax = */buffer.getDouble();
 
-        int NumParts = getByteBuffer().getInt();
-        int NumPoints = getByteBuffer().getInt();
+        int NumParts = buffer.getInt();
+        int NumPoints = buffer.getInt();
 
         int[] NumPartArr = new int[NumParts + 1];
 
         for (int n = 0; n < NumParts; n++) {
-            int idx = getByteBuffer().getInt();
+            int idx = buffer.getInt();
             NumPartArr[n] = idx;
         }
         NumPartArr[NumParts] = NumPoints;
@@ -450,13 +554,13 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
         Polyline ply = new Polyline();
 
         for (int m = 0; m < NumParts; m++) {
-            xpnt = getByteBuffer().getDouble();
-            ypnt = getByteBuffer().getDouble();
+            xpnt = buffer.getDouble();
+            ypnt = buffer.getDouble();
             ply.startPath(xpnt, ypnt);
 
             for (int j = NumPartArr[m]; j < NumPartArr[m + 1] - 1; j++) {
-                xpnt = getByteBuffer().getDouble();
-                ypnt = getByteBuffer().getDouble();
+                xpnt = buffer.getDouble();
+                ypnt = buffer.getDouble();
                 ply.lineTo(xpnt, ypnt);
             }
         }
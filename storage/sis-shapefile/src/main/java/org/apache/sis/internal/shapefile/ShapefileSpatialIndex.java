@@ -0,0 +1,513 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.shapefile;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.text.MessageFormat;
+import java.util.Arrays;
+
+import org.apache.sis.storage.shapefile.InvalidShapefileFormatException;
+
+
+/**
+ * Quadtree over the records bounding boxes of a shapefile, stored in a sidecar file.
+ * The file layout is the one of the {@code .qix} files written by the shapelib and MapServer {@code shptree} tools,
+ * so indexes created by those tools can be used here, and conversely :
+ *
+ * <ul>
+ *   <li>A 16 bytes header : the {@code "SQT"} signature, the byte order (1 for little endian, 2 for big endian),
+ *       the version (1), 3 reserved bytes, then the number of shapes and the tree depth as integers.</li>
+ *   <li>The nodes in depth-first order. Each node is made of the size in bytes of all its descendants,
+ *       its bounding box (xmin, ymin, xmax, ymax as doubles), the number of shapes it holds followed by their
+ *       record indexes (starting at 0), then its number of children.</li>
+ * </ul>
+ *
+ * Queries are executed directly on the mapped file : subtrees that don't intersect the region of interest are skipped
+ * using the size of their descendants, so only the visited nodes are read.
+ * The candidates returned may not intersect the region of interest : their own bounding box has to be checked.
+ *
+ * <div class="warning">This is an experimental class,
+ * not yet target for any Apache SIS release at this time.</div>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public class ShapefileSpatialIndex {
+    /** Signature at the beginning of the file. */
+    private static final byte[] SIGNATURE = {'S', 'Q', 'T'};
+
+    /** Byte order flag for little endian files. */
+    private static final byte LSB_ORDER = 1;
+
+    /** Byte order flag for big endian files. */
+    private static final byte MSB_ORDER = 2;
+
+    /** Version of the file format. */
+    private static final byte VERSION = 1;
+
+    /** Length of the file header, in bytes. */
+    private static final int HEADER_LENGTH = 16;
+
+    /**
+     * Ratio of the width and height of a node covered by each of its children. The children overlap, as in shapelib,
+     * so that small shapes lying on the middle of a node can still be stored deeper in the tree.
+     */
+    private static final double SPLIT_RATIO = 0.55;
+
+    /** Length of a node without its shapes : offset, bounding box, shapes count and children count. */
+    private static final int NODE_LENGTH = 4 + 4*8 + 4 + 4;
+
+    /** Index file content. */
+    private final ByteBuffer buffer;
+
+    /** Number of shapes in the indexed shapefile. */
+    private final int shapeCount;
+
+    /** Depth of the tree. */
+    private final int depth;
+
+    /**
+     * Open a spatial index.
+     * @param file Index file.
+     * @throws IOException if the file cannot be read.
+     * @throws InvalidShapefileFormatException if the file is not a spatial index of a supported version.
+     */
+    public ShapefileSpatialIndex(File file) throws IOException, InvalidShapefileFormatException {
+        try(FileInputStream fis = new FileInputStream(file); FileChannel fc = fis.getChannel()) {
+            this.buffer = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+        }
+
+        if (this.buffer.limit() < HEADER_LENGTH || this.buffer.get(0) != SIGNATURE[0] || this.buffer.get(1) != SIGNATURE[1] || this.buffer.get(2) != SIGNATURE[2]) {
+            throw new InvalidShapefileFormatException(MessageFormat.format("The file {0} is not a shapefile spatial index.", file.getAbsolutePath()));
+        }
+
+        switch(this.buffer.get(3)) {
+            case LSB_ORDER:
+                this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+                break;
+
+            case MSB_ORDER:
+                this.buffer.order(ByteOrder.BIG_ENDIAN);
+                break;
+
+            default:
+                throw new InvalidShapefileFormatException(MessageFormat.format("The spatial index {0} has an unknown byte order : {1}.", file.getAbsolutePath(), this.buffer.get(3)));
+        }
+
+        if (this.buffer.get(4) != VERSION) {
+            throw new InvalidShapefileFormatException(MessageFormat.format("The spatial index {0} has the unsupported version {1}.", file.getAbsolutePath(), this.buffer.get(4)));
+        }
+
+        this.shapeCount = this.buffer.getInt(8);
+        this.depth = this.buffer.getInt(12);
+    }
+
+    /**
+     * Returns the number of shapes of the shapefile, at the time the index has been created.
+     * @return Number of shapes.
+     */
+    public int getShapeCount() {
+        return this.shapeCount;
+    }
+
+    /**
+     * Returns the depth of the tree.
+     * @return Tree depth.
+     */
+    public int getDepth() {
+        return this.depth;
+    }
+
+    /**
+     * Returns the index of the records whose bounding box may intersect the given region.
+     * @param xmin Minimal x of the region of interest.
+     * @param ymin Minimal y of the region of interest.
+     * @param xmax Maximal x of the region of interest.
+     * @param ymax Maximal y of the region of interest.
+     * @return Records indexes (starting at 0), in increasing order.
+     * @throws InvalidShapefileFormatException if the tree is corrupted.
+     */
+    public int[] query(double xmin, double ymin, double xmax, double ymax) throws InvalidShapefileFormatException {
+        ByteBuffer tree = this.buffer.duplicate().order(this.buffer.order());
+        Candidates candidates = new Candidates();
+
+        try {
+            search(tree, HEADER_LENGTH, tree.limit(), new double[] {xmin, ymin, xmax, ymax}, candidates);
+        }
+        catch(IndexOutOfBoundsException e) {
+            throw new InvalidShapefileFormatException("The shapefile spatial index is corrupted : " + e.getMessage(), e);
+        }
+
+        int[] ids = Arrays.copyOf(candidates.ids, candidates.count);
+        Arrays.sort(ids);
+
+        // Remove the duplicated values, if the index writer has put some shapes in many nodes.
+        int count = 0;
+
+        for(int index=0; index < ids.length; index ++) {
+            if (count == 0 || ids[count - 1] != ids[index]) {
+                ids[count++] = ids[index];
+            }
+        }
+
+        return (count == ids.length) ? ids : Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * Search the candidates in a node and its descendants.
+     * The sizes read from the node are checked against the bounds of its parent node before being used,
+     * so a corrupted index cannot make the search jump outside the subtree or loop over the same nodes.
+     * @param tree Index content.
+     * @param position Position of the node.
+     * @param limit Position after the parent node and its descendants, or the end of the file for the root node.
+     * @param region Region of interest : xmin, ymin, xmax, ymax.
+     * @param candidates List where to add the candidates.
+     * @return Position after the node and its descendants.
+     * @throws InvalidShapefileFormatException if the node does not fit in its parent node, or holds invalid record indexes.
+     */
+    private int search(ByteBuffer tree, int position, int limit, double[] region, Candidates candidates) throws InvalidShapefileFormatException {
+        if (limit - position < NODE_LENGTH) {
+            throw corrupted(MessageFormat.format("the node at {0} exceeds the end of its parent at {1}", position, limit));
+        }
+
+        int descendantsLength = tree.getInt(position);
+        int count = tree.getInt(position + 36);
+
+        if (count < 0 || count > (limit - position - NODE_LENGTH) / 4) {
+            throw corrupted(MessageFormat.format("the node at {0} has an invalid number of shapes : {1}", position, count));
+        }
+
+        int children = position + 40 + count * 4;
+
+        if (descendantsLength < 0 || descendantsLength > limit - children - 4) {
+            throw corrupted(MessageFormat.format("the node at {0} has an invalid descendants length : {1}", position, descendantsLength));
+        }
+
+        int end = children + 4 + descendantsLength;
+
+        if (tree.getDouble(position + 4) > region[2] || tree.getDouble(position + 20) < region[0]
+         || tree.getDouble(position + 12) > region[3] || tree.getDouble(position + 28) < region[1]) {
+            return end;
+        }
+
+        for(int index=0; index < count; index ++) {
+            int id = tree.getInt(position + 40 + index * 4);
+
+            if (id < 0 || id >= this.shapeCount) {
+                throw corrupted(MessageFormat.format("the node at {0} references the record {1} of {2}", position, id, this.shapeCount));
+            }
+
+            candidates.add(id);
+        }
+
+        int childrenCount = tree.getInt(children);
+
+        if (childrenCount < 0 || childrenCount > descendantsLength / NODE_LENGTH) {
+            throw corrupted(MessageFormat.format("the node at {0} has an invalid number of children : {1}", position, childrenCount));
+        }
+
+        int child = children + 4;
+
+        for(int index=0; index < childrenCount; index ++) {
+            child = search(tree, child, end, region, candidates);
+        }
+
+        if (child != end) {
+            throw corrupted(MessageFormat.format("the children of the node at {0} end at {1} instead of {2}", position, child, end));
+        }
+
+        return end;
+    }
+
+    /**
+     * Returns the exception to throw for a corrupted index.
+     * @param reason Description of the problem.
+     * @return Exception to throw.
+     */
+    private static InvalidShapefileFormatException corrupted(String reason) {
+        return new InvalidShapefileFormatException("The shapefile spatial index is corrupted : " + reason + ".");
+    }
+
+    /**
+     * Returns the default depth of a tree for the given number of shapes,
+     * computed in the same way than shapelib : about 8 shapes in each leaf of a balanced tree.
+     * @param shapeCount Number of shapes.
+     * @return Tree depth.
+     */
+    public static int getDefaultDepth(int shapeCount) {
+        int depth = 0;
+        long maxNodeCount = 1;
+
+        while(maxNodeCount * 4 < shapeCount) {
+            depth ++;
+            maxNodeCount *= 2;
+        }
+
+        return Math.max(depth, 1);
+    }
+
+    /**
+     * Create a spatial index over the records of a shapefile, with the default depth.
+     * @param reader Shapefile reader.
+     * @param file Index file to create or replace.
+     * @throws IOException if the index cannot be written.
+     * @throws InvalidShapefileFormatException if a record has an unknown shape type.
+     */
+    public static void write(ShapefileByteReader reader, File file) throws IOException, InvalidShapefileFormatException {
+        write(reader, file, getDefaultDepth(reader.getRecordsPositions().length));
+    }
+
+    /**
+     * Create a spatial index over the records of a shapefile.
+     * Each shape is stored in the deepest node whose bounding box fully contains its own bounding box.
+     * Null shapes are not indexed.
+     * @param reader Shapefile reader.
+     * @param file Index file to create or replace.
+     * @param depth Tree depth, 1 for a single node.
+     * @throws IOException if the index cannot be written.
+     * @throws InvalidShapefileFormatException if a record has an unknown shape type.
+     */
+    public static void write(ShapefileByteReader reader, File file, int depth) throws IOException, InvalidShapefileFormatException {
+        if (depth < 1) {
+            throw new IllegalArgumentException(MessageFormat.format("The depth of a spatial index cannot be {0}.", depth));
+        }
+
+        int shapeCount = reader.getRecordsPositions().length;
+        ByteBuffer shapes = reader.getByteBuffer().duplicate();
+
+        // Read the bounding boxes of all records from their headers, and their extent.
+        double[] bounds = new double[shapeCount * 4];
+        boolean[] hasBounds = new boolean[shapeCount];
+        double[] extent = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        double[] record = new double[4];
+
+        for(int index=0; index < shapeCount; index ++) {
+            if (reader.getRecordBounds(index, shapes, record)) {
+                hasBounds[index] = true;
+                System.arraycopy(record, 0, bounds, index * 4, 4);
+                extent[0] = Math.min(extent[0], record[0]);
+                extent[1] = Math.min(extent[1], record[1]);
+                extent[2] = Math.max(extent[2], record[2]);
+                extent[3] = Math.max(extent[3], record[3]);
+            }
+        }
+
+        if (extent[0] > extent[2]) {
+            Arrays.fill(extent, 0); // No shape at all.
+        }
+
+        Node root = new Node(extent[0], extent[1], extent[2], extent[3]);
+
+        for(int index=0; index < shapeCount; index ++) {
+            if (hasBounds[index]) {
+                Node node = root;
+
+                for(int level=1; level < depth; level ++) {
+                    Node child = node.childContaining(bounds, index * 4);
+
+                    if (child == null) {
+                        break;
+                    }
+
+                    node = child;
+                }
+
+                node.add(index);
+            }
+        }
+
+        // Serialize the tree.
+        root.trim();
+        ByteBuffer out = ByteBuffer.allocate(HEADER_LENGTH + root.length() + root.descendantsLength());
+        out.order(ByteOrder.LITTLE_ENDIAN);
+        out.put(SIGNATURE).put(LSB_ORDER).put(VERSION).put(new byte[3]);
+        out.putInt(shapeCount).putInt(depth);
+        root.write(out);
+        out.flip();
+
+        try(FileOutputStream fos = new FileOutputStream(file); FileChannel fc = fos.getChannel()) {
+            while(out.hasRemaining()) {
+                fc.write(out);
+            }
+        }
+    }
+
+    /**
+     * Records indexes found by a query.
+     */
+    private static final class Candidates {
+        /** Records indexes. */
+        int[] ids = new int[64];
+
+        /** Number of valid values in {@link #ids}. */
+        int count;
+
+        /**
+         * Add a record index.
+         * @param id Record index.
+         */
+        void add(int id) {
+            if (this.count == this.ids.length) {
+                this.ids = Arrays.copyOf(this.ids, this.count * 2);
+            }
+
+            this.ids[this.count++] = id;
+        }
+    }
+
+    /**
+     * A node of the tree, while it is created.
+     */
+    private static final class Node {
+        /** Node bounding box. */
+        final double xmin, ymin, xmax, ymax;
+
+        /** Shapes stored in this node. */
+        final Candidates shapes = new Candidates();
+
+        /** Children nodes, in the order south-west, south-east, north-west, north-east, or null if none. */
+        Node[] children;
+
+        /**
+         * Create a node.
+         * @param xmin Minimal x.
+         * @param ymin Minimal y.
+         * @param xmax Maximal x.
+         * @param ymax Maximal y.
+         */
+        Node(double xmin, double ymin, double xmax, double ymax) {
+            this.xmin = xmin;
+            this.ymin = ymin;
+            this.xmax = xmax;
+            this.ymax = ymax;
+        }
+
+        /**
+         * Add a shape to this node.
+         * @param id Record index.
+         */
+        void add(int id) {
+            this.shapes.add(id);
+        }
+
+        /**
+         * Returns the first quadrant of this node fully containing the given bounding box, creating it if needed.
+         * @param bounds Bounding boxes of all records.
+         * @param offset Offset of the bounding box in the array.
+         * @return Child node, or null if no quadrant contains the bounding box.
+         */
+        Node childContaining(double[] bounds, int offset) {
+            double width = (this.xmax - this.xmin) * SPLIT_RATIO;
+            double height = (this.ymax - this.ymin) * SPLIT_RATIO;
+
+            for(int quadrant=0; quadrant < 4; quadrant ++) {
+                double x0 = (quadrant & 1) == 0 ? this.xmin : this.xmax - width;
+                double y0 = (quadrant & 2) == 0 ? this.ymin : this.ymax - height;
+                double x1 = (quadrant & 1) == 0 ? this.xmin + width : this.xmax;
+                double y1 = (quadrant & 2) == 0 ? this.ymin + height : this.ymax;
+
+                if (bounds[offset] >= x0 && bounds[offset + 2] <= x1 && bounds[offset + 1] >= y0 && bounds[offset + 3] <= y1) {
+                    if (this.children == null) {
+                        this.children = new Node[4];
+                    }
+
+                    if (this.children[quadrant] == null) {
+                        this.children[quadrant] = new Node(x0, y0, x1, y1);
+                    }
+
+                    return this.children[quadrant];
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Remove the children that don't hold any shape, directly or in their descendants.
+         * @return true if this node and its descendants hold no shape.
+         */
+        boolean trim() {
+            int count = 0;
+
+            if (this.children != null) {
+                for(Node child : this.children) {
+                    if (child != null && child.trim() == false) {
+                        this.children[count++] = child;
+                    }
+                }
+
+                this.children = (count == 0) ? null : Arrays.copyOf(this.children, count);
+            }
+
+            return count == 0 && this.shapes.count == 0;
+        }
+
+        /**
+         * Returns the length of this node in the file, without its descendants.
+         * @return Length in bytes.
+         */
+        int length() {
+            return NODE_LENGTH + this.shapes.count * 4;
+        }
+
+        /**
+         * Returns the length of the descendants of this node in the file.
+         * @return Length in bytes.
+         */
+        int descendantsLength() {
+            int length = 0;
+
+            if (this.children != null) {
+                for(Node child : this.children) {
+                    length += child.length() + child.descendantsLength();
+                }
+            }
+
+            return length;
+        }
+
+        /**
+         * Write this node and its descendants.
+         * @param out Buffer where to write the node.
+         */
+        void write(ByteBuffer out) {
+            out.putInt(descendantsLength());
+            out.putDouble(this.xmin).putDouble(this.ymin).putDouble(this.xmax).putDouble(this.ymax);
+            out.putInt(this.shapes.count);
+
+            for(int index=0; index < this.shapes.count; index ++) {
+                out.putInt(this.shapes.ids[index]);
+            }
+
+            out.putInt(this.children == null ? 0 : this.children.length);
+
+            if (this.children != null) {
+                for(Node child : this.children) {
+                    child.write(out);
+                }
+            }
+        }
+    }
+}
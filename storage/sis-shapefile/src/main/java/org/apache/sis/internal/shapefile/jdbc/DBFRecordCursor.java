@@ -0,0 +1,313 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.shapefile.jdbc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * A cursor over the records of a mapped DBF file. Fields are identified by their index (first field is 0)
+ * and are exposed as offsets in the mapped buffer, without copying their bytes in new arrays.
+ * Numeric values are parsed directly from the bytes, and character values are decoded only when requested.
+ *
+ * <p>The cursor shares the position of the buffer given at construction time: each call to {@link #next()}
+ * consumes one record from that buffer. A cursor is not thread-safe.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public final class DBFRecordCursor {
+    /**
+     * Powers of 10 which can be represented exactly by a {@code double}.
+     */
+    private static final double[] POWERS_OF_10 = {
+        1E0,  1E1,  1E2,  1E3,  1E4,  1E5,  1E6,  1E7,  1E8,  1E9,  1E10, 1E11,
+        1E12, 1E13, 1E14, 1E15, 1E16, 1E17, 1E18, 1E19, 1E20, 1E21, 1E22
+    };
+
+    /** The mapped buffer, shared with the byte reader. */
+    private final ByteBuffer buffer;
+
+    /** Offset of each field from the beginning of the record, including the deletion flag. */
+    private final int[] offsets;
+
+    /** Length of each field, in bytes. */
+    private final int[] lengths;
+
+    /** Number of bytes in a record, including the deletion flag. */
+    private final int recordSize;
+
+    /** The charset for decoding character fields, or {@code null} for the platform default. */
+    private final Charset charset;
+
+    /** Character values decoded for the current record, created when first requested. */
+    private final String[] strings;
+
+    /** Position in the buffer of the current record (its deletion flag), or -1 if none. */
+    private int recordStart;
+
+    /**
+     * Creates a new cursor over the records of the given buffer.
+     *
+     * @param buffer  the mapped DBF buffer, positioned on the first record.
+     * @param fields  the fields descriptors.
+     * @param charset the charset for decoding character fields, or {@code null} for the platform default.
+     */
+    DBFRecordCursor(final ByteBuffer buffer, final List<DBase3FieldDescriptor> fields, final Charset charset) {
+        this(buffer, lengths(fields), charset);
+    }
+
+    /**
+     * Creates a new cursor over the records of the given buffer, with fields of the given lengths.
+     *
+     * @param buffer  the DBF buffer, positioned on the first record.
+     * @param lengths the length of each field, in bytes.
+     * @param charset the charset for decoding character fields, or {@code null} for the platform default.
+     */
+    DBFRecordCursor(final ByteBuffer buffer, final int[] lengths, final Charset charset) {
+        this.buffer  = buffer;
+        this.charset = charset;
+        this.lengths = lengths;
+        final int n  = lengths.length;
+        offsets = new int[n];
+        int offset = 1;                         // Skip the deletion flag.
+        for (int i=0; i<n; i++) {
+            offsets[i] = offset;
+            offset += lengths[i];
+        }
+        recordSize  = offset;
+        strings     = new String[n];
+        recordStart = -1;
+    }
+
+    /**
+     * Returns the length in bytes of each of the given fields.
+     */
+    private static int[] lengths(final List<DBase3FieldDescriptor> fields) {
+        final int[] lengths = new int[fields.size()];
+        for (int i=0; i<lengths.length; i++) {
+            lengths[i] = fields.get(i).getLength();
+        }
+        return lengths;
+    }
+
+    /**
+     * Moves the cursor to the next record. Deleted records are not skipped.
+     *
+     * @return {@code true} if a record is available, or {@code false} on end of file.
+     */
+    public boolean next() {
+        final int position = buffer.position();
+        if (buffer.limit() - position < recordSize || buffer.get(position) == 0x1A) {
+            recordStart = -1;
+            return false;
+        }
+        buffer.position(position + recordSize);
+        recordStart = position;
+        Arrays.fill(strings, null);
+        return true;
+    }
+
+    /**
+     * Moves the cursor before the record at the given position in the buffer.
+     * The next call to {@link #next()} will read that record.
+     *
+     * @param  position  position of the record in the buffer, as given by {@link MappedByteReader#getRecordPosition(int)}.
+     */
+    public void seek(final int position) {
+        buffer.position(position);
+        recordStart = -1;
+    }
+
+    /**
+     * Returns the number of fields in each record.
+     *
+     * @return number of fields.
+     */
+    public int getFieldCount() {
+        return offsets.length;
+    }
+
+    /**
+     * Returns whether the current record is marked as deleted.
+     *
+     * @return {@code true} if the current record is deleted.
+     */
+    public boolean isDeleted() {
+        return buffer.get(record()) == '*';
+    }
+
+    /**
+     * Returns the position in the mapped buffer of the first byte of the given field in the current record.
+     *
+     * @param  index  the field index, starting at 0.
+     * @return position of the field value in the mapped buffer.
+     */
+    public int getFieldOffset(final int index) {
+        return record() + offsets[index];
+    }
+
+    /**
+     * Returns the length of the given field in the current record, ignoring trailing spaces.
+     *
+     * @param  index  the field index, starting at 0.
+     * @return number of significant bytes in the field value.
+     */
+    public int getFieldLength(final int index) {
+        final int start = getFieldOffset(index);
+        int end = start + lengths[index];
+        while (end > start && Byte.toUnsignedInt(buffer.get(end - 1)) <= ' ') {
+            end--;
+        }
+        return end - start;
+    }
+
+    /**
+     * Returns the value of the given field as a string, without trailing spaces.
+     * The string is decoded only on the first call for the current record.
+     *
+     * @param  index  the field index, starting at 0.
+     * @return the field value, which may be empty.
+     */
+    public String getString(final int index) {
+        String value = strings[index];
+        if (value == null) {
+            final int length = getFieldLength(index);
+            final byte[] bytes = new byte[length];
+            final ByteBuffer view = buffer.duplicate();
+            view.position(getFieldOffset(index));
+            view.get(bytes);
+            value = (charset != null) ? new String(bytes, charset) : new String(bytes);
+            strings[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Parses the value of the given field as an integer. Leading and trailing spaces are ignored.
+     *
+     * @param  index  the field index, starting at 0.
+     * @return the field value.
+     * @throws NumberFormatException if the field does not contain an integer.
+     */
+    public long getLong(final int index) throws NumberFormatException {
+        int i = getFieldOffset(index);
+        final int end = i + getFieldLength(index);
+        while (i < end && buffer.get(i) == ' ') i++;
+        boolean negative = false;
+        if (i < end) {
+            final byte c = buffer.get(i);
+            if (c == '-' || c == '+') {
+                negative = (c == '-');
+                i++;
+            }
+        }
+        if (i >= end) {
+            throw new NumberFormatException(getString(index));
+        }
+        long value = 0;                         // Accumulated as a negative number for allowing Long.MIN_VALUE.
+        do {
+            final int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9 || value < (Long.MIN_VALUE + digit) / 10) {
+                throw new NumberFormatException(getString(index));
+            }
+            value = value * 10 - digit;
+        } while (++i < end);
+        if (!negative) {
+            if (value == Long.MIN_VALUE) {
+                throw new NumberFormatException(getString(index));
+            }
+            value = -value;
+        }
+        return value;
+    }
+
+    /**
+     * Parses the value of the given field as a floating point number. Leading and trailing spaces are ignored.
+     * Values having at most 15 significant digits and a small exponent are parsed directly from the bytes;
+     * other values are delegated to {@link Double#parseDouble(String)}.
+     *
+     * @param  index  the field index, starting at 0.
+     * @return the field value.
+     * @throws NumberFormatException if the field does not contain a number.
+     */
+    public double getDouble(final int index) throws NumberFormatException {
+        int i = getFieldOffset(index);
+        final int end = i + getFieldLength(index);
+        while (i < end && buffer.get(i) == ' ') i++;
+        boolean negative = false;
+        if (i < end) {
+            final byte c = buffer.get(i);
+            if (c == '-' || c == '+') {
+                negative = (c == '-');
+                i++;
+            }
+        }
+        long    mantissa  = 0;
+        int     digits    = 0;                  // Number of significant digits in the mantissa.
+        int     exponent  = 0;                  // Decimal exponent to apply on the mantissa.
+        boolean hasDigit  = false;
+        boolean hasPoint  = false;
+        for (; i < end; i++) {
+            final byte c = buffer.get(i);
+            if (c >= '0' && c <= '9') {
+                hasDigit = true;
+                if (mantissa != 0 || c != '0') {
+                    if (++digits > 15) {
+                        return Double.parseDouble(getString(index));
+                    }
+                    mantissa = mantissa * 10 + (c - '0');
+                }
+                if (hasPoint) exponent--;
+            } else if (c == '.' && !hasPoint) {
+                hasPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (!hasDigit) {
+            throw new NumberFormatException(getString(index));
+        }
+        if (i < end) {
+            // Exponent, unusual in DBF files. Delegate to the standard parser for exactness.
+            return Double.parseDouble(getString(index).trim());
+        }
+        double value = mantissa;
+        if (exponent != 0) {
+            if (-exponent >= POWERS_OF_10.length) {
+                return Double.parseDouble(getString(index).trim());
+            }
+            value /= POWERS_OF_10[-exponent];   // Exact rounding since both operands are exact.
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Returns the position of the current record, making sure that there is one.
+     */
+    private int record() {
+        if (recordStart < 0) {
+            throw new IllegalStateException("No current record.");
+        }
+        return recordStart;
+    }
+}
@@ -20,7 +20,6 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.Date;
 import java.util.List;
-import java.util.Map;
 
 import org.apache.sis.internal.shapefile.jdbc.resultset.SQLIllegalColumnIndexException;
 import org.apache.sis.internal.shapefile.jdbc.resultset.SQLNoSuchFieldException;
@@ -123,8 +122,8 @@ public interface Dbase3ByteReader {
     public boolean nextRowAvailable();
 
     /**
-     * Read the next row as a set of objects.
-     * @return Map of field name / object value.
+     * Creates a cursor reading the records from the current position of this reader.
+     * @return Cursor over the records, sharing the position of this reader.
      */
-    public Map<String, byte[]> readNextRowAsObjects();
+    public DBFRecordCursor newRecordCursor();
 }
@@ -18,6 +18,7 @@ package org.apache.sis.internal.shapefile.jdbc;
 
 import java.io.File;
 import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.nio.charset.UnsupportedCharsetException;
@@ -33,7 +34,7 @@ import org.apache.sis.feature.AbstractFeature;
  * Reader of a Database Binary content by the way of a {@link java.nio.MappedByteBuffer}
  *
  * @author  Marc Le Bihan
- * @version 0.5
+ * @version 1.0
  * @since   0.5
  * @module
  */
@@ -131,43 +132,33 @@ public class MappedByteReader extends AbstractDbase3ByteReader implements AutoCl
     }
 
     /**
-     * Read the next row as a set of objects.
-     * @return Map of field name / object value.
+     * Creates a cursor reading the records from the current position of this reader.
+     * @return Cursor over the records, sharing the position of this reader.
      */
     @Override
-    public Map<String, byte[]> readNextRowAsObjects() {
-        // TODO: ignore deleted records
-        /* byte isDeleted = */ getByteBuffer().get(); // denotes whether deleted or current
-
-        // read first part of record
-        HashMap<String, byte[]> fieldsValues = new HashMap<>();
-
-        for (DBase3FieldDescriptor fd : this.fieldsDescriptors) {
-            byte[] data = new byte[fd.getLength()];
-            getByteBuffer().get(data);
-
-            // Trim the bytes right.
-            int length = data.length;
-
-            while (length != 0 && Byte.toUnsignedInt(data[length - 1]) <= ' ') {
-                length--;
-            }
-
-            if (length != data.length) {
-                byte[] dataTrimmed = new byte[length];
-
-                for(int index=0; index < length; index ++) {
-                    dataTrimmed[index] = data[index];
-                }
+    public DBFRecordCursor newRecordCursor() {
+        return new DBFRecordCursor(getByteBuffer(), this.fieldsDescriptors, this.charset);
+    }
 
-                fieldsValues.put(fd.getName(), dataTrimmed);
-            }
-            else {
-                fieldsValues.put(fd.getName(), data);
-            }
-        }
+    /**
+     * Creates a cursor reading the records from the given record, on its own duplicate of the mapped buffer.
+     * Many such cursors can be used concurrently by different threads, and do not change the position of this reader.
+     * @param recordIndex Index of the first record to read, starting at 0.
+     * @return Cursor over the records, independent of this reader position.
+     */
+    public DBFRecordCursor newRecordCursor(int recordIndex) {
+        ByteBuffer buffer = getByteBuffer().duplicate();
+        buffer.position(getRecordPosition(recordIndex));
+        return new DBFRecordCursor(buffer, this.fieldsDescriptors, this.charset);
+    }
 
-        return fieldsValues;
+    /**
+     * Returns the position of a record in the mapped buffer, for use with {@link DBFRecordCursor#seek(int)}.
+     * @param recordIndex Record index, starting at 0.
+     * @return Position of the record.
+     */
+    public int getRecordPosition(int recordIndex) {
+        return Short.toUnsignedInt(this.firstRecordPosition) + recordIndex * Short.toUnsignedInt(this.recordLength);
     }
 
     /**
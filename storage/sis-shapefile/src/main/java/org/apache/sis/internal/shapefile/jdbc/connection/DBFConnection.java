@@ -33,7 +33,7 @@ import org.apache.sis.internal.shapefile.jdbc.statement.DBFStatement;
 /**
  * Connection to a DBF database.
  * @author  Marc Le Bihan
- * @version 0.5
+ * @version 1.0
  * @since   0.5
  * @module
  */
@@ -311,11 +311,11 @@ public class DBFConnection extends AbstractConnection {
     }
 
     /**
-     * Read the next row as a set of objects.
-     * @return Map of field name / object value, or null if EoF has been encountered.
+     * Creates a cursor reading the records from the current position in the database file.
+     * @return Cursor over the records.
      */
-    public Map<String, byte[]> readNextRowAsObjects() {
-        return this.byteReader.readNextRowAsObjects();
+    public DBFRecordCursor newRecordCursor() {
+        return this.byteReader.newRecordCursor();
     }
 
     /**
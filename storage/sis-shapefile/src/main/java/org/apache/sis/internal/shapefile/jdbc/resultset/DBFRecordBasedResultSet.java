@@ -19,16 +19,14 @@ package org.apache.sis.internal.shapefile.jdbc.resultset;
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
-import java.nio.charset.Charset;
 import java.sql.Date;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLFeatureNotSupportedException;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
-import java.util.Map;
-import java.util.function.Function;
 import java.util.logging.Level;
 
+import org.apache.sis.internal.shapefile.jdbc.DBFRecordCursor;
 import org.apache.sis.internal.shapefile.jdbc.SQLConnectionClosedException;
 import org.apache.sis.internal.shapefile.jdbc.connection.DBFConnection;
 import org.apache.sis.internal.shapefile.jdbc.metadata.DBFResultSetMataData;
@@ -40,8 +38,8 @@ import org.apache.sis.internal.shapefile.jdbc.statement.DBFStatement;
  * @author Marc LE BIHAN
  */
 public class DBFRecordBasedResultSet extends DBFResultSet {
-    /** The current record. */
-    private Map<String, byte[]> record;
+    /** Cursor on the current record, created when the first record is read. */
+    private DBFRecordCursor record;
 
     /** Condition of where clause (currently, only one is handled). */
     private ConditionalClauseResolver singleConditionOfWhereClause;
@@ -202,7 +200,7 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
     public double getDouble(String columnLabel) throws SQLConnectionClosedException, SQLNoSuchFieldException, SQLNotNumericException {
         logStep("getDouble", columnLabel);
 
-        Double value = getNumeric(columnLabel, Double::parseDouble);
+        Double value = getDecimal(columnLabel);
         this.wasNull = (value == null);
         return value != null ? value : 0.0; // The ResultSet contract for numbers is to return 0 when a null value is encountered.
     }
@@ -230,9 +228,9 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
     public float getFloat(String columnLabel) throws SQLConnectionClosedException, SQLNoSuchFieldException, SQLNotNumericException {
         logStep("getFloat", columnLabel);
 
-        Float value = getNumeric(columnLabel, Float::parseFloat);
+        Double value = getDecimal(columnLabel);
         this.wasNull = (value == null);
-        return value != null ? value : 0; // The ResultSet contract for numbers is to return 0 when a null value is encountered.
+        return value != null ? value.floatValue() : 0; // The ResultSet contract for numbers is to return 0 when a null value is encountered.
     }
 
     /**
@@ -258,9 +256,9 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
     public int getInt(String columnLabel) throws SQLConnectionClosedException, SQLNoSuchFieldException, SQLNotNumericException {
         logStep("getInt", columnLabel);
 
-        Integer value = getNumeric(columnLabel, Integer::parseInt);
+        Long value = getIntegral(columnLabel, Integer.MIN_VALUE, Integer.MAX_VALUE);
         this.wasNull = (value == null);
-        return value != null ? value : 0; // The ResultSet contract for numbers is to return 0 when a null value is encountered.
+        return value != null ? value.intValue() : 0; // The ResultSet contract for numbers is to return 0 when a null value is encountered.
     }
 
     /**
@@ -286,7 +284,7 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
     public long getLong(String columnLabel) throws SQLConnectionClosedException, SQLNoSuchFieldException, SQLNotNumericException {
         logStep("getLong", columnLabel);
 
-        Long value = getNumeric(columnLabel, Long::parseLong);
+        Long value = getIntegral(columnLabel, Long.MIN_VALUE, Long.MAX_VALUE);
         this.wasNull = (value == null);
         return value != null ? value : 0; // The ResultSet contract for numbers is to return 0 when a null value is encountered.
     }
@@ -425,9 +423,9 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
     public short getShort(String columnLabel) throws SQLConnectionClosedException, SQLNoSuchFieldException, SQLNotNumericException {
         logStep("getShort", columnLabel);
 
-        Short value = getNumeric(columnLabel, Short::parseShort);
+        Long value = getIntegral(columnLabel, Short.MIN_VALUE, Short.MAX_VALUE);
         this.wasNull = (value == null);
-        return value != null ? value : 0; // The ResultSet contract for numbers is to return 0 when a null value is encountered.
+        return value != null ? value.shortValue() : 0; // The ResultSet contract for numbers is to return 0 when a null value is encountered.
     }
 
     /**
@@ -450,34 +448,15 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
      * @throws SQLNoSuchFieldException if the field does not exist.
      */
     @Override
-    @SuppressWarnings("resource") // Only read the current connection to get the Charset.
     public String getString(String columnLabel) throws SQLConnectionClosedException, SQLNoSuchFieldException {
         logStep("getString", columnLabel);
         assertNotClosed();
 
-        getFieldDesc(columnLabel, this.sql); // Ensure that the field queried exists, else a null value here can be interpreted as "not existing" or "has a null value".
-        byte[] bytes = this.record.get(columnLabel);
-
-        if (bytes == null) {
-            this.wasNull = true;
-            return null;
-        }
-        else {
-            this.wasNull = false;
-        }
-
-        // If a non null value has been readed, convert it to the wished Charset (provided one has been given).
-        DBFConnection cnt = (DBFConnection)((DBFStatement)getStatement()).getConnection();
-        Charset charset = cnt.getCharset();
-
-        if (charset == null) {
-            return new String(bytes);
-        }
-        else {
-            String withDatabaseCharset = new String(bytes, charset);
-            log(Level.FINER, "log.string_field_charset", columnLabel, withDatabaseCharset, charset);
-            return withDatabaseCharset;
-        }
+        // Ensure that the field queried exists, else a null value here can be interpreted as "not existing" or "has a null value".
+        // The value is decoded with the database charset only now, and only once per record.
+        String value = this.record.getString(findColumn(columnLabel) - 1);
+        this.wasNull = false;
+        return value;
     }
 
     /**
@@ -540,8 +519,12 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
         boolean recordMatchesConditions = false;
         DBFConnection cnt = (DBFConnection)((DBFStatement)getStatement()).getConnection();
 
-        while(cnt.nextRowAvailable() && recordMatchesConditions == false) {
-            this.record = cnt.readNextRowAsObjects();
+        // The cursor is reused for all records : no object is created for each record read.
+        if (this.record == null) {
+            this.record = cnt.newRecordCursor();
+        }
+
+        while(recordMatchesConditions == false && this.record.next()) {
             this.recordNumber = cnt.getRowNum();
             recordMatchesConditions = this.singleConditionOfWhereClause == null || this.singleConditionOfWhereClause.isVerified(this);
         }
@@ -568,34 +551,76 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
     }
 
     /**
-     * Get a numeric value.
-     * @param <T> Type of the number.
+     * Returns the current record cursor, for reading fields values by index without going through column labels.
+     * The cursor is positioned on the record returned by the last call to {@link #next()}.
+     * @return Cursor on the current record, or null if no record has been read yet.
+     */
+    public DBFRecordCursor getRecord() {
+        return this.record;
+    }
+
+    /**
+     * Get an integral value, parsed directly from the bytes of the record.
      * @param columnLabel Column Label.
-     * @param parse Parsing function : Integer.parseInt, Float.parseFloat, Long.parseLong, ...
+     * @param min Minimal value allowed.
+     * @param max Maximal value allowed.
      * @return The expected value or null if null was encountered.
      * @throws SQLConnectionClosedException if the connection is closed.
      * @throws SQLNoSuchFieldException if the field looked for doesn't exist.
-     * @throws SQLNotNumericException if the field value is not numeric or has a NULL value.
+     * @throws SQLNotNumericException if the field value is not numeric, or outside the given range.
      */
-    private <T extends Number> T getNumeric(String columnLabel, Function<String, T> parse) throws SQLConnectionClosedException, SQLNoSuchFieldException, SQLNotNumericException {
+    private Long getIntegral(String columnLabel, long min, long max) throws SQLConnectionClosedException, SQLNoSuchFieldException, SQLNotNumericException {
         assertNotClosed();
+        int index = findColumn(columnLabel) - 1;
+        long value;
 
-        try(DBFBuiltInMemoryResultSetForColumnsListing rs = (DBFBuiltInMemoryResultSetForColumnsListing)getFieldDesc(columnLabel, this.sql)) {
-            String textValue = getString(columnLabel);
+        try {
+            value = this.record.getLong(index);
+        }
+        catch(NumberFormatException e) {
+            throw notNumeric(columnLabel, index);
+        }
 
-            if (textValue == null) {
-                return null;
-            }
+        if (value < min || value > max) {
+            throw notNumeric(columnLabel, index);
+        }
 
-            try {
-                textValue = textValue.trim(); // Field must be trimed before being converted.
-                T value = parse.apply(textValue);
-                return(value);
-            }
-            catch(NumberFormatException e) {
-                String message = format(Level.WARNING, "excp.field_is_not_numeric", columnLabel, rs.getString("TYPE_NAME"), this.sql, textValue);
-                throw new SQLNotNumericException(message, this.sql, getFile(), columnLabel, textValue);
-            }
+        return value;
+    }
+
+    /**
+     * Get a floating point value, parsed directly from the bytes of the record.
+     * @param columnLabel Column Label.
+     * @return The expected value or null if null was encountered.
+     * @throws SQLConnectionClosedException if the connection is closed.
+     * @throws SQLNoSuchFieldException if the field looked for doesn't exist.
+     * @throws SQLNotNumericException if the field value is not numeric.
+     */
+    private Double getDecimal(String columnLabel) throws SQLConnectionClosedException, SQLNoSuchFieldException, SQLNotNumericException {
+        assertNotClosed();
+        int index = findColumn(columnLabel) - 1;
+
+        try {
+            return this.record.getDouble(index);
+        }
+        catch(NumberFormatException e) {
+            throw notNumeric(columnLabel, index);
+        }
+    }
+
+    /**
+     * Builds the exception to throw when a field value is not numeric.
+     * @param columnLabel Column Label.
+     * @param index Field index in the record, starting at 0.
+     * @return Exception to throw.
+     * @throws SQLConnectionClosedException if the connection is closed.
+     * @throws SQLNoSuchFieldException if the field looked for doesn't exist.
+     */
+    private SQLNotNumericException notNumeric(String columnLabel, int index) throws SQLConnectionClosedException, SQLNoSuchFieldException {
+        try(DBFBuiltInMemoryResultSetForColumnsListing rs = (DBFBuiltInMemoryResultSetForColumnsListing)getFieldDesc(columnLabel, this.sql)) {
+            String textValue = this.record.getString(index).trim();
+            String message = format(Level.WARNING, "excp.field_is_not_numeric", columnLabel, rs.getString("TYPE_NAME"), this.sql, textValue);
+            return new SQLNotNumericException(message, this.sql, getFile(), columnLabel, textValue);
         }
     }
 
@@ -30,7 +30,6 @@ import org.apache.sis.feature.DefaultFeatureType;
 import org.apache.sis.internal.shapefile.*;
 import org.apache.sis.internal.shapefile.jdbc.*;
 import org.apache.sis.internal.shapefile.jdbc.connection.DBFConnection;
-import org.apache.sis.internal.shapefile.jdbc.metadata.DBFDatabaseMetaData;
 import org.apache.sis.internal.shapefile.jdbc.resultset.*;
 import org.apache.sis.internal.shapefile.jdbc.sql.SQLIllegalParameterException;
 import org.apache.sis.internal.shapefile.jdbc.sql.SQLInvalidStatementException;
@@ -47,7 +46,7 @@ import org.apache.sis.feature.AbstractFeature;
  * not yet target for any Apache SIS release at this time.</div>
  *
  * @author  Marc Le Bihan
- * @version 0.5
+ * @version 1.0
  * @since   0.5
  * @module
  */
@@ -91,6 +90,9 @@ public class InputFeatureStream extends InputStream {
     /** Shapefile reader. */
     private ShapefileByteReader shapefileReader;
 
+    /** Format for floating point values, without thousand separator. */
+    private final DecimalFormat decimalFormat = new DecimalFormat();
+
     /**
      * Create an input stream of features over a connection.
      * @param shpfile Shapefile.
@@ -115,6 +117,7 @@ public class InputFeatureStream extends InputStream {
 
             this.shapefile = shpfile;
             this.databaseFile = dbaseFile;
+            this.decimalFormat.setGroupingUsed(false);
 
             if (shpfileIndex != null && (shpfileIndex.exists() && shpfileIndex.isFile())) {
                 this.shapefileIndex = shpfileIndex;
@@ -319,44 +322,17 @@ public class InputFeatureStream extends InputStream {
 
             AbstractFeature feature = this.featuresType.newInstance();
             this.shapefileReader.completeFeature(feature);
-            DBFDatabaseMetaData metadata = (DBFDatabaseMetaData)this.connection.getMetaData();
-
-            try(DBFBuiltInMemoryResultSetForColumnsListing rsDatabase = (DBFBuiltInMemoryResultSetForColumnsListing)metadata.getColumns(null, null, null, null)) {
-                while(rsDatabase.next()) {
-                    String fieldName = rsDatabase.getString("COLUMN_NAME");
-                    Object fieldValue = this.rs.getObject(fieldName);
-
-                    // FIXME To allow features to be filled again, the values are converted to String again : feature should allow any kind of data.
-                    String stringValue;
-
-                    if (fieldValue == null) {
-                        stringValue = null;
-                    }
-                    else {
-                        if (fieldValue instanceof Integer || fieldValue instanceof Long) {
-                            stringValue = MessageFormat.format("{0,number,#0}", fieldValue); // Avoid thousand separator.
-                        }
-                        else {
-                            if (fieldValue instanceof Double || fieldValue instanceof Float) {
-                                // Avoid thousand separator.
-                                DecimalFormat df = new DecimalFormat();
-                                df.setGroupingUsed(false);
-                                stringValue = df.format(fieldValue);
-                            }
-                            else
-                                stringValue = fieldValue.toString();
-                        }
-                    }
 
-                    feature.setPropertyValue(fieldName, stringValue);
-                }
+            // Read the fields values by index from the current record, without building intermediate objects.
+            DBFRecordCursor record = this.rs.getRecord();
+            List<DBase3FieldDescriptor> fields = this.connection.getFieldsDescriptors();
 
-                return feature;
-            }
-            catch(SQLNoResultException e) {
-                // This an internal trouble, if it occurs.
-                throw new RuntimeException(e.getMessage(), e);
+            for(int index=0; index < fields.size(); index ++) {
+                DBase3FieldDescriptor field = fields.get(index);
+                feature.setPropertyValue(field.getName(), toPropertyValue(record, index, field));
             }
+
+            return feature;
         }
         catch(SQLNoResultException e) {
             // We are trying to prevent this. If it occurs, we have an internal problem.
@@ -364,6 +340,49 @@ public class InputFeatureStream extends InputStream {
         }
     }
 
+    /**
+     * Returns the value of a field of the current record, in the form expected by the feature.
+     * Numbers and texts are read directly from the record; other types go through the result set.
+     * @param record Current record.
+     * @param index Field index in the record, starting at 0.
+     * @param field Field descriptor.
+     * @return Field value as a String.
+     * @throws SQLConnectionClosedException if the connection is closed.
+     * @throws SQLNoSuchFieldException if a field doesn't exist.
+     * @throws SQLNotNumericException if a field expected numeric isn't.
+     * @throws SQLNotDateException if a field expected of date kind, isn't.
+     * @throws SQLFeatureNotSupportedException if the type of the field is not currently handled by this driver.
+     */
+    private String toPropertyValue(DBFRecordCursor record, int index, DBase3FieldDescriptor field) throws SQLConnectionClosedException, SQLNoSuchFieldException, SQLNotNumericException, SQLNotDateException, SQLFeatureNotSupportedException {
+        try {
+            String value = ShapefileFeatureSet.toPropertyValue(record, index, field, this.decimalFormat);
+
+            if (value != null) {
+                return value;
+            }
+        }
+        catch(NumberFormatException e) {
+            // Let the result set report the invalid value with its usual exception.
+        }
+
+        // FIXME To allow features to be filled again, the values are converted to String again : feature should allow any kind of data.
+        Object fieldValue = this.rs.getObject(field.getName());
+
+        if (fieldValue == null) {
+            return null;
+        }
+
+        if (fieldValue instanceof Integer || fieldValue instanceof Long) {
+            return MessageFormat.format("{0,number,#0}", fieldValue); // Avoid thousand separator.
+        }
+
+        if (fieldValue instanceof Double || fieldValue instanceof Float) {
+            return this.decimalFormat.format(fieldValue);
+        }
+
+        return fieldValue.toString();
+    }
+
     /**
      * Execute the wished SQL query.
      * @throws SQLConnectionClosedException if the connection is closed.
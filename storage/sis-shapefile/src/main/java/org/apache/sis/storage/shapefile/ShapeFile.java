@@ -31,7 +31,7 @@ import org.apache.sis.internal.shapefile.jdbc.DBase3FieldDescriptor;
  * not yet target for any Apache SIS release at this time.</div>
  *
  * @author  Travis L. Pinney
- * @version 0.5
+ * @version 1.0
  *
  * @see <a href="http://www.esri.com/library/whitepapers/pdfs/shapefile.pdf">ESRI Shapefile Specification</a>
  * @see <a href="http://ulisse.elettra.trieste.it/services/doc/dbase/DBFstruct.htm">dBASE III File Structure</a>
@@ -164,6 +164,22 @@ public class ShapeFile {
         return this.shapeFileIndex;
     }
 
+    /**
+     * Return the spatial index (.qix file) that may come with the shapefile.
+     * @return Spatial index file, which may not exist.
+     */
+    public File getFileSpatialIndex() {
+        // Deduct spatial index file name by suffixing it by qix (trying to respect the same case).
+        String shpfile = this.shapeFile.getPath();
+
+        String spatialIndexSuffix = null;
+        spatialIndexSuffix = shpfile.endsWith("SHP") ? "QIX" : spatialIndexSuffix;
+        spatialIndexSuffix = shpfile.endsWith("Shp") ? "Qix" : spatialIndexSuffix;
+        spatialIndexSuffix = (spatialIndexSuffix == null) ? "qix" : spatialIndexSuffix;
+
+        return new File(shpfile.substring(0, Math.max(0, shpfile.length() - 3)) + spatialIndexSuffix);
+    }
+
     /**
      * Find features corresponding to an SQL request SELECT * FROM database.
      * @return Features
@@ -0,0 +1,460 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.shapefile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.nio.ByteBuffer;
+import java.text.DecimalFormat;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.sis.feature.AbstractFeature;
+import org.apache.sis.feature.DefaultFeatureType;
+import org.apache.sis.internal.shapefile.SQLShapefileNotFoundException;
+import org.apache.sis.internal.shapefile.ShapefileByteReader;
+import org.apache.sis.internal.shapefile.ShapefileDescriptor;
+import org.apache.sis.internal.shapefile.ShapefileSpatialIndex;
+import org.apache.sis.internal.shapefile.jdbc.*;
+import org.apache.sis.internal.storage.AbstractFeatureSet;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.util.collection.BackingStoreException;
+import org.opengis.geometry.Envelope;
+
+
+/**
+ * The features of a shapefile, read directly from the mapped {@code .shp} and {@code .dbf} files.
+ * Contrarily to {@link InputFeatureStream}, this class does not go through a SQL query: all records
+ * are returned. The stream returned by {@link #features(boolean)} can be split by ranges of record
+ * indices, using the record positions of the {@code .shx} index (or computed from the record headers
+ * if there is no index). Each split reads the records on its own duplicate of the mapped buffers,
+ * so parallel streams can build the geometries concurrently.
+ *
+ * <p>Features intersecting a region of interest are returned by {@link #features(Envelope, boolean)}.
+ * This method compares the region with the bounding boxes stored in the records headers, so only the geometries
+ * of the selected records are built. If a spatial index ({@code .qix} file) exists beside the shapefile,
+ * only the candidate records given by that index are examined. Such index can be created by
+ * {@link #createSpatialIndex()}, or by the shapelib and MapServer {@code shptree} tools.</p>
+ *
+ * <div class="warning">This is an experimental class,
+ * not yet target for any Apache SIS release at this time.</div>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public class ShapefileFeatureSet extends AbstractFeatureSet implements AutoCloseable {
+    /**
+     * Minimal number of records in a split. Smaller ranges are not split further,
+     * since the cost of creating the buffers duplicates would not be worth.
+     */
+    private static final int MIN_SPLIT_SIZE = 256;
+
+    /** Reader of the mapped shapefile, which also holds the record positions. */
+    private final ShapefileByteReader shapefileReader;
+
+    /** Reader of the mapped database file. */
+    private final MappedByteReader databaseReader;
+
+    /** Positions of the records in the shapefile, in 16 bits words. This array shall not be modified. */
+    private final int[] positions;
+
+    /** Spatial index file, which may not exist. */
+    private final File spatialIndexFile;
+
+    /** Spatial index, or null if the shapefile has none or if it is not up to date. */
+    private volatile ShapefileSpatialIndex spatialIndex;
+
+    /**
+     * Minimal number of records in a split. This is {@link #MIN_SPLIT_SIZE}, unless a test
+     * sets a smaller value for having parallel streams on small shapefiles.
+     */
+    int minSplitSize = MIN_SPLIT_SIZE;
+
+    /**
+     * Creates a new feature set for the given shapefile.
+     * @param shapefile Files (shapefile, database file and optional shapefile index) to read.
+     * @throws InvalidShapefileFormatException if the shapefile format is invalid.
+     * @throws InvalidDbaseFileFormatException if the Dbase file format is invalid.
+     * @throws ShapefileNotFoundException if the shapefile has not been found.
+     * @throws DbaseFileNotFoundException if the database file has not been found.
+     */
+    public ShapefileFeatureSet(ShapeFile shapefile) throws InvalidShapefileFormatException, InvalidDbaseFileFormatException, ShapefileNotFoundException, DbaseFileNotFoundException {
+        super((org.apache.sis.util.logging.WarningListeners<org.apache.sis.storage.DataStore>) null);
+
+        File index = shapefile.getFileShapefileIndex();
+
+        if (index != null && !index.isFile()) {
+            index = null;
+        }
+
+        try {
+            this.databaseReader = new MappedByteReader(shapefile.getFileDatabase(), null);
+            this.shapefileReader = new ShapefileByteReader(shapefile.getFileShapefile(), shapefile.getFileDatabase(), index);
+        }
+        catch(SQLInvalidDbaseFileFormatException ex) {
+            // Promote this exception to an DataStoreException compatible exception.
+            throw new InvalidDbaseFileFormatException(ex.getMessage(), ex);
+        }
+        catch(SQLDbaseFileNotFoundException ex) {
+            // Promote this exception to an DataStoreException compatible exception.
+            throw new DbaseFileNotFoundException(ex.getMessage(), ex);
+        }
+        catch(SQLShapefileNotFoundException ex) {
+            // Promote this exception to an DataStoreException compatible exception.
+            throw new ShapefileNotFoundException(ex.getMessage(), ex);
+        }
+
+        this.positions = this.shapefileReader.getRecordsPositions();
+        this.spatialIndexFile = shapefile.getFileSpatialIndex();
+
+        if (this.spatialIndexFile.isFile()) {
+            try {
+                useSpatialIndex(new ShapefileSpatialIndex(this.spatialIndexFile));
+            }
+            catch(IOException | InvalidShapefileFormatException e) {
+                // The spatial index is only an optimization : the records will be examined without it.
+            }
+        }
+    }
+
+    /**
+     * Use a spatial index if it covers all the records of the shapefile.
+     * An index created before the shapefile has been updated is ignored.
+     * @param index Spatial index.
+     */
+    private void useSpatialIndex(ShapefileSpatialIndex index) {
+        this.spatialIndex = (index.getShapeCount() == this.positions.length) ? index : null;
+    }
+
+    /**
+     * Create (or replace) the spatial index beside the shapefile, and use it for the next queries.
+     * @throws DataStoreException if the index cannot be written or read back.
+     */
+    public void createSpatialIndex() throws DataStoreException {
+        try {
+            ShapefileSpatialIndex.write(this.shapefileReader, this.spatialIndexFile);
+            useSpatialIndex(new ShapefileSpatialIndex(this.spatialIndexFile));
+        }
+        catch(IOException e) {
+            throw new DataStoreException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns whether the queries by region of interest use a spatial index.
+     * @return true if a spatial index is used.
+     */
+    public boolean hasSpatialIndex() {
+        return this.spatialIndex != null;
+    }
+
+    /**
+     * Returns the type of the features contained in this shapefile.
+     * @return Features type.
+     */
+    @Override
+    public DefaultFeatureType getType() {
+        return this.shapefileReader.getFeaturesType();
+    }
+
+    /**
+     * Returns the shapefile descriptor, which contains the extent of the shapes.
+     * @return Shapefile descriptor.
+     */
+    public ShapefileDescriptor getShapefileDescriptor() {
+        return this.shapefileReader.getShapefileDescriptor();
+    }
+
+    /**
+     * Returns the number of records in the shapefile.
+     * @return Number of features.
+     */
+    public int size() {
+        return this.positions.length;
+    }
+
+    /**
+     * Returns a stream of all features contained in this shapefile.
+     * @param parallel true for a parallel stream, split by ranges of records.
+     * @return Stream of features.
+     */
+    @Override
+    public Stream<AbstractFeature> features(boolean parallel) {
+        return StreamSupport.stream(new Iter(null, 0, this.positions.length), parallel);
+    }
+
+    /**
+     * Returns a stream of the features whose bounding box intersects the given envelope.
+     * The first two dimensions of the given envelope shall be in the same coordinate reference system than
+     * the shapefile; no coordinate operation is applied. Records having a null shape are excluded.
+     * If the spatial index is found corrupted, it is not used anymore and all the records are examined.
+     * @param bbox Two-dimensional envelope of the region of interest.
+     * @param parallel true for a parallel stream, split by ranges of records.
+     * @return Features in the given region of interest.
+     * @throws DataStoreException if a record header is invalid.
+     */
+    public Stream<AbstractFeature> features(Envelope bbox, boolean parallel) throws DataStoreException {
+        Objects.requireNonNull(bbox, "The region of interest cannot be null.");
+
+        double xmin = bbox.getMinimum(0);
+        double ymin = bbox.getMinimum(1);
+        double xmax = bbox.getMaximum(0);
+        double ymax = bbox.getMaximum(1);
+
+        ShapefileSpatialIndex index = this.spatialIndex;
+        int[] candidates = null;
+
+        if (index != null) {
+            try {
+                candidates = index.query(xmin, ymin, xmax, ymax);
+            }
+            catch(InvalidShapefileFormatException e) {
+                // The spatial index is only an optimization : stop using a corrupted one and examine all the records.
+                this.spatialIndex = null;
+            }
+        }
+
+        int count = (candidates != null) ? candidates.length : this.positions.length;
+
+        // Keep the records whose bounding box, read from their header, intersects the region of interest.
+        ByteBuffer shapes = this.shapefileReader.getByteBuffer().duplicate();
+        double[] bounds = new double[4];
+        int[] records = new int[count];
+        int selected = 0;
+
+        for(int candidate=0; candidate < count; candidate ++) {
+            int record = (candidates != null) ? candidates[candidate] : candidate;
+
+            if (record < this.positions.length && this.shapefileReader.getRecordBounds(record, shapes, bounds)
+                    && bounds[0] <= xmax && bounds[2] >= xmin && bounds[1] <= ymax && bounds[3] >= ymin) {
+                records[selected++] = record;
+            }
+        }
+
+        records = Arrays.copyOf(records, selected);
+        return StreamSupport.stream(new Iter(records, 0, selected), parallel);
+    }
+
+    /**
+     * Closes the mapped files.
+     * @throws DataStoreException if an error occurred while closing the files.
+     */
+    @Override
+    public void close() throws DataStoreException {
+        try {
+            this.shapefileReader.close();
+            this.databaseReader.close();
+        }
+        catch(IOException e) {
+            throw new DataStoreException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the value of a field of the current record, in the form expected by the features.
+     * Numbers are written without thousand separator.
+     * @param record Current record.
+     * @param index Field index in the record, starting at 0.
+     * @param field Field descriptor.
+     * @param decimalFormat Format to use for floating point values.
+     * @return Field value as a String, or null if the field type is not handled by this method.
+     * @throws NumberFormatException if a field expected numeric isn't.
+     */
+    static String toPropertyValue(DBFRecordCursor record, int index, DBase3FieldDescriptor field, DecimalFormat decimalFormat) throws NumberFormatException {
+        switch(field.getType()) {
+            case Character:
+                return record.getString(index);
+
+            case AutoIncrement:
+            case Integer:
+                return Long.toString(record.getLong(index));
+
+            case Number:
+                if (field.getDecimalCount() == 0 && field.getLength() <= 18) {
+                    return Long.toString(record.getLong(index));
+                }
+
+                return decimalFormat.format(record.getDouble(index));
+
+            case Double:
+            case Currency:
+            case FloatingPoint:
+                return decimalFormat.format(record.getDouble(index));
+
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Iterator over a range of records. Each instance reads its own duplicates of the mapped buffers,
+     * so instances created by {@link #trySplit()} can be used concurrently.
+     */
+    private final class Iter implements Spliterator<AbstractFeature> {
+        /** Indexes of the records to read, in increasing order, or null for reading all records. */
+        private final int[] records;
+
+        /** Index of the next record to read, in the {@link #records} array if any. */
+        private int next;
+
+        /** Index after the last record to read, in the {@link #records} array if any. */
+        private int end;
+
+        /** Duplicate of the shapefile buffer, created when first needed. */
+        private ByteBuffer shapes;
+
+        /** Cursor on a duplicate of the database buffer, created when first needed. */
+        private DBFRecordCursor record;
+
+        /** Format for floating point values, without thousand separator. */
+        private DecimalFormat decimalFormat;
+
+        /**
+         * Creates an iterator over the given range of records.
+         * @param records Indexes of the records to read, or null for reading all records.
+         * @param start Index of the first record.
+         * @param end Index after the last record.
+         */
+        Iter(int[] records, int start, int end) {
+            this.records = records;
+            this.next = start;
+            this.end = end;
+        }
+
+        /**
+         * Splits this range in two halves if it is large enough, before any record has been read.
+         * @return Iterator over the first half of the remaining records, or null if this range can not be split.
+         */
+        @Override
+        public Spliterator<AbstractFeature> trySplit() {
+            if (this.record != null || this.end - this.next < 2 * ShapefileFeatureSet.this.minSplitSize) {
+                return null;
+            }
+
+            int middle = (this.next + this.end) >>> 1;
+            Iter prefix = new Iter(this.records, this.next, middle);
+            this.next = middle;
+            return prefix;
+        }
+
+        /**
+         * Reads the next feature and gives it to the given action.
+         * @param action Action to execute on the next feature.
+         * @return false if there is no more feature.
+         */
+        @Override
+        public boolean tryAdvance(Consumer<? super AbstractFeature> action) {
+            if (this.next >= this.end) {
+                return false;
+            }
+
+            if (this.record == null) {
+                this.shapes = ShapefileFeatureSet.this.shapefileReader.getByteBuffer().duplicate();
+                this.record = ShapefileFeatureSet.this.databaseReader.newRecordCursor(recordIndex());
+                this.decimalFormat = new DecimalFormat();
+                this.decimalFormat.setGroupingUsed(false);
+            }
+
+            action.accept(read());
+            return true;
+        }
+
+        /**
+         * Returns the index of the next record to read.
+         * @return Record index, starting at 0.
+         */
+        private int recordIndex() {
+            return (this.records != null) ? this.records[this.next] : this.next;
+        }
+
+        /**
+         * Reads the feature at index {@link #next} and moves to the next record.
+         * @return The feature.
+         */
+        private AbstractFeature read() {
+            int recordIndex = recordIndex();
+            AbstractFeature feature = getType().newInstance();
+            this.shapes.position(ShapefileFeatureSet.this.positions[recordIndex] * 2); // Positions unit are words (16 bits).
+
+            try {
+                ShapefileFeatureSet.this.shapefileReader.completeFeature(feature, this.shapes);
+            }
+            catch(InvalidShapefileFormatException e) {
+                throw new BackingStoreException(e);
+            }
+
+            if (this.records != null) {
+                this.record.seek(ShapefileFeatureSet.this.databaseReader.getRecordPosition(recordIndex));
+            }
+
+            if (this.record.next() == false) {
+                throw new BackingStoreException(new InvalidDbaseFileFormatException(
+                        "The database file has less records than the shapefile : " + ShapefileFeatureSet.this.positions.length));
+            }
+
+            List<DBase3FieldDescriptor> fields = ShapefileFeatureSet.this.databaseReader.getFieldsDescriptors();
+
+            for(int index=0; index < fields.size(); index ++) {
+                DBase3FieldDescriptor field = fields.get(index);
+                String value;
+
+                try {
+                    value = toPropertyValue(this.record, index, field, this.decimalFormat);
+                }
+                catch(NumberFormatException e) {
+                    String text = this.record.getString(index).trim();
+                    throw new BackingStoreException(new DataStoreQueryResultException(
+                            "The field " + field.getName() + " of record " + (recordIndex + 1) + " is not numeric : " + text, e));
+                }
+
+                if (value == null) {
+                    value = this.record.getString(index); // Types not yet handled (dates, memos...) : keep the text.
+                }
+
+                feature.setPropertyValue(field.getName(), value);
+            }
+
+            this.next++;
+            return feature;
+        }
+
+        /**
+         * Returns the number of records remaining in this range.
+         * @return Number of remaining features.
+         */
+        @Override
+        public long estimateSize() {
+            return this.end - this.next;
+        }
+
+        /**
+         * Returns the characteristics of this iterator.
+         * @return Characteristics : ordered, sized, non-null.
+         */
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+    }
+}
@@ -17,9 +17,12 @@
 package org.apache.sis.internal.shapefile.jdbc;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.text.MessageFormat;
 import java.util.ArrayList;
@@ -33,7 +36,7 @@ import org.junit.Test;
  * Tests {@link DBFRecordBasedResultSet}.
  *
  * @author  Marc Le Bihan
- * @version 0.5
+ * @version 1.0
  * @since   0.5
  * @module
  */
@@ -54,6 +57,99 @@ public class DBFResultSetTest extends AbstractTestBaseForInternalJDBC {
         }
     }
 
+    /**
+     * Reads the first record with a cursor, accessing the fields by index.
+     * @throws Exception if an error occurred while reading the database.
+     */
+    @Test
+    public void readFirstRecordWithCursor() throws Exception {
+        try(MappedByteReader reader = new MappedByteReader(this.dbfFile, null)) {
+            DBFRecordCursor record = reader.newRecordCursor();
+            assertTrue("next()", record.next());
+            assertEquals("ST_NAME", "36TH ST", record.getString(reader.findColumn("ST_NAME", null) - 1));
+            assertEquals("FNODE_", 1199, record.getLong(reader.findColumn("FNODE_", null) - 1));
+            assertEquals("SHAPE_LEN", 43.0881492571, record.getDouble(reader.findColumn("SHAPE_LEN", null) - 1), 1E-10);
+        }
+    }
+
+    /**
+     * Creates a cursor positioned on a single record made of the given field values.
+     * The length of each field is the length of its value.
+     */
+    private static DBFRecordCursor cursor(String... values) {
+        int[] lengths = new int[values.length];
+        StringBuilder record = new StringBuilder(" ");  // Deletion flag.
+        for (int i=0; i<values.length; i++) {
+            lengths[i] = values[i].length();
+            record.append(values[i]);
+        }
+        DBFRecordCursor cursor = new DBFRecordCursor(ByteBuffer.wrap(record.toString().getBytes(StandardCharsets.US_ASCII)), lengths, StandardCharsets.US_ASCII);
+        assertTrue("next()", cursor.next());
+        return cursor;
+    }
+
+    /**
+     * Tests {@link DBFRecordCursor#getLong(int)} on values with leading zeros or spaces, signs and extreme values.
+     */
+    @Test
+    public void cursorGetLong() {
+        DBFRecordCursor record = cursor("  00123", "-42  ", "+7", "9223372036854775807", "-9223372036854775808");
+        assertEquals("leading zeros and spaces", 123, record.getLong(0));
+        assertEquals("negative", -42, record.getLong(1));
+        assertEquals("positive sign", 7, record.getLong(2));
+        assertEquals("Long.MAX_VALUE", Long.MAX_VALUE, record.getLong(3));
+        assertEquals("Long.MIN_VALUE", Long.MIN_VALUE, record.getLong(4));
+        assertFalse(record.next());
+    }
+
+    /**
+     * Tests that {@link DBFRecordCursor#getLong(int)} rejects blank, non-numeric and overflowing values.
+     */
+    @Test
+    public void cursorGetLongInvalid() {
+        DBFRecordCursor record = cursor("     ", "-", "12.5", "9223372036854775808", "-9223372036854775809", "99999999999999999999");
+        for (int i=0; i<record.getFieldCount(); i++) {
+            try {
+                record.getLong(i);
+                fail("Expected NumberFormatException for \"" + record.getString(i) + '"');
+            } catch (NumberFormatException e) {
+                // This is the expected exception.
+            }
+        }
+    }
+
+    /**
+     * Tests {@link DBFRecordCursor#getDouble(int)} on values with leading zeros or spaces, signs
+     * and more than 15 significant digits. The latter are parsed by {@link Double#parseDouble(String)}.
+     */
+    @Test
+    public void cursorGetDouble() {
+        DBFRecordCursor record = cursor("  0043.0881492571", "-0.5 ", "   -123.25", "1234567890.1234567", "-0.000012345678901234567", "12", "0.00000000000000000000000123");
+        assertEquals("leading zeros and spaces", 43.0881492571, record.getDouble(0), 0);
+        assertEquals("negative", -0.5, record.getDouble(1), 0);
+        assertEquals("negative with spaces", -123.25, record.getDouble(2), 0);
+        assertEquals("17 significant digits", 1234567890.1234567, record.getDouble(3), 0);
+        assertEquals("17 significant digits", -0.000012345678901234567, record.getDouble(4), 0);
+        assertEquals("integer", 12, record.getDouble(5), 0);
+        assertEquals("large negative exponent", 1.23E-24, record.getDouble(6), 0);
+    }
+
+    /**
+     * Tests that {@link DBFRecordCursor#getDouble(int)} rejects blank and non-numeric values.
+     */
+    @Test
+    public void cursorGetDoubleInvalid() {
+        DBFRecordCursor record = cursor("     ", "-", ".", "abc");
+        for (int i=0; i<record.getFieldCount(); i++) {
+            try {
+                record.getDouble(i);
+                fail("Expected NumberFormatException for \"" + record.getString(i) + '"');
+            } catch (NumberFormatException e) {
+                // This is the expected exception.
+            }
+        }
+    }
+
     /**
      * Read all the DBF records.
      * @throws SQLException if an error occurred while querying the database.
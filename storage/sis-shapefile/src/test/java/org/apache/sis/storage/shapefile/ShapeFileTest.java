@@ -17,13 +17,33 @@
 package org.apache.sis.storage.shapefile;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.MessageFormat;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.apache.sis.geometry.Envelope2D;
+import org.apache.sis.internal.shapefile.ShapefileByteReader;
+import org.apache.sis.internal.shapefile.ShapefileSpatialIndex;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.test.TestCase;
 import org.junit.Ignore;
@@ -36,11 +56,17 @@ import org.apache.sis.feature.AbstractAttribute;
  * Tests the {@link ShapeFile} class.
  *
  * @author  Travis L. Pinney
- * @version 0.5
+ * @version 1.0
  * @since   0.5
  * @module
  */
 public final strictfp class ShapeFileTest extends TestCase {
+    /** Number of records in the shapefile created by {@link #createPoints(Path, int)} : enough for splitting parallel streams. */
+    private static final int POINT_COUNT = 2000;
+
+    /** Number of columns in the grid of points created by {@link #createPoints(Path, int)}. */
+    private static final int GRID_WIDTH = 50;
+
     /**
      * Returns URI path to a resource.
      * @param name Resource name.
@@ -189,6 +215,342 @@ public final strictfp class ShapeFileTest extends TestCase {
          assertEquals("Shapefile part : direct access didn't returned the same geometry than sequential access.", sequentialGeometry, directGeometry);
      }
 
+     /**
+      * Testing that a parallel stream of features returns the same features than a sequential one.
+      * @throws URISyntaxException if the resource name is incorrect.
+      * @throws DataStoreException if a general file reading trouble occurs.
+      */
+     @Test
+     public void testParallelFeatureSet() throws DataStoreException, URISyntaxException {
+         ShapeFile shp = new ShapeFile(path("SignedBikeRoute_4326_clipped.shp"));
+
+         try(ShapefileFeatureSet features = new ShapefileFeatureSet(shp)) {
+             List<AbstractFeature> sequential = features.features(false).collect(Collectors.toList());
+             List<AbstractFeature> parallel = features.features(true).collect(Collectors.toList());
+
+             assertEquals("The feature set hasn't returned all the records.", features.size(), sequential.size());
+             assertEquals("The parallel stream hasn't returned as many features than the sequential one.", sequential.size(), parallel.size());
+
+             for(int index=0; index < sequential.size(); index ++) {
+                 assertEquals("Parallel stream returned a different geometry.", sequential.get(index).getPropertyValue("geometry"), parallel.get(index).getPropertyValue("geometry"));
+             }
+         }
+     }
+
+     /**
+      * Testing that a parallel stream on a shapefile large enough for being split returns the same features
+      * and attributes than a sequential one. The shapefile has no .shx index : the records positions
+      * are computed from the records headers.
+      * @throws IOException if the temporary shapefile cannot be written.
+      * @throws DataStoreException if a general file reading trouble occurs.
+      */
+     @Test
+     public void testParallelFeatureSetSplit() throws IOException, DataStoreException {
+         Path directory = Files.createTempDirectory("sis");
+
+         try {
+             ShapeFile shp = createPoints(directory, POINT_COUNT);
+
+             try(ShapefileFeatureSet features = new ShapefileFeatureSet(shp)) {
+                 assertEquals("The feature set hasn't found all the records.", POINT_COUNT, features.size());
+                 assertNotNull("The records should be split for a parallel stream.", features.features(true).spliterator().trySplit());
+
+                 List<AbstractFeature> sequential = features.features(false).collect(Collectors.toList());
+                 List<AbstractFeature> parallel = features.features(true).collect(Collectors.toList());
+
+                 assertEquals("The feature set hasn't returned all the records.", POINT_COUNT, sequential.size());
+                 assertEquals("The parallel stream hasn't returned as many features than the sequential one.", POINT_COUNT, parallel.size());
+
+                 for(int index=0; index < POINT_COUNT; index ++) {
+                     AbstractFeature expected = sequential.get(index);
+                     AbstractFeature actual = parallel.get(index);
+
+                     assertEquals("Sequential stream returned a wrong identifier.", Integer.toString(index), expected.getPropertyValue("ID"));
+                     assertEquals("Sequential stream returned a wrong name.", "point" + index, ((String) expected.getPropertyValue("NAME")).trim());
+                     assertEquals("Parallel stream returned a different identifier.", expected.getPropertyValue("ID"), actual.getPropertyValue("ID"));
+                     assertEquals("Parallel stream returned a different name.", expected.getPropertyValue("NAME"), actual.getPropertyValue("NAME"));
+                     assertEquals("Parallel stream returned a different geometry.", expected.getPropertyValue("geometry"), actual.getPropertyValue("geometry"));
+                 }
+             }
+         }
+         finally {
+             delete(directory);
+         }
+     }
+
+     /**
+      * Testing direct access in a shapefile having no .shx index.
+      * @throws IOException if the temporary shapefile cannot be written.
+      * @throws DataStoreException if a general file reading trouble occurs.
+      */
+     @Test
+     public void testDirectAccessWithoutIndex() throws IOException, DataStoreException {
+         Path directory = Files.createTempDirectory("sis");
+
+         try {
+             ShapeFile shp = createPoints(directory, POINT_COUNT);
+             assertFalse("The shapefile shall not have an index for this test.", shp.getFileShapefileIndex().exists());
+
+             AbstractFeature sequentialFeature;
+
+             try(ShapefileFeatureSet features = new ShapefileFeatureSet(shp)) {
+                 sequentialFeature = features.features(false).skip(1234).findFirst().get();
+             }
+
+             try(InputFeatureStream isDirect = shp.find("SELECT * FROM points WHERE ID = 1234")) {
+                 AbstractFeature directFeature = isDirect.readFeature();
+                 assertNotNull("The direct access feature returned should not be null", directFeature);
+
+                 assertEquals("DBase part : direct access didn't returned the expected record.", 1234, Long.parseLong(((String) directFeature.getPropertyValue("ID")).trim()));
+                 assertEquals("Shapefile part : direct access didn't returned the same geometry than sequential access.", sequentialFeature.getPropertyValue("geometry"), directFeature.getPropertyValue("geometry"));
+             }
+         }
+         finally {
+             delete(directory);
+         }
+     }
+
+     /**
+      * Testing that the features selected by a region of interest are the same with or without a spatial index,
+      * and the same than a brute-force filter on the points coordinates. The index is written in a temporary
+      * directory with a depth of 5, so the search has subtrees to skip.
+      * @throws IOException if the temporary shapefile or its index cannot be written.
+      * @throws SQLException if the shapefile reader cannot be created.
+      * @throws DataStoreException if a general file reading trouble occurs.
+      */
+     @Test
+     public void testSpatialIndex() throws IOException, SQLException, DataStoreException {
+         Path directory = Files.createTempDirectory("sis");
+
+         try {
+             ShapeFile shp = createPoints(directory, POINT_COUNT);
+             File indexFile = shp.getFileSpatialIndex();
+
+             try(ShapefileFeatureSet withoutIndex = new ShapefileFeatureSet(shp)) {
+                 assertFalse("The spatial index should not exist yet.", withoutIndex.hasSpatialIndex());
+
+                 try(ShapefileByteReader reader = new ShapefileByteReader(shp.getFileShapefile(), shp.getFileDatabase(), null)) {
+                     ShapefileSpatialIndex.write(reader, indexFile, 5);
+                 }
+
+                 ShapefileSpatialIndex index = new ShapefileSpatialIndex(indexFile);
+                 assertEquals("Depth of the spatial index.", 5, index.getDepth());
+                 assertEquals("Number of shapes in the spatial index.", POINT_COUNT, index.getShapeCount());
+
+                 try(ShapefileFeatureSet withIndex = new ShapefileFeatureSet(shp)) {
+                     assertTrue("The spatial index should be used.", withIndex.hasSpatialIndex());
+
+                     double[][] regions = {
+                         {0, 0, GRID_WIDTH - 1, POINT_COUNT / GRID_WIDTH - 1}, // All points.
+                         {10.5, 3.5, 20.5, 12.5},                              // Small region inside the grid.
+                         {30, 0, GRID_WIDTH - 1, 39},                          // Eastern part, with points on the borders.
+                         {0, 0, 0, 0},                                         // Only the first point.
+                         {24.2, 19.2, 24.8, 19.8},                             // Between points.
+                         {-10, -10, -5, -5}                                    // Outside the grid.
+                     };
+
+                     for(double[] region : regions) {
+                         List<String> expected = new ArrayList<>();
+
+                         for(int id=0; id < POINT_COUNT; id ++) {
+                             int x = id % GRID_WIDTH;
+                             int y = id / GRID_WIDTH;
+
+                             if (x >= region[0] && x <= region[2] && y >= region[1] && y <= region[3]) {
+                                 expected.add(Integer.toString(id));
+                             }
+                         }
+
+                         int[] candidates = index.query(region[0], region[1], region[2], region[3]);
+
+                         for(String id : expected) {
+                             assertTrue("The spatial index has missed a record.", Arrays.binarySearch(candidates, Integer.parseInt(id)) >= 0);
+                         }
+
+                         if (expected.size() < 100) {
+                             assertTrue("The spatial index should have skipped most records.", candidates.length < POINT_COUNT / 4);
+                         }
+
+                         Envelope2D bbox = new Envelope2D(null, region[0], region[1], region[2] - region[0], region[3] - region[1]);
+                         assertEquals("The spatial index hasn't selected the expected features.", expected, identifiers(withIndex.features(bbox, false)));
+                         assertEquals("The parallel stream hasn't selected the expected features.", expected, identifiers(withIndex.features(bbox, true)));
+                         assertEquals("The records headers haven't selected the expected features.", expected, identifiers(withoutIndex.features(bbox, false)));
+                     }
+                 }
+             }
+         }
+         finally {
+             delete(directory);
+         }
+     }
+
+     /**
+      * Testing that a spatial index whose nodes sizes are inconsistent is reported as corrupted instead of
+      * being walked outside of its nodes, and that the feature set falls back to a scan of all the records.
+      * @throws IOException if the temporary shapefile or its index cannot be written.
+      * @throws SQLException if the shapefile reader cannot be created.
+      * @throws DataStoreException if a general file reading trouble occurs.
+      */
+     @Test
+     public void testCorruptedSpatialIndex() throws IOException, SQLException, DataStoreException {
+         Path directory = Files.createTempDirectory("sis");
+
+         try {
+             ShapeFile shp = createPoints(directory, POINT_COUNT);
+             File indexFile = shp.getFileSpatialIndex();
+
+             try(ShapefileByteReader reader = new ShapefileByteReader(shp.getFileShapefile(), shp.getFileDatabase(), null)) {
+                 ShapefileSpatialIndex.write(reader, indexFile, 5);
+             }
+
+             byte[] original = Files.readAllBytes(indexFile.toPath());
+             ByteBuffer tree = ByteBuffer.wrap(original).order(ByteOrder.LITTLE_ENDIAN);
+             int root = 16;                                             // Header length.
+             int rootChildren = root + 40 + tree.getInt(root + 36) * 4;
+             int firstChild = rootChildren + 4;
+             assertTrue("The root node should have children.", tree.getInt(rootChildren) > 0);
+
+             // Each corruption is a position in the file with the integer value to write there.
+             int[][] corruptions = {
+                 {root, Integer.MAX_VALUE},                             // Root descendants beyond the end of file.
+                 {root, -1},                                            // Negative descendants length.
+                 {root + 36, Integer.MAX_VALUE},                        // Root shapes beyond the end of file.
+                 {root + 36, -1},                                       // Negative number of shapes.
+                 {rootChildren, Integer.MAX_VALUE},                     // More children than the descendants length can hold.
+                 {firstChild, tree.getInt(root)},                       // Child descendants beyond the end of the root node.
+                 {firstChild, 0}                                        // Children shorter than the root descendants length.
+             };
+
+             double[] region = {10.5, 3.5, 20.5, 12.5};
+             List<String> expected = new ArrayList<>();
+
+             for(int id=0; id < POINT_COUNT; id ++) {
+                 int x = id % GRID_WIDTH;
+                 int y = id / GRID_WIDTH;
+
+                 if (x >= region[0] && x <= region[2] && y >= region[1] && y <= region[3]) {
+                     expected.add(Integer.toString(id));
+                 }
+             }
+
+             Envelope2D bbox = new Envelope2D(null, region[0], region[1], region[2] - region[0], region[3] - region[1]);
+
+             for(int[] corruption : corruptions) {
+                 byte[] corrupted = original.clone();
+                 ByteBuffer.wrap(corrupted).order(ByteOrder.LITTLE_ENDIAN).putInt(corruption[0], corruption[1]);
+                 Files.write(indexFile.toPath(), corrupted);
+                 String message = MessageFormat.format("Value {1} at position {0}", corruption[0], corruption[1]);
+
+                 try {
+                     new ShapefileSpatialIndex(indexFile).query(region[0], region[1], region[2], region[3]);
+                     fail(message + " : the corrupted index should have been rejected.");
+                 }
+                 catch(InvalidShapefileFormatException e) {
+                     // This is the expected exception.
+                 }
+
+                 try(ShapefileFeatureSet features = new ShapefileFeatureSet(shp)) {
+                     assertTrue(message + " : the header of the spatial index is valid.", features.hasSpatialIndex());
+                     assertEquals(message + " : the records should have been scanned.", expected, identifiers(features.features(bbox, false)));
+                     assertFalse(message + " : the corrupted index should not be used anymore.", features.hasSpatialIndex());
+                 }
+             }
+         }
+         finally {
+             delete(directory);
+         }
+     }
+
+    /**
+     * Returns the {@code ID} field of the given features, without the spaces.
+     * @param features Features.
+     * @return Identifiers, in the order of the stream.
+     */
+    private static List<String> identifiers(Stream<AbstractFeature> features) {
+        return features.map((feature) -> ((String) feature.getPropertyValue("ID")).trim()).collect(Collectors.toList());
+    }
+
+    /**
+     * Writes a point shapefile and its database file, without shapefile index. The points are on a grid of
+     * {@link #GRID_WIDTH} columns. Each record has an {@code ID} field, which is the record index starting at 0,
+     * and a {@code NAME} field.
+     * @param directory Directory where to write the {@code points.shp} and {@code points.dbf} files.
+     * @param count Number of records.
+     * @return The shapefile.
+     * @throws IOException if the files cannot be written.
+     */
+    private static ShapeFile createPoints(Path directory, int count) throws IOException {
+        ByteBuffer shp = ByteBuffer.allocate(100 + count * 28);
+        shp.putInt(9994);                                   // File code.
+        shp.position(24);
+        shp.putInt(shp.capacity() / 2);                     // File length in 16 bits words.
+        shp.order(ByteOrder.LITTLE_ENDIAN);
+        shp.putInt(1000).putInt(1);                         // Version and shape type (point).
+        shp.putDouble(0).putDouble(0).putDouble(GRID_WIDTH - 1).putDouble((count - 1) / GRID_WIDTH);
+        shp.position(100);
+
+        for(int index=0; index < count; index ++) {
+            shp.order(ByteOrder.BIG_ENDIAN);
+            shp.putInt(index + 1).putInt(10);               // Record number and content length in 16 bits words.
+            shp.order(ByteOrder.LITTLE_ENDIAN);
+            shp.putInt(1).putDouble(index % GRID_WIDTH).putDouble(index / GRID_WIDTH);
+        }
+
+        int recordLength = 1 + 10 + 12;
+        int headerLength = 32 + 2 * 32 + 1;
+        ByteBuffer dbf = ByteBuffer.allocate(headerLength + count * recordLength + 1).order(ByteOrder.LITTLE_ENDIAN);
+        dbf.put((byte) 3).put((byte) 118).put((byte) 1).put((byte) 1); // Version and date of last update.
+        dbf.putInt(count).putShort((short) headerLength).putShort((short) recordLength);
+        dbf.put(29, (byte) 0x57);                                       // Code page : ANSI.
+        dbf.position(32);
+        putField(dbf, "ID", 'N', 10);
+        putField(dbf, "NAME", 'C', 12);
+        dbf.put((byte) 0x0D);                                           // End of fields descriptors.
+
+        for(int index=0; index < count; index ++) {
+            dbf.put((byte) ' ');                                        // Record not deleted.
+            dbf.put(String.format(Locale.ROOT, "%10d%-12s", index, "point" + index).getBytes(StandardCharsets.US_ASCII));
+        }
+
+        dbf.put((byte) 0x1A);                                           // End of file.
+        Path file = directory.resolve("points.shp");
+        Files.write(file, shp.array());
+        Files.write(directory.resolve("points.dbf"), dbf.array());
+        return new ShapeFile(file.toString());
+    }
+
+    /**
+     * Writes a DBase 3 field descriptor.
+     * @param dbf Buffer where to write the descriptor, at its current position.
+     * @param name Field name.
+     * @param type Field type.
+     * @param length Field length.
+     */
+    private static void putField(ByteBuffer dbf, String name, char type, int length) {
+        int start = dbf.position();
+        dbf.put(name.getBytes(StandardCharsets.US_ASCII));
+        dbf.position(start + 11);
+        dbf.put((byte) type);
+        dbf.position(start + 16);
+        dbf.put((byte) length);
+        dbf.position(start + 32);
+    }
+
+    /**
+     * Deletes the given directory and the files it contains.
+     * @param directory Directory to delete.
+     * @throws IOException if a file cannot be deleted.
+     */
+    private static void delete(Path directory) throws IOException {
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for(Path file : files) {
+                Files.delete(file);
+            }
+        }
+
+        Files.delete(directory);
+    }
+
     /**
      * Read all the shapefile content.
      * @param shp Shapefile to read.
@@ -18,20 +18,40 @@ package org.apache.sis.index.tree;
 
 //JDK imports
 import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 
 //SIS imports
 import org.apache.sis.geometry.DirectPosition2D;
 import org.apache.sis.geometry.Envelope2D;
 import org.apache.sis.distance.DistanceUtils;
 import org.apache.sis.distance.LatLonPointRadius;
+import org.apache.sis.util.resources.Errors;
 
 /**
  * Implementation of Quad Tree Index. Insertion algorithm implemented based on
  * design of quad tree index in H. Samet, The Design and Analysis of Spatial
  * Data Structures. Massachusetts: Addison Wesley Publishing Company, 1989.
  *
+ * <p>This class is thread-safe: queries can be executed concurrently with each
+ * other and with insertions. Leaf nodes keep the coordinates of their data in
+ * packed arrays, so queries do not need to invoke the {@link QuadTreeData}
+ * accessors. Queries can give their results to a visitor instead of building
+ * lists.</p>
+ *
+ * <p>A tree can also be saved in a single binary file by {@link QuadTreeWriter}
+ * and opened by {@link #mapFromFile(Path, BiFunction)}, in which case queries
+ * are executed directly on a memory mapping of that file.</p>
+ *
  * <div class="warning"><b>Note on future work:</b> this class may change in
  * incompatible way in a future Apache SIS release, or may be replaced by new
  * API.</div>
@@ -48,9 +68,22 @@ public class QuadTree {
     private static final double[] xf = new double[] { -0.25, 0.25, -0.25, 0.25 };
     private static final double[] yf = new double[] { 0.25, 0.25, -0.25, -0.25 };
 
+    /**
+     * Lock for allowing concurrent queries while data are inserted. Queries hold
+     * the read lock during the whole traversal and insertions hold the write lock.
+     * The lock is fair, otherwise a continuous flow of queries could starve insertions.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock(true);
+
+    /**
+     * The file from which this tree is read, or {@code null} if this tree is in memory.
+     * If non-null, then {@link #root} is {@code null} and this tree is read-only.
+     */
+    private final QuadTreeFile file;
+
     private QuadTreeNode root;
-    private int size;
-    private int nodeSize;
+    private volatile int size;
+    private volatile int nodeSize;
 
     private int maxDepth;
     private int capacity;
@@ -69,6 +102,7 @@ public class QuadTree {
         this.capacity = capacity;
         this.maxDepth = maxDepth;
         this.root = new QuadTreeNode(NodeType.GRAY, this.nodeSize);
+        this.file = null;
     }
 
     /**
@@ -81,6 +115,42 @@ public class QuadTree {
         this.capacity = 0;
         this.maxDepth = 0;
         this.root = new QuadTreeNode(NodeType.GRAY, this.nodeSize);
+        this.file = null;
+    }
+
+    /**
+     * Creates a read-only quad tree backed by the given file.
+     *
+     * @param file
+     *            the memory-mapped quad tree file
+     */
+    private QuadTree(final QuadTreeFile file) {
+        this.size = file.size;
+        this.nodeSize = file.nodeSize;
+        this.capacity = file.capacity;
+        this.maxDepth = file.depth;
+        this.root = null;
+        this.file = file;
+    }
+
+    /**
+     * Opens a quad tree saved by {@link QuadTreeWriter#writeTreeToBinaryFile(QuadTree, Path)}.
+     * The file is memory-mapped and queries read the nodes directly from the mapping,
+     * so this method returns quickly regardless of the tree size. The returned tree
+     * is read-only.
+     *
+     * @param file
+     *            the binary quad tree file
+     * @param factory
+     *            the function to invoke for creating the data given to queries
+     *            from their file name and their latitude/longitude pair
+     * @return a read-only quad tree backed by the given file
+     * @throws IOException
+     *             if the file can not be mapped or is not a quad tree file
+     */
+    public static QuadTree mapFromFile(final Path file,
+            final BiFunction<String, DirectPosition2D, QuadTreeData> factory) throws IOException {
+        return new QuadTree(new QuadTreeFile(file, factory));
     }
 
     /**
@@ -94,11 +164,19 @@ public class QuadTree {
      *         this data
      */
     public boolean insert(QuadTreeData data) {
-        if (insert(data, this.root)) {
-            this.size++;
-            return true;
-        } else {
-            return false;
+        if (this.file != null) {
+            throw new UnsupportedOperationException(Errors.format(Errors.Keys.UnmodifiableObject_1, QuadTree.class));
+        }
+        this.lock.writeLock().lock();
+        try {
+            if (insert(data, this.root)) {
+                this.size++;
+                return true;
+            } else {
+                return false;
+            }
+        } finally {
+            this.lock.writeLock().unlock();
         }
     }
 
@@ -318,89 +396,101 @@ public class QuadTree {
      *         point
      */
     public List<QuadTreeData> queryByPointRadius(final DirectPosition2D point, final double radiusKM) {
-        LatLonPointRadius pr = new LatLonPointRadius(point, radiusKM);
-        return queryByPointRadius(point, radiusKM, this.root,
-                new Rectangle2D.Double(EARTH_MIN_X, EARTH_MIN_Y, EARTH_MAX_X, EARTH_MAX_Y),
-                pr.getRectangularRegionApproximation(360));
+        final List<QuadTreeData> matches = new ArrayList<QuadTreeData>();
+        queryByPointRadius(point, radiusKM, matches::add);
+        return matches;
     }
 
     /**
-     * Performs point radius search.
+     * Performs point radius search, giving each match to the specified visitor
+     * instead of collecting them in a list. The visitor is invoked while a read
+     * lock is held on this tree, so it shall not insert data in this tree.
      *
      * @param point
      *            the center of the circular region
      * @param radiusKM
      *            the radius in kilometers
+     * @param visitor
+     *            the consumer to invoke for each QuadTreeData that is within
+     *            the given radius from the point
+     */
+    public void queryByPointRadius(final DirectPosition2D point, final double radiusKM,
+            final Consumer<? super QuadTreeData> visitor) {
+        final Rectangle2D searchRegion = new LatLonPointRadius(point, radiusKM).getRectangularRegionApproximation(360);
+        this.lock.readLock().lock();
+        try {
+            if (this.file != null) {
+                this.file.queryByPointRadius(point.y, point.x, radiusKM, 0, EARTH_MIN_X, EARTH_MIN_Y,
+                        EARTH_MAX_X - EARTH_MIN_X, EARTH_MAX_Y - EARTH_MIN_Y, searchRegion, visitor);
+            } else {
+                queryByPointRadius(point.y, point.x, radiusKM, this.root, EARTH_MIN_X, EARTH_MIN_Y,
+                        EARTH_MAX_X - EARTH_MIN_X, EARTH_MAX_Y - EARTH_MIN_Y, searchRegion, visitor);
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Performs point radius search.
+     *
+     * @param latitude
+     *            latitude of the center of the circular region
+     * @param longitude
+     *            longitude of the center of the circular region
+     * @param radiusKM
+     *            the radius in kilometers
      * @param node
-     *            quad tree root node
-     * @param nodeRegion
-     *            Rectangle2D representing the circular node region
+     *            quad tree node
+     * @param x
+     *            minimal x value of the node region
+     * @param y
+     *            minimal y value of the node region
+     * @param width
+     *            width of the node region
+     * @param height
+     *            height of the node region
      * @param searchRegion
      *            Rectangle2D representing the circular search region
-     * @return a list of QuadTreeData that are within the given radius from the
-     *         point
+     * @param visitor
+     *            the consumer to invoke for each match
      */
-    private List<QuadTreeData> queryByPointRadius(final DirectPosition2D point, final double radiusKM,
-            final QuadTreeNode node, final Rectangle2D nodeRegion, final Rectangle2D searchRegion) {
-        List<QuadTreeData> matches = new ArrayList<QuadTreeData>();
-        if (node == null) {
-            return matches;
-        } else if (node.getNodeType() != NodeType.GRAY) {
-            if (node.getNodeType() == NodeType.WHITE)
-                return matches;
-            else {
-                QuadTreeData[] data = node.getData();
-                for (int i = 0; i < node.getCount(); i++) {
-                    if (DistanceUtils.getHaversineDistance(data[i].getLatLon().y, data[i].getLatLon().x, point.y,
-                            point.x) <= radiusKM) {
-                        matches.add(data[i]);
-                    }
+    private static void queryByPointRadius(final double latitude, final double longitude, final double radiusKM,
+            final QuadTreeNode node, final double x, final double y, final double width, final double height,
+            final Rectangle2D searchRegion, final Consumer<? super QuadTreeData> visitor) {
+        if (node == null || node.getNodeType() == NodeType.WHITE) {
+            return;
+        }
+        if (node.getNodeType() != NodeType.GRAY) {
+            final QuadTreeData[] data = node.getData();
+            final double[] coordinates = node.getCoordinates();
+            for (int i = 0; i < node.getCount(); i++) {
+                final int c = i * QuadTreeNode.STRIDE;
+                if (DistanceUtils.getHaversineDistance(coordinates[c + 2], coordinates[c + 3], latitude,
+                        longitude) <= radiusKM) {
+                    visitor.accept(data[i]);
                 }
-                return matches;
             }
-
         } else {
-            Rectangle2D swRectangle = new Rectangle2D.Double(nodeRegion.getX(), nodeRegion.getY(),
-                    nodeRegion.getWidth() / 2, nodeRegion.getHeight() / 2);
-            Rectangle2D seRectangle = new Rectangle2D.Double(nodeRegion.getX() + nodeRegion.getWidth() / 2,
-                    nodeRegion.getY(), nodeRegion.getWidth() / 2, nodeRegion.getHeight() / 2);
-            Rectangle2D nwRectangle = new Rectangle2D.Double(nodeRegion.getX(),
-                    nodeRegion.getY() + nodeRegion.getHeight() / 2, nodeRegion.getWidth() / 2,
-                    nodeRegion.getHeight() / 2);
-            Rectangle2D neRectangle = new Rectangle2D.Double(nodeRegion.getX() + nodeRegion.getWidth() / 2,
-                    nodeRegion.getY() + nodeRegion.getHeight() / 2, nodeRegion.getWidth() / 2,
-                    nodeRegion.getHeight() / 2);
-
-            if (swRectangle.intersects(searchRegion)) {
-                List<QuadTreeData> swMatches = queryByPointRadius(point, radiusKM, node.getChild(Quadrant.SW),
-                        swRectangle, searchRegion);
-                for (QuadTreeData q : swMatches) {
-                    matches.add(q);
-                }
+            final double w = width / 2;
+            final double h = height / 2;
+            if (searchRegion.intersects(x, y, w, h)) {
+                queryByPointRadius(latitude, longitude, radiusKM, node.getChild(Quadrant.SW), x, y, w, h,
+                        searchRegion, visitor);
             }
-            if (seRectangle.intersects(searchRegion)) {
-                List<QuadTreeData> seMatches = queryByPointRadius(point, radiusKM, node.getChild(Quadrant.SE),
-                        seRectangle, searchRegion);
-                for (QuadTreeData q : seMatches) {
-                    matches.add(q);
-                }
+            if (searchRegion.intersects(x + w, y, w, h)) {
+                queryByPointRadius(latitude, longitude, radiusKM, node.getChild(Quadrant.SE), x + w, y, w, h,
+                        searchRegion, visitor);
             }
-            if (nwRectangle.intersects(searchRegion)) {
-                List<QuadTreeData> nwMatches = queryByPointRadius(point, radiusKM, node.getChild(Quadrant.NW),
-                        nwRectangle, searchRegion);
-                for (QuadTreeData q : nwMatches) {
-                    matches.add(q);
-                }
+            if (searchRegion.intersects(x, y + h, w, h)) {
+                queryByPointRadius(latitude, longitude, radiusKM, node.getChild(Quadrant.NW), x, y + h, w, h,
+                        searchRegion, visitor);
             }
-            if (neRectangle.intersects(searchRegion)) {
-                List<QuadTreeData> neMatches = queryByPointRadius(point, radiusKM, node.getChild(Quadrant.NE),
-                        neRectangle, searchRegion);
-                for (QuadTreeData q : neMatches) {
-                    matches.add(q);
-                }
+            if (searchRegion.intersects(x + w, y + h, w, h)) {
+                queryByPointRadius(latitude, longitude, radiusKM, node.getChild(Quadrant.NE), x + w, y + h, w, h,
+                        searchRegion, visitor);
             }
         }
-        return matches;
     }
 
     /**
@@ -412,120 +502,390 @@ public class QuadTree {
      *         point
      */
     public List<QuadTreeData> queryByBoundingBox(final Envelope2D searchRegion) {
-        Rectangle2D.Double[] rectArray = searchRegion.toRectangles();
+        final List<QuadTreeData> matches = new ArrayList<QuadTreeData>();
+        queryByBoundingBox(searchRegion, matches::add);
+        return matches;
+    }
+
+    /**
+     * Performs bounding box search, giving each match to the specified visitor
+     * instead of collecting them in a list. If the region crosses the dateline,
+     * the tree is traversed twice; the two traversals never visit the same data
+     * since the regions are disjoint. The visitor is invoked while a read lock
+     * is held on this tree, so it shall not insert data in this tree.
+     *
+     * @param searchRegion
+     *            Envelope representing the rectangular search region
+     * @param visitor
+     *            the consumer to invoke for each QuadTreeData that is within
+     *            the search region
+     */
+    public void queryByBoundingBox(final Envelope2D searchRegion, final Consumer<? super QuadTreeData> visitor) {
+        final Rectangle2D.Double[] rectArray = searchRegion.toRectangles();
         for (final Rectangle2D.Double r : rectArray) {
             r.x += 180;
             r.y += 90;
         }
-        if (rectArray.length == 1) {
-            // traverse tree once because region does not cross dateline
-            return queryByBoundingBox(rectArray[0]);
-
-        } else if (rectArray.length == 2) {
-            // traverse tree twice since region crosses dateline
-            List<QuadTreeData> firstMatches = queryByBoundingBox(rectArray[0]);
-            List<QuadTreeData> secondMatches = queryByBoundingBox(rectArray[1]);
-
-            // merge two lists and return
-            for (QuadTreeData q : secondMatches) {
-                if (!firstMatches.contains(q)) {
-                    firstMatches.add(q);
+        this.lock.readLock().lock();
+        try {
+            for (final Rectangle2D.Double r : rectArray) {
+                if (this.file != null) {
+                    this.file.queryByBoundingBox(0, EARTH_MIN_X, EARTH_MIN_Y, EARTH_MAX_X - EARTH_MIN_X,
+                            EARTH_MAX_Y - EARTH_MIN_Y, r, visitor);
+                } else {
+                    queryByBoundingBox(this.root, EARTH_MIN_X, EARTH_MIN_Y, EARTH_MAX_X - EARTH_MIN_X,
+                            EARTH_MAX_Y - EARTH_MIN_Y, r, visitor);
                 }
             }
-            return firstMatches;
-        } else {
-            return null;
+        } finally {
+            this.lock.readLock().unlock();
         }
     }
 
     /**
      * Performs bounding box search.
      *
+     * @param node
+     *            quad tree node
+     * @param x
+     *            minimal x value of the node region
+     * @param y
+     *            minimal y value of the node region
+     * @param width
+     *            width of the node region
+     * @param height
+     *            height of the node region
      * @param searchRegion
      *            Rectangle2D representing the rectangular search region
-     * @return a list of QuadTreeData that are within the given radius from the
-     *         point
+     * @param visitor
+     *            the consumer to invoke for each match
      */
-    private List<QuadTreeData> queryByBoundingBox(final Rectangle2D searchRegion) {
-        return queryByBoundingBox(this.root, new Rectangle2D.Double(EARTH_MIN_X, EARTH_MIN_Y, EARTH_MAX_X, EARTH_MAX_Y),
-                searchRegion);
+    private static void queryByBoundingBox(final QuadTreeNode node, final double x, final double y,
+            final double width, final double height, final Rectangle2D searchRegion,
+            final Consumer<? super QuadTreeData> visitor) {
+        if (node == null || node.getNodeType() == NodeType.WHITE) {
+            return;
+        }
+        if (node.getNodeType() != NodeType.GRAY) {
+            final QuadTreeData[] data = node.getData();
+            final double[] coordinates = node.getCoordinates();
+            for (int i = 0; i < node.getCount(); i++) {
+                final int c = i * QuadTreeNode.STRIDE;
+                if (searchRegion.contains(coordinates[c], coordinates[c + 1])) {
+                    visitor.accept(data[i]);
+                }
+            }
+        } else {
+            final double w = width / 2;
+            final double h = height / 2;
+            if (searchRegion.intersects(x, y, w, h)) {
+                queryByBoundingBox(node.getChild(Quadrant.SW), x, y, w, h, searchRegion, visitor);
+            }
+            if (searchRegion.intersects(x + w, y, w, h)) {
+                queryByBoundingBox(node.getChild(Quadrant.SE), x + w, y, w, h, searchRegion, visitor);
+            }
+            if (searchRegion.intersects(x, y + h, w, h)) {
+                queryByBoundingBox(node.getChild(Quadrant.NW), x, y + h, w, h, searchRegion, visitor);
+            }
+            if (searchRegion.intersects(x + w, y + h, w, h)) {
+                queryByBoundingBox(node.getChild(Quadrant.NE), x + w, y + h, w, h, searchRegion, visitor);
+            }
+        }
     }
 
     /**
-     * Performs bounding box search.
+     * Performs k-nearest-neighbour search. The nodes are explored in best-first
+     * order, using a priority queue sorted by the smallest great-circle distance
+     * between the point and the region of each node. Consequently only the nodes
+     * that may contain one of the nearest data are visited.
      *
-     * @param node
-     *            quad tree root node
-     * @param nodeRegion
-     *            Rectangle2D representing the rectangular node region
-     * @param searchRegion
-     *            Rectangle2D representing the rectangular search region
-     * @return a list of QuadTreeData that are within the given radius from the
-     *         point
+     * @param point
+     *            the longitude/latitude of the point for which to search the nearest data
+     * @param count
+     *            the maximal number of data to return
+     * @return the {@code count} nearest data, sorted by increasing distance
+     *         from the point (fewer if the tree contains fewer data)
      */
-    private List<QuadTreeData> queryByBoundingBox(final QuadTreeNode node, final Rectangle2D nodeRegion,
-            final Rectangle2D searchRegion) {
+    public List<QuadTreeData> queryNearest(final DirectPosition2D point, final int count) {
+        return queryNearest(Collections.singletonList(point), count).get(0);
+    }
 
-        List<QuadTreeData> matches = new ArrayList<QuadTreeData>();
-        if (node == null) {
-            return matches;
-        } else if (node.getNodeType() != NodeType.GRAY) {
-            if (node.getNodeType() == NodeType.WHITE)
-                return matches;
-            else {
-                QuadTreeData[] data = node.getData();
-                for (int i = 0; i < node.getCount(); i++) {
-                    if (searchRegion.contains(data[i].getX(), data[i].getY())) {
-                        matches.add(data[i]);
-                    }
-                }
-                return matches;
+    /**
+     * Performs k-nearest-neighbour search for many points. This method is faster
+     * than invoking {@link #queryNearest(DirectPosition2D, int)} for each point:
+     * the lock is acquired only once, the priority queue is reused, and the points
+     * are processed in Z-order so that consecutive searches visit the same nodes.
+     *
+     * @param points
+     *            the longitude/latitude of the points for which to search the nearest data
+     * @param count
+     *            the maximal number of data to return for each point
+     * @return for each point in the given list, the {@code count} nearest data
+     *         sorted by increasing distance from that point
+     */
+    public List<List<QuadTreeData>> queryNearest(final List<? extends DirectPosition2D> points, final int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException(Errors.format(Errors.Keys.NegativeArgument_2, "count", count));
+        }
+        /*
+         * Sort the points in Z-order, using 16 bits per dimension. The index of
+         * each point is stored in the low bits of the sort keys.
+         */
+        final int n = points.size();
+        final long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            final DirectPosition2D p = points.get(i);
+            final long zx = quantize((p.x + 180) / EARTH_MAX_X);
+            final long zy = quantize((p.y + 90) / EARTH_MAX_Y);
+            keys[i] = (interleave(zx) | (interleave(zy) << 1)) << 32 | i;
+        }
+        Arrays.sort(keys);
+        final List<QuadTreeData>[] results = newListArray(n);
+        final PriorityQueue<Candidate> queue = new PriorityQueue<Candidate>();
+        this.lock.readLock().lock();
+        try {
+            for (final long key : keys) {
+                final int i = (int) key;
+                final DirectPosition2D p = points.get(i);
+                results[i] = queryNearest(p.y, p.x, count, queue);
             }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        return Arrays.asList(results);
+    }
 
-        } else {
-            Rectangle2D swRectangle = new Rectangle2D.Double(nodeRegion.getX(), nodeRegion.getY(),
-                    nodeRegion.getWidth() / 2, nodeRegion.getHeight() / 2);
-            Rectangle2D seRectangle = new Rectangle2D.Double(nodeRegion.getX() + nodeRegion.getWidth() / 2,
-                    nodeRegion.getY(), nodeRegion.getWidth() / 2, nodeRegion.getHeight() / 2);
-            Rectangle2D nwRectangle = new Rectangle2D.Double(nodeRegion.getX(),
-                    nodeRegion.getY() + nodeRegion.getHeight() / 2, nodeRegion.getWidth() / 2,
-                    nodeRegion.getHeight() / 2);
-            Rectangle2D neRectangle = new Rectangle2D.Double(nodeRegion.getX() + nodeRegion.getWidth() / 2,
-                    nodeRegion.getY() + nodeRegion.getHeight() / 2, nodeRegion.getWidth() / 2,
-                    nodeRegion.getHeight() / 2);
-
-            if (swRectangle.intersects(searchRegion)) {
-                List<QuadTreeData> swMatches = queryByBoundingBox(node.getChild(Quadrant.SW), swRectangle,
-                        searchRegion);
-                for (QuadTreeData q : swMatches) {
-                    matches.add(q);
-                }
-            }
-            if (seRectangle.intersects(searchRegion)) {
-                List<QuadTreeData> seMatches = queryByBoundingBox(node.getChild(Quadrant.SE), seRectangle,
-                        searchRegion);
-                for (QuadTreeData q : seMatches) {
-                    matches.add(q);
+    /**
+     * Creates an array of lists. Defined in a separated method for keeping the unchecked cast local.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<QuadTreeData>[] newListArray(final int length) {
+        return new List[length];
+    }
+
+    /**
+     * Converts a value between 0 and 1 to an integer on 16 bits.
+     */
+    private static long quantize(final double value) {
+        return (long) (Math.max(0, Math.min(1, value)) * 0xFFFF);
+    }
+
+    /**
+     * Spreads the 16 lowest bits of the given value on 32 bits, with a 0 bit inserted before each bit.
+     */
+    private static long interleave(long v) {
+        v = (v | (v << 8)) & 0x00FF00FFL;
+        v = (v | (v << 4)) & 0x0F0F0F0FL;
+        v = (v | (v << 2)) & 0x33333333L;
+        v = (v | (v << 1)) & 0x55555555L;
+        return v;
+    }
+
+    /**
+     * Performs k-nearest-neighbour search. The caller shall hold the read lock.
+     *
+     * @param latitude
+     *            latitude of the point
+     * @param longitude
+     *            longitude of the point
+     * @param count
+     *            the maximal number of data to return
+     * @param queue
+     *            a priority queue to use as a work area
+     * @return the nearest data sorted by increasing distance
+     */
+    private List<QuadTreeData> queryNearest(final double latitude, final double longitude, final int count,
+            final PriorityQueue<Candidate> queue) {
+        final List<QuadTreeData> matches = new ArrayList<QuadTreeData>(Math.min(count, this.size));
+        if (count == 0) {
+            return matches;
+        }
+        queue.clear();
+        queue.add(new Candidate(0, this.root, null, 0, EARTH_MIN_X, EARTH_MIN_Y,
+                EARTH_MAX_X - EARTH_MIN_X, EARTH_MAX_Y - EARTH_MIN_Y));
+        Candidate c;
+        while ((c = queue.poll()) != null) {
+            if (c.width < 0) {
+                /*
+                 * A data: since all other candidates are at a greater or equal distance,
+                 * this data is the next nearest one.
+                 */
+                matches.add(c.data != null ? c.data : this.file.getData(c.index));
+                if (matches.size() >= count) {
+                    break;
                 }
-            }
-            if (nwRectangle.intersects(searchRegion)) {
-                List<QuadTreeData> nwMatches = queryByBoundingBox(node.getChild(Quadrant.NW), nwRectangle,
-                        searchRegion);
-                for (QuadTreeData q : nwMatches) {
-                    matches.add(q);
+            } else if (this.file != null) {
+                final int node = c.index;
+                if (this.file.isParent(node)) {
+                    for (int q = 0; q < 4; q++) {
+                        final Quadrant quadrant = Quadrant.getQuadrant(q);
+                        final int child = this.file.getChild(node, quadrant);
+                        if (child >= 0) {
+                            addChild(queue, latitude, longitude, null, child, quadrant, c);
+                        }
+                    }
+                } else {
+                    final int first = this.file.getFirstData(node);
+                    final int n = this.file.getDataCount(node);
+                    for (int i = first; i < first + n; i++) {
+                        queue.add(new Candidate(distance(this.file.getLatitude(i),
+                                this.file.getLongitude(i), latitude, longitude), null, null, i, 0, 0, -1, -1));
+                    }
                 }
-            }
-            if (neRectangle.intersects(searchRegion)) {
-                List<QuadTreeData> neMatches = queryByBoundingBox(node.getChild(Quadrant.NE), neRectangle,
-                        searchRegion);
-                for (QuadTreeData q : neMatches) {
-                    matches.add(q);
+            } else {
+                final QuadTreeNode node = c.node;
+                if (node.getNodeType() == NodeType.GRAY) {
+                    for (int q = 0; q < 4; q++) {
+                        final Quadrant quadrant = Quadrant.getQuadrant(q);
+                        final QuadTreeNode child = node.getChild(quadrant);
+                        if (child != null) {
+                            addChild(queue, latitude, longitude, child, 0, quadrant, c);
+                        }
+                    }
+                } else if (node.getNodeType() == NodeType.BLACK) {
+                    final QuadTreeData[] data = node.getData();
+                    final double[] coordinates = node.getCoordinates();
+                    for (int i = 0; i < node.getCount(); i++) {
+                        final int p = i * QuadTreeNode.STRIDE;
+                        queue.add(new Candidate(distance(coordinates[p + 2],
+                                coordinates[p + 3], latitude, longitude), null, data[i], 0, 0, 0, -1, -1));
+                    }
                 }
             }
         }
         return matches;
     }
 
+    /**
+     * Adds to the queue a candidate for the child of a node.
+     *
+     * @param queue
+     *            the priority queue where to add the child
+     * @param latitude
+     *            latitude of the searched point
+     * @param longitude
+     *            longitude of the searched point
+     * @param node
+     *            the child node if the tree is in memory, or {@code null}
+     * @param index
+     *            index of the child node if the tree is backed by a file
+     * @param quadrant
+     *            quadrant of the child in its parent
+     * @param parent
+     *            the candidate for the parent node
+     */
+    private static void addChild(final PriorityQueue<Candidate> queue, final double latitude,
+            final double longitude, final QuadTreeNode node, final int index, final Quadrant quadrant,
+            final Candidate parent) {
+        final double w = parent.width / 2;
+        final double h = parent.height / 2;
+        final double x = (quadrant == Quadrant.SE || quadrant == Quadrant.NE) ? parent.x + w : parent.x;
+        final double y = (quadrant == Quadrant.NW || quadrant == Quadrant.NE) ? parent.y + h : parent.y;
+        queue.add(new Candidate(distanceToRegion(latitude, longitude, x, y, w, h), node, null, index, x, y, w, h));
+    }
+
+    /**
+     * Returns the smallest great-circle distance in kilometres between the given point and a node region.
+     * If the longitude of the point is inside the region, the nearest point of the region is on the same
+     * meridian. Otherwise the nearest point is on the nearest meridian edge of the region, at the latitude
+     * of the point of that meridian nearest to the given point, clamped to the region.
+     *
+     * @param latitude
+     *            latitude of the point
+     * @param longitude
+     *            longitude of the point
+     * @param x
+     *            minimal x value of the node region
+     * @param y
+     *            minimal y value of the node region
+     * @param width
+     *            width of the node region
+     * @param height
+     *            height of the node region
+     * @return smallest distance between the point and the region, in kilometres
+     */
+    private static double distanceToRegion(final double latitude, final double longitude,
+            final double x, final double y, final double width, final double height) {
+        final double latMin = y - 90;
+        final double latMax = latMin + height;
+        double dLon = longitude + 180 - x;          // Distance from the west edge, toward east.
+        dLon -= 360 * Math.floor(dLon / 360);       // Now in the [0 ... 360) range.
+        if (dLon <= width) {
+            final double lat = Math.max(latMin, Math.min(latMax, latitude));
+            return Math.abs(latitude - lat) * (Math.PI / 180) * DistanceUtils.EARTH_RADIUS;
+        }
+        final double lon;
+        final double toEast = dLon - width;         // Distance from the east edge, toward east.
+        final double toWest = 360 - dLon;           // Distance from the west edge, toward west.
+        if (toEast <= toWest) {
+            lon = x + width - 180;
+            dLon = toEast;
+        } else {
+            lon = x - 180;
+            dLon = toWest;
+        }
+        final double latRad = Math.toRadians(latitude);
+        double lat = Math.toDegrees(Math.atan2(Math.sin(latRad), Math.cos(latRad) * Math.cos(Math.toRadians(dLon))));
+        lat = Math.max(latMin, Math.min(latMax, lat));
+        return distance(latitude, longitude, lat, lon);
+    }
+
+    /**
+     * Returns the great-circle distance in kilometres between two points, computed with the
+     * haversine formula. Contrarily to {@link DistanceUtils#getHaversineDistance}, which uses
+     * the spherical law of cosines, this formula is accurate for small distances and never
+     * returns NaN for identical points, which is required for sorting the nearest data.
+     */
+    private static double distance(final double lat1, final double lon1, final double lat2, final double lon2) {
+        final double sinLat = Math.sin(Math.toRadians(lat2 - lat1) / 2);
+        final double sinLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+        final double a = sinLat * sinLat + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon;
+        return 2 * DistanceUtils.EARTH_RADIUS * Math.atan2(Math.sqrt(a), Math.sqrt(Math.max(0, 1 - a)));
+    }
+
+    /**
+     * A node or a data in the priority queue of the k-nearest-neighbour search.
+     * Data are identified by a negative {@link #width}.
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+        /** Smallest distance in kilometres between the searched point and this candidate. */
+        final double distance;
+
+        /** The node if the tree is in memory, or {@code null}. */
+        final QuadTreeNode node;
+
+        /** The data if the tree is in memory, or {@code null}. */
+        final QuadTreeData data;
+
+        /** Index of the node or data if the tree is backed by a file. */
+        final int index;
+
+        /** Region of the node, or negative width and height for a data. */
+        final double x, y, width, height;
+
+        Candidate(final double distance, final QuadTreeNode node, final QuadTreeData data, final int index,
+                final double x, final double y, final double width, final double height) {
+            this.distance = distance;
+            this.node = node;
+            this.data = data;
+            this.index = index;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * Orders candidates by increasing distance. For equal distances, data are
+         * before nodes so that the search can stop as soon as possible.
+         */
+        @Override
+        public int compareTo(final Candidate other) {
+            final int c = Double.compare(this.distance, other.distance);
+            return (c != 0) ? c : Double.compare(this.width, other.width);
+        }
+    }
+
     /**
      * Returns the size of the quad tree.
      *
@@ -536,7 +896,7 @@ public class QuadTree {
     }
 
     /**
-     * Returns the root node of the quad tree.
+     * Returns the root node of the quad tree, or {@code null} if this tree is backed by a file.
      *
      * @return root node of the quad tree.
      */
@@ -544,6 +904,15 @@ public class QuadTree {
         return this.root;
     }
 
+    /**
+     * Returns the lock to hold while reading the nodes of this tree.
+     *
+     * @return the lock of this tree.
+     */
+    final ReadWriteLock getLock() {
+        return this.lock;
+    }
+
     /**
      * Sets the size of the quad tree.
      *
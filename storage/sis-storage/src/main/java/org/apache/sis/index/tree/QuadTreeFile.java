@@ -0,0 +1,547 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.index.tree;
+
+//JDK imports
+import java.awt.geom.Rectangle2D;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+//SIS imports
+import org.apache.sis.geometry.DirectPosition2D;
+import org.apache.sis.distance.DistanceUtils;
+import org.apache.sis.util.resources.Errors;
+
+/**
+ * A quad tree index saved in a single binary file, queried directly from a
+ * memory mapping of that file. The file content is never deserialized in
+ * Java objects, except for the {@link QuadTreeData} given to the visitors.
+ * Since the mapping is read-only, many processes opening the same file
+ * share the same pages.
+ *
+ * <p>All values are stored in big-endian byte order. The file contains the
+ * following sections, in that order:</p>
+ *
+ * <ol>
+ *   <li>A header of {@value #HEADER_SIZE} bytes: magic number, format version,
+ *       node capacity, maximum depth, number of nodes, number of data, node id
+ *       counter and a reserved integer.</li>
+ *   <li>The node table, with {@value #NODE_SIZE} bytes for each node. The root
+ *       is the first node. Each entry contains the node type and the node id,
+ *       followed by four integers. For parent nodes, those integers are the
+ *       indices of the children in the node table (in {@link Quadrant#index()}
+ *       order), or -1 if none. For nodes containing data, those integers are
+ *       the capacity, the number of data and the index of the first data.</li>
+ *   <li>The packed coordinates of all data, as (x, y, latitude, longitude)
+ *       tuples of {@code double} values. The data of each node are contiguous.</li>
+ *   <li>For each data, the offset of its file name in the next section,
+ *       followed by the length of that section.</li>
+ *   <li>The file names of all data, encoded in UTF-8.</li>
+ * </ol>
+ *
+ * Instances of this class are immutable and thread-safe.
+ */
+final class QuadTreeFile {
+    /**
+     * The magic number at the beginning of the file, which is "SQTI" in ASCII.
+     */
+    private static final int MAGIC = 0x53515449;
+
+    /**
+     * Version of the file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Number of bytes in the file header.
+     */
+    static final int HEADER_SIZE = 8 * Integer.BYTES;
+
+    /**
+     * Number of bytes in each entry of the node table.
+     */
+    static final int NODE_SIZE = 6 * Integer.BYTES;
+
+    /**
+     * Number of bytes used for the coordinates of each data.
+     */
+    private static final int POINT_SIZE = QuadTreeNode.STRIDE * Double.BYTES;
+
+    /**
+     * Codes for the node types, stored in the first integer of each entry of the node table.
+     */
+    private static final int GRAY = 0, BLACK = 1, WHITE = 2;
+
+    /**
+     * The mapped file content.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The function to invoke for creating a data from its file name and its position.
+     */
+    private final BiFunction<String, DirectPosition2D, QuadTreeData> factory;
+
+    /**
+     * Header values.
+     */
+    final int capacity, depth, nodeCount, size, nodeSize;
+
+    /**
+     * Position in the buffer of the coordinates, of the file name offsets and of the file names.
+     */
+    private final int pointsStart, namesIndex, namesStart;
+
+    /**
+     * Maps the given file.
+     *
+     * @param file
+     *            the file written by {@link #write(QuadTree, Path)}
+     * @param factory
+     *            the function to invoke for creating a data from its file name and position
+     * @throws IOException
+     *             if the file can not be mapped, or is truncated or not a quad tree file
+     */
+    QuadTreeFile(final Path file, final BiFunction<String, DirectPosition2D, QuadTreeData> factory) throws IOException {
+        this.factory = factory;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (this.buffer.limit() < HEADER_SIZE || this.buffer.getInt(0) != MAGIC || this.buffer.getInt(4) != VERSION) {
+            throw new IOException(Errors.format(Errors.Keys.UnexpectedFileFormat_2, "QuadTree", file));
+        }
+        this.capacity    = this.buffer.getInt(8);
+        this.depth       = this.buffer.getInt(12);
+        this.nodeCount   = this.buffer.getInt(16);
+        this.size        = this.buffer.getInt(20);
+        this.nodeSize    = this.buffer.getInt(24);
+        /*
+         * Computes the section positions with long integers for detecting overflows
+         * caused by corrupted header values, then verifies that they match the file length.
+         */
+        final long namesStart = HEADER_SIZE + (long) this.nodeCount * NODE_SIZE + (long) this.size * POINT_SIZE
+                + (this.size + 1L) * Integer.BYTES;
+        if (this.nodeCount <= 0 || this.size < 0 || namesStart > this.buffer.limit()
+                || namesStart + this.buffer.getInt((int) namesStart - Integer.BYTES) != this.buffer.limit()) {
+            throw new IOException(Errors.format(Errors.Keys.UnexpectedFileFormat_2, "QuadTree", file));
+        }
+        this.pointsStart = HEADER_SIZE + this.nodeCount * NODE_SIZE;
+        this.namesIndex  = this.pointsStart + this.size * POINT_SIZE;
+        this.namesStart  = (int) namesStart;
+        if (!isValid()) {
+            throw new IOException(Errors.format(Errors.Keys.UnexpectedFileFormat_2, "QuadTree", file));
+        }
+    }
+
+    /**
+     * Verifies the node table and the file name offsets, so that queries can read them without checks.
+     * Children shall be after their parent in the node table, which ensures that the traversal ends.
+     * The data of each node and the file names shall be inside their sections.
+     *
+     * @return whether the node table and the file name offsets are valid
+     */
+    private boolean isValid() {
+        for (int node = 0; node < this.nodeCount; node++) {
+            final int entry = HEADER_SIZE + node * NODE_SIZE;
+            switch (this.buffer.getInt(entry)) {
+            case GRAY: {
+                for (int q = 0; q < 4; q++) {
+                    final int child = this.buffer.getInt(entry + 8 + q * Integer.BYTES);
+                    if (child != -1 && (child <= node || child >= this.nodeCount)) {
+                        return false;
+                    }
+                }
+                break;
+            }
+            case BLACK: {
+                final int count = this.buffer.getInt(entry + 12);
+                final int first = this.buffer.getInt(entry + 16);
+                if (count < 0 || first < 0 || (long) first + count > this.size) {
+                    return false;
+                }
+                break;
+            }
+            case WHITE: break;
+            default: return false;
+            }
+        }
+        int previous = 0;
+        for (int i = 0; i <= this.size; i++) {
+            final int offset = this.buffer.getInt(this.namesIndex + i * Integer.BYTES);
+            if (offset < previous) {
+                return false;
+            }
+            previous = offset;
+        }
+        return true;
+    }
+
+    /**
+     * Writes the given tree in a single binary file. The caller shall hold a
+     * lock preventing insertions in the tree during this method execution.
+     * The tree is written in a temporary file in the same directory, which
+     * then replaces the given file in an atomic operation. Consequently
+     * processes mapping the previous file content are not affected, and
+     * a failure does not leave a partially written file.
+     *
+     * @param tree
+     *            the quad tree to write
+     * @param file
+     *            the file to create or overwrite
+     * @throws IOException
+     *             if an error occurred while writing the file
+     */
+    static void write(final QuadTree tree, final Path file) throws IOException {
+        /*
+         * Assign an index to each node in breadth-first order, the root being the first one,
+         * and count the data.
+         */
+        final List<QuadTreeNode> nodes = new ArrayList<QuadTreeNode>();
+        nodes.add(tree.getRoot());
+        int size = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            final QuadTreeNode node = nodes.get(i);
+            if (node.getNodeType() == NodeType.GRAY) {
+                for (int q = 0; q < 4; q++) {
+                    final QuadTreeNode child = node.getChild(Quadrant.getQuadrant(q));
+                    if (child != null) {
+                        nodes.add(child);
+                    }
+                }
+            } else if (node.getNodeType() == NodeType.BLACK) {
+                size += node.getCount();
+            }
+        }
+        final byte[][] names = new byte[size][];
+        final Path target = file.toAbsolutePath();
+        final Path temp = Files.createTempFile(target.getParent(), String.valueOf(target.getFileName()), ".tmp");
+        boolean success = false;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(tree.getCapacity());
+            out.writeInt(tree.getDepth());
+            out.writeInt(nodes.size());
+            out.writeInt(size);
+            out.writeInt(tree.getNodeSize());
+            out.writeInt(0);
+            /*
+             * Node table. Children indices are computed in the same order than
+             * the loop above, so they match the position of the children in the list.
+             */
+            int nextChild = 1;
+            int nextData = 0;
+            for (final QuadTreeNode node : nodes) {
+                final NodeType type = node.getNodeType();
+                out.writeInt(type == NodeType.GRAY ? GRAY : type == NodeType.BLACK ? BLACK : WHITE);
+                out.writeInt(node.getId());
+                if (type == NodeType.GRAY) {
+                    for (int q = 0; q < 4; q++) {
+                        out.writeInt(node.getChild(Quadrant.getQuadrant(q)) != null ? nextChild++ : -1);
+                    }
+                } else if (type == NodeType.BLACK) {
+                    out.writeInt(node.getCapacity());
+                    out.writeInt(node.getCount());
+                    out.writeInt(nextData);
+                    out.writeInt(0);
+                    nextData += node.getCount();
+                } else {
+                    out.writeInt(0);
+                    out.writeInt(0);
+                    out.writeInt(0);
+                    out.writeInt(0);
+                }
+            }
+            /*
+             * Packed coordinates, then file names.
+             */
+            int n = 0;
+            for (final QuadTreeNode node : nodes) {
+                if (node.getNodeType() == NodeType.BLACK) {
+                    final double[] coordinates = node.getCoordinates();
+                    final QuadTreeData[] data = node.getData();
+                    for (int i = 0; i < node.getCount(); i++) {
+                        for (int j = 0; j < QuadTreeNode.STRIDE; j++) {
+                            out.writeDouble(coordinates[i * QuadTreeNode.STRIDE + j]);
+                        }
+                        final String name = data[i].getFileName();
+                        names[n++] = (name != null) ? name.getBytes(StandardCharsets.UTF_8) : new byte[0];
+                    }
+                }
+            }
+            int offset = 0;
+            for (final byte[] name : names) {
+                out.writeInt(offset);
+                offset += name.length;
+            }
+            out.writeInt(offset);
+            for (final byte[] name : names) {
+                out.write(name);
+            }
+            out.close();
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            success = true;
+        } finally {
+            if (!success) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Returns the file name of the data at the given index.
+     */
+    private String getFileName(final int index) {
+        final int start = this.buffer.getInt(this.namesIndex + index * Integer.BYTES);
+        final int end = this.buffer.getInt(this.namesIndex + (index + 1) * Integer.BYTES);
+        final byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = this.buffer.get(this.namesStart + start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates the data at the given index, for giving it to a visitor.
+     */
+    private QuadTreeData getData(final int index, final int position) {
+        return this.factory.apply(getFileName(index), new DirectPosition2D(
+                this.buffer.getDouble(position + 3 * Double.BYTES),
+                this.buffer.getDouble(position + 2 * Double.BYTES)));
+    }
+
+    /**
+     * Creates the data at the given index.
+     *
+     * @param index
+     *            index of the data, from 0 inclusive to {@link #size} exclusive
+     * @return the data at the given index
+     */
+    QuadTreeData getData(final int index) {
+        return getData(index, this.pointsStart + index * POINT_SIZE);
+    }
+
+    /**
+     * Returns the latitude of the data at the given index.
+     *
+     * @param index
+     *            index of the data, from 0 inclusive to {@link #size} exclusive
+     * @return latitude of the data
+     */
+    double getLatitude(final int index) {
+        return this.buffer.getDouble(this.pointsStart + index * POINT_SIZE + 2 * Double.BYTES);
+    }
+
+    /**
+     * Returns the longitude of the data at the given index.
+     *
+     * @param index
+     *            index of the data, from 0 inclusive to {@link #size} exclusive
+     * @return longitude of the data
+     */
+    double getLongitude(final int index) {
+        return this.buffer.getDouble(this.pointsStart + index * POINT_SIZE + 3 * Double.BYTES);
+    }
+
+    /**
+     * Returns whether the node at the given index is a parent node.
+     *
+     * @param node
+     *            index of the node in the node table
+     * @return whether the node is a parent
+     */
+    boolean isParent(final int node) {
+        return this.buffer.getInt(HEADER_SIZE + node * NODE_SIZE) == GRAY;
+    }
+
+    /**
+     * Returns the index of the child of the given parent node, or -1 if none.
+     *
+     * @param node
+     *            index of the parent node in the node table
+     * @param q
+     *            quadrant of the child
+     * @return index of the child in the node table, or -1
+     */
+    int getChild(final int node, final Quadrant q) {
+        return getChildAt(HEADER_SIZE + node * NODE_SIZE, q);
+    }
+
+    /**
+     * Returns the number of data in the given node, or 0 if the node does not contain data.
+     *
+     * @param node
+     *            index of the node in the node table
+     * @return number of data in the node
+     */
+    int getDataCount(final int node) {
+        final int entry = HEADER_SIZE + node * NODE_SIZE;
+        return (this.buffer.getInt(entry) == BLACK) ? this.buffer.getInt(entry + 12) : 0;
+    }
+
+    /**
+     * Returns the index of the first data in the given node.
+     *
+     * @param node
+     *            index of the node in the node table
+     * @return index of the first data
+     */
+    int getFirstData(final int node) {
+        return this.buffer.getInt(HEADER_SIZE + node * NODE_SIZE + 16);
+    }
+
+    /**
+     * Performs point radius search in the node at the given index and its children.
+     *
+     * @param latitude
+     *            latitude of the center of the circular region
+     * @param longitude
+     *            longitude of the center of the circular region
+     * @param radiusKM
+     *            the radius in kilometers
+     * @param node
+     *            index of the node in the node table
+     * @param x
+     *            minimal x value of the node region
+     * @param y
+     *            minimal y value of the node region
+     * @param width
+     *            width of the node region
+     * @param height
+     *            height of the node region
+     * @param searchRegion
+     *            Rectangle2D representing the circular search region
+     * @param visitor
+     *            the consumer to invoke for each match
+     */
+    void queryByPointRadius(final double latitude, final double longitude, final double radiusKM,
+            final int node, final double x, final double y, final double width, final double height,
+            final Rectangle2D searchRegion, final Consumer<? super QuadTreeData> visitor) {
+        final int entry = HEADER_SIZE + node * NODE_SIZE;
+        switch (this.buffer.getInt(entry)) {
+        case BLACK: {
+            final int count = this.buffer.getInt(entry + 12);
+            final int first = this.buffer.getInt(entry + 16);
+            for (int i = 0; i < count; i++) {
+                final int position = this.pointsStart + (first + i) * POINT_SIZE;
+                if (DistanceUtils.getHaversineDistance(this.buffer.getDouble(position + 2 * Double.BYTES),
+                        this.buffer.getDouble(position + 3 * Double.BYTES), latitude, longitude) <= radiusKM) {
+                    visitor.accept(getData(first + i, position));
+                }
+            }
+            break;
+        }
+        case GRAY: {
+            final double w = width / 2;
+            final double h = height / 2;
+            int child;
+            if ((child = getChildAt(entry, Quadrant.SW)) >= 0 && searchRegion.intersects(x, y, w, h)) {
+                queryByPointRadius(latitude, longitude, radiusKM, child, x, y, w, h, searchRegion, visitor);
+            }
+            if ((child = getChildAt(entry, Quadrant.SE)) >= 0 && searchRegion.intersects(x + w, y, w, h)) {
+                queryByPointRadius(latitude, longitude, radiusKM, child, x + w, y, w, h, searchRegion, visitor);
+            }
+            if ((child = getChildAt(entry, Quadrant.NW)) >= 0 && searchRegion.intersects(x, y + h, w, h)) {
+                queryByPointRadius(latitude, longitude, radiusKM, child, x, y + h, w, h, searchRegion, visitor);
+            }
+            if ((child = getChildAt(entry, Quadrant.NE)) >= 0 && searchRegion.intersects(x + w, y + h, w, h)) {
+                queryByPointRadius(latitude, longitude, radiusKM, child, x + w, y + h, w, h, searchRegion, visitor);
+            }
+            break;
+        }
+        }
+    }
+
+    /**
+     * Performs bounding box search in the node at the given index and its children.
+     *
+     * @param node
+     *            index of the node in the node table
+     * @param x
+     *            minimal x value of the node region
+     * @param y
+     *            minimal y value of the node region
+     * @param width
+     *            width of the node region
+     * @param height
+     *            height of the node region
+     * @param searchRegion
+     *            Rectangle2D representing the rectangular search region
+     * @param visitor
+     *            the consumer to invoke for each match
+     */
+    void queryByBoundingBox(final int node, final double x, final double y, final double width,
+            final double height, final Rectangle2D searchRegion, final Consumer<? super QuadTreeData> visitor) {
+        final int entry = HEADER_SIZE + node * NODE_SIZE;
+        switch (this.buffer.getInt(entry)) {
+        case BLACK: {
+            final int count = this.buffer.getInt(entry + 12);
+            final int first = this.buffer.getInt(entry + 16);
+            for (int i = 0; i < count; i++) {
+                final int position = this.pointsStart + (first + i) * POINT_SIZE;
+                if (searchRegion.contains(this.buffer.getDouble(position),
+                        this.buffer.getDouble(position + Double.BYTES))) {
+                    visitor.accept(getData(first + i, position));
+                }
+            }
+            break;
+        }
+        case GRAY: {
+            final double w = width / 2;
+            final double h = height / 2;
+            int child;
+            if ((child = getChildAt(entry, Quadrant.SW)) >= 0 && searchRegion.intersects(x, y, w, h)) {
+                queryByBoundingBox(child, x, y, w, h, searchRegion, visitor);
+            }
+            if ((child = getChildAt(entry, Quadrant.SE)) >= 0 && searchRegion.intersects(x + w, y, w, h)) {
+                queryByBoundingBox(child, x + w, y, w, h, searchRegion, visitor);
+            }
+            if ((child = getChildAt(entry, Quadrant.NW)) >= 0 && searchRegion.intersects(x, y + h, w, h)) {
+                queryByBoundingBox(child, x, y + h, w, h, searchRegion, visitor);
+            }
+            if ((child = getChildAt(entry, Quadrant.NE)) >= 0 && searchRegion.intersects(x + w, y + h, w, h)) {
+                queryByBoundingBox(child, x + w, y + h, w, h, searchRegion, visitor);
+            }
+            break;
+        }
+        }
+    }
+
+    /**
+     * Returns the index of the child in the given quadrant, or -1 if none.
+     *
+     * @param entry
+     *            position of the parent node in the buffer
+     * @param q
+     *            quadrant of the child
+     */
+    private int getChildAt(final int entry, final Quadrant q) {
+        return this.buffer.getInt(entry + 8 + q.index() * Integer.BYTES);
+    }
+}
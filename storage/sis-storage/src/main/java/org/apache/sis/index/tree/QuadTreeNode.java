@@ -16,13 +16,22 @@
  */
 package org.apache.sis.index.tree;
 
+//SIS imports
+import org.apache.sis.geometry.DirectPosition2D;
+
 /**
  * Implementation of quad tree node.
  *
  */
 final class QuadTreeNode {
 
+    /**
+     * Number of values stored in {@link #coordinates} for each data: x, y, latitude and longitude.
+     */
+    static final int STRIDE = 4;
+
     private QuadTreeData[] data;
+    private double[] coordinates;
     private QuadTreeNode nw;
     private QuadTreeNode ne;
     private QuadTreeNode se;
@@ -45,6 +54,7 @@ final class QuadTreeNode {
         this.capacity = capacity > 0 ? capacity : MIN_CAPACITY;
         this.dataCount = 0;
         this.data = new QuadTreeData[this.capacity];
+        this.coordinates = new double[this.capacity * STRIDE];
         this.type = NodeType.BLACK;
         this.nw = null;
         this.ne = null;
@@ -68,6 +78,7 @@ final class QuadTreeNode {
         this.sw = null;
         this.se = null;
         this.data = null;
+        this.coordinates = null;
         this.id = id;
     }
 
@@ -79,6 +90,12 @@ final class QuadTreeNode {
      */
     public void addData(QuadTreeData data) {
         if (this.dataCount < this.capacity) {
+            final DirectPosition2D latLon = data.getLatLon();
+            final int i = this.dataCount * STRIDE;
+            this.coordinates[i]     = data.getX();
+            this.coordinates[i + 1] = data.getY();
+            this.coordinates[i + 2] = latLon.y;
+            this.coordinates[i + 3] = latLon.x;
             this.data[dataCount] = data;
             this.dataCount++;
         }
@@ -158,6 +175,17 @@ final class QuadTreeNode {
         return this.data;
     }
 
+    /**
+     * Returns the coordinates of the data stored in this node, packed as
+     * (x, y, latitude, longitude) tuples in the same order than {@link #getData()}.
+     * Only the first {@code getCount() * STRIDE} values are meaningful.
+     *
+     * @return packed coordinates of the data stored in this node
+     */
+    public double[] getCoordinates() {
+        return this.coordinates;
+    }
+
     /**
      * Returns node's id.
      *
@@ -20,6 +20,7 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Path;
 
 /**
  * Class to save the quad tree index from file.
@@ -47,6 +48,30 @@ public final class QuadTreeWriter {
         writeNodeToFile(tree.getRoot(), directory);
     }
 
+    /**
+     * Writes the entire quad tree index in a single binary file, which can be
+     * opened later by {@link QuadTree#mapFromFile(Path, java.util.function.BiFunction)}.
+     * The file contains a node table followed by the packed coordinates and the
+     * file names of all data. Insertions in the tree are blocked during this
+     * method execution.
+     *
+     * @param tree
+     *            the quad tree
+     * @param file
+     *            the file to create or overwrite
+     */
+    public static void writeTreeToBinaryFile(QuadTree tree, Path file) throws IOException {
+        if (tree.getRoot() == null) {
+            throw new IllegalArgumentException("The quad tree is already backed by a file.");
+        }
+        tree.getLock().readLock().lock();
+        try {
+            QuadTreeFile.write(tree, file);
+        } finally {
+            tree.getLock().readLock().unlock();
+        }
+    }
+
     /**
      * Creating quad tree index file.
      *
@@ -16,12 +16,19 @@
  */
 package org.apache.sis.internal.storage;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.stream.Stream;
+import java.util.stream.IntStream;
+import org.opengis.geometry.Envelope;
+import org.opengis.metadata.Metadata;
 import org.apache.sis.storage.DataStore;
+import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.util.ArgumentChecks;
 import org.apache.sis.util.logging.WarningListeners;
-import org.opengis.metadata.Metadata;
+import org.apache.sis.internal.feature.AttributeConvention;
+import org.apache.sis.internal.feature.Geometries;
+import org.apache.sis.geometry.GeneralEnvelope;
 
 // Branch-dependent imports
 import org.apache.sis.feature.AbstractFeature;
@@ -50,6 +57,50 @@ public final class MemoryFeatureSet extends AbstractFeatureSet {
      */
     private final Collection<AbstractFeature> features;
 
+    /**
+     * Spatial index over the envelopes of the default geometries, created when first needed.
+     * This field is set to {@code null} by {@link #clearIndex()} when a geometry is modified.
+     *
+     * @see #index()
+     */
+    private volatile Index index;
+
+    /**
+     * A snapshot of the features together with a R-tree over their envelopes.
+     * Instances of this class are immutable and can be used concurrently by many threads.
+     */
+    private static final class Index {
+        /** The features at the time the index has been built. */
+        final AbstractFeature[] features;
+
+        /** R-tree over the envelopes of {@link #features}, or {@code null} if features have no default geometry. */
+        final PackedRTree tree;
+
+        /** Creates a new index for the given snapshot of features. */
+        Index(final AbstractFeature[] features, final PackedRTree tree) {
+            this.features = features;
+            this.tree     = tree;
+        }
+
+        /**
+         * Returns whether the given collection contains the same feature instances, in the same order,
+         * than the snapshot used for building this index. This check costs only one identity comparison
+         * per feature, which is much cheaper than rebuilding the index.
+         */
+        boolean isSnapshotOf(final Collection<AbstractFeature> source) {
+            if (source.size() != features.length) {
+                return false;
+            }
+            int i = 0;
+            for (final AbstractFeature feature : source) {
+                if (i >= features.length || feature != features[i++]) {
+                    return false;
+                }
+            }
+            return i == features.length;
+        }
+    }
+
     /**
      * Creates a new set of features stored in memory. It is caller responsibility to ensure that
      * <code>{@linkplain AbstractFeature#getType()} == type</code> for all elements in the given collection
@@ -91,4 +142,85 @@ public final class MemoryFeatureSet extends AbstractFeatureSet {
     public Stream<AbstractFeature> features(final boolean parallel) {
         return parallel ? features.parallelStream() : features.stream();
     }
+
+    /**
+     * Returns a stream of features having a default geometry whose envelope intersects the given envelope.
+     * If the envelope and the geometries both have a coordinate reference system, then the envelope is
+     * transformed to the CRS of the geometries. Otherwise the first two dimensions of the given envelope
+     * are assumed in the CRS of the geometries. Features without default geometry are excluded.
+     *
+     * <p>This method uses a R-tree built on the first invocation, then reused until features are added to,
+     * removed from or replaced in the collection. Changes in the geometry of a feature already in the collection
+     * are not detected; {@link #clearIndex()} should be invoked for those cases. Consequently this method is
+     * efficient for sets of features that are loaded once and queried many times.</p>
+     *
+     * @param  bbox      the region of interest.
+     * @param  parallel  {@code true} for a parallel stream (if supported), or {@code false} for a sequential stream.
+     * @return features in the given region of interest.
+     * @throws DataStoreException if the envelope can not be transformed to the CRS of the geometries.
+     */
+    public Stream<AbstractFeature> features(Envelope bbox, final boolean parallel) throws DataStoreException {
+        ArgumentChecks.ensureNonNull("bbox", bbox);
+        final Index index = index();
+        if (index.tree == null) {
+            return Stream.empty();
+        }
+        bbox = StoreUtilities.toGeometryCRS(type, bbox);
+        final IntStream.Builder candidates = IntStream.builder();
+        index.tree.search(bbox.getMinimum(0), bbox.getMinimum(1),
+                          bbox.getMaximum(0), bbox.getMaximum(1), candidates);
+        final Stream<AbstractFeature> stream = candidates.build().sorted().mapToObj((i) -> index.features[i]);
+        return parallel ? stream.parallel() : stream;
+    }
+
+    /**
+     * Returns the spatial index, creating it if needed. If features have been added, removed or replaced
+     * since the index has been built, then the index is assumed stale and recreated.
+     */
+    private Index index() {
+        Index current = index;
+        if (current == null || !current.isSnapshotOf(features)) {
+            synchronized (this) {
+                current = index;
+                if (current == null || !current.isSnapshotOf(features)) {
+                    index = current = createIndex();
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Creates a R-tree over the envelopes of the default geometries of all features.
+     */
+    private Index createIndex() {
+        final AbstractFeature[] snapshot = features.toArray(new AbstractFeature[features.size()]);
+        try {
+            type.getProperty(AttributeConvention.GEOMETRY);
+        } catch (IllegalArgumentException e) {
+            return new Index(snapshot, null);               // No default geometry.
+        }
+        final double[] bounds = new double[snapshot.length * 4];
+        Arrays.fill(bounds, Double.NaN);
+        for (int i=0; i<snapshot.length; i++) {
+            final GeneralEnvelope env = Geometries.getEnvelope(snapshot[i].getPropertyValue(AttributeConvention.GEOMETRY));
+            if (env != null && env.getDimension() >= 2) {
+                final int j = i * 4;
+                bounds[j  ] = env.getMinimum(0);
+                bounds[j+1] = env.getMinimum(1);
+                bounds[j+2] = env.getMaximum(0);
+                bounds[j+3] = env.getMaximum(1);
+            }
+        }
+        return new Index(snapshot, new PackedRTree(bounds));
+    }
+
+    /**
+     * Discards the spatial index. This method should be invoked after the geometry of a feature has been modified.
+     * Changes in the collection of features do not need this call since they are detected automatically.
+     * The index will be rebuilt on the next spatial query.
+     */
+    public void clearIndex() {
+        index = null;
+    }
 }
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+
+/**
+ * An immutable two-dimensional R-tree built with the <cite>Sort-Tile-Recursive</cite> (STR) packing algorithm.
+ * All items are given at construction time as bounding boxes, and the tree can not be modified after construction.
+ * Consequently the same instance can be queried concurrently by many threads without synchronization.
+ *
+ * <p>Nodes are stored level by level in flat arrays of coordinates. Because of the packing algorithm,
+ * the children of node <var>i</var> at level <var>L</var> are the nodes <var>i</var>×{@value #CAPACITY}
+ * (inclusive) to (<var>i</var>+1)×{@value #CAPACITY} (exclusive) at level <var>L</var>-1.
+ * Level 0 contains the bounding boxes of the items themselves.</p>
+ *
+ * <div class="note"><b>Reference:</b>
+ * Leutenegger, Edgington and Lopez, <cite>STR: A Simple and Efficient Algorithm for R-Tree Packing</cite>, 1997.</div>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+final class PackedRTree {
+    /**
+     * Maximal number of children in each node.
+     */
+    static final int CAPACITY = 16;
+
+    /**
+     * Bounding boxes of nodes at each level, as (<var>xmin</var>, <var>ymin</var>, <var>xmax</var>, <var>ymax</var>)
+     * tuples. Level 0 contains the boxes of items sorted in packing order, and the last level contains the root.
+     */
+    private final double[][] levels;
+
+    /**
+     * Index of items in the order of level 0. This is the mapping from the packing order
+     * to the index of items in the arrays given to the constructor.
+     */
+    private final int[] items;
+
+    /**
+     * Creates a new tree for the given bounding boxes. Items with NaN coordinates are not indexed.
+     *
+     * @param  bounds  (<var>xmin</var>, <var>ymin</var>, <var>xmax</var>, <var>ymax</var>) tuples for each item.
+     *                 The item index is the tuple index (i.e. the array index divided by 4).
+     */
+    PackedRTree(final double[] bounds) {
+        int count = 0;
+        int[] order = new int[bounds.length / 4];
+        for (int i=0; i<order.length; i++) {
+            final int j = i * 4;
+            if (!(Double.isNaN(bounds[j]) || Double.isNaN(bounds[j+1]) || Double.isNaN(bounds[j+2]) || Double.isNaN(bounds[j+3]))) {
+                order[count++] = i;
+            }
+        }
+        order = Arrays.copyOf(order, count);
+        sortTiles(bounds, order);
+        items = order;
+        double[] level = new double[count * 4];
+        for (int i=0; i<count; i++) {
+            System.arraycopy(bounds, order[i] * 4, level, i * 4, 4);
+        }
+        /*
+         * Build the upper levels. Each level is packed by the STR algorithm applied on the nodes of the previous
+         * level, except that nodes are not reordered after the first level (the reordering would require to move
+         * the children too). Sorting the items only is sufficient for getting a good spatial clustering.
+         */
+        double[][] levels = new double[8][];
+        int n = 0;
+        levels[n++] = level;
+        while (level.length > 4 * 1) {
+            final int size = level.length / 4;
+            final double[] parent = new double[((size + CAPACITY - 1) / CAPACITY) * 4];
+            for (int i=0; i<size; i++) {
+                final int p = (i / CAPACITY) * 4;
+                final int c = i * 4;
+                if (i % CAPACITY == 0) {
+                    System.arraycopy(level, c, parent, p, 4);
+                } else {
+                    parent[p  ] = Math.min(parent[p  ], level[c  ]);
+                    parent[p+1] = Math.min(parent[p+1], level[c+1]);
+                    parent[p+2] = Math.max(parent[p+2], level[c+2]);
+                    parent[p+3] = Math.max(parent[p+3], level[c+3]);
+                }
+            }
+            if (n == levels.length) {
+                levels = Arrays.copyOf(levels, n * 2);
+            }
+            levels[n++] = level = parent;
+        }
+        this.levels = Arrays.copyOf(levels, n);
+    }
+
+    /**
+     * Sorts the given item indices in <cite>Sort-Tile-Recursive</cite> order: items are sorted by the <var>x</var>
+     * coordinate of their center, then divided in vertical slices which are individually sorted by the <var>y</var>
+     * coordinate of their center. Each sequence of {@value #CAPACITY} items in the result is a leaf.
+     */
+    private static void sortTiles(final double[] bounds, final int[] order) {
+        final int count = order.length;
+        sortByCenter(bounds, order, 0, count, 0);
+        final int leafCount  = (count + CAPACITY - 1) / CAPACITY;
+        final int sliceCount = (int) Math.ceil(Math.sqrt(leafCount));
+        final int sliceSize  = sliceCount * CAPACITY;
+        for (int lower = 0; lower < count; lower += sliceSize) {
+            sortByCenter(bounds, order, lower, Math.min(lower + sliceSize, count), 1);
+        }
+    }
+
+    /**
+     * Sorts a range of item indices by the center of their bounding boxes along the given dimension.
+     * The sort is stable, so items having the same center keep their relative order.
+     *
+     * @param  dimension  0 for sorting by <var>x</var> or 1 for sorting by <var>y</var>.
+     */
+    private static void sortByCenter(final double[] bounds, final int[] order, final int lower, final int upper, final int dimension) {
+        final int length = upper - lower;
+        final double[] centers = new double[length];
+        final Integer[] indices = new Integer[length];
+        for (int i=0; i<length; i++) {
+            final int j = order[lower + i] * 4 + dimension;
+            centers[i] = bounds[j] + bounds[j+2];               // Twice the center, which is okay for sorting.
+            indices[i] = i;
+        }
+        Arrays.sort(indices, (a, b) -> Double.compare(centers[a], centers[b]));
+        final int[] sorted = new int[length];
+        for (int i=0; i<length; i++) {
+            sorted[i] = order[lower + indices[i]];
+        }
+        System.arraycopy(sorted, 0, order, lower, length);
+    }
+
+    /**
+     * Returns the number of items in this tree.
+     *
+     * @return number of indexed items.
+     */
+    final int size() {
+        return items.length;
+    }
+
+    /**
+     * Invokes the given action for the index of all items intersecting the given box.
+     * The index values are the tuple indices in the array given at construction time.
+     * Items are reported in no particular order.
+     *
+     * @param  xmin    minimal <var>x</var> value of the box to search.
+     * @param  ymin    minimal <var>y</var> value of the box to search.
+     * @param  xmax    maximal <var>x</var> value of the box to search.
+     * @param  ymax    maximal <var>y</var> value of the box to search.
+     * @param  action  the action to invoke for each item intersecting the box.
+     */
+    final void search(final double xmin, final double ymin, final double xmax, final double ymax, final IntConsumer action) {
+        if (items.length != 0) {
+            search(levels.length - 1, 0, xmin, ymin, xmax, ymax, action);
+        }
+    }
+
+    /**
+     * Searches in the given node and all its children.
+     *
+     * @param  level  level of the node to search.
+     * @param  node   index of the node in its level.
+     */
+    private void search(final int level, final int node, final double xmin, final double ymin,
+                        final double xmax, final double ymax, final IntConsumer action)
+    {
+        final double[] bounds = levels[level];
+        final int c = node * 4;
+        if (bounds[c] <= xmax && bounds[c+2] >= xmin && bounds[c+1] <= ymax && bounds[c+3] >= ymin) {
+            if (level == 0) {
+                action.accept(items[node]);
+            } else {
+                final int lower = node * CAPACITY;
+                final int upper = Math.min(lower + CAPACITY, levels[level - 1].length / 4);
+                for (int i=lower; i<upper; i++) {
+                    search(level - 1, i, xmin, ymin, xmax, ymax, action);
+                }
+            }
+        }
+    }
+}
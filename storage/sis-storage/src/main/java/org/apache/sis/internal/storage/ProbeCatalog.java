@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.io.IOException;
+import java.io.EOFException;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.nio.file.Path;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import org.apache.sis.util.Version;
+import org.apache.sis.util.logging.Logging;
+import org.apache.sis.util.collection.Cache;
+import org.apache.sis.internal.system.Modules;
+import org.apache.sis.storage.DataStoreProvider;
+import org.apache.sis.storage.StorageConnector;
+import org.apache.sis.storage.ProbeResult;
+import org.apache.sis.storage.DataStoreException;
+
+
+/**
+ * A persistent cache of {@link DataStoreProvider#probeContent(StorageConnector)} results.
+ * Entries are keyed by the real path of a regular file together with its size and last modification time,
+ * so any change in the file content (as seen by the file system) invalidates the entry. Each entry records
+ * the class name of the provider that claimed the file and the {@link ProbeResult} returned by that provider.
+ *
+ * <p>The catalog is stored in a single binary file where records are appended as they are discovered.
+ * When the file is loaded, records found later in the file replace records for the same path found earlier.
+ * This catalog is only an optimization: any I/O error while reading or writing the catalog file is logged
+ * and the caller falls back on the normal probing mechanism.</p>
+ *
+ * <div class="section">Thread safety</div>
+ * The same {@code ProbeCatalog} instance can be safely used by many threads.
+ * Callers of {@link #forFile(Path)} for the same file share the same instance, unless that instance
+ * has been discarded from the cache of recently used catalogs (in which case the file is loaded again).
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public final class ProbeCatalog {
+    /**
+     * A number identifying the format of the catalog file. If a file does not start with this
+     * number (for example because it has been written by a different version of this class),
+     * then its content is ignored and overwritten.
+     */
+    private static final int MAGIC_NUMBER = 0x53495350;         // "SISP" in ASCII.
+
+    /**
+     * The catalogs recently used in this JVM, for sharing instances for the same file.
+     * Only a few catalogs are retained by strong references; the other ones are retained
+     * by soft references and reloaded from their file if they have been garbage-collected.
+     */
+    private static final Cache<Path,ProbeCatalog> CATALOGS = new Cache<>(8, 8, true);
+
+    /**
+     * The file where the catalog is saved.
+     */
+    private final Path file;
+
+    /**
+     * Probe results for each file, or {@code null} if not yet loaded.
+     * Keys are {@link Path#toString()} values of real paths.
+     * All accesses to this map must be synchronized on {@code this}.
+     */
+    private Map<String,Entry> entries;
+
+    /**
+     * Whether the catalog file needs to be rewritten from scratch on next addition.
+     * This happen if the file did not exist or has been written in an unrecognized format.
+     */
+    private boolean rewrite;
+
+    /**
+     * The result of a previous probe operation on a given file.
+     */
+    public static final class Entry {
+        /** The file size in bytes at the time the file has been probed. */
+        private final long size;
+
+        /** The file last modification time in milliseconds at the time the file has been probed. */
+        private final long lastModified;
+
+        /** Fully qualified class name of the provider that claimed the file. */
+        public final String provider;
+
+        /** The result of the probe operation. */
+        public final ProbeResult probe;
+
+        /** Creates a new entry. */
+        Entry(final long size, final long lastModified, final String provider, final ProbeResult probe) {
+            this.size         = size;
+            this.lastModified = lastModified;
+            this.provider     = provider;
+            this.probe        = probe;
+        }
+    }
+
+    /**
+     * Creates a new catalog to be saved in the given file. This constructor bypasses the sharing of
+     * instances done by {@link #forFile(Path)}; it should be invoked directly only for testing purpose.
+     *
+     * @param  file  the file where to save the catalog.
+     */
+    ProbeCatalog(final Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the catalog saved in the given file. The file does not need to exist;
+     * it will be created when the first probe result is recorded.
+     *
+     * @param  file  the file where to save the catalog.
+     * @return the catalog for the given file.
+     */
+    public static ProbeCatalog forFile(final Path file) {
+        return CATALOGS.computeIfAbsent(file.toAbsolutePath().normalize(), ProbeCatalog::new);
+    }
+
+    /**
+     * Returns the result of a previous probe operation on the given file, or {@code null} if none.
+     * This method returns {@code null} if the file has been modified since the probe operation,
+     * or if the given path is not a regular file.
+     *
+     * @param  path  the file for which to get a previous probe result.
+     * @return previous probe result for the given file, or {@code null} if none.
+     */
+    public Entry get(final Path path) {
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (attributes.isRegularFile()) {
+                final Entry entry;
+                synchronized (this) {
+                    entry = entries().get(path.toRealPath().toString());
+                }
+                if (entry != null && entry.size == attributes.size()
+                        && entry.lastModified == attributes.lastModifiedTime().toMillis())
+                {
+                    return entry;
+                }
+            }
+        } catch (IOException | SecurityException e) {
+            warning("get", e);
+        }
+        return null;
+    }
+
+    /**
+     * Records the result of a successful probe operation on the given file.
+     * The result is saved immediately in the catalog file. This method does
+     * nothing if the given probe result is not {@linkplain ProbeResult#isSupported() supported}
+     * or if the given path is not a regular file.
+     *
+     * @param  path      the file which has been probed.
+     * @param  provider  the provider which has claimed the file.
+     * @param  probe     the result of {@code provider.probeContent(…)}.
+     */
+    public void put(final Path path, final DataStoreProvider provider, final ProbeResult probe) {
+        if (probe.isSupported()) try {
+            final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (attributes.isRegularFile()) {
+                final String key = path.toRealPath().toString();
+                final Entry entry = new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(),
+                                              provider.getClass().getName(), probe);
+                synchronized (this) {
+                    entries().put(key, entry);
+                    if (rewrite) {
+                        save();
+                    } else {
+                        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                                Files.newOutputStream(file, StandardOpenOption.APPEND))))
+                        {
+                            write(out, key, entry);
+                        }
+                    }
+                }
+            }
+        } catch (IOException | SecurityException e) {
+            warning("put", e);
+        }
+    }
+
+    /**
+     * Probes the given storage with the given provider, using the catalog if possible.
+     * If the catalog contains a valid result for the given provider, that result is returned
+     * without invoking {@link DataStoreProvider#probeContent(StorageConnector)}. Otherwise
+     * the provider is invoked and its result is recorded if the storage is supported.
+     *
+     * @param  provider   the provider to use for probing the storage.
+     * @param  connector  information about the storage.
+     * @param  path       the value of {@code connector.getStorageAs(Path.class)}, or {@code null} if none.
+     * @return the result of the probe operation.
+     * @throws DataStoreException if an error occurred while probing the storage.
+     */
+    public ProbeResult probeContent(final DataStoreProvider provider, final StorageConnector connector, final Path path)
+            throws DataStoreException
+    {
+        if (path != null) {
+            final Entry entry = get(path);
+            if (entry != null && entry.provider.equals(provider.getClass().getName())) {
+                return entry.probe;
+            }
+        }
+        final ProbeResult probe = provider.probeContent(connector);
+        if (path != null) {
+            put(path, provider, probe);
+        }
+        return probe;
+    }
+
+    /**
+     * Returns the map of entries, loading it from the catalog file when first needed.
+     * Caller must hold the lock on {@code this}.
+     */
+    private Map<String,Entry> entries() {
+        if (entries == null) {
+            entries = new HashMap<>();
+            rewrite = true;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() == MAGIC_NUMBER) {
+                    rewrite = false;
+                    for (;;) {
+                        final String key = in.readUTF();
+                        final long   size         = in.readLong();
+                        final long   lastModified = in.readLong();
+                        final String provider     = in.readUTF();
+                        final String mimeType     = in.readUTF();
+                        final String version      = in.readUTF();
+                        final ProbeResult probe;
+                        if (mimeType.isEmpty() && version.isEmpty()) {
+                            probe = ProbeResult.SUPPORTED;
+                        } else {
+                            probe = new ProbeResult(true, mimeType.isEmpty() ? null : mimeType,
+                                                          version .isEmpty() ? null : new Version(version));
+                        }
+                        entries.put(key, new Entry(size, lastModified, provider, probe));
+                    }
+                }
+            } catch (EOFException | NoSuchFileException e) {
+                // End of catalog (a truncated last record is discarded), or catalog not yet created.
+            } catch (IOException | RuntimeException e) {
+                warning("load", e);
+                rewrite = true;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Writes all entries in a new catalog file, replacing any previous content.
+     * Caller must hold the lock on {@code this}.
+     */
+    private void save() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC_NUMBER);
+            for (final Map.Entry<String,Entry> e : entries.entrySet()) {
+                write(out, e.getKey(), e.getValue());
+            }
+        }
+        rewrite = false;
+    }
+
+    /**
+     * Writes a single record in the catalog file.
+     */
+    private static void write(final DataOutputStream out, final String key, final Entry entry) throws IOException {
+        final String  mimeType = entry.probe.getMimeType();
+        final Version version  = entry.probe.getVersion();
+        out.writeUTF (key);
+        out.writeLong(entry.size);
+        out.writeLong(entry.lastModified);
+        out.writeUTF (entry.provider);
+        out.writeUTF (mimeType != null ? mimeType : "");
+        out.writeUTF (version  != null ? version.toString() : "");
+    }
+
+    /**
+     * Logs a warning about an error while using the catalog. This is not a serious error
+     * since the catalog is only an optimization; callers fallback on normal probing.
+     */
+    private static void warning(final String method, final Exception e) {
+        Logging.recoverableException(Logging.getLogger(Modules.STORAGE), ProbeCatalog.class, method, e);
+    }
+}
@@ -20,9 +20,14 @@ import java.util.EnumSet;
 import java.util.stream.Stream;
 import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
+import org.opengis.geometry.Envelope;
 import org.opengis.metadata.Metadata;
 import org.opengis.metadata.identification.Identification;
 import org.opengis.metadata.identification.DataIdentification;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.TransformException;
+import org.apache.sis.geometry.Envelopes;
+import org.apache.sis.internal.feature.AttributeConvention;
 import org.apache.sis.util.Static;
 import org.apache.sis.storage.FeatureSet;
 import org.apache.sis.storage.Resource;
@@ -30,15 +35,18 @@ import org.apache.sis.storage.DataStore;
 import org.apache.sis.storage.DataStores;
 import org.apache.sis.storage.DataStoreProvider;
 import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStoreReferencingException;
 import org.apache.sis.storage.WritableFeatureSet;
 import org.apache.sis.storage.UnsupportedStorageException;
 import org.apache.sis.internal.util.Citations;
 import org.apache.sis.util.resources.Errors;
 import org.apache.sis.util.CharSequences;
 import org.apache.sis.util.Classes;
+import org.apache.sis.util.Utilities;
 
 // Branch-dependent imports
 import org.apache.sis.feature.AbstractFeature;
+import org.apache.sis.feature.DefaultFeatureType;
 
 
 /**
@@ -296,4 +304,34 @@ public final class StoreUtilities extends Static {
             target.add(stream.iterator());
         }
     }
+
+    /**
+     * Returns the given envelope in the coordinate reference system of the default geometry of the given type.
+     * If the envelope CRS or the geometry CRS is unknown, then the envelope is returned unchanged and its first
+     * two dimensions are assumed in the geometry CRS.
+     *
+     * @param  type  type of the features to filter.
+     * @param  bbox  the region of interest.
+     * @return the region of interest in the CRS of the default geometry.
+     * @throws DataStoreReferencingException if the envelope can not be transformed to the geometry CRS.
+     */
+    public static Envelope toGeometryCRS(final DefaultFeatureType type, final Envelope bbox) throws DataStoreReferencingException {
+        final CoordinateReferenceSystem sourceCRS = bbox.getCoordinateReferenceSystem();
+        if (sourceCRS != null) {
+            final CoordinateReferenceSystem targetCRS;
+            try {
+                targetCRS = AttributeConvention.getCRSCharacteristic(type, type.getProperty(AttributeConvention.GEOMETRY));
+            } catch (IllegalArgumentException e) {
+                return bbox;                                    // No default geometry.
+            }
+            if (targetCRS != null && !Utilities.equalsIgnoreMetadata(sourceCRS, targetCRS)) {
+                try {
+                    return Envelopes.transform(bbox, targetCRS);
+                } catch (TransformException e) {
+                    throw new DataStoreReferencingException(Errors.format(Errors.Keys.CanNotTransformEnvelope), e);
+                }
+            }
+        }
+        return bbox;
+    }
 }
@@ -18,7 +18,10 @@ package org.apache.sis.internal.storage.folder;
 
 import java.util.Map;
 import java.util.List;
+import java.util.Set;
+import java.util.HashSet;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.Collection;
 import java.util.Locale;
 import java.util.TimeZone;
@@ -29,6 +32,8 @@ import java.nio.file.Path;
 import java.nio.file.Files;
 import java.nio.file.DirectoryStream;
 import java.nio.file.DirectoryIteratorException;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import org.opengis.metadata.Metadata;
@@ -39,18 +44,23 @@ import org.apache.sis.storage.Resource;
 import org.apache.sis.storage.Aggregate;
 import org.apache.sis.storage.DataStore;
 import org.apache.sis.storage.DataStores;
+import org.apache.sis.storage.DataOptionKey;
 import org.apache.sis.storage.DataStoreProvider;
 import org.apache.sis.storage.StorageConnector;
+import org.apache.sis.storage.ProbeResult;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.storage.UnsupportedStorageException;
+import org.apache.sis.util.ArgumentChecks;
 import org.apache.sis.util.collection.BackingStoreException;
 import org.apache.sis.internal.util.UnmodifiableArrayList;
 import org.apache.sis.internal.storage.MetadataBuilder;
+import org.apache.sis.internal.storage.ProbeCatalog;
 import org.apache.sis.internal.storage.StoreUtilities;
 import org.apache.sis.internal.storage.StoreResource;
 import org.apache.sis.internal.storage.Resources;
 import org.apache.sis.storage.event.ChangeEvent;
 import org.apache.sis.storage.event.ChangeListener;
+import org.apache.sis.storage.event.ComponentChangeEvent;
 
 
 /**
@@ -63,7 +73,8 @@ import org.apache.sis.storage.event.ChangeListener;
  * <p><b>Limitations:</b></p>
  * <ul>
  *   <li>Current version is read-only.</li>
- *   <li>Current version does not watch for external modifications in directory content.</li>
+ *   <li>Current version watches for external modifications in directory content only if a listener
+ *       for {@link ComponentChangeEvent} is registered.</li>
  *   <li>Current version open all files in the directory and keep those files open.
  *       If the directory is large, it will be a problem.</li>
  *   <li>We could open data stores concurrently. This is not yet done.</li>
@@ -101,6 +112,13 @@ class Store extends DataStore implements StoreResource, Aggregate, DirectoryStre
      */
     protected final Charset encoding;
 
+    /**
+     * Path to the catalog of previous probe results, or {@code null} if none.
+     *
+     * @see DataOptionKey#PROBE_CATALOG
+     */
+    private final Path probeCatalog;
+
     /**
      * All data stores (including sub-folders) found in the directory structure, including the root directory.
      * This is used for avoiding never-ending loop with symbolic links.
@@ -121,6 +139,22 @@ class Store extends DataStore implements StoreResource, Aggregate, DirectoryStre
      */
     transient Collection<Resource> components;
 
+    /**
+     * The data stores in the folder given at construction time, associated to the paths where they were found.
+     * This is the modifiable map from which {@link #components} is created. This map is created together with
+     * {@link #components} but is not reset to {@code null} when {@code components} is cleared by subclasses.
+     * All modifications of this map must be synchronized on {@code this}. The {@link Watcher} thread may read
+     * the maps of other folders without lock, since that thread is the only one modifying existing maps.
+     */
+    private transient volatile Map<Path,DataStore> listed;
+
+    /**
+     * The watcher of directory content, or {@code null} if none. This field is used only in the root
+     * store and is non-null only if at least one listener for {@link ComponentChangeEvent} is registered.
+     * All changes of this field value must be synchronized on the root store.
+     */
+    private volatile Watcher watcher;
+
     /**
      * The provider to use for probing the directory content, opening files and creating new files.
      * The provider is determined by the format name specified at construction time.
@@ -153,12 +187,13 @@ class Store extends DataStore implements StoreResource, Aggregate, DirectoryStre
             throws DataStoreException, IOException
     {
         super(provider, connector);
-        originator = this;
-        location   = path;
-        locale     = connector.getOption(OptionKey.LOCALE);
-        timezone   = connector.getOption(OptionKey.TIMEZONE);
-        encoding   = connector.getOption(OptionKey.ENCODING);
-        children   = new ConcurrentHashMap<>();
+        originator   = this;
+        location     = path;
+        locale       = connector.getOption(OptionKey.LOCALE);
+        timezone     = connector.getOption(OptionKey.TIMEZONE);
+        encoding     = connector.getOption(OptionKey.ENCODING);
+        probeCatalog = connector.getOption(DataOptionKey.PROBE_CATALOG);
+        children     = new ConcurrentHashMap<>();
         children.put(path.toRealPath(), this);
         componentProvider = format;
     }
@@ -177,6 +212,7 @@ class Store extends DataStore implements StoreResource, Aggregate, DirectoryStre
         locale            = connector.getOption(OptionKey.LOCALE);
         timezone          = connector.getOption(OptionKey.TIMEZONE);
         encoding          = connector.getOption(OptionKey.ENCODING);
+        probeCatalog      = parent.probeCatalog;
         children          = parent.children;
         componentProvider = parent.componentProvider;
     }
@@ -236,76 +272,28 @@ class Store extends DataStore implements StoreResource, Aggregate, DirectoryStre
      * Returns all resources found in the folder given at construction time.
      * Only the resources recognized by a {@link DataStore} will be included.
      * This includes sub-folders. Resources are in no particular order.
+     *
+     * <p>If a listener for {@link ComponentChangeEvent} has been registered, then the directory
+     * is watched for changes and the returned collection is updated when files are created, modified or
+     * deleted. Otherwise the collection is computed only once.</p>
      */
     @Override
     @SuppressWarnings("ReturnOfCollectionOrArrayField")
     public synchronized Collection<Resource> components() throws DataStoreException {
         if (components == null) {
-            final List<DataStore> resources = new ArrayList<>();
-            try (DirectoryStream<Path> stream = Files.newDirectoryStream(location, this)) {
-                for (final Path candidate : stream) {
-                    /*
-                     * The candidate path may be a symbolic link to a file that we have previously read.
-                     * In such case, use the existing data store.   A use case is a directory containing
-                     * hundred of GeoTIFF files all accompanied by ".prj" files having identical content.
-                     * (Note: those ".prj" files should be invisible since they should be identified as
-                     * GeoTIFF auxiliary files, but current Store implementation does not know that).
-                     */
-                    final Path real = candidate.toRealPath();
-                    DataStore next = children.get(real);
-                    if (next instanceof Store) {
-                        ((Store) next).sharedRepository(real);          // Warn about directories only.
-                    }
-                    if (next == null) {
-                        /*
-                         * The candidate file has never been read before. Try to read it now.
-                         * If the file format is unknown (UnsupportedStorageException), we will
-                         * check if we can open it as a child folder store before to skip it.
-                         */
-                        final StorageConnector connector = new StorageConnector(candidate);
-                        connector.setOption(OptionKey.LOCALE,   locale);
-                        connector.setOption(OptionKey.TIMEZONE, timezone);
-                        connector.setOption(OptionKey.ENCODING, encoding);
-                        try {
-                            if (componentProvider == null) {
-                                next = DataStores.open(connector);          // May throw UnsupportedStorageException.
-                            } else if (componentProvider.probeContent(connector).isSupported()) {
-                                next = componentProvider.open(connector);   // Open a file of specified format.
-                            } else if (Files.isDirectory(candidate)) {
-                                next = new Store(this, connector);          // Open a sub-directory.
-                            } else {
-                                connector.closeAllExcept(null);             // Not the format specified at construction time.
-                                continue;
-                            }
-                        } catch (UnsupportedStorageException ex) {
-                            if (!Files.isDirectory(candidate)) {
-                                connector.closeAllExcept(null);
-                                listeners.warning(Level.FINE, null, ex);
-                                continue;
-                            }
-                            next = new Store(this, connector);
-                        } catch (DataStoreException ex) {
-                            try {
-                                connector.closeAllExcept(null);
-                            } catch (DataStoreException s) {
-                                ex.addSuppressed(s);
-                            }
-                            throw ex;
-                        }
-                        /*
-                         * At this point we got the data store. It could happen that a store for
-                         * the same file has been added concurrently, so we need to check again.
-                         */
-                        final DataStore existing = children.putIfAbsent(real, next);
-                        if (existing != null) {
-                            next.close();
-                            next = existing;
-                            if (next instanceof Store) {
-                                ((Store) next).sharedRepository(real);      // Warn about directories only.
-                            }
+            final Map<Path,DataStore> resources = new LinkedHashMap<>();
+            try {
+                final Watcher watcher = root().watcher;
+                if (watcher != null) {
+                    watcher.register(this);             // Must be before listing for not missing changes.
+                }
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(location, this)) {
+                    for (final Path candidate : stream) {
+                        final DataStore next = open(candidate);
+                        if (next != null) {
+                            resources.put(candidate, next);
                         }
                     }
-                    resources.add(next);
                 }
             } catch (DirectoryIteratorException | UncheckedIOException ex) {
                 // The cause is an IOException (no other type allowed).
@@ -315,11 +303,267 @@ class Store extends DataStore implements StoreResource, Aggregate, DirectoryStre
             } catch (BackingStoreException ex) {
                 throw ex.unwrapOrRethrow(DataStoreException.class);
             }
-            components = UnmodifiableArrayList.wrap(resources.toArray(new Resource[resources.size()]));
+            listed = resources;
+            components = snapshot();
         }
         return components;              // Safe because unmodifiable list.
     }
 
+    /**
+     * Returns an unmodifiable copy of the {@link #listed} values.
+     * Caller must hold the lock on {@code this}.
+     */
+    private Collection<Resource> snapshot() {
+        final Collection<DataStore> resources = listed.values();
+        return UnmodifiableArrayList.wrap(resources.toArray(new Resource[resources.size()]));
+    }
+
+    /**
+     * Opens the data store for the given file or sub-directory. If a data store has already been opened for
+     * the same file (for example through a symbolic link), then the existing data store is returned.
+     *
+     * @param  candidate  a file or directory in the folder managed by this store.
+     * @return the data store for the given file, or {@code null} if the file shall be skipped.
+     * @throws IOException if an error occurred while resolving the real path of the file.
+     * @throws DataStoreException if an error occurred while opening the data store.
+     */
+    private DataStore open(final Path candidate) throws IOException, DataStoreException {
+        /*
+         * The candidate path may be a symbolic link to a file that we have previously read.
+         * In such case, use the existing data store.   A use case is a directory containing
+         * hundred of GeoTIFF files all accompanied by ".prj" files having identical content.
+         * (Note: those ".prj" files should be invisible since they should be identified as
+         * GeoTIFF auxiliary files, but current Store implementation does not know that).
+         */
+        final Path real = candidate.toRealPath();
+        DataStore next = children.get(real);
+        if (next instanceof Store) {
+            ((Store) next).sharedRepository(real);          // Warn about directories only.
+        }
+        if (next == null) {
+            /*
+             * The candidate file has never been read before. Try to read it now.
+             * If the file format is unknown (UnsupportedStorageException), we will
+             * check if we can open it as a child folder store before to skip it.
+             */
+            final StorageConnector connector = new StorageConnector(candidate);
+            connector.setOption(OptionKey.LOCALE,   locale);
+            connector.setOption(OptionKey.TIMEZONE, timezone);
+            connector.setOption(OptionKey.ENCODING, encoding);
+            connector.setOption(DataOptionKey.PROBE_CATALOG, probeCatalog);
+            try {
+                if (componentProvider == null) {
+                    next = DataStores.open(connector);          // May throw UnsupportedStorageException.
+                } else if (probe(connector, candidate).isSupported()) {
+                    next = componentProvider.open(connector);   // Open a file of specified format.
+                } else if (Files.isDirectory(candidate)) {
+                    next = new Store(this, connector);          // Open a sub-directory.
+                } else {
+                    connector.closeAllExcept(null);             // Not the format specified at construction time.
+                    return null;
+                }
+            } catch (UnsupportedStorageException ex) {
+                if (!Files.isDirectory(candidate)) {
+                    connector.closeAllExcept(null);
+                    listeners.warning(Level.FINE, null, ex);
+                    return null;
+                }
+                next = new Store(this, connector);
+            } catch (DataStoreException ex) {
+                try {
+                    connector.closeAllExcept(null);
+                } catch (DataStoreException s) {
+                    ex.addSuppressed(s);
+                }
+                throw ex;
+            }
+            /*
+             * At this point we got the data store. It could happen that a store for
+             * the same file has been added concurrently, so we need to check again.
+             */
+            final DataStore existing = children.putIfAbsent(real, next);
+            if (existing != null) {
+                next.close();
+                next = existing;
+                if (next instanceof Store) {
+                    ((Store) next).sharedRepository(real);      // Warn about directories only.
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Updates the components of this store for the given file system events.
+     * This method is invoked by {@link Watcher} in its daemon thread. Errors are reported
+     * as warnings since there is no caller to propagate the exceptions to.
+     *
+     * <p>The data stores that are no longer listed in any folder of the directory tree are added
+     * to the {@code disposed} list. Those data stores are not closed by this method; they shall be
+     * closed by the caller after listeners have been notified. Data stores that are still reachable
+     * through another folder or symbolic link are not disposed.</p>
+     *
+     * @param  events    the file system events in the directory managed by this store.
+     * @param  disposed  where to add the data stores to close after the event has been fired.
+     * @return the event to send to listeners, or {@code null} if the components did not changed.
+     */
+    final synchronized ComponentChangeEvent update(final List<WatchEvent<?>> events, final List<DataStore> disposed) {
+        final Map<Path,DataStore> resources = listed;
+        if (resources == null || components == null) {
+            return null;                // Components not yet computed, cleared or store closed.
+        }
+        final List<DataStore> added   = new ArrayList<>();
+        final List<DataStore> removed = new ArrayList<>();
+        for (final WatchEvent<?> event : events) {
+            final WatchEvent.Kind<?> kind = event.kind();
+            try {
+                if (kind == StandardWatchEventKinds.OVERFLOW) {
+                    /*
+                     * Some events have been lost. Compare the directory content with our list of
+                     * components. This is more costly than processing individual events, but still
+                     * cheaper than reopening the store since existing data stores are kept.
+                     */
+                    final Set<Path> existing = new HashSet<>();
+                    try (DirectoryStream<Path> stream = Files.newDirectoryStream(location, this)) {
+                        for (final Path candidate : stream) {
+                            existing.add(candidate);
+                            add(candidate, added);
+                        }
+                    }
+                    for (final Path candidate : resources.keySet().toArray(new Path[resources.size()])) {
+                        if (!existing.contains(candidate)) {
+                            remove(candidate, removed, disposed);
+                        }
+                    }
+                } else {
+                    final Path candidate = location.resolve((Path) event.context());
+                    if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+                        remove(candidate, removed, disposed);
+                    } else if (accept(candidate)) {
+                        /*
+                         * ENTRY_CREATE or ENTRY_MODIFY. A file which was not readable at creation time
+                         * (for example because it was still empty) may become readable after modification,
+                         * so we try again to open files that are not in our list for any of those events.
+                         * If a file already in our list has been modified, the data store may have cached
+                         * obsolete content, so we replace it by a new one. This is done only if the data
+                         * store is not shared with another folder, and never for sub-directories since
+                         * changes in their content are reported by their own events.
+                         */
+                        if (kind == StandardWatchEventKinds.ENTRY_MODIFY) {
+                            final DataStore old = resources.get(candidate);
+                            if (old != null && !(old instanceof Store) && references(old) == 1) {
+                                remove(candidate, removed, disposed);
+                            }
+                        }
+                        add(candidate, added);
+                    }
+                }
+            } catch (DirectoryIteratorException ex) {
+                listeners.warning(canNotRead(), ex.getCause());
+            } catch (UncheckedIOException ex) {
+                listeners.warning(canNotRead(), ex.getCause());
+            } catch (IOException | DataStoreException ex) {
+                listeners.warning(canNotRead(), ex);
+            } catch (BackingStoreException ex) {
+                listeners.warning(canNotRead(), ex.unwrapOrRethrow(DataStoreException.class));
+            }
+        }
+        if (added.isEmpty() && removed.isEmpty()) {
+            return null;
+        }
+        components = snapshot();
+        return new ComponentChangeEvent(this, added, removed);
+    }
+
+    /**
+     * Adds the given file in the list of components if not already present.
+     * Caller must hold the lock on {@code this}.
+     *
+     * @param  candidate  the file or directory to add.
+     * @param  added      where to add the data store if a new one has been opened.
+     */
+    private void add(final Path candidate, final List<DataStore> added) throws IOException, DataStoreException {
+        if (!listed.containsKey(candidate) && Files.exists(candidate)) {
+            final DataStore next = open(candidate);
+            if (next != null) {
+                listed.put(candidate, next);
+                added.add(next);
+            }
+        }
+    }
+
+    /**
+     * Removes the given file from the list of components, unless the data store is still referenced
+     * by another component of this folder (e.g. through a symbolic link). If the data store is not
+     * referenced by any folder of the directory tree, then it is forgotten and added to the list of
+     * stores to close. The data store is not closed by this method; it will be closed by the
+     * {@link Watcher} after this store has been unlocked. Caller must hold the lock on {@code this}.
+     *
+     * @param  candidate  the file or directory which has been deleted.
+     * @param  removed    where to add the data store if it has been removed.
+     * @param  disposed   where to add the data store if it shall be closed.
+     */
+    private void remove(final Path candidate, final List<DataStore> removed, final List<DataStore> disposed) {
+        final DataStore store = listed.remove(candidate);
+        if (store != null && !listed.containsValue(store)) {
+            removed.add(store);
+            if (references(store) == 0) {
+                children.values().removeIf((e) -> e == store);
+                disposed.add(store);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of times that the given data store is listed in the folders of this directory tree.
+     * A data store may be listed more than once if it is reachable through symbolic links. This method reads
+     * the maps of other folders without synchronization, which is okay only in the {@link Watcher} thread.
+     * Caller must hold the lock on {@code this}.
+     *
+     * @param  store  the data store to search.
+     * @return number of occurrences of the given store in all folders.
+     */
+    private int references(final DataStore store) {
+        int count = 0;
+        for (final DataStore child : children.values()) {
+            if (child instanceof Store) {
+                final Map<Path,DataStore> resources = ((Store) child).listed;
+                if (resources != null) {
+                    for (final DataStore e : resources.values()) {
+                        if (e == store) count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the store for the root directory specified by the user.
+     */
+    private Store root() {
+        Store store = this;
+        while (store.originator != store) {
+            store = (Store) store.originator;
+        }
+        return store;
+    }
+
+    /**
+     * Asks to {@link #componentProvider} whether it can open the given file. If a catalog of previous
+     * probe results has been specified, that catalog is used for avoiding to probe the same file again.
+     *
+     * @param  connector  information about the file to probe.
+     * @param  candidate  the path to the file to probe.
+     * @return the result of probing the given file with {@link #componentProvider}.
+     */
+    private ProbeResult probe(final StorageConnector connector, final Path candidate) throws DataStoreException {
+        if (probeCatalog != null) {
+            return ProbeCatalog.forFile(probeCatalog).probeContent(componentProvider, connector, candidate);
+        }
+        return componentProvider.probeContent(connector);
+    }
+
     /**
      * Builds an error message for an error occurring while reading files in the directory.
      */
@@ -358,7 +602,13 @@ class Store extends DataStore implements StoreResource, Aggregate, DirectoryStre
     }
 
     /**
-     * Ignored in current implementation, since this resource produces no events.
+     * Registers a listener to notify when components are added to or removed from this folder.
+     * If the given event type accepts {@link ComponentChangeEvent}, then this method starts
+     * watching the directory for changes. Other types of events are ignored in current
+     * implementation, since this resource does not produce them.
+     *
+     * <p>Listeners are shared by all folder stores opened from the same root directory,
+     * in the same way than warning listeners.</p>
      *
      * @param  <T>        {@inheritDoc}
      * @param  listener   {@inheritDoc}
@@ -366,10 +616,42 @@ class Store extends DataStore implements StoreResource, Aggregate, DirectoryStre
      */
     @Override
     public <T extends ChangeEvent> void addListener(ChangeListener<? super T> listener, Class<T> eventType) {
+        ArgumentChecks.ensureNonNull("listener",  listener);
+        ArgumentChecks.ensureNonNull("eventType", eventType);
+        if (eventType.isAssignableFrom(ComponentChangeEvent.class)) {
+            final Store root = root();
+            synchronized (root) {
+                if (root.watcher == null) try {
+                    final Watcher watcher = new Watcher(root);
+                    /*
+                     * Watch all directories for which the components have already been listed.
+                     * Directories for which components are not yet listed will be registered
+                     * by the components() method. Note that directories listed before this point
+                     * may have changed; we do not report those changes.
+                     */
+                    for (final DataStore child : children.values()) {
+                        if (child instanceof Store) {
+                            final Store folder = (Store) child;
+                            synchronized (folder) {
+                                if (folder.listed != null) {
+                                    watcher.register(folder);
+                                }
+                            }
+                        }
+                    }
+                    root.watcher = watcher;
+                } catch (IOException e) {
+                    listeners.warning(canNotRead(), e);
+                    return;
+                }
+                root.watcher.addListener(listener, eventType);
+            }
+        }
     }
 
     /**
-     * Ignored in current implementation, since this resource produces no events.
+     * Unregisters a listener previously added to this folder for the given type of events.
+     * If there is no more listener, then this method stops watching the directory.
      *
      * @param  <T>        {@inheritDoc}
      * @param  listener   {@inheritDoc}
@@ -377,31 +659,64 @@ class Store extends DataStore implements StoreResource, Aggregate, DirectoryStre
      */
     @Override
     public <T extends ChangeEvent> void removeListener(ChangeListener<? super T> listener, Class<T> eventType) {
+        final Store root = root();
+        synchronized (root) {
+            final Watcher watcher = root.watcher;
+            if (watcher != null && watcher.removeListener(listener, eventType)) {
+                root.watcher = null;
+                try {
+                    watcher.close();
+                } catch (IOException e) {
+                    listeners.warning(null, e);
+                }
+            }
+        }
     }
 
     /**
      * Closes all children resources.
      */
     @Override
-    public synchronized void close() throws DataStoreException {
-        final Collection<Resource> resources = components;
-        if (resources != null) {
-            components = null;                                      // Clear first in case of failure.
-            DataStoreException failure = null;
-            for (final Resource r : resources) {
-                if (r instanceof DataStore) try {
-                    ((DataStore) r).close();
-                } catch (DataStoreException ex) {
-                    if (failure == null) {
-                        failure = ex;
-                    } else {
-                        failure.addSuppressed(ex);
-                    }
+    public void close() throws DataStoreException {
+        /*
+         * Stop watching the directory before to close the components. The lock on the root
+         * store must be acquired before the lock on this store, as done by addListener(…).
+         */
+        DataStoreException failure = null;
+        final Store root = root();
+        synchronized (root) {
+            final Watcher watcher = root.watcher;
+            if (watcher != null) {
+                if (root == this) try {
+                    root.watcher = null;
+                    watcher.close();
+                } catch (IOException e) {
+                    failure = new DataStoreException(e);
+                } else {
+                    watcher.cancel(this);
                 }
             }
-            if (failure != null) {
-                throw failure;
+        }
+        synchronized (this) {
+            final Collection<Resource> resources = components;
+            listed = null;
+            if (resources != null) {
+                components = null;                                  // Clear first in case of failure.
+                for (final Resource r : resources) {
+                    if (r instanceof DataStore) try {
+                        ((DataStore) r).close();
+                    } catch (DataStoreException ex) {
+                        if (failure == null) {
+                            failure = ex;
+                        } else {
+                            failure.addSuppressed(ex);
+                        }
+                    }
+                }
             }
         }
+        if (failure != null) {
+            throw failure;
+        }
     }
 }
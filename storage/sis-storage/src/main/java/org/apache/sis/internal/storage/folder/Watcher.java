@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage.folder;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.io.IOException;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.StandardWatchEventKinds;
+import org.apache.sis.util.logging.Logging;
+import org.apache.sis.internal.system.Modules;
+import org.apache.sis.storage.DataStore;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.event.ChangeEvent;
+import org.apache.sis.storage.event.ChangeListener;
+import org.apache.sis.storage.event.ComponentChangeEvent;
+
+
+/**
+ * Watches the directories of a folder store and its sub-folders for files created, modified or deleted.
+ * A {@code Watcher} is created by the root {@link Store} when a listener is registered for
+ * {@link ComponentChangeEvent}s, and closed when the last listener is removed or the store is closed.
+ * Only directories for which the list of components has already been computed are watched, since
+ * other directories will see the current directory content when their components are first requested.
+ *
+ * <p>Events are processed in a daemon thread. For each batch of file system events in a directory,
+ * the corresponding {@link Store} updates its components incrementally and a single
+ * {@link ComponentChangeEvent} is sent to all listeners interested in that kind of events.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+final class Watcher implements Runnable {
+    /**
+     * The service notifying us about changes in the file system.
+     */
+    private final WatchService service;
+
+    /**
+     * The folder stores for each watched directory.
+     */
+    private final Map<WatchKey,Store> directories;
+
+    /**
+     * The listeners to notify, together with the type of events of interest to each listener.
+     */
+    private final CopyOnWriteArrayList<Registration> listeners;
+
+    /**
+     * A listener together with the type of events given to {@code addListener(…)}.
+     */
+    private static final class Registration {
+        /** The listener to notify. */
+        final ChangeListener<?> listener;
+
+        /** The type of events of interest to the listener. */
+        final Class<?> eventType;
+
+        /** Creates a new registration. */
+        Registration(final ChangeListener<?> listener, final Class<?> eventType) {
+            this.listener  = listener;
+            this.eventType = eventType;
+        }
+
+        /** Compares the listener by identity, as required by {@code removeListener(…)} contract. */
+        @Override public boolean equals(final Object other) {
+            if (other instanceof Registration) {
+                final Registration that = (Registration) other;
+                return listener == that.listener && eventType == that.eventType;
+            }
+            return false;
+        }
+
+        /** Returns a hash code value consistent with {@link #equals(Object)}. */
+        @Override public int hashCode() {
+            return System.identityHashCode(listener) + 31 * eventType.hashCode();
+        }
+    }
+
+    /**
+     * Creates a new watcher for the directory of the given root store and starts the daemon thread.
+     *
+     * @param  root  the folder store for the directory specified by the user.
+     * @throws IOException if the watch service can not be created.
+     */
+    Watcher(final Store root) throws IOException {
+        service     = root.location.getFileSystem().newWatchService();
+        directories = new ConcurrentHashMap<>();
+        listeners   = new CopyOnWriteArrayList<>();
+        final Thread thread = new Thread(this, "Folder watcher for " + root.getDisplayName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Starts watching the directory of the given store. This method should be invoked before the store
+     * lists its components, so that no change can happen between the listing and the registration.
+     * Events for files already listed are ignored by {@link Store#update(List)}.
+     *
+     * @param  store  the store for the directory to watch.
+     * @throws IOException if the directory can not be registered.
+     */
+    final void register(final Store store) throws IOException {
+        final WatchKey key = store.location.register(service,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        directories.put(key, store);
+    }
+
+    /**
+     * Stops watching the directory of the given store. This method does nothing if the
+     * directory is not watched.
+     *
+     * @param  store  the store for the directory to stop watching.
+     */
+    final void cancel(final Store store) {
+        directories.entrySet().removeIf((e) -> {
+            if (e.getValue() == store) {
+                e.getKey().cancel();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Adds a listener for the given type of events. Adding twice the same listener
+     * with the same type of events has no effect.
+     */
+    final void addListener(final ChangeListener<?> listener, final Class<?> eventType) {
+        listeners.addIfAbsent(new Registration(listener, eventType));
+    }
+
+    /**
+     * Removes a listener previously added for the given type of events.
+     *
+     * @return {@code true} if there is no more listeners after this method call.
+     */
+    final boolean removeListener(final ChangeListener<?> listener, final Class<?> eventType) {
+        listeners.remove(new Registration(listener, eventType));
+        return listeners.isEmpty();
+    }
+
+    /**
+     * Sends the given event to all listeners interested in that type of events.
+     * Each listener is notified at most once, even if it has been registered for
+     * more than one event type.
+     */
+    @SuppressWarnings("unchecked")
+    private void fire(final ChangeEvent event) {
+        final Set<ChangeListener<?>> notified = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (final Registration r : listeners) {
+            if (r.eventType.isInstance(event) && notified.add(r.listener)) try {
+                ((ChangeListener<ChangeEvent>) r.listener).changeOccured(event);
+            } catch (RuntimeException e) {
+                Logging.unexpectedException(Logging.getLogger(Modules.STORAGE), Watcher.class, "run", e);
+            }
+        }
+    }
+
+    /**
+     * Waits for file system events and dispatches them to the stores for the affected directories.
+     * This method is executed in a daemon thread and stops when {@link #close()} is invoked.
+     */
+    @Override
+    public void run() {
+        try {
+            for (;;) {
+                final WatchKey key = service.take();
+                final Store store = directories.get(key);
+                if (store != null) {
+                    final List<DataStore> disposed = new ArrayList<>();
+                    final ComponentChangeEvent event = store.update(key.pollEvents(), disposed);
+                    if (event != null) {
+                        fire(event);
+                    }
+                    /*
+                     * Close only the data stores that are no longer listed in any folder.
+                     * This is done after listeners have been notified of their removal.
+                     */
+                    for (final DataStore removed : disposed) try {
+                        removed.close();
+                    } catch (DataStoreException e) {
+                        Logging.unexpectedException(Logging.getLogger(Modules.STORAGE), Watcher.class, "run", e);
+                    }
+                } else {
+                    key.pollEvents();
+                }
+                if (!key.reset()) {
+                    directories.remove(key);                // Directory deleted or no longer accessible.
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Watcher closed: stop the thread.
+        }
+    }
+
+    /**
+     * Stops watching all directories. The daemon thread will stop soon after this method call.
+     *
+     * @throws IOException if an error occurred while closing the watch service.
+     */
+    final void close() throws IOException {
+        directories.clear();
+        listeners.clear();
+        service.close();
+    }
+}
@@ -16,6 +16,7 @@
  */
 package org.apache.sis.internal.storage.io;
 
+import java.lang.reflect.Array;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.io.IOException;
@@ -31,9 +32,11 @@ import org.apache.sis.util.Debug;
  * The data can be stored in an existing array, or a new array can be created.
  * This class does not handle compression; it is rather designed for efficient reading of uncompressed data.
  *
+ * <p>Instances of this class are not thread-safe.</p>
+ *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.0
  * @since   0.7
  * @module
  */
@@ -51,6 +54,24 @@ public final class HyperRectangleReader {
      */
     public final long origin;
 
+    /**
+     * Approximate cost of a seek operation followed by a small read, expressed as the number of bytes that
+     * could be read sequentially in the same amount of time. If the number of bytes to skip between two values
+     * is not greater than this threshold, then reading and discarding those bytes is assumed faster than seeking.
+     */
+    private static final int SEEK_COST = 4096;
+
+    /**
+     * Maximal size in bytes of the temporary array used for reading sub-sampled values.
+     */
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    /**
+     * Temporary array used for reading blocks of sub-sampled values, or {@code null} if not yet created.
+     * This array is reused by all read operations requiring it.
+     */
+    private Object block;
+
     /**
      * Creates a new reader for the given input and source region.
      *
@@ -116,23 +137,75 @@ public final class HyperRectangleReader {
      * @throws IOException if an error occurred while transferring data from the channel.
      */
     public Object read(final Region region) throws IOException {
-        final int contiguousDataLength = region.targetLength(region.contiguousDataDimension);
-        final long[] strides = new long[region.getDimension() - region.contiguousDataDimension];
+        return read(region, null, 0);
+    }
+
+    /**
+     * Reads data in the given region and stores them in the given array, starting at the given offset.
+     * This method allows callers to reuse the same array for many small read operations, for example
+     * when extracting time series. If the given array is null, then a new array is created.
+     *
+     * <p>If the sub-sampling along the first dimension is greater than 1, then this method may read
+     * blocks of data including the values to skip, then keep only the values of interest. This is
+     * often faster than reading each value individually, except when the values to skip are numerous
+     * enough for making seek operations cheaper than sequential reads.</p>
+     *
+     * @param  region       the sub-area to read and the sub-sampling to use.
+     * @param  destination  the array where to store the values, or {@code null} for creating a new array.
+     * @param  offset       index of the first element to write in the destination array.
+     * @return the destination array, or the new array if {@code destination} was null.
+     * @throws ClassCastException if the given array is not of the primitive type of the data to read.
+     * @throws IndexOutOfBoundsException if the given array is too small.
+     * @throws IOException if an error occurred while transferring data from the channel.
+     */
+    public Object read(final Region region, final Object destination, final int offset) throws IOException {
+        final int  sizeShift   = reader.dataSizeShift();
+        int contiguousDimension = region.contiguousDataDimension;
+        int runLength = region.targetLength(contiguousDimension);   // Number of values to store for each run.
+        int runSpan   = runLength;                                  // Number of values covered in the stream.
+        int step      = 1;
+        /*
+         * If values along the first dimension are not contiguous because of sub-sampling, the above default values
+         * cause one seek and one read operation for each single value. Check if it would be cheaper to read whole
+         * rows (including the values to skip) and keep only the values of interest.
+         */
+        if (contiguousDimension == 0) {
+            final long gap = region.skips[0];
+            if (gap << sizeShift <= SEEK_COST) {
+                step = Math.toIntExact(gap + 1);
+                runLength = region.targetSize[0];
+                runSpan   = Math.toIntExact((runLength - 1L) * step + 1);
+                contiguousDimension = 1;
+            }
+        }
+        final long[] strides = new long[region.getDimension() - contiguousDimension];
         final int[]   cursor = new int[strides.length];
-        final int  sizeShift = reader.dataSizeShift();
         long  streamPosition = origin + (region.startAt << sizeShift);
-        int    arrayPosition = 0;
+        int    arrayPosition = offset;
         for (int i=0; i<strides.length; i++) {
-            strides[i] = (region.skips[i + region.contiguousDataDimension] + contiguousDataLength) << sizeShift;
+            strides[i] = (region.skips[i + contiguousDimension] + runSpan) << sizeShift;
             assert (strides[i] > 0) : i;
         }
         try {
-            reader.createDataArray(region.targetLength(region.getDimension()));
+            if (destination != null) {
+                reader.setDest(destination);
+                final int end = offset + region.targetLength(region.getDimension());
+                if (offset < 0 || end > Array.getLength(destination)) {
+                    throw new IndexOutOfBoundsException(Errors.format(Errors.Keys.IndexOutOfBounds_1, end));
+                }
+            } else {
+                reader.createDataArray(region.targetLength(region.getDimension()));
+            }
+            final Object target = reader.dataArray();
             final Buffer view = reader.view();
 loop:       do {
                 reader.seek(streamPosition);
                 assert reader.view() == view;
-                reader.readFully(view, arrayPosition, contiguousDataLength);
+                if (step == 1) {
+                    reader.readFully(view, arrayPosition, runLength);
+                } else {
+                    readStrided(view, target, arrayPosition, runLength, step);
+                }
                 for (int i=0; i<cursor.length; i++) {
                     /*
                      * After we have read as much contiguous data as we can (may be a row, or a plane, or
@@ -141,18 +214,89 @@ loop:       do {
                      * new row, or a new plane, or a new cube?). This determine how many bytes we have to
                      * skip.
                      */
-                    if (++cursor[i] < region.targetSize[region.contiguousDataDimension + i]) {
+                    if (++cursor[i] < region.targetSize[contiguousDimension + i]) {
                         streamPosition += strides[i];
-                        arrayPosition  += contiguousDataLength;
+                        arrayPosition  += runLength;
                         continue loop;
                     }
                     cursor[i] = 0;
                 }
                 break;
             } while (true);
-            return reader.dataArray();
+            return target;
         } finally {
             reader.setDest(null);
         }
     }
+
+    /**
+     * Reads {@code count} values separated by {@code step-1} values to skip, starting at the current stream position.
+     * Values are read in blocks of at most {@value #BLOCK_SIZE} bytes in a temporary array, then the values of interest
+     * are copied to the target array. On return, the stream position is after the last value read.
+     *
+     * @param  view    the view to give to {@link DataTransfer#readFully(Buffer, int, int)}.
+     * @param  target  the array where to store the values.
+     * @param  offset  index of the first element to write in the target array.
+     * @param  count   number of values to store in the target array.
+     * @param  step    the sub-sampling, as a value greater than 1.
+     */
+    private void readStrided(final Buffer view, final Object target, int offset, int count, final int step)
+            throws IOException
+    {
+        final int chunk = Math.max(1, (BLOCK_SIZE >> reader.dataSizeShift()) / step);
+        final int span  = (Math.min(chunk, count) - 1) * step + 1;
+        if (block == null || block.getClass() != target.getClass() || Array.getLength(block) < span) {
+            block = Array.newInstance(target.getClass().getComponentType(), span);
+        }
+        reader.setDest(block);
+        try {
+            while (count > 0) {
+                final int n = Math.min(chunk, count);
+                reader.readFully(view, 0, (n - 1) * step + 1);
+                decimate(block, step, target, offset, n);
+                offset += n;
+                if ((count -= n) != 0) {
+                    reader.readFully(view, 0, step - 1);        // Skip the values between two chunks.
+                }
+            }
+        } finally {
+            reader.setDest(target);
+        }
+    }
+
+    /**
+     * Copies every {@code step} values of the {@code source} array, starting at index 0, into the {@code target} array.
+     *
+     * @param  source  the array of values read from the stream.
+     * @param  step    the sub-sampling.
+     * @param  target  the array where to store the values of interest.
+     * @param  offset  index of the first element to write in the target array.
+     * @param  count   number of values to copy.
+     */
+    private static void decimate(final Object source, final int step, final Object target, final int offset, final int count) {
+        int s = 0;
+        final int end = offset + count;
+        if (source instanceof double[]) {
+            final double[] src = (double[]) source, dst = (double[]) target;
+            for (int i=offset; i<end; i++, s += step) dst[i] = src[s];
+        } else if (source instanceof float[]) {
+            final float[] src = (float[]) source, dst = (float[]) target;
+            for (int i=offset; i<end; i++, s += step) dst[i] = src[s];
+        } else if (source instanceof long[]) {
+            final long[] src = (long[]) source, dst = (long[]) target;
+            for (int i=offset; i<end; i++, s += step) dst[i] = src[s];
+        } else if (source instanceof int[]) {
+            final int[] src = (int[]) source, dst = (int[]) target;
+            for (int i=offset; i<end; i++, s += step) dst[i] = src[s];
+        } else if (source instanceof short[]) {
+            final short[] src = (short[]) source, dst = (short[]) target;
+            for (int i=offset; i<end; i++, s += step) dst[i] = src[s];
+        } else if (source instanceof char[]) {
+            final char[] src = (char[]) source, dst = (char[]) target;
+            for (int i=offset; i<end; i++, s += step) dst[i] = src[s];
+        } else {
+            final byte[] src = (byte[]) source, dst = (byte[]) target;
+            for (int i=offset; i<end; i++, s += step) dst[i] = src[s];
+        }
+    }
 }
@@ -18,7 +18,12 @@ package org.apache.sis.internal.storage.query;
 
 import java.util.stream.Stream;
 import org.opengis.geometry.Envelope;
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.internal.feature.AttributeConvention;
+import org.apache.sis.internal.feature.Geometries;
 import org.apache.sis.internal.storage.AbstractFeatureSet;
+import org.apache.sis.internal.storage.MemoryFeatureSet;
+import org.apache.sis.internal.storage.StoreUtilities;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.storage.FeatureSet;
 
@@ -89,7 +94,27 @@ final class FeatureSubset extends AbstractFeatureSet {
      */
     @Override
     public Stream<AbstractFeature> features(final boolean parallel) throws DataStoreException {
-        Stream<AbstractFeature> stream = source.features(parallel);
+        Stream<AbstractFeature> stream;
+        /*
+         * Apply the region of interest. If the source is stored in memory, we can use its spatial index.
+         * Otherwise we have no choice but to scan all features. In both cases, features without default
+         * geometry are excluded.
+         */
+        final Envelope bbox = query.getEnvelope();
+        if (bbox == null) {
+            stream = source.features(parallel);
+        } else if (source instanceof MemoryFeatureSet) {
+            stream = ((MemoryFeatureSet) source).features(bbox, parallel);
+        } else {
+            final DefaultFeatureType type = source.getType();
+            try {
+                type.getProperty(AttributeConvention.GEOMETRY);
+            } catch (IllegalArgumentException e) {
+                return Stream.empty();                      // No default geometry.
+            }
+            final Envelope roi = StoreUtilities.toGeometryCRS(type, bbox);
+            stream = source.features(parallel).filter((feature) -> intersects(feature, roi));
+        }
         /*
          * Apply offset.
          */
@@ -106,4 +131,16 @@ final class FeatureSubset extends AbstractFeatureSet {
         }
         return stream;
     }
+
+    /**
+     * Returns whether the envelope of the default geometry of the given feature intersects the given envelope.
+     * The envelope shall be in the CRS of the geometries. Only the first two dimensions are compared,
+     * in the same way than {@link MemoryFeatureSet} spatial index.
+     */
+    private static boolean intersects(final AbstractFeature feature, final Envelope bbox) {
+        final GeneralEnvelope env = Geometries.getEnvelope(feature.getPropertyValue(AttributeConvention.GEOMETRY));
+        return env != null && env.getDimension() >= 2
+                && env.getMinimum(0) <= bbox.getMaximum(0) && env.getMaximum(0) >= bbox.getMinimum(0)
+                && env.getMinimum(1) <= bbox.getMaximum(1) && env.getMaximum(1) >= bbox.getMinimum(1);
+    }
 }
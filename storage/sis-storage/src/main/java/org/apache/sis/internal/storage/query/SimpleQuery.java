@@ -16,9 +16,14 @@
  */
 package org.apache.sis.internal.storage.query;
 
+import java.util.Objects;
+import org.opengis.geometry.Envelope;
+import org.opengis.geometry.MismatchedDimensionException;
+import org.apache.sis.geometry.ImmutableEnvelope;
 import org.apache.sis.storage.FeatureSet;
 import org.apache.sis.storage.Query;
 import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.resources.Errors;
 
 // Branch-dependent imports
 import org.apache.sis.feature.DefaultFeatureType;
@@ -59,6 +64,14 @@ public class SimpleQuery extends Query {
      */
     private long limit;
 
+    /**
+     * The region of interest, or {@code null} if none.
+     *
+     * @see #getEnvelope()
+     * @see #setEnvelope(Envelope)
+     */
+    private ImmutableEnvelope envelope;
+
     /**
      * Creates a new query retrieving no column and applying no filter.
      */
@@ -117,6 +130,37 @@ public class SimpleQuery extends Query {
         return limit;
     }
 
+    /**
+     * Sets the region of interest. If non-null, only features having a default geometry
+     * ({@code "sis:geometry"} property) whose envelope intersects the given envelope will be retained.
+     * The envelope shall have at least two dimensions and only the first two dimensions are used.
+     * Those dimensions shall be in the same coordinate reference system than the geometries;
+     * no coordinate operation is applied.
+     *
+     * @param  envelope  the region of interest, or {@code null} if none.
+     * @throws MismatchedDimensionException if the given envelope has less than two dimensions.
+     */
+    public void setEnvelope(final Envelope envelope) {
+        if (envelope != null) {
+            final int dimension = envelope.getDimension();
+            if (dimension < 2) {
+                throw new MismatchedDimensionException(Errors.format(
+                        Errors.Keys.MismatchedDimension_3, "envelope", 2, dimension));
+            }
+        }
+        this.envelope = ImmutableEnvelope.castOrCopy(envelope);
+    }
+
+    /**
+     * Returns the region of interest, or {@code null} if none.
+     * This is the value specified in the last call to {@link #setEnvelope(Envelope)}.
+     *
+     * @return the region of interest, or {@code null} if none.
+     */
+    public Envelope getEnvelope() {
+        return envelope;
+    }
+
     /**
      * Applies this query on the given feature set. The default implementation executes the query using the default
      * {@link java.util.stream.Stream} methods.  Queries executed by this method may not benefit from accelerations
@@ -148,7 +192,7 @@ public class SimpleQuery extends Query {
      */
     @Override
     public int hashCode() {
-        return Long.hashCode(limit ^ skip);
+        return Long.hashCode(limit ^ skip) + 31 * Objects.hashCode(envelope);
     }
 
     /**
@@ -164,8 +208,9 @@ public class SimpleQuery extends Query {
         }
         if (obj != null && getClass() == obj.getClass()) {
             final SimpleQuery other = (SimpleQuery) obj;
-            return skip  == other.skip &&
-                   limit == other.limit;
+            return skip  == other.skip  &&
+                   limit == other.limit &&
+                   Objects.equals(envelope, other.envelope);
         }
         return true;
     }
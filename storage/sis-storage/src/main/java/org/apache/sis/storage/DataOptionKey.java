@@ -16,6 +16,7 @@
  */
 package org.apache.sis.storage;
 
+import java.nio.file.Path;
 import org.apache.sis.setup.OptionKey;
 import org.apache.sis.feature.FoliationRepresentation;
 
@@ -49,6 +50,18 @@ public final class DataOptionKey<T> extends OptionKey<T> {
     public static final OptionKey<FoliationRepresentation> FOLIATION_REPRESENTATION =
             new DataOptionKey<>("FOLIATION_REPRESENTATION", FoliationRepresentation.class);
 
+    /**
+     * Path to a file where to cache the results of probing files for their format.
+     * If this option is specified, {@link DataStores#open(Object)} and the folder store consult
+     * that catalog before to ask each {@link DataStoreProvider} whether it can read a file.
+     * Entries are invalidated when the size or the last modification time of a file change.
+     * This option is useful for avoiding the cost of probing repetitively the same files
+     * when an archive of immutable files is opened many times.
+     *
+     * @since 1.0
+     */
+    public static final OptionKey<Path> PROBE_CATALOG = new DataOptionKey<>("PROBE_CATALOG", Path.class);
+
     /**
      * Creates a new key of the given name.
      */
@@ -21,7 +21,9 @@ import java.util.LinkedList;
 import java.util.Set;
 import java.util.Iterator;
 import java.util.ServiceLoader;
+import java.nio.file.Path;
 import org.apache.sis.internal.storage.Resources;
+import org.apache.sis.internal.storage.ProbeCatalog;
 import org.apache.sis.internal.storage.StoreMetadata;
 import org.apache.sis.internal.storage.io.IOUtilities;
 import org.apache.sis.internal.system.DefaultFactories;
@@ -167,8 +169,36 @@ final class DataStoreRegistry {
         Boolean matchCondition = (extension != null && !extension.isEmpty()) ? Boolean.TRUE : null;
         final List<ProbeProviderPair> needMoreBytes = new LinkedList<>();
         ProbeProviderPair selected = null;
+        ProbeCatalog catalog = null;
+        Path path = null;
         try {
-search:     do {
+            /*
+             * If the user specified a catalog of previous probe results, check if the storage is a file
+             * that we have already probed. If the file has not been modified since that time, reuse the
+             * provider found at that time without asking any provider to probe the file again.
+             */
+            final Path catalogFile = connector.getOption(DataOptionKey.PROBE_CATALOG);
+            if (catalogFile != null) {
+                path = connector.getStorageAs(Path.class);
+                if (path != null) {
+                    catalog = ProbeCatalog.forFile(catalogFile);
+                    final ProbeCatalog.Entry entry = catalog.get(path);
+                    if (entry != null) {
+                        synchronized (loader) {
+                            for (final DataStoreProvider provider : loader) {
+                                if (entry.provider.equals(provider.getClass().getName())) {
+                                    selected = new ProbeProviderPair(provider, entry.probe);
+                                    break;
+                                }
+                            }
+                        }
+                    }
+                    if (selected != null) {
+                        catalog = null;                 // For avoiding to record again the same result.
+                    }
+                }
+            }
+search:     while (selected == null || !selected.probe.isSupported()) {
                 /*
                  * All usages of 'loader' and its 'providers' iterator must be protected in a synchronized block,
                  * because ServiceLoader is not thread-safe. We try to keep the synhronization block as small as
@@ -246,7 +276,13 @@ search:     do {
                  * We do that by changing 'matchCondition' from TRUE to FALSE. In all other cases,
                  * we stop the search.
                  */
-            } while (matchCondition != null && (matchCondition = !matchCondition) == false);
+                if (matchCondition == null || (matchCondition = !matchCondition) != false) {
+                    break;
+                }
+            }
+            if (catalog != null && selected != null) {
+                catalog.put(path, selected.provider, selected.probe);
+            }
             /*
              * If a provider has been found, or if a provider returned UNDETERMINED, use that one
              * for opening a DataStore. Note that if more than one provider returned UNDETERMINED,
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.event;
+
+import java.util.Collection;
+import java.util.Collections;
+import org.apache.sis.storage.Resource;
+import org.apache.sis.storage.Aggregate;
+import org.apache.sis.internal.util.UnmodifiableArrayList;
+
+
+/**
+ * Notifies listeners that components have been added to or removed from an {@link Aggregate}.
+ * For example a folder store may emit this event when files are created or deleted in the directory.
+ * The resources listed in {@link #getRemoved()} may have been closed before this event is sent.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public class ComponentChangeEvent extends ChangeEvent {
+    /**
+     * For cross-version compatibility.
+     */
+    private static final long serialVersionUID = 2372516093484932582L;
+
+    /**
+     * The components added to the aggregate. This field is not serialized,
+     * for the same reason than {@link #source} is not serialized.
+     */
+    private final transient Resource[] added;
+
+    /**
+     * The components removed from the aggregate. This field is not serialized,
+     * for the same reason than {@link #source} is not serialized.
+     */
+    private final transient Resource[] removed;
+
+    /**
+     * Constructs an event for components added to or removed from the given aggregate.
+     *
+     * @param  source   the aggregate on which the event initially occurred.
+     * @param  added    the components added to the aggregate (may be empty).
+     * @param  removed  the components removed from the aggregate (may be empty).
+     * @throws IllegalArgumentException  if the given source is null.
+     */
+    public ComponentChangeEvent(final Aggregate source, final Collection<? extends Resource> added,
+                                                       final Collection<? extends Resource> removed)
+    {
+        super(source);
+        this.added   = added  .toArray(new Resource[added  .size()]);
+        this.removed = removed.toArray(new Resource[removed.size()]);
+    }
+
+    /**
+     * Returns the aggregate on which the event initially occurred.
+     *
+     * @return the aggregate on which the event initially occurred.
+     */
+    @Override
+    public Aggregate getSource() {
+        return (Aggregate) source;
+    }
+
+    /**
+     * Returns the components added to the aggregate.
+     *
+     * @return the added components (may be empty).
+     */
+    public Collection<Resource> getAdded() {
+        return (added != null) ? UnmodifiableArrayList.wrap(added) : Collections.emptyList();
+    }
+
+    /**
+     * Returns the components removed from the aggregate.
+     *
+     * @return the removed components (may be empty).
+     */
+    public Collection<Resource> getRemoved() {
+        return (removed != null) ? UnmodifiableArrayList.wrap(removed) : Collections.emptyList();
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.index.tree;
+
+import java.util.List;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Collections;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.sis.geometry.DirectPosition2D;
+import org.apache.sis.geometry.Envelope2D;
+import org.apache.sis.referencing.CommonCRS;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.TestUtilities;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link QuadTreeFile}, the binary format of {@link QuadTree} queried through a memory mapping.
+ * The queries on the mapped tree shall give the same results than the queries on the tree in memory.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+@DependsOn(QuadTreeTest.class)
+public final strictfp class QuadTreeFileTest extends TestCase {
+    /**
+     * Creates a tree with random points and a cluster of close points near the dateline.
+     * The small node capacity causes the tree to have many levels, and the uneven distribution
+     * causes some parent nodes to have no child in some quadrants.
+     */
+    private static QuadTree createTree() {
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final QuadTree tree = new QuadTree(4, 16);
+        for (int i=0; i<1000; i++) {
+            final double longitude, latitude;
+            if (i < 800) {
+                longitude = random.nextDouble() * 360 - 180;
+                latitude  = random.nextDouble() * 160 -  80;
+            } else {
+                longitude = 178 + random.nextDouble() * 2;
+                latitude  = random.nextDouble() * 2 - 1;
+            }
+            tree.insert(QuadTreeTest.data(String.valueOf(i), longitude, latitude));
+        }
+        assertTrue("size", tree.size() > 900);
+        return tree;
+    }
+
+    /**
+     * Returns the file names of the given data in increasing order, for comparisons regardless of traversal order.
+     */
+    private static List<String> sorted(final List<QuadTreeData> data) {
+        final String[] names = QuadTreeTest.names(data).toArray(new String[data.size()]);
+        Arrays.sort(names);
+        return Arrays.asList(names);
+    }
+
+    /**
+     * Writes a tree, maps it and verifies that the mapped tree contains the same data
+     * and answers the bounding box and point radius queries in the same way.
+     *
+     * @throws IOException if an error occurred while writing or mapping the temporary file.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        final QuadTree tree = createTree();
+        final Path file = Files.createTempFile("sis", ".bin");
+        try {
+            QuadTreeWriter.writeTreeToBinaryFile(tree, file);
+            final QuadTreeFile content = new QuadTreeFile(file, (name, position) -> QuadTreeTest.data(name, position.x, position.y));
+            verifyStructure(content, tree);
+            final QuadTree mapped = QuadTree.mapFromFile(file, (name, position) -> QuadTreeTest.data(name, position.x, position.y));
+            assertEquals("size",     tree.size(),     mapped.size());
+            assertEquals("capacity", tree.getCapacity(), mapped.getCapacity());
+            assertEquals("depth",    tree.getDepth(),    mapped.getDepth());
+            /*
+             * Bounding boxes, including one crossing the dateline and one containing all data.
+             */
+            final Envelope2D[] regions = {
+                new Envelope2D(CommonCRS.defaultGeographic(), -180, -90, 360, 180),
+                new Envelope2D(CommonCRS.defaultGeographic(),  -30, -20,  60,  50),
+                new Envelope2D(CommonCRS.defaultGeographic(),  179,  -1,   1,   1),
+                new Envelope2D(CommonCRS.defaultGeographic(),  170, -10, -340, 20)     // From 170°E to 170°W.
+            };
+            for (final Envelope2D region : regions) {
+                final List<String> expected = sorted(tree.queryByBoundingBox(region));
+                assertFalse("The region should contain data.", expected.isEmpty());
+                assertEquals("queryByBoundingBox", expected, sorted(mapped.queryByBoundingBox(region)));
+            }
+            assertEquals("All data", tree.size(), mapped.queryByBoundingBox(regions[0]).size());
+            /*
+             * Point radius searches, including one around the dateline.
+             */
+            final DirectPosition2D[] centers = {
+                new DirectPosition2D(   0,  0),
+                new DirectPosition2D( 100, 40),
+                new DirectPosition2D(-179,  0)
+            };
+            for (final DirectPosition2D center : centers) {
+                final List<String> expected = sorted(tree.queryByPointRadius(center, 2000));
+                assertFalse("The circle should contain data.", expected.isEmpty());
+                assertEquals("queryByPointRadius", expected, sorted(mapped.queryByPointRadius(center, 2000)));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Verifies that the mapped tree has parent nodes, nodes with data and missing children,
+     * and that each data has the coordinates of the corresponding data in the tree.
+     */
+    private static void verifyStructure(final QuadTreeFile content, final QuadTree tree) {
+        int parents = 0, leaves = 0, missing = 0;
+        for (int node=0; node < content.nodeCount; node++) {
+            if (content.isParent(node)) {
+                parents++;
+                for (int q=0; q<4; q++) {
+                    if (content.getChild(node, Quadrant.getQuadrant(q)) < 0) {
+                        missing++;
+                    }
+                }
+            } else if (content.getDataCount(node) != 0) {
+                leaves++;
+            }
+        }
+        assertTrue("parent nodes",   parents > 1);
+        assertTrue("nodes with data", leaves > 1);
+        assertTrue("missing children", missing > 0);
+        assertEquals("size", tree.size(), content.size);
+
+        final List<QuadTreeData> all = tree.queryByBoundingBox(new Envelope2D(CommonCRS.defaultGeographic(), -180, -90, 360, 180));
+        final String[] names = new String[content.size];
+        for (int i=0; i<content.size; i++) {
+            final QuadTreeData data = content.getData(i);
+            names[i] = data.getFileName();
+            final DirectPosition2D expected = all.get(QuadTreeTest.names(all).indexOf(names[i])).getLatLon();
+            assertEquals("longitude", expected.x, content.getLongitude(i), STRICT);
+            assertEquals("latitude",  expected.y, content.getLatitude(i),  STRICT);
+            assertEquals("longitude", expected.x, data.getLatLon().x, STRICT);
+            assertEquals("latitude",  expected.y, data.getLatLon().y, STRICT);
+        }
+        Arrays.sort(names);
+        assertEquals("names", sorted(all), Arrays.asList(names));
+    }
+
+    /**
+     * Verifies that truncated or corrupted files are rejected with an {@link IOException}.
+     *
+     * @throws IOException if an error occurred while writing the temporary files.
+     */
+    @Test
+    @DependsOnMethod("testRoundTrip")
+    public void testInvalidFile() throws IOException {
+        final Path file = Files.createTempFile("sis", ".bin");
+        try {
+            final QuadTree tree = new QuadTree(2, 20);
+            tree.insert(QuadTreeTest.data("a", 10, 10));
+            tree.insert(QuadTreeTest.data("b", 12, 10));
+            tree.insert(QuadTreeTest.data("c", 11, 11));
+            QuadTreeWriter.writeTreeToBinaryFile(tree, file);
+            final byte[] valid = Files.readAllBytes(file);
+            assertEquals(Collections.singletonList("a"), QuadTreeTest.names(QuadTree.mapFromFile(file,
+                    (name, position) -> QuadTreeTest.data(name, position.x, position.y))
+                    .queryNearest(new DirectPosition2D(10, 10), 1)));
+
+            byte[] bytes = Arrays.copyOf(valid, valid.length - 1);
+            verifyRejected(file, bytes, "truncated file");
+
+            bytes = Arrays.copyOf(valid, valid.length + 1);
+            verifyRejected(file, bytes, "trailing byte");
+
+            bytes = Arrays.copyOf(valid, 10);
+            verifyRejected(file, bytes, "truncated header");
+
+            verifyRejected(file, new byte[0], "empty file");
+
+            bytes = valid.clone();
+            bytes[0] ^= 1;
+            verifyRejected(file, bytes, "magic number");
+
+            bytes = valid.clone();
+            ByteBuffer.wrap(bytes).putInt(4, 2);
+            verifyRejected(file, bytes, "version");
+
+            bytes = valid.clone();
+            ByteBuffer.wrap(bytes).putInt(16, Integer.MAX_VALUE);
+            verifyRejected(file, bytes, "node count");
+
+            bytes = valid.clone();
+            ByteBuffer.wrap(bytes).putInt(20, -1);
+            verifyRejected(file, bytes, "size");
+            /*
+             * Corruptions in the node table, which would otherwise be detected only at query time.
+             * The root is a parent node since the capacity is 2, and its first child is a leaf.
+             */
+            final ByteBuffer table = ByteBuffer.wrap(valid);
+            final int nodeCount = table.getInt(16);
+            assertEquals("root type", 0, table.getInt(QuadTreeFile.HEADER_SIZE));
+            int child = -1, leaf = -1;
+            for (int q=0; q<4 && child < 0; q++) {
+                child = QuadTreeFile.HEADER_SIZE + 8 + q * Integer.BYTES;
+                if (table.getInt(child) < 0) child = -1;
+            }
+            for (int node=0; node < nodeCount && leaf < 0; node++) {
+                final int entry = QuadTreeFile.HEADER_SIZE + node * QuadTreeFile.NODE_SIZE;
+                if (table.getInt(entry) == 1) leaf = entry;
+            }
+            assertTrue("child", child >= 0);
+            assertTrue("leaf",  leaf  >= 0);
+
+            bytes = valid.clone();
+            ByteBuffer.wrap(bytes).putInt(child, 0);
+            verifyRejected(file, bytes, "cycle in node table");
+
+            bytes = valid.clone();
+            ByteBuffer.wrap(bytes).putInt(child, nodeCount);
+            verifyRejected(file, bytes, "child index");
+
+            bytes = valid.clone();
+            ByteBuffer.wrap(bytes).putInt(QuadTreeFile.HEADER_SIZE, 3);
+            verifyRejected(file, bytes, "node type");
+
+            bytes = valid.clone();
+            ByteBuffer.wrap(bytes).putInt(leaf + 12, 4);
+            verifyRejected(file, bytes, "data count");
+
+            bytes = valid.clone();
+            ByteBuffer.wrap(bytes).putInt(leaf + 16, Integer.MAX_VALUE);
+            verifyRejected(file, bytes, "first data");
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Verifies that writing a tree over an existing file does not affect the trees mapped from the previous
+     * file content, since the new content is written in another file which replaces the previous one.
+     *
+     * @throws IOException if an error occurred while writing or mapping the temporary file.
+     */
+    @Test
+    @DependsOnMethod("testRoundTrip")
+    public void testOverwrite() throws IOException {
+        final Path file = Files.createTempFile("sis", ".bin");
+        try {
+            final QuadTree tree = new QuadTree(2, 20);
+            tree.insert(QuadTreeTest.data("a", 10, 10));
+            tree.insert(QuadTreeTest.data("b", 12, 10));
+            tree.insert(QuadTreeTest.data("c", 11, 11));
+            QuadTreeWriter.writeTreeToBinaryFile(tree, file);
+            final QuadTree previous = QuadTree.mapFromFile(file, (name, position) -> QuadTreeTest.data(name, position.x, position.y));
+            tree.insert(QuadTreeTest.data("d", 10.5, 10));
+            QuadTreeWriter.writeTreeToBinaryFile(tree, file);
+            final QuadTree mapped = QuadTree.mapFromFile(file, (name, position) -> QuadTreeTest.data(name, position.x, position.y));
+            final DirectPosition2D center = new DirectPosition2D(10.4, 10);
+            assertEquals(Collections.singletonList("a"), QuadTreeTest.names(previous.queryNearest(center, 1)));
+            assertEquals(Collections.singletonList("d"), QuadTreeTest.names(mapped.queryNearest(center, 1)));
+            assertEquals("size", 3, previous.size());
+            assertEquals("size", 4, mapped.size());
+            try (DirectoryStream<Path> siblings = Files.newDirectoryStream(file.getParent(), file.getFileName() + "*.tmp")) {
+                assertFalse("Temporary file not deleted.", siblings.iterator().hasNext());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Writes the given bytes in the given file and verifies that the file is rejected.
+     */
+    private static void verifyRejected(final Path file, final byte[] bytes, final String corruption) throws IOException {
+        Files.write(file, bytes);
+        try {
+            QuadTree.mapFromFile(file, (name, position) -> QuadTreeTest.data(name, position.x, position.y));
+            fail("Expected an IOException for the " + corruption + '.');
+        } catch (IOException e) {
+            assertNotNull(corruption, e.getMessage());
+        }
+    }
+}
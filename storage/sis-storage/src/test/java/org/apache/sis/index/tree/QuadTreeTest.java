@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.index.tree;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.sis.geometry.DirectPosition2D;
+import org.apache.sis.geometry.Envelope2D;
+import org.apache.sis.referencing.CommonCRS;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.TestUtilities;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link QuadTree}, both in memory and mapped from a binary file.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public final strictfp class QuadTreeTest extends TestCase {
+    /**
+     * Verifies that the coordinates of the data are packed in the node
+     * as (x, y, latitude, longitude) tuples.
+     */
+    @Test
+    public void testPackedCoordinates() {
+        final QuadTreeNode node = new QuadTreeNode(1, 2);
+        node.addData(data("a",  10, 20));
+        node.addData(data("b", -30, 40));
+        node.addData(data("c",  50, 60));         // Ignored since capacity is exceeded.
+        assertEquals("count", 2, node.getCount());
+        final double[] coordinates = node.getCoordinates();
+        assertEquals("x",         190, coordinates[0], STRICT);
+        assertEquals("y",         110, coordinates[1], STRICT);
+        assertEquals("latitude",   20, coordinates[2], STRICT);
+        assertEquals("longitude",  10, coordinates[3], STRICT);
+        assertEquals("x",         150, coordinates[QuadTreeNode.STRIDE],     STRICT);
+        assertEquals("latitude",   40, coordinates[QuadTreeNode.STRIDE + 2], STRICT);
+    }
+
+    /**
+     * Creates a small tree with a node capacity of 2, so that the data are spread in many nodes.
+     */
+    private static QuadTree createTree() {
+        final QuadTree tree = new QuadTree(2, 20);
+        assertTrue(tree.insert(data("a",  10,  10)));
+        assertTrue(tree.insert(data("b",  12,  10)));
+        assertTrue(tree.insert(data("c", -20, -30)));
+        assertTrue(tree.insert(data("d", 179,   0)));
+        assertTrue(tree.insert(data("e",  11,  11)));
+        assertTrue(tree.insert(data("f",  60,  45)));
+        return tree;
+    }
+
+    /**
+     * Verifies the k-nearest-neighbour search on the tree created by {@link #createTree()}.
+     * This includes a search across the dateline.
+     */
+    private static void verifyQueryNearest(final QuadTree tree) {
+        assertEquals("size", 6, tree.size());
+        assertEquals(Arrays.asList("a", "e", "b"), names(tree.queryNearest(new DirectPosition2D(10, 10), 3)));
+        assertEquals(Arrays.asList("d"), names(tree.queryNearest(new DirectPosition2D(-179, 0), 1)));
+        assertEquals(6, tree.queryNearest(new DirectPosition2D(0, 0), 100).size());
+        assertTrue(tree.queryNearest(new DirectPosition2D(0, 0), 0).isEmpty());
+
+        final List<List<QuadTreeData>> batch = tree.queryNearest(Arrays.asList(
+                new DirectPosition2D(-179, 0), new DirectPosition2D(59, 44)), 1);
+        assertEquals(Arrays.asList("d"), names(batch.get(0)));
+        assertEquals(Arrays.asList("f"), names(batch.get(1)));
+
+        final DirectPosition2D position = batch.get(1).get(0).getLatLon();
+        assertEquals("longitude", 60, position.x, STRICT);
+        assertEquals("latitude",  45, position.y, STRICT);
+    }
+
+    /**
+     * Tests k-nearest-neighbour search in a tree built in memory.
+     */
+    @Test
+    public void testQueryNearest() {
+        verifyQueryNearest(createTree());
+    }
+
+    /**
+     * Tests k-nearest-neighbour search in a tree mapped from a binary file.
+     * The data are created from the file content by the factory given to {@link QuadTree#mapFromFile}.
+     *
+     * @throws IOException if an error occurred while writing or mapping the temporary file.
+     */
+    @Test
+    @DependsOnMethod("testQueryNearest")
+    public void testQueryNearestOnMappedTree() throws IOException {
+        final Path file = Files.createTempFile("sis", ".bin");
+        try {
+            QuadTreeWriter.writeTreeToBinaryFile(createTree(), file);
+            verifyQueryNearest(QuadTree.mapFromFile(file, (name, position) -> data(name, position.x, position.y)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Runs bounding box and point radius queries while another thread inserts data in the same tree.
+     * Each query result shall contain only data inside the query region, and the number of data found
+     * in the whole world shall never decrease since data are only added. After all insertions,
+     * the size of the tree and the query results shall include all inserted data.
+     *
+     * @throws Exception if an error occurred in the writer or a reader thread.
+     */
+    @Test
+    @DependsOnMethod("testPackedCoordinates")
+    public void testConcurrentInsertAndQuery() throws Exception {
+        final int count = 4000;
+        final QuadTree tree = new QuadTree(4, 20);
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final double[] coordinates = new double[count * 2];
+        for (int i=0; i<coordinates.length; i++) {
+            coordinates[i] = random.nextDouble() * 360 - 180;
+            coordinates[++i] = random.nextDouble() * 160 - 80;
+        }
+        final Envelope2D world  = new Envelope2D(CommonCRS.defaultGeographic(), -180, -90, 360, 180);
+        final Envelope2D region = new Envelope2D(CommonCRS.defaultGeographic(),  -40, -30,  80,  60);
+        final DirectPosition2D center = new DirectPosition2D(0, 0);
+        final AtomicBoolean finished = new AtomicBoolean();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Integer>> tasks = new ArrayList<>();
+            tasks.add(executor.submit(() -> {
+                int inserted = 0;
+                try {
+                    for (int i=0; i<count; i++) {
+                        if (tree.insert(data(String.valueOf(i), coordinates[i*2], coordinates[i*2 + 1]))) {
+                            inserted++;
+                        }
+                    }
+                } finally {
+                    finished.set(true);
+                }
+                return inserted;
+            }));
+            for (int t=0; t<3; t++) {
+                tasks.add(executor.submit(() -> {
+                    int previous = 0, queries = 0;
+                    do {
+                        final int found = tree.queryByBoundingBox(world).size();
+                        assertTrue("Data disappeared from the tree.", found >= previous);
+                        previous = found;
+                        tree.queryByBoundingBox(region, (data) -> {
+                            final DirectPosition2D p = data.getLatLon();
+                            assertTrue(data.getFileName(), Math.abs(p.x) <= 40 && Math.abs(p.y) <= 30);
+                        });
+                        tree.queryByPointRadius(center, 1000, (data) -> {
+                            final DirectPosition2D p = data.getLatLon();
+                            assertTrue(data.getFileName(), Math.abs(p.x) < 10 && Math.abs(p.y) < 10);
+                        });
+                        queries++;
+                    } while (!finished.get());
+                    return queries;
+                }));
+            }
+            final int inserted;
+            try {
+                inserted = tasks.get(0).get();
+                for (final Future<Integer> task : tasks) {
+                    assertTrue("queries", task.get() > 0);
+                }
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof Error) throw (Error) cause;
+                throw e;
+            }
+            assertEquals("inserted", count, inserted);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals("size", count, tree.size());
+        assertEquals("world", count, tree.queryByBoundingBox(world).size());
+        int expected = 0;
+        for (int i=0; i<coordinates.length; i += 2) {
+            if (Math.abs(coordinates[i]) <= 40 && Math.abs(coordinates[i+1]) <= 30) expected++;
+        }
+        assertEquals("region", expected, tree.queryByBoundingBox(region).size());
+    }
+
+    /**
+     * Returns the file names of the given data.
+     */
+    static List<String> names(final List<QuadTreeData> data) {
+        final String[] names = new String[data.size()];
+        for (int i=0; i<names.length; i++) {
+            names[i] = data.get(i).getFileName();
+        }
+        return Arrays.asList(names);
+    }
+
+    /**
+     * Creates a data at the given longitude and latitude.
+     */
+    static QuadTreeData data(final String name, final double longitude, final double latitude) {
+        return new QuadTreeData() {
+            @Override public double getX() {return longitude + 180;}
+            @Override public double getY() {return latitude + 90;}
+            @Override public DirectPosition2D getLatLon() {return new DirectPosition2D(longitude, latitude);}
+            @Override public String getFileName() {return name;}
+        };
+    }
+}
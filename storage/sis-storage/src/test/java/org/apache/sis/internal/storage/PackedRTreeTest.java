@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage;
+
+import java.util.Set;
+import java.util.HashSet;
+import java.util.Random;
+import org.apache.sis.test.TestUtilities;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link PackedRTree}.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public final strictfp class PackedRTreeTest extends TestCase {
+    /**
+     * Compares the result of random searches with the result of an exhaustive scan of all boxes.
+     */
+    @Test
+    public void testSearch() {
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final int count = 1000;
+        final double[] bounds = new double[count * 4];
+        for (int i=0; i<bounds.length; i += 4) {
+            bounds[i  ] = random.nextDouble() * 360 - 180;
+            bounds[i+1] = random.nextDouble() * 180 -  90;
+            bounds[i+2] = bounds[i  ] + random.nextDouble() * 5;
+            bounds[i+3] = bounds[i+1] + random.nextDouble() * 5;
+        }
+        bounds[40] = Double.NaN;                                // Item 10 shall never be found.
+        final PackedRTree tree = new PackedRTree(bounds);
+        assertEquals("size", count - 1, tree.size());
+        final Set<Integer> expected = new HashSet<>();
+        final Set<Integer> actual   = new HashSet<>();
+        for (int n=0; n<50; n++) {
+            final double xmin = random.nextDouble() * 360 - 180;
+            final double ymin = random.nextDouble() * 180 -  90;
+            final double xmax = xmin + random.nextDouble() * 40;
+            final double ymax = ymin + random.nextDouble() * 40;
+            expected.clear();
+            actual  .clear();
+            for (int i=0; i<count; i++) {
+                final int j = i * 4;
+                if (bounds[j] <= xmax && bounds[j+2] >= xmin && bounds[j+1] <= ymax && bounds[j+3] >= ymin) {
+                    assertTrue(expected.add(i));
+                }
+            }
+            tree.search(xmin, ymin, xmax, ymax, (i) -> assertTrue("Duplicated item.", actual.add(i)));
+            assertEquals(expected, actual);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.charset.StandardCharsets;
+import org.apache.sis.storage.ProbeResult;
+import org.apache.sis.storage.DataStoreProvider;
+import org.apache.sis.util.Version;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link ProbeCatalog}.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public final strictfp class ProbeCatalogTest extends TestCase {
+    /**
+     * Tests recording and retrieving a probe result, then verifies that
+     * the entry is invalidated when the file content changes.
+     *
+     * @throws IOException if an error occurred while creating the temporary files.
+     */
+    @Test
+    public void testGetAndPut() throws IOException {
+        final Path file    = Files.createTempFile("sis", ".wkt");
+        final Path catalog = Files.createTempFile("sis", ".catalog");
+        try {
+            Files.write(file, "GEOGCS[\"WGS 84\"]".getBytes(StandardCharsets.US_ASCII));
+            final DataStoreProvider provider = new org.apache.sis.internal.storage.wkt.StoreProvider();
+            final ProbeCatalog cache = ProbeCatalog.forFile(catalog);
+            assertSame(cache, ProbeCatalog.forFile(catalog));
+            assertNull(cache.get(file));
+
+            cache.put(file, provider, ProbeResult.UNDETERMINED);
+            assertNull("Unsupported results shall not be recorded.", cache.get(file));
+
+            cache.put(file, provider, ProbeResult.SUPPORTED);
+            final ProbeCatalog.Entry entry = cache.get(file);
+            assertNotNull(entry);
+            assertEquals(provider.getClass().getName(), entry.provider);
+            assertSame(ProbeResult.SUPPORTED, entry.probe);
+            assertTrue("Catalog file shall have been written.", Files.size(catalog) > 0);
+
+            Files.write(file, " ".getBytes(StandardCharsets.US_ASCII), StandardOpenOption.APPEND);
+            assertNull("Entry shall be invalidated by file change.", cache.get(file));
+        } finally {
+            Files.delete(file);
+            Files.delete(catalog);
+        }
+    }
+
+    /**
+     * Tests that probe results are saved in the catalog file and found again by a catalog loaded from that file.
+     * The catalogs are created without the sharing of instances done by {@link ProbeCatalog#forFile(Path)}.
+     *
+     * @throws IOException if an error occurred while creating the temporary files.
+     */
+    @Test
+    @DependsOnMethod("testGetAndPut")
+    public void testPersistence() throws IOException {
+        final Path file1   = Files.createTempFile("sis", ".wkt");
+        final Path file2   = Files.createTempFile("sis", ".wkt");
+        final Path catalog = Files.createTempFile("sis", ".catalog");
+        try {
+            Files.write(file1, "GEOGCS[\"WGS 84\"]".getBytes(StandardCharsets.US_ASCII));
+            Files.write(file2, "GEOGCS[\"NTF\"]".getBytes(StandardCharsets.US_ASCII));
+            final DataStoreProvider provider = new org.apache.sis.internal.storage.wkt.StoreProvider();
+            final ProbeResult withVersion = new ProbeResult(true, "text/plain", new Version("2"));
+            /*
+             * First catalog rewrites the file (which is empty), second catalog appends to it.
+             */
+            new ProbeCatalog(catalog).put(file1, provider, ProbeResult.SUPPORTED);
+            ProbeCatalog cache = new ProbeCatalog(catalog);
+            ProbeCatalog.Entry entry = cache.get(file1);
+            assertNotNull("Entry shall have been loaded from the catalog file.", entry);
+            assertEquals(provider.getClass().getName(), entry.provider);
+            assertSame(ProbeResult.SUPPORTED, entry.probe);
+            cache.put(file2, provider, withVersion);
+            /*
+             * Third catalog shall see the entries written by the two previous ones.
+             */
+            cache = new ProbeCatalog(catalog);
+            assertNotNull(cache.get(file1));
+            entry = cache.get(file2);
+            assertNotNull("Appended entry shall have been loaded from the catalog file.", entry);
+            assertEquals(provider.getClass().getName(), entry.provider);
+            assertTrue  ("isSupported", entry.probe.isSupported());
+            assertEquals("mimeType", "text/plain", entry.probe.getMimeType());
+            assertEquals("version",  new Version("2"), entry.probe.getVersion());
+        } finally {
+            Files.delete(file1);
+            Files.delete(file2);
+            Files.delete(catalog);
+        }
+    }
+}
@@ -17,13 +17,20 @@
 package org.apache.sis.internal.storage.folder;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import org.opengis.parameter.ParameterValueGroup;
 import org.opengis.metadata.identification.Identification;
 import org.apache.sis.metadata.iso.citation.Citations;
@@ -31,6 +38,8 @@ import org.apache.sis.storage.Aggregate;
 import org.apache.sis.storage.Resource;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.storage.StorageConnector;
+import org.apache.sis.storage.event.ChangeListener;
+import org.apache.sis.storage.event.ComponentChangeEvent;
 import org.apache.sis.test.TestCase;
 import org.junit.Test;
 
@@ -102,6 +111,69 @@ public final strictfp class StoreTest extends TestCase {
         }
     }
 
+    /**
+     * Verifies that creating, modifying and deleting a file in a watched directory updates the list
+     * of components and sends the expected {@link ComponentChangeEvent}s. The file is created in
+     * another directory and moved in the watched one, for having a single creation event with the
+     * complete file content. The test waits for each event fired by the watcher.
+     *
+     * @throws DataStoreException if an error occurred while reading the resources.
+     * @throws IOException if an error occurred while creating, modifying or deleting the temporary files.
+     * @throws InterruptedException if the test has been interrupted while waiting for an event.
+     */
+    @Test
+    public void testWatch() throws DataStoreException, IOException, InterruptedException {
+        final Path directory = Files.createTempDirectory("sis");
+        final Path source    = Files.createTempFile("sis", ".prj");
+        final Path file      = directory.resolve("crs.prj");
+        try (InputStream in = StoreTest.class.getResourceAsStream("test-data/crs.prj")) {
+            assertNotNull("Test data not found", in);
+            Files.copy(in, source, StandardCopyOption.REPLACE_EXISTING);
+        }
+        try (Store store = new Store(null, new StorageConnector(directory), directory, null)) {
+            assertTrue("Expected an empty directory.", store.components().isEmpty());
+            final BlockingQueue<ComponentChangeEvent> events = new LinkedBlockingQueue<>();
+            final ChangeListener<ComponentChangeEvent> listener = events::add;
+            store.addListener(listener, ComponentChangeEvent.class);
+            /*
+             * File creation: the new file shall be opened and reported as an added component.
+             */
+            Files.move(source, file, StandardCopyOption.ATOMIC_MOVE);
+            ComponentChangeEvent event = events.take();
+            assertSame("source", store, event.getSource());
+            assertEquals("added",   1, event.getAdded().size());
+            assertEquals("removed", 0, event.getRemoved().size());
+            final Resource added = event.getAdded().iterator().next();
+            assertEquals("components", Arrays.asList(added), new ArrayList<>(store.components()));
+            /*
+             * File modification: the data store shall be replaced by a new one opened on the same file,
+             * reported as a removal and an addition in the same event. We change only the modification
+             * time for having a single modification event with unchanged file content.
+             */
+            Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 60000));
+            event = events.take();
+            assertEquals("removed", Arrays.asList(added), new ArrayList<>(event.getRemoved()));
+            assertEquals("added",   1, event.getAdded().size());
+            final Resource reopened = event.getAdded().iterator().next();
+            assertNotSame("reopened", added, reopened);
+            assertEquals("components", Arrays.asList(reopened), new ArrayList<>(store.components()));
+            /*
+             * File deletion: the component shall be removed and reported in the event.
+             */
+            Files.delete(file);
+            event = events.take();
+            assertEquals("added",   0, event.getAdded().size());
+            assertEquals("removed", Arrays.asList(reopened), new ArrayList<>(event.getRemoved()));
+            assertTrue("components", store.components().isEmpty());
+            assertTrue("Unexpected event.", events.isEmpty());
+            store.removeListener(listener, ComponentChangeEvent.class);
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(source);
+            Files.delete(directory);
+        }
+    }
+
     /**
      * Verifies that the given metadata contains one of the given identifiers.
      * The identifiers that are found are removed from the given set.
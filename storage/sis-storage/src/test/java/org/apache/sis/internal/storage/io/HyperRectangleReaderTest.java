@@ -38,7 +38,7 @@ import static org.junit.Assert.*;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 1.0
  * @since   0.7
  * @module
  */
@@ -147,8 +147,21 @@ public final strictfp class HyperRectangleReaderTest extends TestCase {
      * then compares against the expected values.
      */
     private void verifyRegionRead() throws IOException {
-        final short[] data = (short[]) reader.read(new Region(size, lower, upper, subsampling));
-        int p = 0;
+        verifyRegionRead(null, 0);
+    }
+
+    /**
+     * Extracts data in the given array, starting at the given offset, then compares against the expected values.
+     * If the given array is null, then the array created by the reader is verified.
+     */
+    private void verifyRegionRead(short[] data, final int offset) throws IOException {
+        final Object result = reader.read(new Region(size, lower, upper, subsampling), data, offset);
+        if (data != null) {
+            assertSame(data, result);
+        } else {
+            data = (short[]) result;
+        }
+        int p = offset;
         final int s3 = subsampling[3];
         final int s2 = subsampling[2];
         final int s1 = subsampling[1];
@@ -162,7 +175,9 @@ public final strictfp class HyperRectangleReaderTest extends TestCase {
                 }
             }
         }
-        assertEquals("Array length", p, data.length);
+        if (offset == 0) {
+            assertEquals("Array length", p, data.length);
+        }
     }
 
     /**
@@ -205,6 +220,23 @@ public final strictfp class HyperRectangleReaderTest extends TestCase {
         verifyRegionRead();
     }
 
+    /**
+     * Tests reading a random part of the hyper-cube with a sub-sampling along the first dimension
+     * in an array supplied by the caller. The same array is reused for two read operations.
+     *
+     * @throws IOException should never happen.
+     * @throws DataStoreException should never happen.
+     */
+    @Test
+    @DependsOnMethod("testRandom")
+    public void testDestinationArray() throws IOException, DataStoreException {
+        initialize(TestUtilities.createRandomNumberGenerator(), true);
+        subsampling[0] = 2;
+        final short[] data = new short[new Region(size, lower, upper, subsampling).targetLength(size.length) + 5];
+        verifyRegionRead(data, 5);
+        verifyRegionRead(data, 0);
+    }
+
     /**
      * Tests reading data from an existing buffer, without channel.
      *
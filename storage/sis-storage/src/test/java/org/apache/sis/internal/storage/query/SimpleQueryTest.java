@@ -18,13 +18,22 @@ package org.apache.sis.internal.storage.query;
 
 import java.util.List;
 import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.stream.Collectors;
+import java.awt.geom.Rectangle2D;
+import org.apache.sis.feature.builder.AttributeRole;
 import org.apache.sis.feature.builder.FeatureTypeBuilder;
+import org.apache.sis.geometry.GeneralEnvelope;
 import org.apache.sis.internal.storage.MemoryFeatureSet;
+import org.apache.sis.referencing.CRS;
+import org.apache.sis.referencing.CommonCRS;
 import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStoreReferencingException;
 import org.apache.sis.storage.FeatureSet;
+import org.apache.sis.test.DependsOnMethod;
 import org.apache.sis.test.TestCase;
 import org.junit.Test;
+import org.opengis.util.FactoryException;
 
 import static org.junit.Assert.*;
 
@@ -37,6 +46,7 @@ import org.apache.sis.feature.DefaultFeatureType;
  * Tests {@link SimpleQuery} and (indirectly) {@link FeatureSubset}.
  *
  * @author  Johann Sorel (Geomatys)
+ * @author  Martin Desruisseaux (Geomatys)
  * @version 1.0
  * @since   1.0
  * @module
@@ -126,4 +136,133 @@ public final strictfp class SimpleQueryTest extends TestCase {
         query.setOffset(2);
         verifyQueryResult(2, 3, 4);
     }
+
+    /**
+     * Verifies the effect of {@link SimpleQuery#setEnvelope}, both with the spatial index of
+     * {@link MemoryFeatureSet} and with the scan performed by {@link FeatureSubset} on other sources.
+     * Geometries touching the region of interest on an edge or a corner shall be included.
+     * The region of interest is three-dimensional for verifying that extra dimensions are ignored.
+     *
+     * @throws DataStoreException if an error occurred while executing the query.
+     */
+    @Test
+    public void testEnvelope() throws DataStoreException {
+        final FeatureTypeBuilder ftb = new FeatureTypeBuilder();
+        ftb.setName("Test");
+        ftb.addAttribute(String.class).setName("id");
+        ftb.addAttribute(Rectangle2D.class).setName("geometry").addRole(AttributeRole.DEFAULT_GEOMETRY);
+        final DefaultFeatureType type = ftb.build();
+        final List<AbstractFeature> list = Arrays.asList(
+                feature(type, "inside",  2,  2),
+                feature(type, "outside", 20, 20),
+                feature(type, "edge",    10, 5),
+                feature(type, "corner",  -1, -1),
+                feature(type, "below",   4, -3));
+        final MemoryFeatureSet source = new MemoryFeatureSet(null, null, type, list);
+        final GeneralEnvelope bbox = new GeneralEnvelope(3);
+        bbox.setRange(0,   0,  10);
+        bbox.setRange(1,   0,  10);
+        bbox.setRange(2, -50, 100);
+        query.setEnvelope(bbox);
+        final List<String> expected = Arrays.asList("inside", "edge", "corner");
+        assertEquals("Spatial index", expected, identifiers(query.execute(source)));
+        /*
+         * Same query on a source which is not a MemoryFeatureSet,
+         * for testing the filter applied by FeatureSubset.
+         */
+        final FeatureSet view = new SimpleQuery().execute(source);
+        assertEquals("Scan", expected, identifiers(query.execute(view)));
+    }
+
+    /**
+     * Verifies that the spatial index of {@link MemoryFeatureSet} is rebuilt when a feature is replaced
+     * by another one, even if the number of features did not changed.
+     *
+     * @throws DataStoreException if an error occurred while executing the query.
+     */
+    @Test
+    @DependsOnMethod("testEnvelope")
+    public void testEnvelopeAfterChange() throws DataStoreException {
+        final FeatureTypeBuilder ftb = new FeatureTypeBuilder();
+        ftb.setName("Test");
+        ftb.addAttribute(String.class).setName("id");
+        ftb.addAttribute(Rectangle2D.class).setName("geometry").addRole(AttributeRole.DEFAULT_GEOMETRY);
+        final DefaultFeatureType type = ftb.build();
+        final List<AbstractFeature> list = new ArrayList<>(Arrays.asList(
+                feature(type, "inside",  2,  2),
+                feature(type, "outside", 20, 20)));
+        final MemoryFeatureSet source = new MemoryFeatureSet(null, null, type, list);
+        final GeneralEnvelope bbox = new GeneralEnvelope(2);
+        bbox.setRange(0, 0, 10);
+        bbox.setRange(1, 0, 10);
+        query.setEnvelope(bbox);
+        assertEquals(Arrays.asList("inside"), identifiers(query.execute(source)));
+        list.set(1, feature(type, "moved", 5, 5));
+        assertEquals(Arrays.asList("inside", "moved"), identifiers(query.execute(source)));
+        list.remove(0);
+        assertEquals(Arrays.asList("moved"), identifiers(query.execute(source)));
+    }
+
+    /**
+     * Verifies that {@link SimpleQuery#setEnvelope} transforms the region of interest to the CRS of the geometries,
+     * both with the spatial index of {@link MemoryFeatureSet} and with the scan performed by {@link FeatureSubset}.
+     * The region of interest uses (<var>latitude</var>, <var>longitude</var>) axis order while the geometries use
+     * (<var>longitude</var>, <var>latitude</var>) axis order. Envelopes that can not be transformed are rejected.
+     *
+     * @throws FactoryException if an error occurred while creating the CRS.
+     * @throws DataStoreException if an error occurred while executing the query.
+     */
+    @Test
+    @DependsOnMethod("testEnvelope")
+    public void testEnvelopeWithCRS() throws FactoryException, DataStoreException {
+        final FeatureTypeBuilder ftb = new FeatureTypeBuilder();
+        ftb.setName("Test");
+        ftb.addAttribute(String.class).setName("id");
+        ftb.addAttribute(Rectangle2D.class).setName("geometry")
+                .setCRS(CommonCRS.WGS84.normalizedGeographic()).addRole(AttributeRole.DEFAULT_GEOMETRY);
+        final DefaultFeatureType type = ftb.build();
+        final List<AbstractFeature> list = Arrays.asList(
+                feature(type, "inside",  2, 20),
+                feature(type, "swapped", 20, 2));
+        final MemoryFeatureSet source = new MemoryFeatureSet(null, null, type, list);
+        final FeatureSet view = new SimpleQuery().execute(source);
+        final GeneralEnvelope bbox = new GeneralEnvelope(CommonCRS.WGS84.geographic());
+        bbox.setRange(0, 15, 25);                   // Latitude
+        bbox.setRange(1,  0,  5);                   // Longitude
+        query.setEnvelope(bbox);
+        final List<String> expected = Arrays.asList("inside");
+        assertEquals("Spatial index", expected, identifiers(query.execute(source)));
+        assertEquals("Scan",          expected, identifiers(query.execute(view)));
+        /*
+         * A region of interest in a CRS without horizontal component can not be transformed.
+         */
+        final GeneralEnvelope other = new GeneralEnvelope(CRS.compound(
+                CommonCRS.Vertical.MEAN_SEA_LEVEL.crs(), CommonCRS.Temporal.JAVA.crs()));
+        other.setRange(0, 0, 10);
+        other.setRange(1, 0, 10);
+        query.setEnvelope(other);
+        try {
+            identifiers(query.execute(source));
+            fail("Expected DataStoreReferencingException.");
+        } catch (DataStoreReferencingException e) {
+            // This is the expected exception.
+        }
+    }
+
+    /**
+     * Creates a feature with a 1×1 square geometry having the given lower corner.
+     */
+    private static AbstractFeature feature(final DefaultFeatureType type, final String id, final double x, final double y) {
+        final AbstractFeature f = type.newInstance();
+        f.setPropertyValue("id", id);
+        f.setPropertyValue("geometry", new Rectangle2D.Double(x, y, 1, 1));
+        return f;
+    }
+
+    /**
+     * Returns the identifiers of all features in the given set.
+     */
+    private static List<String> identifiers(final FeatureSet fs) throws DataStoreException {
+        return fs.features(false).map((f) -> (String) f.getPropertyValue("id")).collect(Collectors.toList());
+    }
 }
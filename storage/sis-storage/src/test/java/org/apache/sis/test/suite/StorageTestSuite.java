@@ -39,6 +39,10 @@ import org.junit.BeforeClass;
     org.apache.sis.internal.storage.io.HyperRectangleReaderTest.class,
     org.apache.sis.internal.storage.io.RewindableLineReaderTest.class,
     org.apache.sis.internal.storage.MetadataBuilderTest.class,
+    org.apache.sis.internal.storage.ProbeCatalogTest.class,
+    org.apache.sis.internal.storage.PackedRTreeTest.class,
+    org.apache.sis.index.tree.QuadTreeTest.class,
+    org.apache.sis.index.tree.QuadTreeFileTest.class,
     org.apache.sis.storage.FeatureNamingTest.class,
     org.apache.sis.storage.ProbeResultTest.class,
     org.apache.sis.storage.StorageConnectorTest.class,
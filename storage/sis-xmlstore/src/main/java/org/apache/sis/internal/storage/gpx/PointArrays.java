@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage.gpx;
+
+import java.util.Arrays;
+
+
+/**
+ * Coordinates and times of GPX points stored in primitive arrays.
+ * This is a lightweight alternative to the feature instances created by {@link Reader#tryAdvance
+ * Reader.tryAdvance(…)} for applications that need only the positions of a large amount of points,
+ * for example for rendering or for statistics on tracks having millions of {@code <trkpt>} elements.
+ * Other properties (name, links, dilution of precision, <i>etc.</i>) are ignored.
+ *
+ * <p>Points are stored in the order they appear in the GPX file. The {@link #segmentStarts} array
+ * gives the index of the first point of each {@code <rte>} or {@code <trkseg>} element, which allows
+ * to reconstruct the polylines. Way points ({@code <wpt>}) do not belong to any segment.</p>
+ *
+ * <p>Arrays may be longer than the number of points; only the first {@link #size()} elements are valid.
+ * Missing values are {@link Double#NaN} for elevations and {@link Long#MIN_VALUE} for times.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public final class PointArrays {
+    /**
+     * Value stored in the {@link #times} array when a point has no time.
+     */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    /**
+     * Whether to collect way points ({@code <wpt>}), route points ({@code <rtept>}) and track points ({@code <trkpt>}).
+     */
+    final boolean wayPoints, routePoints, trackPoints;
+
+    /**
+     * Latitudes and longitudes in decimal degrees.
+     */
+    public double[] latitudes, longitudes;
+
+    /**
+     * Elevations in metres, or {@link Double#NaN} if unspecified.
+     */
+    public double[] elevations;
+
+    /**
+     * Times in milliseconds since January 1st, 1970 UTC, or {@link #NO_TIME} if unspecified.
+     */
+    public long[] times;
+
+    /**
+     * Index of the first point of each route or track segment.
+     */
+    public int[] segmentStarts;
+
+    /**
+     * Number of valid points in the arrays.
+     */
+    private int size;
+
+    /**
+     * Number of valid elements in the {@link #segmentStarts} array.
+     */
+    private int segmentCount;
+
+    /**
+     * Creates an initially empty set of arrays for the given kinds of points.
+     *
+     * @param  wayPoints    whether to collect {@code <wpt>} elements.
+     * @param  routePoints  whether to collect {@code <rtept>} elements.
+     * @param  trackPoints  whether to collect {@code <trkpt>} elements.
+     */
+    public PointArrays(final boolean wayPoints, final boolean routePoints, final boolean trackPoints) {
+        this.wayPoints     = wayPoints;
+        this.routePoints   = routePoints;
+        this.trackPoints   = trackPoints;
+        final int capacity = 1024;
+        latitudes     = new double[capacity];
+        longitudes    = new double[capacity];
+        elevations    = new double[capacity];
+        times         = new long  [capacity];
+        segmentStarts = new int[16];
+    }
+
+    /**
+     * Returns whether points in an element of the given name shall be collected.
+     */
+    final boolean accept(final String tagName) {
+        switch (tagName) {
+            case Tags.WAY_POINT:    return wayPoints;
+            case Tags.ROUTE_POINTS: return routePoints;
+            case Tags.TRACK_POINTS: return trackPoints;
+            default: return false;
+        }
+    }
+
+    /**
+     * Returns the number of points.
+     *
+     * @return number of valid elements in the coordinate and time arrays.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of route or track segments.
+     *
+     * @return number of valid elements in the {@link #segmentStarts} array.
+     */
+    public int segmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * Appends a point.
+     */
+    final void add(final double latitude, final double longitude, final double elevation, final long time) {
+        if (size == latitudes.length) {
+            final int capacity = size * 2;
+            latitudes  = Arrays.copyOf(latitudes,  capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+            elevations = Arrays.copyOf(elevations, capacity);
+            times      = Arrays.copyOf(times,      capacity);
+        }
+        latitudes [size] = latitude;
+        longitudes[size] = longitude;
+        elevations[size] = elevation;
+        times     [size] = time;
+        size++;
+    }
+
+    /**
+     * Declares that the next point will be the first point of a new route or track segment.
+     */
+    final void startSegment() {
+        if (segmentCount == segmentStarts.length) {
+            segmentStarts = Arrays.copyOf(segmentStarts, segmentCount * 2);
+        }
+        segmentStarts[segmentCount++] = size;
+    }
+
+    /**
+     * Trims the arrays to the number of valid elements.
+     */
+    public void trimToSize() {
+        latitudes     = Arrays.copyOf(latitudes,     size);
+        longitudes    = Arrays.copyOf(longitudes,    size);
+        elevations    = Arrays.copyOf(elevations,    size);
+        times         = Arrays.copyOf(times,         size);
+        segmentStarts = Arrays.copyOf(segmentStarts, segmentCount);
+    }
+}
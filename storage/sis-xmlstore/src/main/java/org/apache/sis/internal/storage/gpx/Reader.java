@@ -19,9 +19,11 @@ package org.apache.sis.internal.storage.gpx;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Objects;
+import java.util.Date;
 import java.util.function.Consumer;
 import java.io.IOException;
 import java.io.EOFException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.time.format.DateTimeParseException;
 import javax.xml.stream.XMLStreamException;
@@ -104,6 +106,21 @@ final class Reader extends StaxStreamReader {
         super(owner);
     }
 
+    /**
+     * Creates a new GPX reader for a subset of the file provided by the given stream.
+     * The {@link #initialize(boolean)} method must be invoked after this constructor.
+     *
+     * @param  owner  the data store for which this reader is created.
+     * @param  input  the stream of the GPX document to read, which will be closed by this reader.
+     * @throws DataStoreException if the data store is closed.
+     * @throws XMLStreamException if an error occurred while opening the XML document.
+     *
+     * @see TrackSlices
+     */
+    Reader(final Store owner, final InputStream input) throws DataStoreException, XMLStreamException {
+        super(owner, input);
+    }
+
     /**
      * Returns {@code true} if the given namespace is a GPX namespace or is null.
      */
@@ -344,6 +361,129 @@ parse:  while (reader.hasNext()) {
         }
     }
 
+    /**
+     * Parses the next {@code <trk>} element of a document which contains only tracks in its {@code <gpx>} root.
+     * This is used for decoding a slice of the file as prepared by {@link TrackSlices}, which gives the track
+     * identifiers since they can not be inferred from the position in the slice.
+     *
+     * @param  index  the identifier of the track to parse.
+     * @return the track, or {@code null} if we reached the end of the document.
+     * @throws BackingStoreException if an error occurred while parsing the track,
+     *         or if an element other than a track has been found.
+     */
+    @SuppressWarnings("fallthrough")
+    AbstractFeature nextTrack(final int index) throws BackingStoreException {
+        try {
+            for (int type = reader.getEventType(); ; type = reader.next()) {
+                switch (type) {
+                    case START_ELEMENT: {
+                        if (Tags.TRACKS.equals(reader.getLocalName()) && isGPX()) {
+                            return parseTrack(index);
+                        }
+                        throw new DataStoreContentException(errors().getString(
+                                Errors.Keys.UnexpectedFileFormat_2, owner.getFormatName(), owner.getDisplayName()));
+                    }
+                    case END_ELEMENT:  if (!isEndGPX()) continue;           // else fallthrough
+                    case END_DOCUMENT: return null;
+                }
+            }
+        } catch (Exception e) {                 // Many possible exceptions including unchecked ones.
+            throw new BackingStoreException(canNotParseFile(), e);
+        }
+    }
+
+    /**
+     * Reads the coordinates and times of all remaining points in the GPX file, without creating features.
+     * Only the {@code lat} and {@code lon} attributes and the {@code <ele>} and {@code <time>} elements of
+     * way points, route points or track points are parsed; all other elements are skipped without using JAXB.
+     * This method is an alternative to the iteration over features and shall be invoked after
+     * {@link #initialize(boolean)}.
+     *
+     * @param  target  where to store the coordinates, and which kinds of points to collect.
+     * @throws Exception see the list of exceptions documented in {@link #parse(Consumer, boolean)}.
+     */
+    public void readPoints(final PointArrays target) throws Exception {
+        String pointTag = null;                     // Non-null when inside an element to collect.
+        double latitude = 0, longitude = 0, elevation = Double.NaN;
+        long   time = PointArrays.NO_TIME;
+        for (int type = reader.getEventType(); ; type = reader.next()) {
+            /*
+             * We do not need to check 'reader.hasNext()' in above loop
+             * since this check is done by the END_DOCUMENT case below.
+             */
+            switch (type) {
+                case START_ELEMENT: {
+                    final String name = reader.getLocalName();
+                    if (!isGPX()) {
+                        skipUntilEnd(reader.getName());                 // Extensions, no need to look inside.
+                    } else if (pointTag != null) {
+                        switch (name) {
+                            case Tags.ELEVATION: {
+                                final String text = getElementText();
+                                if (text != null) elevation = parseDouble(text);
+                                break;
+                            }
+                            case Tags.TIME: {
+                                final Date date = getElementAsDate();
+                                if (date != null) time = date.getTime();
+                                break;
+                            }
+                            default: {
+                                if (name.equals(pointTag)) {
+                                    throw new DataStoreContentException(nestedElement(name));
+                                }
+                                skipUntilEnd(reader.getName());         // <link>, <name>, etc.
+                                break;
+                            }
+                        }
+                    } else switch (name) {
+                        case Tags.ROUTES:         if (target.routePoints) target.startSegment(); break;
+                        case Tags.TRACK_SEGMENTS: if (target.trackPoints) target.startSegment(); break;
+                        case Tags.GPX:            throw new DataStoreContentException(nestedElement(Tags.GPX));
+                        case Tags.WAY_POINT:
+                        case Tags.ROUTE_POINTS:
+                        case Tags.TRACK_POINTS: {
+                            if (!target.accept(name)) {
+                                skipUntilEnd(reader.getName());
+                                break;
+                            }
+                            final String lat = reader.getAttributeValue(null, Attributes.LATITUDE);
+                            final String lon = reader.getAttributeValue(null, Attributes.LONGITUDE);
+                            if (lat == null || lon == null) {
+                                throw new DataStoreContentException(errors().getString(Errors.Keys.MandatoryAttribute_2,
+                                        (lat == null) ? Attributes.LATITUDE : Attributes.LONGITUDE, name));
+                            }
+                            latitude  = parseDouble(lat);
+                            longitude = parseDouble(lon);
+                            elevation = Double.NaN;
+                            time      = PointArrays.NO_TIME;
+                            pointTag  = name;
+                            break;
+                        }
+                    }
+                    break;
+                }
+                case END_ELEMENT: {
+                    if (pointTag != null) {
+                        if (pointTag.equals(reader.getLocalName()) && isGPX()) {
+                            target.add(latitude, longitude, elevation, time);
+                            pointTag = null;
+                        }
+                    } else if (isEndGPX()) {
+                        return;
+                    }
+                    break;
+                }
+                case END_DOCUMENT: {
+                    if (pointTag != null) {
+                        throw new EOFException(endOfFile());
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
     /**
      * Implementation of {@link #tryAdvance(Consumer)} and {@link #forEachRemaining(Consumer)}.
      *
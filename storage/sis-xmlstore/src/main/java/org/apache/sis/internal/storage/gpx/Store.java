@@ -19,6 +19,10 @@ package org.apache.sis.internal.storage.gpx;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.Files;
+import java.nio.file.FileSystemNotFoundException;
 import java.net.URISyntaxException;
 import org.opengis.util.NameFactory;
 import org.opengis.util.FactoryException;
@@ -54,7 +58,7 @@ import org.apache.sis.feature.DefaultFeatureType;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.0
  * @since   0.8
  * @module
  */
@@ -208,13 +212,78 @@ public final class Store extends StaxDataStore implements FeatureSet {
 
     /**
      * Returns the stream of features.
+     * If {@code parallel} is {@code true} and the data store has been opened on a file containing many tracks,
+     * then the positions of top-level {@code <trk>} elements are found by a lightweight pre-scan of the file
+     * and the tracks are decoded concurrently, each group of tracks by its own XML reader. Way points and
+     * routes are still decoded sequentially, and are given before the tracks as required by the GPX schema.
+     * The stream should be closed after usage for releasing the files opened for parallel decoding.
      *
-     * @param  parallel  ignored in current implementation.
+     * @param  parallel  {@code true} for decoding tracks in parallel if possible, or {@code false} for sequential decoding.
      * @return a stream over all features in the XML file.
      * @throws DataStoreException if an error occurred while creating the feature stream.
      */
     @Override
-    public final synchronized Stream<AbstractFeature> features(boolean parallel) throws DataStoreException {
+    public final synchronized Stream<AbstractFeature> features(final boolean parallel) throws DataStoreException {
+        final Path file = (parallel) ? getFile() : null;
+        if (file != null) try {
+            final TrackSlices slices = TrackSlices.scan(this, file);
+            if (slices != null) {
+                return slices.features();
+            }
+        } catch (DataStoreException e) {
+            throw e;
+        } catch (URISyntaxException | RuntimeException e) {
+            throw new DataStoreContentException(e);
+        } catch (Exception e) {
+            throw new DataStoreException(e);
+        }
+        final Reader r = reader();
+        final Stream<AbstractFeature> features = StreamSupport.stream(r, false);
+        return features.onClose(r);
+    }
+
+    /**
+     * Returns the GPX file if this data store has been opened on a file in the default file system,
+     * or {@code null} otherwise. Only files can be read from arbitrary positions for parallel decoding.
+     */
+    private Path getFile() {
+        if (location != null && "file".equalsIgnoreCase(location.getScheme())) try {
+            final Path file = Paths.get(location);
+            if (Files.isRegularFile(file)) {
+                return file;
+            }
+        } catch (IllegalArgumentException | FileSystemNotFoundException e) {
+            listeners.warning(null, e);
+        }
+        return null;
+    }
+
+    /**
+     * Reads the coordinates and times of way points, route points and/or track points in primitive arrays.
+     * This method is much faster than {@link #features(boolean)} for large files when only the positions
+     * are desired, because it does not create feature instances or use JAXB for parsing metadata.
+     *
+     * @param  target  where to store the coordinates, and which kinds of points to collect.
+     * @throws DataStoreException if an error occurred while reading the points.
+     */
+    public synchronized void readPoints(final PointArrays target) throws DataStoreException {
+        ArgumentChecks.ensureNonNull("target", target);
+        try (Reader r = reader()) {
+            r.readPoints(target);
+        } catch (DataStoreException e) {
+            throw e;
+        } catch (URISyntaxException | RuntimeException e) {
+            throw new DataStoreContentException(e);
+        } catch (Exception e) {
+            throw new DataStoreException(e);
+        }
+    }
+
+    /**
+     * Returns the reader created for parsing the metadata if it has not yet been used,
+     * or creates a new reader skipping metadata otherwise. The caller is responsible for closing the reader.
+     */
+    private Reader reader() throws DataStoreException {
         Reader r = reader;
         reader = null;
         if (r == null) try {
@@ -227,8 +296,7 @@ public final class Store extends StaxDataStore implements FeatureSet {
         } catch (Exception e) {
             throw new DataStoreException(e);
         }
-        final Stream<AbstractFeature> features = StreamSupport.stream(r, false);
-        return features.onClose(r);
+        return r;
     }
 
     /**
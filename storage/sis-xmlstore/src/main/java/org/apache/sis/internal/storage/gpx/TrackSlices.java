@@ -0,0 +1,549 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage.gpx;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.apache.sis.storage.DataStoreContentException;
+import org.apache.sis.util.collection.BackingStoreException;
+import org.apache.sis.util.resources.Errors;
+
+// Branch-dependent imports
+import org.apache.sis.feature.AbstractFeature;
+
+
+/**
+ * Byte offsets of the top-level {@code <trk>} elements of a GPX file, for decoding tracks concurrently.
+ * A lightweight pre-scan of the file bytes records the position of the root start tag, of each top-level
+ * track and of the root end tag, without parsing the XML content. Then each group of tracks is decoded by
+ * its own {@link Reader} from a stream made of the following file slices:
+ *
+ * <ol>
+ *   <li>the file header up to the end of the {@code <gpx>} start tag, which declares the namespaces,</li>
+ *   <li>the slices of the tracks to decode,</li>
+ *   <li>the {@code </gpx>} end tag.</li>
+ * </ol>
+ *
+ * All other elements (way points and routes) are decoded sequentially from the file with the track slices
+ * removed. The stream returned by {@link #features()} gives those elements first, followed by the tracks.
+ * This is the document order for all files valid against the GPX schema, which requires tracks to be last.
+ *
+ * <p>The pre-scan assumes an encoding where the ASCII characters are encoded on a single byte
+ * (UTF-8, ISO-8859-1, <i>etc.</i>). Files in other encodings are not split.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+final class TrackSlices implements Runnable {
+    /**
+     * Size of the buffer used by the pre-scan and by the streams over file slices.
+     */
+    private static final int BUFFER_SIZE = 0x10000;
+
+    /**
+     * The data store for which the tracks are decoded.
+     */
+    private final Store store;
+
+    /**
+     * The GPX file.
+     */
+    private final Path file;
+
+    /**
+     * Position after the end of the root {@code <gpx>} start tag.
+     */
+    private final long rootEnd;
+
+    /**
+     * Positions of the root {@code </gpx>} end tag (inclusive) and of the end of file (exclusive).
+     */
+    private final long closeStart, fileEnd;
+
+    /**
+     * Positions of the first byte of each top-level {@code <trk>} element, and of the byte after their end.
+     */
+    private final long[] starts, ends;
+
+    /**
+     * Readers created by the spliterators and not yet closed. Closed by {@link #run()} when the stream is closed,
+     * for the cases where the iteration has been stopped before all tracks have been decoded.
+     */
+    private final List<Reader> readers;
+
+    /**
+     * Creates a new set of slices for the given positions.
+     */
+    private TrackSlices(final Store store, final Path file, final long rootEnd, final long closeStart,
+            final long fileEnd, final long[] starts, final long[] ends)
+    {
+        this.store      = store;
+        this.file       = file;
+        this.rootEnd    = rootEnd;
+        this.closeStart = closeStart;
+        this.fileEnd    = fileEnd;
+        this.starts     = starts;
+        this.ends       = ends;
+        this.readers    = new ArrayList<>();
+    }
+
+    /**
+     * Scans the given file for the positions of top-level tracks. This method returns {@code null}
+     * if the file can not be split, in which case the caller should read it sequentially.
+     * This happen if the file contains less than two tracks, if it is not in an ASCII-compatible
+     * encoding or if the XML structure does not have the expected form (which will be reported
+     * by the sequential reader).
+     *
+     * @param  store  the data store for which to decode tracks.
+     * @param  file   the GPX file.
+     * @return the slices of the tracks, or {@code null} if the file should be read sequentially.
+     * @throws IOException if an error occurred while reading the file.
+     */
+    static TrackSlices scan(final Store store, final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new Scanner(channel).scan(store, file);
+        }
+    }
+
+    /**
+     * The pre-scan of a file. This is a minimal lexer recognizing only start tags, end tags, comments,
+     * processing instructions, CDATA sections and declarations, for tracking the depth of elements.
+     */
+    private static final class Scanner {
+        /** The channel to read. */
+        private final FileChannel channel;
+
+        /** The buffer of bytes read from the channel. */
+        private final ByteBuffer buffer;
+
+        /** Position in the file of the next byte to be returned by {@link #read()}. */
+        private long position;
+
+        /** Positions of the top-level tracks found so far. */
+        private long[] starts, ends;
+
+        /** Number of top-level tracks found so far. */
+        private int count;
+
+        /** Creates a new scanner for the given channel. */
+        Scanner(final FileChannel channel) {
+            this.channel = channel;
+            buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.limit(0);
+            starts = new long[16];
+            ends   = new long[16];
+        }
+
+        /** Adds the positions of a top-level track. */
+        void addTrack(final long start, final long end) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends   = Arrays.copyOf(ends,   count * 2);
+            }
+            starts[count] = start;
+            ends[count++] = end;
+        }
+
+        /** Returns the next byte, or -1 on end of file. */
+        int read() throws IOException {
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+                int n;
+                do n = channel.read(buffer);
+                while (n == 0);
+                buffer.flip();
+                if (n < 0) return -1;
+            }
+            position++;
+            return buffer.get() & 0xFF;
+        }
+
+        /**
+         * Skips bytes until after the given ASCII terminator of at most 3 characters.
+         * Returns {@code false} on end of file.
+         */
+        boolean skipUntil(final String terminator) throws IOException {
+            final int length = terminator.length();
+            final int mask = (1 << (Byte.SIZE * length)) - 1;
+            int target = 0;
+            for (int i=0; i<length; i++) {
+                target = (target << Byte.SIZE) | terminator.charAt(i);
+            }
+            int window = 0, c;
+            while ((c = read()) >= 0) {
+                window = ((window << Byte.SIZE) | c) & mask;
+                if (window == target) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Skips the remaining of a start tag, a end tag or a declaration up to its closing {@code '>'}, ignoring
+         * {@code '>'} characters in quoted values and, if {@code brackets} is true, in {@code [...]} sections.
+         * Returns the last character before {@code '>'}, or -1 on end of file.
+         */
+        int skipTag(final boolean brackets) throws IOException {
+            int quote = 0, nested = 0, previous = 0, c;
+            while ((c = read()) >= 0) {
+                if (quote != 0) {
+                    if (c == quote) quote = 0;
+                } else switch (c) {
+                    case '"': case '\'': quote = c; break;
+                    case '[': if (brackets) nested++; break;
+                    case ']': if (brackets) nested--; break;
+                    case '>': if (nested <= 0) return previous; break;
+                }
+                previous = c;
+            }
+            return -1;
+        }
+
+        /**
+         * Reads an element name after {@code '<'} or {@code "</"}, then skips the rest of the tag.
+         * Returns the local name (without prefix), or {@code null} on end of file.
+         * The {@code selfClosing} flag is set if the tag ends with {@code "/>"}.
+         */
+        String tagName(final int first, final boolean[] selfClosing) throws IOException {
+            final StringBuilder name = new StringBuilder();
+            int c = first;
+            while (c > ' ' && c != '>' && c != '/') {
+                if (c == ':') {
+                    name.setLength(0);
+                } else {
+                    name.append((char) c);
+                }
+                c = read();
+            }
+            final int last;
+            switch (c) {
+                case '>': last = 0; break;
+                case '/': last = c; if (read() != '>') return null; break;
+                default:  if ((last = skipTag(false)) < 0) return null; break;
+            }
+            selfClosing[0] = (last == '/');
+            return name.toString();
+        }
+
+        /**
+         * Scans the whole file. See {@link TrackSlices#scan(Store, Path)} for a description of the return value.
+         */
+        TrackSlices scan(final Store store, final Path file) throws IOException {
+            final ByteBuffer head = ByteBuffer.allocate(2);
+            channel.read(head, 0);
+            if (head.position() < 2) {
+                return null;
+            }
+            final int b0 = head.get(0) & 0xFF;
+            final int b1 = head.get(1) & 0xFF;
+            if (b0 == 0 || b1 == 0 || (b0 == 0xFE && b1 == 0xFF) || (b0 == 0xFF && b1 == 0xFE)) {
+                return null;                                // UTF-16 or UTF-32 encoding.
+            }
+            final boolean[] selfClosing = new boolean[1];
+            int  depth      = 0;
+            long rootEnd    = -1;
+            long trackStart = -1;
+            int c;
+            while ((c = read()) >= 0) {
+                if (c != '<') continue;
+                final long tagStart = position - 1;
+                switch (c = read()) {
+                    case -1:  return null;
+                    case '?': if (!skipUntil("?>")) return null; break;
+                    case '!': {
+                        if ((c = read()) == '-') {
+                            if (!skipUntil("-->")) return null;             // Comment.
+                        } else if (c == '[') {
+                            if (!skipUntil("]]>")) return null;             // CDATA section.
+                        } else if (skipTag(true) < 0) {
+                            return null;                                    // DOCTYPE or other declaration.
+                        }
+                        break;
+                    }
+                    case '/': {
+                        final String name = tagName(read(), selfClosing);
+                        if (name == null) return null;
+                        switch (--depth) {
+                            case 0: {
+                                if (count < 2) return null;
+                                return new TrackSlices(store, file, rootEnd, tagStart, channel.size(),
+                                        Arrays.copyOf(starts, count), Arrays.copyOf(ends, count));
+                            }
+                            case 1: {
+                                if (trackStart >= 0 && Tags.TRACKS.equals(name)) {
+                                    addTrack(trackStart, position);
+                                }
+                                trackStart = -1;
+                                break;
+                            }
+                            default: {
+                                if (depth < 0) return null;
+                                break;
+                            }
+                        }
+                        break;
+                    }
+                    default: {
+                        final String name = tagName(c, selfClosing);
+                        if (name == null) return null;
+                        if (depth == 0) {
+                            if (selfClosing[0] || !Tags.GPX.equals(name)) return null;
+                            rootEnd = position;
+                        } else if (depth == 1 && Tags.TRACKS.equals(name)) {
+                            if (selfClosing[0]) {
+                                addTrack(tagStart, position);
+                            } else {
+                                trackStart = tagStart;
+                            }
+                        }
+                        if (!selfClosing[0]) {
+                            depth++;
+                        }
+                        break;
+                    }
+                }
+            }
+            return null;                                    // Truncated file.
+        }
+    }
+
+    /**
+     * Returns the stream of all features: way points and routes decoded sequentially, followed by tracks
+     * decoded in parallel. The caller shall close the stream for releasing the file channels.
+     *
+     * @return the features in the GPX file.
+     * @throws Exception if an error occurred while creating the reader for way points and routes.
+     */
+    Stream<AbstractFeature> features() throws Exception {
+        final long[] ranges = new long[2 * starts.length + 2];
+        long previous = 0;
+        for (int i=0; i<starts.length; i++) {
+            ranges[2*i  ] = previous;
+            ranges[2*i+1] = starts[i];
+            previous = ends[i];
+        }
+        ranges[ranges.length - 2] = previous;
+        ranges[ranges.length - 1] = fileEnd;
+        final Reader others = open(ranges);
+        final Stream<AbstractFeature> tracks = StreamSupport.stream(new Split(0, starts.length), true);
+        return Stream.concat(StreamSupport.stream(others, false).onClose(others), tracks.onClose(this));
+    }
+
+    /**
+     * Creates a reader for the given ranges of bytes, given as (start, end) pairs.
+     * The reader is initialized and positioned on the first feature.
+     */
+    private Reader open(final long[] ranges) throws Exception {
+        final Slices input = new Slices(FileChannel.open(file, StandardOpenOption.READ), ranges);
+        final Reader reader;
+        try {
+            reader = new Reader(store, input);
+        } catch (Exception e) {
+            input.close();
+            throw e;
+        }
+        try {
+            reader.initialize(false);
+        } catch (Exception e) {
+            try {
+                reader.close();
+            } catch (Exception s) {
+                e.addSuppressed(s);
+            }
+            throw e;
+        }
+        return reader;
+    }
+
+    /**
+     * Closes all readers that have not been closed by the spliterators.
+     * This method is invoked when the stream of features is closed.
+     *
+     * @throws BackingStoreException if an error occurred while closing a reader.
+     */
+    @Override
+    public void run() throws BackingStoreException {
+        final Reader[] remaining;
+        synchronized (readers) {
+            remaining = readers.toArray(new Reader[readers.size()]);
+            readers.clear();
+        }
+        for (final Reader reader : remaining) {
+            reader.run();
+        }
+    }
+
+    /**
+     * A spliterator over a range of tracks. The range is split in halves until the spliterator starts
+     * decoding, at which time a single reader is created for all tracks remaining in the range.
+     */
+    private final class Split implements Spliterator<AbstractFeature> {
+        /** Index of the next track to decode. */
+        private int index;
+
+        /** Index after the last track to decode. */
+        private final int end;
+
+        /** The reader for tracks in this range, or {@code null} if not yet created or already closed. */
+        private Reader reader;
+
+        /** Creates a new spliterator for the tracks in the given range of indices. */
+        Split(final int index, final int end) {
+            this.index = index;
+            this.end   = end;
+        }
+
+        /** Splits this range in two halves if the decoding did not started yet. */
+        @Override
+        public Spliterator<AbstractFeature> trySplit() {
+            final int mid = (index + end) >>> 1;
+            if (reader != null || mid <= index) {
+                return null;
+            }
+            final Split prefix = new Split(index, mid);
+            index = mid;
+            return prefix;
+        }
+
+        /** Decodes the next track and gives it to the given action. */
+        @Override
+        public boolean tryAdvance(final Consumer<? super AbstractFeature> action) {
+            if (index >= end) {
+                return false;
+            }
+            if (reader == null) {
+                final long[] ranges = new long[2 * (end - index) + 4];
+                ranges[1] = rootEnd;
+                for (int i=index; i<end; i++) {
+                    final int j = 2 * (i - index) + 2;
+                    ranges[j  ] = starts[i];
+                    ranges[j+1] = ends[i];
+                }
+                ranges[ranges.length - 2] = closeStart;
+                ranges[ranges.length - 1] = fileEnd;
+                try {
+                    reader = open(ranges);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new BackingStoreException(e);
+                }
+                synchronized (readers) {
+                    readers.add(reader);
+                }
+            }
+            final AbstractFeature track = reader.nextTrack(++index);    // Track identifiers start at 1.
+            if (index >= end) {
+                synchronized (readers) {
+                    readers.remove(reader);
+                }
+                reader.run();
+                reader = null;
+            }
+            if (track == null) {
+                throw new BackingStoreException(new DataStoreContentException(Errors.getResources(store.getLocale())
+                        .getString(Errors.Keys.UnexpectedEndOfFile_1, store.getDisplayName())));
+            }
+            action.accept(track);
+            return true;
+        }
+
+        /** Returns the number of tracks remaining in this range. */
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        /** Tracks are in file order, non-null, immutable and their number is known. */
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE | SIZED | SUBSIZED;
+        }
+    }
+
+    /**
+     * An input stream over ranges of bytes in a file, given as (start, end) pairs of positions.
+     */
+    private static final class Slices extends InputStream {
+        /** The file channel, read at explicit positions. */
+        private final FileChannel channel;
+
+        /** The (start, end) pairs of positions of the bytes to read. */
+        private final long[] ranges;
+
+        /** Index in {@link #ranges} of the current range start. */
+        private int range;
+
+        /** Position in the file of the next byte to read. */
+        private long position;
+
+        /** Buffer for the single-byte {@link #read()} method. */
+        private final byte[] single;
+
+        /** Creates a new stream over the given ranges of the given channel. */
+        Slices(final FileChannel channel, final long[] ranges) {
+            this.channel = channel;
+            this.ranges  = ranges;
+            this.single  = new byte[1];
+            position = ranges[0];
+        }
+
+        /** Reads a single byte. */
+        @Override
+        public int read() throws IOException {
+            return (read(single, 0, 1) < 0) ? -1 : single[0] & 0xFF;
+        }
+
+        /** Reads bytes from the current range, moving to the next range when the current one is finished. */
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) return 0;
+            while (range < ranges.length) {
+                final long remaining = ranges[range + 1] - position;
+                if (remaining > 0) {
+                    final int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)), position);
+                    if (n < 0) break;                                   // File truncated after the pre-scan.
+                    position += n;
+                    return n;
+                }
+                range += 2;
+                if (range < ranges.length) {
+                    position = ranges[range];
+                }
+            }
+            return -1;
+        }
+
+        /** Closes the file channel. */
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -524,6 +524,27 @@ public abstract class StaxDataStore extends URIDataStore {
         return reader;
     }
 
+    /**
+     * Creates a new XML stream reader for reading a document from the given stream instead than from the storage.
+     * This method does not change the state of this data store; the stream is owned by the {@code target} reader,
+     * which will close it. This is used for reading subsets of a file concurrently with other readers.
+     *
+     * @param  target  the reader which will store the {@code XMLStreamReader} reference.
+     * @param  input   the stream of the XML document to read.
+     * @return a new reader for reading the given XML document.
+     * @throws DataStoreException if the data store is closed.
+     * @throws XMLStreamException if an error occurred while opening the XML document.
+     */
+    final synchronized XMLStreamReader createReader(final StaxStreamReader target, final InputStream input)
+            throws DataStoreException, XMLStreamException
+    {
+        if (storage == null) {
+            throw new DataStoreClosedException(getLocale(), getFormatName(), StandardOpenOption.READ);
+        }
+        target.stream = input;
+        return InputType.STREAM.create(this, input);
+    }
+
     /**
      * Creates a new XML stream writer for writing the XML document.
      * If another {@code XMLStreamWriter} has already been created before this method call,
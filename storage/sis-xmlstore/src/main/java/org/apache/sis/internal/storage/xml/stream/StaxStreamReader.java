@@ -29,6 +29,7 @@ import java.time.format.DateTimeParseException;
 import java.net.URI;
 import java.io.IOException;
 import java.io.EOFException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamConstants;
@@ -142,6 +143,22 @@ public abstract class StaxStreamReader extends StaxStreamIO implements XMLStream
         reader = owner.createReader(this);      // Okay because will not store the 'this' reference.
     }
 
+    /**
+     * Creates a new XML reader for a document provided by the given stream instead than the data store storage.
+     * This is used for reading a subset of the data store file, for example in a parallel iteration.
+     * The given stream will be closed when this reader is closed.
+     *
+     * @param  owner  the data store for which this reader is created.
+     * @param  input  the stream of the XML document to read.
+     * @throws DataStoreException if the data store is closed.
+     * @throws XMLStreamException if an error occurred while opening the XML document.
+     */
+    @SuppressWarnings("ThisEscapedInObjectConstruction")
+    protected StaxStreamReader(final StaxDataStore owner, final InputStream input) throws DataStoreException, XMLStreamException {
+        super(owner);
+        reader = owner.createReader(this, input);
+    }
+
     /**
      * Returns the characteristics of the iteration over feature instances.
      * The iteration is assumed {@link #ORDERED} in the declaration order in the XML file.
@@ -19,7 +19,13 @@ package org.apache.sis.internal.storage.gpx;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.ArrayList;
 import java.util.stream.Stream;
+import java.util.stream.Collectors;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import com.esri.core.geometry.Point;
 import com.esri.core.geometry.Polyline;
@@ -51,7 +57,7 @@ import org.opengis.util.GenericName;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.0
  * @since   0.8
  * @module
  */
@@ -547,6 +553,29 @@ public final strictfp class ReaderTest extends TestCase {
         }
     }
 
+    /**
+     * Tests reading the coordinates of GPX version 1.1.0 track points in primitive arrays.
+     *
+     * @throws DataStoreException if reader failed to be created or failed at reading.
+     */
+    @Test
+    @DependsOnMethod("testTrack110")
+    public void testReadPoints() throws DataStoreException {
+        final PointArrays points = new PointArrays(true, true, true);
+        try (Store reader = create("1.1/track.xml")) {
+            reader.readPoints(points);
+        }
+        points.trimToSize();
+        assertEquals("size", 3, points.size());
+        assertArrayEquals("segmentStarts", new int[] {0, 3}, points.segmentStarts);
+        assertArrayEquals("latitudes",  new double[] {10, 20, 30},       points.latitudes,  STRICT);
+        assertArrayEquals("longitudes", new double[] {15, 25, 35},       points.longitudes, STRICT);
+        assertArrayEquals("elevations", new double[] {140, Double.NaN, 150}, points.elevations, STRICT);
+        assertArrayEquals("times", new long[] {
+            Instant.parse("2010-01-10T00:00:00Z").toEpochMilli(), PointArrays.NO_TIME,
+            Instant.parse("2010-01-30T00:00:00Z").toEpochMilli()}, points.times);
+    }
+
     /**
      * Tests parsing of GPX version 1.1.0 route without reading the metadata before it.
      * The reader is expected to skip metadata without unmarshalling them.
@@ -630,4 +659,101 @@ public final strictfp class ReaderTest extends TestCase {
             f3.close();
         }
     }
+
+    /**
+     * Writes a GPX file with way points, a route and the given number of tracks. Some tracks use a namespace prefix
+     * declared on the root element, and comments, CDATA sections and extensions contain texts looking like tracks,
+     * for testing the pre-scan performed by the parallel reader. The last track is an empty element.
+     */
+    private static void writeTracks(final Path file, final int count) throws IOException {
+        final StringBuilder gpx = new StringBuilder(count * 400)
+                .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<!-- Not a track: <trk> -->\n")
+                .append("<gpx xmlns=\"http://www.topografix.com/GPX/1/1\" version=\"1.1\" creator=\"Test\"\n")
+                .append("     xmlns:g=\"http://www.topografix.com/GPX/1/1\" xmlns:x=\"urn:test\">\n")
+                .append("  <metadata><name>Tracks</name></metadata>\n")
+                .append("  <wpt lat=\"10\" lon=\"20\"><name>First way point</name></wpt>\n")
+                .append("  <wpt lat=\"11\" lon=\"21\"><name>Second way point</name></wpt>\n")
+                .append("  <rte><name>Route</name><rtept lat=\"1\" lon=\"2\"/><rtept lat=\"3\" lon=\"4\"/></rte>\n");
+        for (int i=1; i<count; i++) {
+            final String tag = (i % 3 == 0) ? "g:trk" : "trk";
+            gpx.append("  <").append(tag).append(">\n")
+               .append("    <name>Track ").append(i).append("</name>\n")
+               .append("    <desc><![CDATA[Contains </trk> and <trk>]]></desc>\n")
+               .append("    <!-- </trk> -->\n")
+               .append("    <extensions><x:trk attribute=\"a > b\"/></extensions>\n")
+               .append("    <trkseg>\n");
+            for (int j=0; j <= i % 5; j++) {
+                gpx.append("      <trkpt lat=\"").append(i).append("\" lon=\"").append(j).append("\"/>\n");
+            }
+            gpx.append("    </trkseg>\n")
+               .append("  </").append(tag).append(">\n");
+        }
+        gpx.append("  <trk/>\n")
+           .append("</gpx>\n")
+           .append("<!-- End of file -->\n");
+        Files.write(file, gpx.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns a string representation of the type, identifier, name and number of points of the given features.
+     */
+    private static List<String> describe(final Stream<AbstractFeature> features) {
+        return features.map((f) -> {
+            final StringBuilder b = new StringBuilder()
+                    .append(f.getType().getName()).append(' ')
+                    .append(f.getPropertyValue("sis:identifier")).append(' ')
+                    .append(f.getPropertyValue("name"));
+            final Object geometry = f.getPropertyValue("sis:geometry");
+            if (geometry instanceof Polyline) {
+                b.append(' ').append(((Polyline) geometry).getPointCount());
+            }
+            return b.toString();
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * Tests the decoding of tracks in parallel. The features in the parallel stream shall be the same,
+     * in the same order, than the features in the sequential stream.
+     *
+     * @throws IOException if an error occurred while writing the temporary file.
+     * @throws DataStoreException if reader failed to be created or failed at reading.
+     */
+    @Test
+    @DependsOnMethod("testTrack110")
+    public void testParallelTracks() throws IOException, DataStoreException {
+        final int count = 100;
+        final Path file = Files.createTempFile("sis", ".gpx");
+        try {
+            writeTracks(file, count);
+            try (Store reader = new Store(provider, new StorageConnector(file))) {
+                final List<String> expected;
+                try (Stream<AbstractFeature> features = reader.features(false)) {
+                    expected = describe(features);
+                }
+                assertEquals("size", 3 + count, expected.size());
+                assertTrue(expected.get(3), expected.get(3).endsWith(" 1 Track 1 2"));
+                assertTrue(expected.get(3 + count - 1), expected.get(3 + count - 1).endsWith(" " + count + " null"));
+                final List<String> actual;
+                try (Stream<AbstractFeature> features = reader.features(true)) {
+                    assertTrue("isParallel", features.isParallel());
+                    actual = describe(features);
+                }
+                assertEquals(expected, actual);
+                /*
+                 * Stop the iteration before the end, then verify that the data store can still be read.
+                 */
+                try (Stream<AbstractFeature> features = reader.features(true)) {
+                    assertEquals("limit", 20, features.limit(20).count());
+                }
+                final List<String> again = new ArrayList<>();
+                try (Stream<AbstractFeature> features = reader.features(false)) {
+                    again.addAll(describe(features));
+                }
+                assertEquals(expected, again);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
 }